@@ -11,6 +11,7 @@ import com.styp.cenate.repository.UsuarioRepository;
 import com.styp.cenate.repository.AseguradoRepository;
 import com.styp.cenate.repository.bolsas.SolicitudBolsaRepository;
 import com.styp.cenate.security.mbac.CheckMBACPermission;
+import com.styp.cenate.service.teleekgs.MiniaturaECGService;
 import com.styp.cenate.service.teleekgs.TeleECGService;
 import com.styp.cenate.service.teleekgs.TeleECGEstadoTransformer;
 import com.styp.cenate.service.ipress.IpressService;
@@ -28,14 +29,21 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -63,6 +71,9 @@ public class TeleECGController {
     @Autowired
     private TeleECGService teleECGService;
 
+    @Autowired
+    private MiniaturaECGService miniaturaECGService;
+
     @Autowired
     private TeleECGEstadoTransformer estadoTransformer;
 
@@ -591,69 +602,112 @@ public class TeleECGController {
     /**
      * Descargar imagen
      * ✅ v1.52.4: Removido @CheckMBACPermission - lectura permitida para usuarios autenticados
+     * ✅ v2.2.0: Streaming (sin byte[] en memoria), Range (206) y ETag = SHA256 (If-None-Match → 304)
      */
     @GetMapping("/{idImagen}/descargar")
     @Operation(summary = "Descargar imagen ECG")
-    public ResponseEntity<byte[]> descargarImagen(
+    public ResponseEntity<Resource> descargarImagen(
             @PathVariable Long idImagen,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            WebRequest webRequest) {
 
         log.info("⬇️ Descargando - ID: {}", idImagen);
 
-        try {
-            Long idUsuario = getUsuarioActual();
-            byte[] contenido = teleECGService.descargarImagen(
-                idImagen, idUsuario, request.getRemoteAddr()
-            );
-
-            // Obtener metadata para headers correctos
-            TeleECGImagenDTO imagen = teleECGService.obtenerDetallesImagen(
-                idImagen, idUsuario, request.getRemoteAddr()
-            );
-
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(imagen.getMimeType() != null ? imagen.getMimeType() : "image/jpeg"))
-                .header("Content-Disposition",
-                    "attachment; filename=\"" + imagen.getNombreArchivo() + "\"")
-                .header("Content-Length", String.valueOf(imagen.getSizeBytes()))
-                .body(contenido);
-        } catch (Exception e) {
-            log.error("❌ Error descargando", e);
-            return ResponseEntity.notFound().build();
-        }
+        return responderImagen(idImagen, request, webRequest, true, CacheControl.noCache().cachePrivate());
     }
 
     /**
      * Ver preview de imagen (mostrar inline en navegador)
      * ✅ v1.52.4: Removido @CheckMBACPermission - lectura permitida para usuarios autenticados
+     * ✅ v2.2.0: Streaming, Range y ETag como en /descargar
      */
     @GetMapping("/preview/{imagenId}")
     @Operation(summary = "Ver preview de imagen ECG")
-    public ResponseEntity<byte[]> verPreview(
+    public ResponseEntity<Resource> verPreview(
             @PathVariable Long imagenId,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            WebRequest webRequest) {
 
         log.info("👁️ Preview - ID: {}", imagenId);
 
+        return responderImagen(imagenId, request, webRequest, false,
+            CacheControl.maxAge(Duration.ofHours(1)).cachePublic());
+    }
+
+    /**
+     * Miniatura JPEG precalculada para listados
+     * ✅ v2.3.0: Anchos 160 / 480 / 1024 px; inmutable (SHA256) → caché de 1 año
+     */
+    @GetMapping("/{idImagen}/miniatura")
+    @Operation(summary = "Ver miniatura de imagen ECG")
+    public ResponseEntity<Resource> verMiniatura(
+            @PathVariable Long idImagen,
+            @RequestParam(defaultValue = "160") int ancho,
+            WebRequest webRequest) {
+
         try {
-            Long idUsuario = getUsuarioActual();
-            byte[] contenido = teleECGService.descargarImagen(
-                imagenId, idUsuario, request.getRemoteAddr()
-            );
+            TeleECGService.ImagenECGDescarga imagen = teleECGService.obtenerMetadatosDescarga(idImagen);
+            int anchoMiniatura = MiniaturaECGService.normalizarAncho(ancho);
+            String etag = "\"" + imagen.sha256() + "-w" + anchoMiniatura + "\"";
+            String cacheControl = "private, max-age=31536000, immutable";
+
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+            }
 
-            // Obtener metadata para headers correctos
-            TeleECGImagenDTO imagen = teleECGService.obtenerDetallesImagen(
-                imagenId, idUsuario, request.getRemoteAddr()
+            Path miniatura = miniaturaECGService.obtenerMiniatura(imagen, anchoMiniatura);
+            return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .body(new FileSystemResource(miniatura));
+        } catch (Exception e) {
+            log.error("❌ Error obteniendo miniatura de imagen {}", idImagen, e);
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Respuesta común de /descargar y /preview
+     *
+     * - If-None-Match con el SHA256 → 304 sin leer BD ni archivo (metadatos en caché)
+     * - Range → Spring responde 206 con las regiones del Resource
+     * - Content-Length lo calcula Spring desde el Resource
+     */
+    private ResponseEntity<Resource> responderImagen(Long idImagen, HttpServletRequest request,
+                                                     WebRequest webRequest, boolean adjunto,
+                                                     CacheControl cacheControl) {
+        try {
+            TeleECGService.ImagenECGDescarga imagen = teleECGService.obtenerMetadatosDescarga(idImagen);
+            String etag = "\"" + imagen.sha256() + "\"";
+
+            if (webRequest.checkNotModified(etag)) {
+                log.debug("✅ Imagen {} sin cambios (304)", idImagen);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+            }
+
+            Resource contenido = teleECGService.abrirContenidoImagen(
+                imagen, getUsuarioActual(), request.getRemoteAddr()
             );
 
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(imagen.getMimeType() != null ? imagen.getMimeType() : "image/jpeg"))
-                // Sin Content-Disposition: attachment, se muestra inline
-                .header("Content-Length", String.valueOf(imagen.getSizeBytes()))
-                .header("Cache-Control", "public, max-age=3600")
-                .body(contenido);
+            ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(imagen.mimeType() != null ? imagen.mimeType() : "image/jpeg"))
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (adjunto) {
+                respuesta.header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + imagen.nombreArchivo() + "\"");
+            }
+            return respuesta.body(contenido);
         } catch (Exception e) {
-            log.error("❌ Error en preview", e);
+            log.error("❌ Error descargando imagen {}", idImagen, e);
             return ResponseEntity.notFound().build();
         }
     }
@@ -5,6 +5,8 @@ import com.styp.cenate.dto.mesaayuda.TicketMesaAyudaResponseDTO;
 import com.styp.cenate.dto.mesaayuda.ResponderTicketDTO;
 import com.styp.cenate.dto.mesaayuda.MotivoMesaAyudaDTO;
 import com.styp.cenate.dto.mesaayuda.RespuestaPredefinidaDTO;
+import com.styp.cenate.dto.PaginaCursorDTO;
+import com.styp.cenate.enumd.ModoConteo;
 import com.styp.cenate.service.mesaayuda.TicketMesaAyudaService;
 import com.styp.cenate.service.mesaayuda.TicketMesaAyudaService.KPIsTicketDTO;
 import lombok.RequiredArgsConstructor;
@@ -233,6 +235,41 @@ public class TicketMesaAyudaController {
         return ResponseEntity.ok(resultado);
     }
 
+    /**
+     * ✅ v2.6.0: Búsqueda de tickets con paginación por cursor (mismos filtros que /tickets/buscar)
+     *
+     * @param after  Cursor "siguiente" de la página anterior (vacío = primera página)
+     * @param size   Tamaño de página (default 15)
+     * @param conteo EXACTO o LIMITADO (default); ESTIMADO se trata como LIMITADO
+     * @return PaginaCursorDTO de tickets
+     * @status 200 OK
+     */
+    @GetMapping("/tickets/buscar/cursor")
+    public ResponseEntity<PaginaCursorDTO<TicketMesaAyudaResponseDTO>> buscarConFiltrosCursor(
+        @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "15") int size,
+        @RequestParam(defaultValue = "LIMITADO") ModoConteo conteo,
+        @RequestParam(required = false) String estados,
+        @RequestParam(required = false) String prioridad,
+        @RequestParam(required = false) String dniPaciente,
+        @RequestParam(required = false) String numeroTicket,
+        @RequestParam(required = false) Long idMedico,
+        @RequestParam(required = false) String nombreAsignado,
+        @RequestParam(required = false) LocalDate fechaDesde,
+        @RequestParam(required = false) LocalDate fechaHasta,
+        @RequestParam(required = false) LocalDate fechaAtencionDesde,
+        @RequestParam(required = false) LocalDate fechaAtencionHasta,
+        @RequestParam(required = false) Long idMotivo
+    ) {
+        log.info("GET /api/mesa-ayuda/tickets/buscar/cursor - size={}, conteo={}, after={}, estados={}, prioridad={}, dni={}, ticket={}",
+            size, conteo, after != null, estados, prioridad, dniPaciente, numeroTicket);
+
+        return ResponseEntity.ok(ticketService.buscarConFiltrosCursor(
+            estados, prioridad, dniPaciente, numeroTicket, idMedico, nombreAsignado, fechaDesde, fechaHasta,
+            fechaAtencionDesde, fechaAtencionHasta, idMotivo, after, Math.max(1, Math.min(size, 500)), conteo
+        ));
+    }
+
     // ========== MÉDICOS CON CONTEO DE TICKETS ==========
 
     /**
@@ -10,6 +10,8 @@
 package com.styp.cenate.api.area;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.styp.cenate.security.service.PrincipalCacheService;
+import com.styp.cenate.service.usuario.InvalidarPersonalPorRol;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -52,6 +54,7 @@ import java.util.concurrent.TimeUnit;
 public class PersonalTotalController {
 
     private final JdbcTemplate jdbcTemplate;
+    private final PrincipalCacheService principalCacheService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${cenate.storage.fotos-dir:uploads/personal}")
@@ -626,6 +629,7 @@ public class PersonalTotalController {
     // =========================================================================
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('/roles/admin/personal/eliminar', 'ROLE_SUPERADMIN')")
+    @InvalidarPersonalPorRol
     public ResponseEntity<Map<String, Object>> eliminarPersonal(@PathVariable("id") Long id) {
         try {
             log.info("🗑️ Eliminando personal ID: {}", id);
@@ -641,8 +645,9 @@ public class PersonalTotalController {
             
             if (updated > 0) {
                 // También desactivar el usuario
-                String updateUserSql = "UPDATE dim_usuarios SET stat_user = 'INACTIVO' WHERE id_user = ?";
-                jdbcTemplate.update(updateUserSql, id);
+                String updateUserSql = "UPDATE dim_usuarios SET stat_user = 'INACTIVO' WHERE id_user = ? RETURNING name_user";
+                // ✅ v2.6.0: El usuario desactivado deja de autenticarse ya, no al vencer el caché del principal
+                jdbcTemplate.queryForList(updateUserSql, String.class, id).forEach(principalCacheService::invalidar);
                 
                 log.info("✅ Personal eliminado (soft delete) exitosamente: {}", id);
                 return ResponseEntity.ok(Map.of("message", "Personal eliminado exitosamente"));
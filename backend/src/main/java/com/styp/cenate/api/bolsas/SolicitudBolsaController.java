@@ -5,9 +5,16 @@ import com.styp.cenate.dto.bolsas.SolicitudBolsaDTO;
 import com.styp.cenate.dto.bolsas.ActualizarEstadoCitaDTO;
 import com.styp.cenate.dto.bolsas.CrearSolicitudAdicionalRequest;
 import com.styp.cenate.dto.bolsas.CargaMasivaRequest;
+import com.styp.cenate.dto.bolsas.ResultadoOperacionMasivaDTO;
+import com.styp.cenate.dto.bolsas.FiltroBandejaBolsa;
+import com.styp.cenate.dto.bolsas.BusquedaFacetadaBolsaDTO;
+import com.styp.cenate.dto.PaginaCursorDTO;
+import com.styp.cenate.enumd.ModoConteo;
 import com.styp.cenate.model.bolsas.HistorialCargaBolsas;
 import com.styp.cenate.repository.bolsas.HistorialCargaBolsasRepository;
 import com.styp.cenate.repository.PersonalCntRepository;
+import com.styp.cenate.service.bolsas.ImportacionBolsaAsyncService;
+import com.styp.cenate.service.bolsas.SolicitudBolsaExportService;
 import com.styp.cenate.service.bolsas.SolicitudBolsaService;
 import com.styp.cenate.security.mbac.CheckMBACPermission;
 import lombok.RequiredArgsConstructor;
@@ -25,7 +32,12 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -68,7 +80,10 @@ import java.time.format.DateTimeFormatter;
 @RequiredArgsConstructor
 public class SolicitudBolsaController {
 
+    private static final int TAMANO_MAXIMO_PAGINA = 1000;
+
     private final SolicitudBolsaService solicitudBolsaService;
+    private final ImportacionBolsaAsyncService importacionBolsaAsyncService; // ✅ v2.3.0: importación en segundo plano
     private final HistorialCargaBolsasRepository historialRepository;
     private final SolicitudBolsaRepository solicitudRepository;
     private final DimEstadosGestionCitasRepository estadosRepository;
@@ -78,6 +93,7 @@ public class SolicitudBolsaController {
     private final SolicitudCitaRepository solicitudCitaRepository; // v1.67.0: Para horas ocupadas
     private final TrazabilidadBolsaService trazabilidadBolsaService; // v1.75.0: Timeline de solicitud
     private final PersonalCntRepository personalCntRepository; // ✅ v1.86.0: Resolver nombre profesional en atenciones-generadas
+    private final SolicitudBolsaExportService solicitudBolsaExportService; // ✅ v2.6.0: Exportaciones en streaming
 
     /**
      * Importa solicitudes desde archivo Excel
@@ -113,51 +129,10 @@ public class SolicitudBolsaController {
             // ============================================================================
             var archivoExistente = historialRepository.findByHashArchivo(hashArchivo);
             if (archivoExistente.isPresent()) {
-                log.warn("⚠️ Intento de carga de archivo duplicado: {} | Hash: {}",
-                    file.getOriginalFilename(), hashArchivo);
-
-                return ResponseEntity.badRequest().body(Map.of(
-                    "error", "Archivo ya cargado",
-                    "mensaje", "Este archivo ya fue cargado previamente el " +
-                               archivoExistente.get().getFechaCreacion() +
-                               ". No se permiten cargar el mismo archivo dos veces.",
-                    "instrucciones", "Si deseas cargar nuevos pacientes, por favor selecciona un archivo diferente o actualiza los datos en el Excel.",
-                    "archivo_anterior", archivoExistente.get().getNombreArchivo(),
-                    "filas_cargadas_anteriormente", archivoExistente.get().getFilasOk()
-                ));
-            }
-
-            // ✅ Obtener el id_user del usuario logueado desde dim_usuarios
-            Long idUserLogueado = null;
-            try {
-                var auth = SecurityContextHolder.getContext().getAuthentication();
-                if (auth != null && auth.isAuthenticated()) {
-                    String username = auth.getName();
-                    Optional<Usuario> usuarioOpt = usuarioRepository.findByNameUser(username);
-                    if (usuarioOpt.isPresent()) {
-                        idUserLogueado = usuarioOpt.get().getIdUser();
-                        log.info("👤 Usuario logueado: {} (id_user: {})", username, idUserLogueado);
-                    } else {
-                        log.warn("⚠️ Usuario autenticado '{}' no encontrado en dim_usuarios", username);
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("⚠️ No se pudo obtener id_user del usuario logueado: {}", e.getMessage());
+                return respuestaArchivoDuplicado(file, hashArchivo, archivoExistente.get());
             }
 
-            historial = HistorialCargaBolsas.builder()
-                .nombreArchivo(file.getOriginalFilename())
-                .hashArchivo(hashArchivo)
-                .usuarioCarga(usuarioCarga)
-                .idUser(idUserLogueado)
-                .estadoCarga("PROCESANDO")
-                .fechaReporte(LocalDate.now())
-                .totalFilas(0)
-                .filasOk(0)
-                .filasError(0)
-                .build();
-
-            historial = historialRepository.save(historial);
+            historial = historialRepository.save(nuevoHistorial(file, hashArchivo, usuarioCarga));
             Long idHistorial = historial.getIdCarga();
             log.info("✅ Historial creado - ID: {}, Archivo: {}", idHistorial, file.getOriginalFilename());
 
@@ -208,6 +183,153 @@ public class SolicitudBolsaController {
         }
     }
 
+    /**
+     * ✅ v2.3.0: Importa solicitudes desde Excel en segundo plano
+     * POST /api/bolsas/solicitudes/importar/async
+     *
+     * Responde 202 con el idHistorial de inmediato; el avance se consulta en
+     * GET /api/bolsas/solicitudes/importar/{idHistorial}/estado
+     */
+    @PostMapping(value = "/importar/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importarDesdeExcelAsync(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("idBolsa") Long idBolsa,
+            @RequestParam("idServicio") Long idServicio,
+            @RequestParam(value = "usuarioCarga", defaultValue = "admin") String usuarioCarga) {
+
+        HistorialCargaBolsas historial = null;
+        Path temporal = null;
+        try {
+            log.info("📤 Iniciando importación en segundo plano - Bolsa: {}, Servicio: {}, Usuario: {}",
+                idBolsa, idServicio, usuarioCarga);
+
+            String hashArchivo = calcularHashArchivo(file);
+            var archivoExistente = historialRepository.findByHashArchivo(hashArchivo);
+            if (archivoExistente.isPresent()) {
+                return respuestaArchivoDuplicado(file, hashArchivo, archivoExistente.get());
+            }
+
+            // El multipart se elimina al terminar el request: copiar a un temporal propio
+            temporal = Files.createTempFile("bolsa-import-", ".xlsx");
+            try (var in = file.getInputStream()) {
+                Files.copy(in, temporal, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            historial = historialRepository.save(nuevoHistorial(file, hashArchivo, usuarioCarga));
+            Long idHistorial = historial.getIdCarga();
+
+            importacionBolsaAsyncService.importar(
+                temporal, file.getOriginalFilename(), idBolsa, idServicio, usuarioCarga, idHistorial);
+            temporal = null; // ahora lo elimina la tarea en segundo plano
+
+            log.info("✅ Importación encolada - Historial ID: {}, Archivo: {}", idHistorial, file.getOriginalFilename());
+            return ResponseEntity.accepted().body(Map.of(
+                "idHistorial", idHistorial,
+                "estado", historial.getEstadoCarga(),
+                "mensaje", "Importación en proceso. Consulta el avance en /api/bolsas/solicitudes/importar/" + idHistorial + "/estado"
+            ));
+
+        } catch (Exception e) {
+            log.error("❌ Error iniciando importación en segundo plano: ", e);
+            if (historial != null) {
+                try {
+                    historial.setEstadoCarga("ERROR");
+                    historialRepository.save(historial);
+                } catch (Exception ex) {
+                    log.warn("⚠️ No se pudo actualizar estado del historial a ERROR: {}", ex.getMessage());
+                }
+            }
+            if (temporal != null) {
+                try {
+                    Files.deleteIfExists(temporal);
+                } catch (IOException ex) {
+                    log.warn("⚠️ No se pudo eliminar archivo temporal: {}", ex.getMessage());
+                }
+            }
+            return ResponseEntity.badRequest().body(
+                Map.of("error", "Error en importación: " + e.getMessage())
+            );
+        }
+    }
+
+    /**
+     * ✅ v2.3.0: Avance de una importación
+     * GET /api/bolsas/solicitudes/importar/{idHistorial}/estado
+     *
+     * @return estado (PROCESANDO / PROCESADO / ERROR) y filas procesadas hasta el momento
+     */
+    @GetMapping("/importar/{idHistorial}/estado")
+    public ResponseEntity<?> obtenerEstadoImportacion(@PathVariable Long idHistorial) {
+        return historialRepository.findById(idHistorial)
+            .<ResponseEntity<?>>map(h -> {
+                Map<String, Object> estado = new HashMap<>();
+                estado.put("idHistorial", h.getIdCarga());
+                estado.put("nombreArchivo", h.getNombreArchivo());
+                estado.put("estado", h.getEstadoCarga());
+                estado.put("filas_total", h.getTotalFilas());
+                estado.put("filas_ok", h.getFilasOk());
+                estado.put("filas_error", h.getFilasError());
+                estado.put("fechaActualizacion", h.getFechaActualizacion());
+                return ResponseEntity.ok(estado);
+            })
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Importación no encontrada: " + idHistorial)));
+    }
+
+    /**
+     * Respuesta 400 para un archivo ya cargado (mismo hash SHA-256)
+     */
+    private ResponseEntity<?> respuestaArchivoDuplicado(MultipartFile file, String hashArchivo,
+                                                        HistorialCargaBolsas existente) {
+        log.warn("⚠️ Intento de carga de archivo duplicado: {} | Hash: {}",
+            file.getOriginalFilename(), hashArchivo);
+
+        return ResponseEntity.badRequest().body(Map.of(
+            "error", "Archivo ya cargado",
+            "mensaje", "Este archivo ya fue cargado previamente el " +
+                       existente.getFechaCreacion() +
+                       ". No se permiten cargar el mismo archivo dos veces.",
+            "instrucciones", "Si deseas cargar nuevos pacientes, por favor selecciona un archivo diferente o actualiza los datos en el Excel.",
+            "archivo_anterior", existente.getNombreArchivo(),
+            "filas_cargadas_anteriormente", existente.getFilasOk()
+        ));
+    }
+
+    /**
+     * Historial en estado PROCESANDO vinculado al usuario logueado (id_user de dim_usuarios)
+     */
+    private HistorialCargaBolsas nuevoHistorial(MultipartFile file, String hashArchivo, String usuarioCarga) {
+        // ✅ Obtener el id_user del usuario logueado desde dim_usuarios
+        Long idUserLogueado = null;
+        try {
+            var auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.isAuthenticated()) {
+                String username = auth.getName();
+                Optional<Usuario> usuarioOpt = usuarioRepository.findByNameUser(username);
+                if (usuarioOpt.isPresent()) {
+                    idUserLogueado = usuarioOpt.get().getIdUser();
+                    log.info("👤 Usuario logueado: {} (id_user: {})", username, idUserLogueado);
+                } else {
+                    log.warn("⚠️ Usuario autenticado '{}' no encontrado en dim_usuarios", username);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo obtener id_user del usuario logueado: {}", e.getMessage());
+        }
+
+        return HistorialCargaBolsas.builder()
+            .nombreArchivo(file.getOriginalFilename())
+            .hashArchivo(hashArchivo)
+            .usuarioCarga(usuarioCarga)
+            .idUser(idUserLogueado)
+            .estadoCarga("PROCESANDO")
+            .fechaReporte(LocalDate.now())
+            .totalFilas(0)
+            .filasOk(0)
+            .filasError(0)
+            .build();
+    }
+
     /**
      * Calcula el hash SHA-256 del archivo de forma eficiente (stream)
      * No lee TODO el archivo en memoria, lo procesa en chunks
@@ -589,6 +711,85 @@ public class SolicitudBolsaController {
         return ResponseEntity.ok(solicitudBolsaService.listarTodasPaginado(pageable));
     }
 
+    /**
+     * ✅ v2.6.0: Bandeja con paginación por cursor (mismos filtros que GET /api/bolsas/solicitudes)
+     * GET /api/bolsas/solicitudes/cursor?size=100&conteo=ESTIMADO
+     * GET /api/bolsas/solicitudes/cursor?after={siguiente}&size=100
+     *
+     * Sin OFFSET: cada página se pide con el cursor "siguiente" de la anterior, así las páginas
+     * profundas cuestan lo mismo que la primera. conteo = EXACTO | ESTIMADO (default) | LIMITADO.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<PaginaCursorDTO<SolicitudBolsaDTO>> listarConCursor(
+            @RequestParam(required = false) String bolsa,
+            @RequestParam(required = false) String macrorregion,
+            @RequestParam(required = false) String red,
+            @RequestParam(required = false) String ipress,
+            @RequestParam(required = false) String especialidad,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String ipressAtencion,
+            @RequestParam(required = false) String tipoCita,
+            @RequestParam(required = false) String asignacion,
+            @RequestParam(required = false) String busqueda,
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(required = false) String fechaFin,
+            @RequestParam(required = false) String condicionMedica,
+            @RequestParam(required = false) Long gestoraId,
+            @RequestParam(required = false) String estadoBolsa,
+            @RequestParam(required = false) String categoriaEspecialidad,
+            @RequestParam(required = false) String estrategia,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "ESTIMADO") ModoConteo conteo) {
+
+        FiltroBandejaBolsa filtro = FiltroBandejaBolsa.de(
+                bolsa, macrorregion, red, ipress, especialidad, estado, ipressAtencion, tipoCita, asignacion,
+                busqueda, fechaInicio, fechaFin, condicionMedica, gestoraId, estadoBolsa, categoriaEspecialidad,
+                estrategia);
+        int tamano = Math.max(1, Math.min(size, TAMANO_MAXIMO_PAGINA));
+        log.info("📋 Bandeja por cursor - size: {}, conteo: {}, after: {}", tamano, conteo, after != null);
+        return ResponseEntity.ok(solicitudBolsaService.listarConCursor(filtro, after, tamano, conteo));
+    }
+
+    /**
+     * ✅ v2.6.0: Búsqueda facetada (mismos filtros que GET /api/bolsas/solicitudes)
+     * GET /api/bolsas/solicitudes/facetado?bolsa=...&page=0&size=100
+     *
+     * Una sola consulta devuelve la página, el total, el KPI por estado y las facetas
+     * (tipos de bolsa, especialidades, estados de bolsa, tipos de cita, IPRESS) del filtro,
+     * en lugar de pedir listado, KPI con filtros y facetas por separado.
+     */
+    @GetMapping("/facetado")
+    public ResponseEntity<BusquedaFacetadaBolsaDTO> buscarFacetado(
+            @RequestParam(required = false) String bolsa,
+            @RequestParam(required = false) String macrorregion,
+            @RequestParam(required = false) String red,
+            @RequestParam(required = false) String ipress,
+            @RequestParam(required = false) String especialidad,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String ipressAtencion,
+            @RequestParam(required = false) String tipoCita,
+            @RequestParam(required = false) String asignacion,
+            @RequestParam(required = false) String busqueda,
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(required = false) String fechaFin,
+            @RequestParam(required = false) String condicionMedica,
+            @RequestParam(required = false) Long gestoraId,
+            @RequestParam(required = false) String estadoBolsa,
+            @RequestParam(required = false) String categoriaEspecialidad,
+            @RequestParam(required = false) String estrategia,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+
+        FiltroBandejaBolsa filtro = FiltroBandejaBolsa.de(
+                bolsa, macrorregion, red, ipress, especialidad, estado, ipressAtencion, tipoCita, asignacion,
+                busqueda, fechaInicio, fechaFin, condicionMedica, gestoraId, estadoBolsa, categoriaEspecialidad,
+                estrategia);
+        int tamano = Math.max(1, Math.min(size, TAMANO_MAXIMO_PAGINA));
+        log.info("🔍 Búsqueda facetada - page: {}, size: {}", page, tamano);
+        return ResponseEntity.ok(solicitudBolsaService.buscarFacetado(filtro, Math.max(page, 0), tamano));
+    }
+
     /**
      * Exporta solicitudes seleccionadas a formato CSV
      * GET /api/bolsas/solicitudes/exportar?ids=1,2,3
@@ -599,12 +800,14 @@ public class SolicitudBolsaController {
      *
      * Accesible a: Todos los usuarios autenticados (ADMIN, SUPERADMIN, COORDINADOR, MEDICO, etc.)
      *
+     * ✅ v2.6.0: El CSV se escribe en streaming, leyendo las solicitudes en lotes
+     *
      * @param ids lista de IDs de solicitudes a exportar (parámetro query)
      * @return archivo CSV con los datos de las solicitudes
      */
     @GetMapping("/exportar")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<byte[]> exportarCSV(
+    public ResponseEntity<StreamingResponseBody> exportarCSV(
         @RequestParam(value = "ids", required = false) List<Long> ids) {
         log.info("📄 Exportando {} solicitudes seleccionadas a CSV", ids != null ? ids.size() : 0);
 
@@ -613,9 +816,9 @@ public class SolicitudBolsaController {
             return ResponseEntity.badRequest().build();
         }
 
-        byte[] csvData = solicitudBolsaService.exportarCSV(ids);
+        List<Long> idsExportar = solicitudBolsaExportService.idsParaCSV(ids);
 
-        if (csvData.length == 0) {
+        if (idsExportar.isEmpty()) {
             log.warn("⚠️ No hay datos para exportar");
             return ResponseEntity.noContent().build();
         }
@@ -623,7 +826,7 @@ public class SolicitudBolsaController {
         return ResponseEntity.ok()
             .header("Content-Type", "text/csv; charset=UTF-8")
             .header("Content-Disposition", "attachment; filename=\"solicitudes_" + System.currentTimeMillis() + ".csv\"")
-            .body(csvData);
+            .body(out -> solicitudBolsaExportService.escribirCSV(idsExportar, out));
     }
 
     /**
@@ -1307,14 +1510,16 @@ public class SolicitudBolsaController {
             }
 
             log.info("🗑️ Eliminando {} solicitudes: {}", ids.size(), ids);
-            int totalBorrados = solicitudBolsaService.eliminarMultiples(ids);
+            ResultadoOperacionMasivaDTO resultado = solicitudBolsaService.eliminarMultiples(ids);
+            int totalBorrados = resultado.getActualizados();
 
             log.info("✅ {} solicitudes eliminadas exitosamente", totalBorrados);
 
             return ResponseEntity.ok(Map.of(
                 "mensaje", totalBorrados + " solicitud(es) eliminada(s) exitosamente",
                 "totalBorrados", totalBorrados,
-                "ids", ids
+                "ids", ids,
+                "idsOmitidos", resultado.getIdsOmitidos()
             ));
 
         } catch (IllegalArgumentException e) {
@@ -1361,12 +1566,14 @@ public class SolicitudBolsaController {
             }
 
             log.info("↩️ Devolviendo {} solicitudes a PENDIENTE | motivo: {}", ids.size(), motivo);
-            int actualizados = solicitudBolsaService.devolverAPendientes(ids, motivo);
+            ResultadoOperacionMasivaDTO resultado = solicitudBolsaService.devolverAPendientes(ids, motivo);
+            int actualizados = resultado.getActualizados();
 
             return ResponseEntity.ok(Map.of(
                 "mensaje", actualizados + " solicitud(es) devuelta(s) a pendientes exitosamente",
                 "actualizados", actualizados,
-                "ids", ids
+                "ids", ids,
+                "idsOmitidos", resultado.getIdsOmitidos()
             ));
 
         } catch (Exception e) {
@@ -1380,7 +1587,7 @@ public class SolicitudBolsaController {
      * POST /api/bolsas/solicitudes/rechazar-masivo
      *
      * Body: { "ids": [1, 2, 3] }
-     * Response: { "actualizados": 3 }
+     * Response: { "actualizados": 3, "idsOmitidos": [] }
      *
      * Roles permitidos: cualquier usuario autenticado con acceso al módulo de citas
      */
@@ -1411,12 +1618,15 @@ public class SolicitudBolsaController {
             String motivo = payload.get("motivo") instanceof String m ? m.trim() : null;
 
             log.info("❌ Anulando {} solicitudes: {} | motivo: {}", ids.size(), ids, motivo);
-            int actualizados = (motivo != null && !motivo.isEmpty())
+            ResultadoOperacionMasivaDTO resultado = (motivo != null && !motivo.isEmpty())
                 ? solicitudBolsaService.rechazarMasivoConMotivo(ids, motivo)
                 : solicitudBolsaService.rechazarMasivo(ids);
 
-            log.info("✅ {} solicitudes marcadas como RECHAZADO", actualizados);
-            return ResponseEntity.ok(Map.of("actualizados", actualizados));
+            log.info("✅ {} solicitudes marcadas como RECHAZADO", resultado.getActualizados());
+            return ResponseEntity.ok(Map.of(
+                "actualizados", resultado.getActualizados(),
+                "idsOmitidos", resultado.getIdsOmitidos()
+            ));
 
         } catch (RuntimeException e) {
             log.error("❌ Error al rechazar solicitudes: {}", e.getMessage());
@@ -1432,7 +1642,7 @@ public class SolicitudBolsaController {
      * POST /api/bolsas/solicitudes/asignar-gestora-masivo
      *
      * Body: { "ids": [1, 2, 3, ...], "idGestora": 5 }
-     * Response: { "actualizados": 47, "gestoraNombre": "Apellido, Nombre" }
+     * Response: { "actualizados": 47, "idsOmitidos": [], "mensaje": "..." }
      *
      * Roles permitidos: SUPERADMIN, ADMIN, COORD. GESTION CITAS, GESTOR DE CITAS
      */
@@ -1475,12 +1685,14 @@ public class SolicitudBolsaController {
                 : Long.parseLong(idGestoraObj.toString());
 
             log.info("👥 [BULK] Asignando gestora {} a {} solicitudes", idGestora, ids.size());
-            int actualizados = solicitudBolsaService.asignarGestoraMasivo(ids, idGestora);
+            ResultadoOperacionMasivaDTO resultado = solicitudBolsaService.asignarGestoraMasivo(ids, idGestora);
+            int actualizados = resultado.getActualizados();
             log.info("✅ [BULK] {} solicitudes asignadas a gestora {}", actualizados, idGestora);
 
             return ResponseEntity.ok(Map.of(
                 "mensaje", actualizados + " solicitud(es) asignada(s) exitosamente",
-                "actualizados", actualizados
+                "actualizados", actualizados,
+                "idsOmitidos", resultado.getIdsOmitidos()
             ));
 
         } catch (com.styp.cenate.exception.ResourceNotFoundException e) {
@@ -1605,12 +1817,14 @@ public class SolicitudBolsaController {
      * Exporta solicitudes asignadas (Mi Bandeja) de la gestora actual a EXCEL
      * GET /api/bolsas/solicitudes/exportar-asignados
      *
+     * ✅ v2.6.0: El EXCEL se genera con SXSSF y se escribe directo en la respuesta
+     *
      * @param ids lista opcional de IDs específicos a exportar
      * @return archivo EXCEL con todas las columnas de la tabla
      */
     @GetMapping("/exportar-asignados")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<byte[]> exportarAsignados(
+    public ResponseEntity<StreamingResponseBody> exportarAsignados(
             @RequestParam(value = "ids", required = false) String ids) {
         try {
             log.info("📄 Exportando solicitudes asignadas a EXCEL");
@@ -1634,22 +1848,27 @@ public class SolicitudBolsaController {
 
             if (idsList.isEmpty()) {
                 log.warn("⚠️ No hay solicitudes para exportar");
-                return ResponseEntity.badRequest().body("No hay solicitudes para exportar".getBytes());
+                return ResponseEntity.badRequest().body(texto("No hay solicitudes para exportar"));
             }
 
-            // Obtener datos en formato EXCEL
-            byte[] excelData = solicitudBolsaService.exportarExcelAsignados(idsList);
+            // Orden de la tabla (fecha de asignación descendente), solo solicitudes existentes
+            List<Long> idsExportar = solicitudBolsaExportService.idsParaExcelAsignados(idsList);
 
             return ResponseEntity.ok()
                 .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
                 .header("Content-Disposition", "attachment; filename=\"pacientes_asignados.xlsx\"")
-                .body(excelData);
+                .body(out -> solicitudBolsaExportService.escribirExcelAsignados(idsExportar, out));
         } catch (Exception e) {
             log.error("❌ Error exportando solicitudes asignadas: ", e);
-            return ResponseEntity.status(500).body(("Error: " + e.getMessage()).getBytes());
+            return ResponseEntity.status(500).body(texto("Error: " + e.getMessage()));
         }
     }
 
+    /** Cuerpo de texto plano para respuestas de error de los endpoints de exportación */
+    private static StreamingResponseBody texto(String mensaje) {
+        return out -> out.write(mensaje.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Crear solicitud adicional desde importación manual de gestora (v1.46.0)
      * POST /api/bolsas/solicitudes/crear-adicional
@@ -2,9 +2,9 @@ package com.styp.cenate.api.chatbot;
 
 import com.styp.cenate.model.GestionPaciente;
 import com.styp.cenate.model.PersonalCnt;
-import com.styp.cenate.model.Usuario;
 import com.styp.cenate.model.bolsas.SolicitudBolsa;
 import com.styp.cenate.repository.AseguradoRepository;
+import com.styp.cenate.repository.BusquedaPacienteDao;
 import com.styp.cenate.repository.GestionPacienteRepository;
 import com.styp.cenate.repository.PersonalCntRepository;
 import com.styp.cenate.repository.UsuarioRepository;
@@ -14,8 +14,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +28,10 @@ import java.util.stream.Collectors;
  *
  * Cada método anotado con @Tool es invocado automáticamente
  * por Claude cuando lo considera necesario para responder.
+ *
+ * ✅ v2.6.0: Las búsquedas por nombre/login y los resúmenes se resuelven
+ * en PostgreSQL (índices trigram sin tildes, GROUP BY) con límite de
+ * resultados; ninguna herramienta carga tablas completas.
  * ============================================================
  */
 @Component
@@ -39,6 +44,11 @@ public class TrazabilidadTools {
     private final UsuarioRepository usuarioRepository;
     private final PersonalCntRepository personalCntRepository;
     private final SolicitudBolsaRepository solicitudBolsaRepository;
+    private final BusquedaPacienteDao busquedaPacienteDao;
+
+    /** Máximo de filas que se devuelven al LLM por búsqueda */
+    private static final int LIMITE_RESULTADOS = 10;
+    private static final int LIMITE_USUARIOS = 20;
 
     // ============================================================
     // 🔍 HISTORIAL DE SOLICITUDES EN BOLSA
@@ -56,19 +66,12 @@ public class TrazabilidadTools {
             if (solicitudes.isEmpty()) {
                 return "No se encontraron solicitudes en bolsa para el DNI: " + dni;
             }
+            Map<Long, String> profesionales = nombresProfesionales(solicitudes);
             String resumen = solicitudes.stream()
                     .map(s -> {
-                        String responsable = "Sin asignar";
-                        if (s.getIdPersonal() != null) {
-                            responsable = personalCntRepository.findById(s.getIdPersonal())
-                                .map(p -> {
-                                    String n = ((p.getNomPers() != null ? p.getNomPers() : "") + " "
-                                        + (p.getApePaterPers() != null ? p.getApePaterPers() : "") + " "
-                                        + (p.getApeMaterPers() != null ? p.getApeMaterPers() : "")).trim();
-                                    return n.isEmpty() ? "ID " + s.getIdPersonal() : n;
-                                })
-                                .orElse("ID " + s.getIdPersonal());
-                        }
+                        String responsable = s.getIdPersonal() != null
+                                ? profesionales.getOrDefault(s.getIdPersonal(), "ID " + s.getIdPersonal())
+                                : "Sin asignar";
                         return String.format(
                             "ID=%d | Especialidad=%s | Estado=%s | Profesional=%s | IPRESS=%s | TipoCita=%s",
                             s.getIdSolicitud(),
@@ -203,18 +206,11 @@ public class TrazabilidadTools {
     public String buscarProfesional(String dniONombre) {
         log.info("[Trazabilidad] buscarProfesional({})", dniONombre);
         try {
-            // Búsqueda por nombre (mutable para poder agregar por DNI)
-            List<PersonalCnt> porNombre = new ArrayList<>(personalCntRepository
-                    .findByNomPersContainingIgnoreCaseOrApePaterPersContainingIgnoreCaseOrApeMaterPersContainingIgnoreCase(
-                            dniONombre, dniONombre, dniONombre));
-
-            // También buscar por DNI exacto si es numérico
-            if (dniONombre.matches("\\d+") && porNombre.isEmpty()) {
-                personalCntRepository.findAll().stream()
-                        .filter(p -> dniONombre.equals(p.getNumDocPers()))
-                        .findFirst()
-                        .ifPresent(porNombre::add);
-            }
+            // ✅ v2.6.0: DNI exacto (índice único) o nombre completo sin tildes (índice trigram)
+            List<PersonalCnt> porNombre = dniONombre.matches("\\d+")
+                    ? personalCntRepository.findByNumDocPers(dniONombre).map(List::of).orElse(List.of())
+                    : personalCntRepository.buscarPorNombreCompletoSinAcentos(dniONombre.trim(),
+                            BusquedaPacienteDao.escaparLike(dniONombre.trim()), LIMITE_RESULTADOS);
 
             if (porNombre.isEmpty()) {
                 return "No se encontró profesional con criterio: " + dniONombre;
@@ -264,6 +260,8 @@ public class TrazabilidadTools {
               .append(" (DNI: ").append(dni).append(") ===\n");
             sb.append("Total registros (activos + archivados): ").append(registros.size()).append("\n\n");
 
+            Map<Long, String> profesionales = nombresProfesionales(registros);
+
             registros.stream()
                 .sorted((a, b) -> {
                     if (a.getFechaSolicitud() == null) return 1;
@@ -274,17 +272,9 @@ public class TrazabilidadTools {
                     String activo = Boolean.TRUE.equals(r.getActivo()) ? "✅ ACTIVO" : "📦 ARCHIVADO";
                     String condicion = r.getCondicionMedica() != null ? r.getCondicionMedica() : "—";
                     String fecha = r.getFechaAtencion() != null ? r.getFechaAtencion().toString() : "sin fecha";
-                    String profesional = "sin profesional";
-                    if (r.getIdPersonal() != null) {
-                        profesional = personalCntRepository.findById(r.getIdPersonal())
-                            .map(p -> {
-                                String nomCompleto = ((p.getNomPers() != null ? p.getNomPers() : "") + " "
-                                    + (p.getApePaterPers() != null ? p.getApePaterPers() : "") + " "
-                                    + (p.getApeMaterPers() != null ? p.getApeMaterPers() : "")).trim();
-                                return nomCompleto.isEmpty() ? "ID " + r.getIdPersonal() : nomCompleto;
-                            })
-                            .orElse("ID " + r.getIdPersonal());
-                    }
+                    String profesional = r.getIdPersonal() != null
+                            ? profesionales.getOrDefault(r.getIdPersonal(), "ID " + r.getIdPersonal())
+                            : "sin profesional";
                     sb.append(String.format(
                         "[%s] ID=%d | %s | Estado=%s | CondiciónMédica=%s | Fecha=%s | Profesional=%s\n",
                         activo,
@@ -315,26 +305,18 @@ public class TrazabilidadTools {
     public String buscarUsuarioCENATE(String criterio) {
         log.info("[Trazabilidad] buscarUsuarioCENATE({})", criterio);
         try {
-            List<Usuario> usuarios = usuarioRepository.findAll();
-            List<Usuario> encontrados = usuarios.stream()
-                    .filter(u -> u.getNameUser() != null &&
-                            u.getNameUser().toLowerCase().contains(criterio.toLowerCase()))
-                    .collect(Collectors.toList());
+            // ✅ v2.6.0: LIKE con índice trigram y roles agregados en la misma consulta
+            // Fila: [name_user, stat_user, roles]
+            List<Object[]> encontrados = usuarioRepository.buscarPorNameUserConRoles(
+                    BusquedaPacienteDao.escaparLike(criterio.trim()), LIMITE_USUARIOS);
 
             if (encontrados.isEmpty()) {
                 return "No se encontraron usuarios con criterio: " + criterio;
             }
 
             return encontrados.stream()
-                    .map(u -> {
-                        String roles = u.getRoles() != null
-                                ? u.getRoles().stream()
-                                        .map(r -> r.getDescRol())
-                                        .collect(Collectors.joining(", "))
-                                : "Sin roles";
-                        return String.format("Usuario=%s | Roles=[%s] | Estado=%s",
-                                u.getNameUser(), roles, u.getStatUser());
-                    })
+                    .map(u -> String.format("Usuario=%s | Roles=[%s] | Estado=%s",
+                            u[0], u[2] != null && !u[2].toString().isEmpty() ? u[2] : "Sin roles", u[1]))
                     .collect(Collectors.joining("\n"));
         } catch (Exception e) {
             log.error("[Trazabilidad] Error buscarUsuarioCENATE: {}", e.getMessage());
@@ -354,11 +336,12 @@ public class TrazabilidadTools {
     public String buscarPacientePorNombre(String nombre) {
         log.info("[Trazabilidad] buscarPacientePorNombre({})", nombre);
         try {
-            List<SolicitudBolsa> resultados = solicitudBolsaRepository.findAll().stream()
-                    .filter(s -> s.getPacienteNombre() != null &&
-                            s.getPacienteNombre().toLowerCase().contains(nombre.toLowerCase()))
-                    .limit(10)
-                    .collect(Collectors.toList());
+            // ✅ v2.6.0: Sin tildes ni mayúsculas, términos en cualquier orden, con índice trigram
+            // (los más parecidos primero)
+            List<Long> ids = busquedaPacienteDao.buscarIdsSolicitudes(nombre, false, LIMITE_RESULTADOS);
+            Map<Long, SolicitudBolsa> porId = solicitudBolsaRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(SolicitudBolsa::getIdSolicitud, s -> s));
+            List<SolicitudBolsa> resultados = ids.stream().map(porId::get).filter(Objects::nonNull).toList();
             if (resultados.isEmpty()) {
                 return "No se encontraron pacientes con nombre: " + nombre;
             }
@@ -391,33 +374,51 @@ public class TrazabilidadTools {
     public String resumenSolicitudesPorEstado(String especialidad) {
         log.info("[Trazabilidad] resumenSolicitudesPorEstado({})", especialidad);
         try {
-            List<SolicitudBolsa> todas = solicitudBolsaRepository.findAll();
-            if (especialidad != null && !especialidad.isBlank() && !especialidad.equalsIgnoreCase("TODAS")) {
-                todas = todas.stream()
-                        .filter(s -> especialidad.equalsIgnoreCase(s.getEspecialidad()))
-                        .collect(Collectors.toList());
-            }
-            if (todas.isEmpty()) {
+            boolean filtrarEspecialidad = especialidad != null && !especialidad.isBlank()
+                    && !especialidad.equalsIgnoreCase("TODAS");
+
+            // ✅ v2.6.0: GROUP BY en BD. Fila: [estado, total]
+            List<Object[]> porEstado = filtrarEspecialidad
+                    ? solicitudBolsaRepository.contarPorEstadoDeEspecialidad(especialidad)
+                    : solicitudBolsaRepository.contarPorEstado();
+            if (porEstado.isEmpty()) {
                 return "No se encontraron solicitudes"
                         + (especialidad != null && !especialidad.equalsIgnoreCase("TODAS")
                                 ? " para especialidad: " + especialidad : "")
                         + ".";
             }
-            String encabezado = especialidad != null && !especialidad.isBlank() && !especialidad.equalsIgnoreCase("TODAS")
+            String encabezado = filtrarEspecialidad
                     ? "=== KPI Solicitudes — " + especialidad.toUpperCase() + " ===\n"
                     : "=== KPI General de Solicitudes ===\n";
-            String resumen = todas.stream()
-                    .collect(Collectors.groupingBy(
-                            s -> s.getEstado() != null ? s.getEstado() : "SIN ESTADO",
-                            Collectors.counting()))
-                    .entrySet().stream()
-                    .sorted((a, b2) -> Long.compare(b2.getValue(), a.getValue()))
-                    .map(e -> String.format("  %-20s : %d", e.getKey(), e.getValue()))
+            long total = porEstado.stream().mapToLong(fila -> ((Number) fila[1]).longValue()).sum();
+            String resumen = porEstado.stream()
+                    .map(fila -> String.format("  %-20s : %d", fila[0], ((Number) fila[1]).longValue()))
                     .collect(Collectors.joining("\n"));
-            return encabezado + "Total registros: " + todas.size() + "\n" + resumen;
+            return encabezado + "Total registros: " + total + "\n" + resumen;
         } catch (Exception e) {
             log.error("[Trazabilidad] Error resumenSolicitudesPorEstado: {}", e.getMessage());
             return "Error al obtener resumen: " + e.getMessage();
         }
     }
+
+    /**
+     * Nombres de los profesionales asignados, en una sola consulta (idPersonal → nombre)
+     */
+    private Map<Long, String> nombresProfesionales(List<SolicitudBolsa> solicitudes) {
+        List<Long> ids = solicitudes.stream()
+                .map(SolicitudBolsa::getIdPersonal)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return personalCntRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(PersonalCnt::getIdPers, p -> {
+                    String n = ((p.getNomPers() != null ? p.getNomPers() : "") + " "
+                        + (p.getApePaterPers() != null ? p.getApePaterPers() : "") + " "
+                        + (p.getApeMaterPers() != null ? p.getApeMaterPers() : "")).trim();
+                    return n.isEmpty() ? "ID " + p.getIdPers() : n;
+                }, (a, b) -> a));
+    }
 }
@@ -6,11 +6,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import com.styp.cenate.repository.AuditLogRepository;
-import com.styp.cenate.repository.segu.RolRepository;
-import com.styp.cenate.repository.UsuarioRepository;
-import com.styp.cenate.repository.IpressRepository;
-import com.styp.cenate.repository.mbac.PermisoModularRepository;
+import com.styp.cenate.repository.DashboardEstadisticasDao.DistribucionPersonal;
+import com.styp.cenate.repository.DashboardEstadisticasDao.PersonalExternoRed;
+import com.styp.cenate.repository.DashboardEstadisticasDao.UsuarioActividad;
+import com.styp.cenate.service.dashboard.DashboardSnapshotService;
+import com.styp.cenate.service.dashboard.DashboardSnapshotService.DashboardSnapshot;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.HikariPoolMXBean;
 
@@ -27,6 +27,9 @@ import java.util.*;
 /**
  * 🎯 Controlador del panel administrativo (Dashboard)
  * Proporciona estadísticas y métricas del sistema.
+ *
+ * ✅ v2.6.0: Los conteos salen del snapshot de {@link DashboardSnapshotService}
+ * (vigencia configurable); system-health solo consulta en vivo la conexión a BD.
  */
 @RestController
 @RequestMapping("/api/admin/dashboard")
@@ -44,11 +47,7 @@ import java.util.*;
 @PreAuthorize("hasAnyRole('SUPERADMIN', 'ADMIN')")
 public class DashboardController {
 
-    private final UsuarioRepository usuarioRepository;
-    private final RolRepository rolRepository;
-    private final AuditLogRepository auditLogRepository;
-    private final IpressRepository ipressRepository;
-    private final PermisoModularRepository permisoModularRepository;
+    private final DashboardSnapshotService dashboardSnapshotService;
     private final DataSource dataSource;
 
     @Value("${spring.datasource.url:jdbc:postgresql://10.0.89.241:5432/maestro_cenate}")
@@ -63,94 +62,58 @@ public class DashboardController {
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> obtenerEstadisticas() {
         try {
+            DashboardSnapshot snapshot = dashboardSnapshotService.obtenerSnapshot();
             Map<String, Object> stats = new HashMap<>();
 
             // 👤 Usuarios
-            long totalUsuarios = usuarioRepository.count();
-            long usuariosActivos = usuarioRepository.countByStatUser("A");
-            long usuariosInactivos = usuarioRepository.countByStatUser("I");
-
-            stats.put("totalUsuarios", totalUsuarios);
-            stats.put("usuariosActivos", usuariosActivos);
-            stats.put("usuariosInactivos", usuariosInactivos);
+            stats.put("totalUsuarios", snapshot.totalUsuarios());
+            stats.put("usuariosActivos", snapshot.usuariosActivos());
+            stats.put("usuariosInactivos", snapshot.usuariosInactivos());
 
             // 🧩 Roles
-            long totalRoles = rolRepository.count();
-            stats.put("totalRoles", totalRoles);
+            stats.put("totalRoles", snapshot.totalRoles());
 
             // 🏥 IPRESS
-            long totalIpress = ipressRepository.count();
-            stats.put("totalIpress", totalIpress);
+            stats.put("totalIpress", snapshot.totalIpress());
 
             // 🔐 Permisos MBAC
-            long totalPermisos = permisoModularRepository.count();
-            stats.put("totalPermisos", totalPermisos);
+            stats.put("totalPermisos", snapshot.totalPermisos());
 
             // 📜 Logs del sistema
-            LocalDateTime hace24h = LocalDateTime.now().minusHours(24);
-            long logsRecientes = auditLogRepository.countByFechaHoraBetween(hace24h, LocalDateTime.now());
-            stats.put("logsRecientes24h", logsRecientes);
-
-            long totalLogs = auditLogRepository.count();
-            stats.put("totalLogs", totalLogs);
+            stats.put("logsRecientes24h", snapshot.actividad().ultimas24h());
+            stats.put("totalLogs", snapshot.totalLogs());
 
             // 📈 Actividad semanal
-            LocalDateTime hace7dias = LocalDateTime.now().minusDays(7);
-            long actividadSemanal = auditLogRepository.countByFechaHoraBetween(hace7dias, LocalDateTime.now());
-            stats.put("actividadSemanal", actividadSemanal);
+            stats.put("actividadSemanal", snapshot.actividad().ultimos7d());
 
-            // 📦 Logs por módulo (List<Object[]> → List<Map<String, Object>>)
-            List<Object[]> rawLogsPorModulo = auditLogRepository.countByModulo();
+            // 📦 Logs por módulo
             List<Map<String, Object>> logsPorModulo = new ArrayList<>();
-            for (Object[] row : rawLogsPorModulo) {
-                Map<String, Object> map = new HashMap<>();
-                map.put("modulo", row[0]);
-                map.put("total", row[1]);
-                logsPorModulo.add(map);
-            }
+            snapshot.logsPorModulo().entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .forEach(entry -> {
+                        Map<String, Object> map = new HashMap<>();
+                        map.put("modulo", entry.getKey());
+                        map.put("total", entry.getValue());
+                        logsPorModulo.add(map);
+                    });
             stats.put("logsPorModulo", logsPorModulo);
 
-            // 🧑‍💻 Top 5 usuarios activos (List<Object[]> → List<Map<String, Object>>)
-            List<Object[]> rawActividadUsuarios = auditLogRepository.getActividadUsuarios(hace7dias);
+            // 🧑‍💻 Top 5 usuarios activos
             List<Map<String, Object>> actividadUsuarios = new ArrayList<>();
-            for (Object[] row : rawActividadUsuarios) {
+            for (UsuarioActividad usuario : snapshot.topUsuarios()) {
                 Map<String, Object> map = new HashMap<>();
-                map.put("usuario", row[0]);
-                map.put("acciones", row[1]);
+                map.put("usuario", usuario.usuario());
+                map.put("acciones", usuario.acciones());
                 actividadUsuarios.add(map);
             }
-
-            if (actividadUsuarios.size() > 5) {
-                actividadUsuarios = actividadUsuarios.subList(0, 5);
-            }
             stats.put("topUsuarios", actividadUsuarios);
 
-            // 📊 Indicadores adicionales (datos dinámicos desde BD)
-            try (Connection conn = dataSource.getConnection()) {
-                // Áreas, Profesiones, Regímenes
-                String queryIndicadores = """
-                    SELECT
-                        (SELECT COUNT(*) FROM dim_area) as total_areas,
-                        (SELECT COUNT(*) FROM form_diag_cat_categoria_profesional) as total_profesiones,
-                        (SELECT COUNT(*) FROM dim_regimen_laboral) as total_regimenes
-                    """;
-
-                try (var stmt = conn.createStatement();
-                     var rs = stmt.executeQuery(queryIndicadores)) {
-                    if (rs.next()) {
-                        stats.put("totalAreas", rs.getLong("total_areas"));
-                        stats.put("totalProfesiones", rs.getLong("total_profesiones"));
-                        stats.put("totalRegimenes", rs.getLong("total_regimenes"));
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("⚠️ Error al obtener indicadores adicionales: {}", e.getMessage());
-                // Valores por defecto en caso de error
-                stats.put("totalAreas", 0);
-                stats.put("totalProfesiones", 0);
-                stats.put("totalRegimenes", 0);
-            }
+            // 📊 Indicadores adicionales (Áreas, Profesiones, Regímenes)
+            stats.put("totalAreas", snapshot.indicadores().totalAreas());
+            stats.put("totalProfesiones", snapshot.indicadores().totalProfesiones());
+            stats.put("totalRegimenes", snapshot.indicadores().totalRegimenes());
 
+            stats.put("generadoEn", snapshot.generadoEn().toString());
             return ResponseEntity.ok(stats);
 
         } catch (Exception e) {
@@ -168,16 +131,13 @@ public class DashboardController {
     @GetMapping("/resumen")
     public ResponseEntity<Map<String, Object>> obtenerResumen() {
         try {
+            DashboardSnapshot snapshot = dashboardSnapshotService.obtenerSnapshot();
             Map<String, Object> resumen = new HashMap<>();
 
-            resumen.put("usuarios", usuarioRepository.count());
-            resumen.put("roles", rolRepository.count());
-            resumen.put("logs", auditLogRepository.count());
-
-            LocalDateTime hace24h = LocalDateTime.now().minusHours(24);
-            long loginsRecientes = auditLogRepository.countByActionAndFechaHoraBetween(
-                    "LOGIN", hace24h, LocalDateTime.now());
-            resumen.put("loginsRecientes", loginsRecientes);
+            resumen.put("usuarios", snapshot.totalUsuarios());
+            resumen.put("roles", snapshot.totalRoles());
+            resumen.put("logs", snapshot.totalLogs());
+            resumen.put("loginsRecientes", snapshot.actividad().logins24h());
 
             return ResponseEntity.ok(resumen);
 
@@ -196,43 +156,19 @@ public class DashboardController {
     @GetMapping("/estadisticas-personal")
     public ResponseEntity<Map<String, Object>> obtenerEstadisticasPersonal() {
         try {
+            DashboardSnapshot snapshot = dashboardSnapshotService.obtenerSnapshot();
             Map<String, Object> estadisticas = new LinkedHashMap<>();
 
-            // Obtener distribución CORRECTA de usuarios (evitando duplicados)
-            // Prioridad: Si un usuario tiene personal externo, se cuenta como externo
-            long totalInterno = 0;
-            long totalExterno = 0;
-            long totalGeneral = 0;
-            long totalConAmbos = 0;
-
-            try (Connection conn = dataSource.getConnection()) {
-                String queryDistribucion = """
-                    SELECT
-                        COUNT(*) as total_usuarios,
-                        COUNT(DISTINCT CASE WHEN pc.id_usuario IS NOT NULL AND pe.id_user IS NULL THEN u.id_user END) as solo_interno,
-                        COUNT(DISTINCT CASE WHEN pe.id_user IS NOT NULL THEN u.id_user END) as externo_o_ambos,
-                        COUNT(DISTINCT CASE WHEN pc.id_usuario IS NOT NULL AND pe.id_user IS NOT NULL THEN u.id_user END) as con_ambos
-                    FROM dim_usuarios u
-                    LEFT JOIN dim_personal_cnt pc ON u.id_user = pc.id_usuario
-                    LEFT JOIN dim_personal_externo pe ON u.id_user = pe.id_user
-                    WHERE u.stat_user IN ('A', 'ACTIVO')
-                    """;
-
-                try (var stmt = conn.createStatement();
-                     var rs = stmt.executeQuery(queryDistribucion)) {
-                    if (rs.next()) {
-                        totalGeneral = rs.getLong("total_usuarios");
-                        totalInterno = rs.getLong("solo_interno");
-                        totalExterno = rs.getLong("externo_o_ambos");
-                        totalConAmbos = rs.getLong("con_ambos");
-                    }
-                }
-            }
+            // Distribución de usuarios activos (si tiene personal externo se cuenta como externo)
+            DistribucionPersonal distribucion = snapshot.distribucionPersonal();
+            long totalInterno = distribucion.soloInterno();
+            long totalExterno = distribucion.externoOAmbos();
+            long totalGeneral = distribucion.totalGeneral();
 
             estadisticas.put("totalInterno", totalInterno);
             estadisticas.put("totalExterno", totalExterno);
             estadisticas.put("totalGeneral", totalGeneral);
-            estadisticas.put("totalConAmbos", totalConAmbos); // Usuarios con ambos tipos de personal
+            estadisticas.put("totalConAmbos", distribucion.conAmbos()); // Usuarios con ambos tipos de personal
 
             // Calcular porcentajes
             double porcentajeInterno = totalGeneral > 0 ? (totalInterno * 100.0 / totalGeneral) : 0.0;
@@ -241,45 +177,21 @@ public class DashboardController {
             estadisticas.put("porcentajeInterno", Math.round(porcentajeInterno * 100.0) / 100.0);
             estadisticas.put("porcentajeExterno", Math.round(porcentajeExterno * 100.0) / 100.0);
 
-            // Obtener desglose de personal externo por red (reusar la conexión)
-            try (Connection conn2 = dataSource.getConnection()) {
-                String queryRedesExternos = """
-                    SELECT
-                        r.id_red,
-                        r.desc_red as nombre_red,
-                        COUNT(DISTINCT pe.id_user) as total_usuarios
-                    FROM dim_personal_externo pe
-                    INNER JOIN dim_ipress i ON pe.id_ipress = i.id_ipress
-                    INNER JOIN dim_red r ON i.id_red = r.id_red
-                    INNER JOIN dim_usuarios u ON u.id_user = pe.id_user
-                    WHERE u.stat_user IN ('A', 'ACTIVO')
-                    GROUP BY r.id_red, r.desc_red
-                    HAVING COUNT(DISTINCT pe.id_user) > 0
-                    ORDER BY total_usuarios DESC
-                    """;
-
-                List<Map<String, Object>> estadisticasPorRed = new ArrayList<>();
-                long totalRedesConExternos = 0;
-
-                try (var stmt = conn2.createStatement();
-                     var rs = stmt.executeQuery(queryRedesExternos)) {
-                    while (rs.next()) {
-                        Map<String, Object> red = new LinkedHashMap<>();
-                        red.put("idRed", rs.getLong("id_red"));
-                        red.put("nombreRed", rs.getString("nombre_red"));
-                        long totalUsuarios = rs.getLong("total_usuarios");
-                        red.put("totalUsuarios", totalUsuarios);
-                        double porcentaje = totalExterno > 0 ? (totalUsuarios * 100.0 / totalExterno) : 0.0;
-                        red.put("porcentaje", Math.round(porcentaje * 100.0) / 100.0);
-                        estadisticasPorRed.add(red);
-                        totalRedesConExternos++;
-                    }
-                }
-
-                estadisticas.put("estadisticasPorRed", estadisticasPorRed);
-                estadisticas.put("totalRedesConExternos", totalRedesConExternos);
+            // Desglose de personal externo por red
+            List<Map<String, Object>> estadisticasPorRed = new ArrayList<>();
+            for (PersonalExternoRed fila : snapshot.personalExternoPorRed()) {
+                Map<String, Object> red = new LinkedHashMap<>();
+                red.put("idRed", fila.idRed());
+                red.put("nombreRed", fila.nombreRed());
+                red.put("totalUsuarios", fila.totalUsuarios());
+                double porcentaje = totalExterno > 0 ? (fila.totalUsuarios() * 100.0 / totalExterno) : 0.0;
+                red.put("porcentaje", Math.round(porcentaje * 100.0) / 100.0);
+                estadisticasPorRed.add(red);
             }
 
+            estadisticas.put("estadisticasPorRed", estadisticasPorRed);
+            estadisticas.put("totalRedesConExternos", (long) estadisticasPorRed.size());
+
             log.info("📊 Estadísticas de personal: {} internos, {} externos, {} total",
                     totalInterno, totalExterno, totalGeneral);
 
@@ -520,9 +432,10 @@ public class DashboardController {
             jwt.put("estadoColor", jwtConfigured ? "green" : "red");
             servicios.put("jwt", jwt);
 
-            // MBAC
+            // MBAC y Auditoría: conteos del snapshot del dashboard
+            DashboardSnapshot snapshot = dashboardSnapshotService.obtenerSnapshot();
             Map<String, Object> mbac = new LinkedHashMap<>();
-            long totalPermisos = permisoModularRepository.count();
+            long totalPermisos = snapshot.totalPermisos();
             mbac.put("permisosConfigurados", totalPermisos);
             mbac.put("estado", totalPermisos > 0 ? "ACTIVO" : "SIN_CONFIGURAR");
             mbac.put("estadoColor", totalPermisos > 0 ? "green" : "yellow");
@@ -530,9 +443,8 @@ public class DashboardController {
 
             // Auditoría
             Map<String, Object> auditoria = new LinkedHashMap<>();
-            LocalDateTime hace1h = LocalDateTime.now().minusHours(1);
-            long logsUltimaHora = auditLogRepository.countByFechaHoraBetween(hace1h, LocalDateTime.now());
-            long totalLogs = auditLogRepository.count();
+            long logsUltimaHora = snapshot.actividad().ultimaHora();
+            long totalLogs = snapshot.totalLogs();
             auditoria.put("totalRegistros", totalLogs);
             auditoria.put("ultimaHora", logsUltimaHora);
             auditoria.put("estado", "ACTIVO");
@@ -1,6 +1,12 @@
 package com.styp.cenate.api.pacientes;
 
 import com.styp.cenate.dto.AseguradoDTO;
+import com.styp.cenate.enumd.ModoConteo;
+import com.styp.cenate.repository.AseguradoDedupeDao;
+import com.styp.cenate.repository.BusquedaPacienteDao;
+import com.styp.cenate.repository.ConteoPaginadoDao;
+import com.styp.cenate.service.asegurados.DeduplicacionAseguradosService;
+import com.styp.cenate.util.CursorPaginacion;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -26,6 +32,10 @@ import java.util.Map;
 public class AseguradoController {
 
     private final JdbcTemplate jdbcTemplate;
+    private final ConteoPaginadoDao conteoPaginadoDao;
+    private final BusquedaPacienteDao busquedaPacienteDao;
+    private final AseguradoDedupeDao aseguradoDedupeDao;
+    private final DeduplicacionAseguradosService deduplicacionAseguradosService;
 
     /**
      * Calcula la edad a partir de una fecha de nacimiento
@@ -329,6 +339,21 @@ public class AseguradoController {
         }
     }
     
+    /**
+     * ✅ v2.6.0: Búsqueda de pacientes por nombre, los más parecidos primero
+     * GET /api/asegurados/buscar-nombre?q=perez juan&limite=20
+     *
+     * Sin tildes ni mayúsculas, términos en cualquier orden y como prefijo ("moli" → MOLINA).
+     */
+    @GetMapping("/buscar-nombre")
+    public ResponseEntity<List<BusquedaPacienteDao.AseguradoEncontrado>> buscarPorNombre(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limite) {
+        log.info("🔍 Buscando asegurado por nombre: '{}'", q);
+        int tope = Math.max(1, Math.min(limite, 100));
+        return ResponseEntity.ok(busquedaPacienteDao.buscarAsegurados(q, tope));
+    }
+
     /**
      * Buscar asegurados por nombre, con filtros opcionales de Red e IPRESS
      * Ejemplo: GET /api/asegurados/buscar?q=MOLINA&idRed=1&codIpress=045
@@ -346,18 +371,22 @@ public class AseguradoController {
             @RequestParam(required = false) Boolean sinIpress,
             @RequestParam(required = false) String codIpressAtencion,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "25") int size) {
+            @RequestParam(defaultValue = "25") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "EXACTO") ModoConteo conteo) {
 
         try {
             log.info("🔍 Buscando asegurado: '{}', CENACRON: {}, MARATON: {}, MARATON_ESP: {}", q, cenacron, maraton, maratonEspecialidades);
 
-            // MARATÓN muestra el universo completo cargado (ignora vigencia)
-            StringBuilder whereClause = Boolean.TRUE.equals(maraton)
-                ? new StringBuilder("WHERE EXISTS (SELECT 1 FROM paciente_estrategia pe WHERE pe.pk_asegurado = a.pk_asegurado AND pe.id_estrategia = 8 AND pe.estado = 'ACTIVO') AND (a.doc_paciente = ? OR UPPER(a.paciente) LIKE UPPER(?))")
-                : new StringBuilder("WHERE a.vigencia = true AND (a.doc_paciente = ? OR UPPER(a.paciente) LIKE UPPER(?))");
+            // ✅ v2.6.0: Nombre por términos (sin tildes, en cualquier orden) con índice trigram
             List<Object> params = new ArrayList<>();
             params.add(q.trim());
-            params.add("%" + q.trim() + "%");
+            String porNombre = BusquedaPacienteDao.predicadoNombre("a.paciente", BusquedaPacienteDao.terminos(q), params);
+
+            // MARATÓN muestra el universo completo cargado (ignora vigencia)
+            StringBuilder whereClause = Boolean.TRUE.equals(maraton)
+                ? new StringBuilder("WHERE EXISTS (SELECT 1 FROM paciente_estrategia pe WHERE pe.pk_asegurado = a.pk_asegurado AND pe.id_estrategia = 8 AND pe.estado = 'ACTIVO') AND (a.doc_paciente = ? OR " + porNombre + ")")
+                : new StringBuilder("WHERE a.vigencia = true AND (a.doc_paciente = ? OR " + porNombre + ")");
 
             // Filtro por Red
             if (idRed != null) {
@@ -401,16 +430,22 @@ public class AseguradoController {
                 params.add(codIpressAtencion);
             }
 
-            // Consulta para obtener el total de registros
-            String countSql = "SELECT COUNT(*) FROM asegurados a LEFT JOIN dim_ipress di ON a.cas_adscripcion = di.cod_ipress " + whereClause;
-            Integer totalElements = jdbcTemplate.queryForObject(countSql, Integer.class, params.toArray());
-            
-            if (totalElements == null) {
-                totalElements = 0;
-            }
-            
-            // Calcular offset
+            // Total de registros (✅ v2.6.0: exacto, estimado por el planificador o limitado al tope)
+            String filasSql = "SELECT 1 FROM asegurados a LEFT JOIN dim_ipress di ON a.cas_adscripcion = di.cod_ipress " + whereClause;
+            ConteoPaginadoDao.Total total = conteoPaginadoDao.contar(conteo, filasSql, ConteoPaginadoDao.conParametros(params));
+            int totalElements = (int) total.valor();
+
+            // ✅ v2.6.0: Con cursor (after) la página sigue a la última fila entregada, sin OFFSET
+            List<Object> paginaParams = new ArrayList<>(params);
+            StringBuilder paginaWhere = new StringBuilder(whereClause);
             int offset = page * size;
+            if (after != null && !after.isBlank()) {
+                String[] cursor = CursorPaginacion.decodificar(after, 2);
+                paginaWhere.append(" AND (COALESCE(a.doc_paciente, ''), a.pk_asegurado) > (?, ?)");
+                paginaParams.add(cursor[0]);
+                paginaParams.add(cursor[1]);
+                offset = 0;
+            }
             
             // Consulta paginada con JOIN a dim_ipress
             String sql = """
@@ -453,17 +488,23 @@ public class AseguradoController {
                     LIMIT 1
                 ) sb_lat ON true
                 LEFT JOIN dim_ipress di_at ON di_at.id_ipress = sb_lat.id_ipress_atencion
-                """ + whereClause + """
-                ORDER BY a.doc_paciente
+                """ + paginaWhere + """
+                ORDER BY COALESCE(a.doc_paciente, ''), a.pk_asegurado
                 LIMIT ? OFFSET ?
             """;
 
-            // Agregar parámetros de paginación
-            List<Object> allParams = new ArrayList<>(params);
-            allParams.add(size);
-            allParams.add(offset);
-
-            List<Map<String, Object>> asegurados = jdbcTemplate.queryForList(sql, allParams.toArray());
+            // Agregar parámetros de paginación (una fila extra indica si hay página siguiente)
+            paginaParams.add(size + 1);
+            paginaParams.add(offset);
+
+            List<Map<String, Object>> asegurados = jdbcTemplate.queryForList(sql, paginaParams.toArray());
+            String siguiente = null;
+            if (asegurados.size() > size) {
+                asegurados = new ArrayList<>(asegurados.subList(0, size));
+                Map<String, Object> ultimo = asegurados.get(size - 1);
+                Object doc = ultimo.get("doc_paciente");
+                siguiente = CursorPaginacion.codificar(doc != null ? doc : "", ultimo.get("pk_asegurado"));
+            }
 
             // Formatear los datos para camelCase
             asegurados.forEach(asegurado -> {
@@ -523,8 +564,11 @@ public class AseguradoController {
             response.put("number", page);
             response.put("numberOfElements", asegurados.size());
             response.put("first", page == 0);
-            response.put("last", page >= totalPages - 1);
+            response.put("last", siguiente == null);
             response.put("empty", asegurados.isEmpty());
+            response.put("siguiente", siguiente);
+            response.put("modoConteo", total.modo());
+            response.put("totalEsMinimo", total.esMinimo());
             
             log.info("✅ Encontrados {} asegurados que coinciden con '{}'", asegurados.size(), q);
             
@@ -1333,6 +1377,70 @@ public class AseguradoController {
         }
     }
 
+    /**
+     * ✅ v2.6.0: Pares candidatos a duplicado detectados por bloques (DNI, fonética, nacimiento)
+     * Ejemplo: GET /api/asegurados/duplicados/candidatos?page=0&size=25&puntajeMinimo=0.8&estado=PENDIENTE
+     */
+    @GetMapping("/duplicados/candidatos")
+    public ResponseEntity<Map<String, Object>> obtenerCandidatosDuplicados(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "25") int size,
+            @RequestParam(defaultValue = "0") double puntajeMinimo,
+            @RequestParam(defaultValue = "PENDIENTE") String estado) {
+
+        log.info("🔍 Candidatos a duplicado (página: {}, tamaño: {}, puntaje ≥ {}, estado: {})",
+                page, size, puntajeMinimo, estado);
+        String estadoPar = estado.trim().toUpperCase();
+        long totalElements = aseguradoDedupeDao.contarCandidatos(estadoPar, puntajeMinimo);
+        List<Map<String, Object>> candidatos = aseguradoDedupeDao.candidatos(estadoPar, puntajeMinimo, size,
+                (long) page * size);
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", candidatos);
+        response.put("totalElements", totalElements);
+        response.put("totalPages", totalPages);
+        response.put("size", size);
+        response.put("number", page);
+        response.put("numberOfElements", candidatos.size());
+        response.put("first", page == 0);
+        response.put("last", page >= totalPages - 1);
+        response.put("empty", candidatos.isEmpty());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * ✅ v2.6.0: Lanza la detección de duplicados en segundo plano (además del job nocturno)
+     * Ejemplo: POST /api/asegurados/duplicados/deteccion?completa=false
+     * completa=false revisa solo los asegurados cambiados desde la última ejecución completada.
+     */
+    @PostMapping("/duplicados/deteccion")
+    @PreAuthorize("hasRole('SUPERADMIN')")
+    public ResponseEntity<Map<String, Object>> iniciarDeteccionDuplicados(
+            @RequestParam(defaultValue = "false") boolean completa) {
+        if (deduplicacionAseguradosService.enEjecucion()) {
+            return ResponseEntity.status(409)
+                    .body(Map.of("error", "Ya hay una detección de duplicados en curso"));
+        }
+        log.info("👥 Detección de duplicados solicitada (completa: {})", completa);
+        deduplicacionAseguradosService.ejecutarEnSegundoPlano(completa);
+        return ResponseEntity.accepted().body(Map.of(
+                "mensaje", "Detección de duplicados iniciada",
+                "completa", completa));
+    }
+
+    /**
+     * ✅ v2.6.0: Últimas ejecuciones de la detección de duplicados
+     * Ejemplo: GET /api/asegurados/duplicados/deteccion?limite=10
+     */
+    @GetMapping("/duplicados/deteccion")
+    public ResponseEntity<Map<String, Object>> obtenerEjecucionesDeteccion(
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(Map.of(
+                "enEjecucion", deduplicacionAseguradosService.enEjecucion(),
+                "ejecuciones", deduplicacionAseguradosService.ultimasEjecuciones(Math.max(1, Math.min(limite, 100)))));
+    }
+
     /**
      * Obtener información de duplicado específico (compara 7 vs 8 caracteres)
      * Ejemplo: GET /api/asegurados/duplicado/01234567
@@ -1494,6 +1602,10 @@ public class AseguradoController {
             int auditCount = jdbcTemplate.update(updateAuditSql, docPaciente);
             log.info("✅ Auditoría actualizada para {} registros", auditCount);
 
+            // 4. ✅ v2.6.0: Pares candidatos pendientes del registro desactivado
+            int paresResueltos = aseguradoDedupeDao.resolverParesDe(pkAseguradoDesactivar);
+            log.info("✅ {} pares candidatos marcados como resueltos", paresResueltos);
+
             log.info("✅ Duplicado resuelto correctamente - Desactivado: {}", pkAseguradoDesactivar);
 
             return ResponseEntity.ok(Map.of(
@@ -2,6 +2,7 @@ package com.styp.cenate.api.segu;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -31,6 +32,21 @@ public class MenuUsuarioController {
 		return ResponseEntity.ok(servicioMenu.obtenerMenuDesdePermisosModulares(idUser));
 	}
 
+	/**
+	 * Matriz MBAC completa del usuario autenticado (ruta → acciones) en una
+	 * sola llamada; reutiliza la caché de permisos del backend.
+	 */
+	@GetMapping("/permisos")
+	public ResponseEntity<?> obtenerMatrizPermisos(Authentication authentication) {
+		// La ruta /api/menu-usuario/** es pública en SecurityConfig: exigir token aquí
+		if (authentication == null || !authentication.isAuthenticated()
+				|| "anonymousUser".equals(authentication.getPrincipal())) {
+			return ResponseEntity.status(org.springframework.http.HttpStatus.UNAUTHORIZED).build();
+		}
+		log.info("🧮 Obteniendo matriz de permisos para usuario: {}", authentication.getName());
+		return ResponseEntity.ok(servicioMenu.obtenerMatrizPermisos(authentication.getName()));
+	}
+
 	/**
 	 * Endpoint alternativo que usa la función de base de datos original
 	 * (para compatibilidad con sistemas existentes).
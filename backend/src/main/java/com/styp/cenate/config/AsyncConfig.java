@@ -1,11 +1,98 @@
 package com.styp.cenate.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
     // Esta configuración habilita el procesamiento asíncrono
     // para el registro de logs de auditoría sin bloquear las peticiones
+
+    // ✅ v2.6.0: Pools de trabajo propios, gestionados por el contenedor (cierre y métricas
+    // de Actuator). Con cualquier Executor declarado, Spring Boot deja de crear su
+    // applicationTaskExecutor y @Async caería en SimpleAsyncTaskExecutor (un hilo nuevo por
+    // llamada); por eso el executor de @Async también se declara aquí, acotado.
+
+    /** Cola del pool del dashboard: cubre los 11 conteos de un recálculo, con margen */
+    private static final int COLA_SNAPSHOT = 16;
+
+    /**
+     * Executor de @Async (correos, auditoría de correos, importaciones, miniaturas ECG,
+     * deduplicación en segundo plano). Con la cola llena, la tarea corre en el hilo que la envía
+     * en vez de perderse.
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @Primary
+    public ThreadPoolTaskExecutor applicationTaskExecutor(
+            @Value("${cenate.async.hilos:8}") int hilos,
+            @Value("${cenate.async.cola:500}") int cola) {
+        ThreadPoolTaskExecutor executor = poolFijo("async-", hilos);
+        executor.setQueueCapacity(cola);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /** Comparación de bloques de la detección de duplicados de asegurados */
+    @Bean(name = "dedupeAseguradosExecutor")
+    public ThreadPoolTaskExecutor dedupeAseguradosExecutor(
+            @Value("${cenate.asegurados.dedupe.hilos:4}") int hilos) {
+        return poolFijo("dedupe-asegurados-", hilos);
+    }
+
+    /**
+     * Conteos en paralelo al recalcular el snapshot del dashboard administrativo. Solo lo usa
+     * DashboardSnapshotService (por @Qualifier), nunca @Async. Solo corre un recálculo a la vez,
+     * así que la cola es corta; si se rechaza una tarea, el dashboard sigue con el snapshot anterior.
+     */
+    @Bean(name = "dashboardSnapshotExecutor")
+    public ThreadPoolTaskExecutor dashboardSnapshotExecutor(
+            @Value("${cenate.dashboard.snapshot.hilos:4}") int hilos) {
+        ThreadPoolTaskExecutor executor = poolFijo("dashboard-snapshot-", hilos);
+        executor.setQueueCapacity(COLA_SNAPSHOT);
+        return executor;
+    }
+
+    /**
+     * Sincronización de la blacklist JWT con BD (TokenBlacklistService, por @Qualifier). La
+     * dispara la verificación de un token, pero corre aquí para no demorar ese request; solo
+     * hay una sincronización a la vez, y si se rechaza se reintenta en el siguiente intervalo.
+     */
+    @Bean(name = "tokenBlacklistExecutor")
+    public ThreadPoolTaskExecutor tokenBlacklistExecutor() {
+        ThreadPoolTaskExecutor executor = poolFijo("token-blacklist-", 1);
+        executor.setQueueCapacity(1);
+        return executor;
+    }
+
+    /**
+     * Executor de MVC asíncrono (WebMvcAsyncConfig): cada exportación en streaming
+     * (StreamingResponseBody) ocupa un hilo de este pool mientras escribe. Con los hilos y la
+     * cola llenos se rechaza la descarga (503) en vez de abrir un hilo más.
+     */
+    @Bean(name = "mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(
+            @Value("${cenate.mvc.async.hilos:8}") int hilos,
+            @Value("${cenate.mvc.async.cola:16}") int cola) {
+        ThreadPoolTaskExecutor executor = poolFijo("mvc-async-", hilos);
+        executor.setQueueCapacity(cola);
+        return executor;
+    }
+
+    private static ThreadPoolTaskExecutor poolFijo(String prefijo, int hilos) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setThreadNamePrefix(prefijo);
+        executor.setDaemon(true);
+        return executor;
+    }
 }
@@ -1,33 +1,88 @@
 package com.styp.cenate.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * ✅ Configuración de Caché
- * v1.55.0: Optimización de estadísticas (5 minutos TTL con Simple Cache)
+ * v1.55.0: Optimización de estadísticas
  *
  * Cachea:
  * - estadisticas-generales: obtenerEstadisticasGenerales() → 300ms → 5-20ms
  * - estadisticas-por-estado: obtenerEstadisticasPorEstado() → 250ms → 5-20ms
  * - estadisticas-por-ipress: obtenerEstadisticasPorIpress() → 250ms → 5-20ms
+ * - estadisticas-por-ipress-atencion: obtenerEstadisticasPorIpressAtencion()
  * - estadisticas-por-tipo-cita: obtenerEstadisticasPorTipoCita() → 150ms → 5-20ms
+ * - personal-ids-por-rol: ids de personal activo por rol (v2.6.0, indicadores de enfermería)
+ *
+ * Usa Caffeine (acotado por tamaño y con TTL real). Cada caché se configura por nombre:
+ * - cenate.cache.&lt;nombre&gt;.ttl-segundos   (por defecto cenate.cache.default.ttl-segundos = 300)
+ * - cenate.cache.&lt;nombre&gt;.max-entradas   (por defecto cenate.cache.default.max-entradas = 100)
  *
- * TTL: 5 minutos (300 segundos) - después se recalculan para datos frescos
+ * El refresco anticipado lo hace {@code EstadisticasCacheRefreshJob} y las escrituras
+ * de bolsas las invalidan con {@code @InvalidarEstadisticasBolsas}; los cambios de usuarios y
+ * roles invalidan personal-ids-por-rol con {@code @InvalidarPersonalPorRol}. Los evict se aplican
+ * tras el commit (TransactionAwareCacheManagerProxy) para no recachear datos viejos.
  *
- * Usa:
- * - Simple Cache (HashMap en memoria) para desarrollo/testing
- * - Redis Cache (cambiar spring.cache.type=redis en application.properties) para producción
+ * Métricas: cache.gets / cache.evictions / cache.size por caché en /actuator/prometheus.
  */
 @Configuration
 @EnableCaching
 @Slf4j
 public class CacheConfig {
-    // Spring Boot configura automáticamente el CacheManager basado en spring.cache.type
-    // No necesita configuración adicional para Simple Cache
 
-    public CacheConfig() {
-        log.info("✅ CacheConfig habilitado - @Cacheable activado");
+    public static final String ESTADISTICAS_GENERALES = "estadisticas-generales";
+    public static final String ESTADISTICAS_POR_ESTADO = "estadisticas-por-estado";
+    public static final String ESTADISTICAS_POR_IPRESS = "estadisticas-por-ipress";
+    public static final String ESTADISTICAS_POR_IPRESS_ATENCION = "estadisticas-por-ipress-atencion";
+    public static final String ESTADISTICAS_POR_TIPO_CITA = "estadisticas-por-tipo-cita";
+    public static final String PERSONAL_IDS_POR_ROL = "personal-ids-por-rol";
+
+    public static final List<String> CACHES_ESTADISTICAS_BOLSAS = List.of(
+            ESTADISTICAS_GENERALES,
+            ESTADISTICAS_POR_ESTADO,
+            ESTADISTICAS_POR_IPRESS,
+            ESTADISTICAS_POR_IPRESS_ATENCION,
+            ESTADISTICAS_POR_TIPO_CITA);
+
+    /**
+     * CacheManager usado por @Cacheable/@CacheEvict. Envuelve al CaffeineCacheManager
+     * para diferir put/evict al commit de la transacción en curso.
+     */
+    @Bean
+    public CacheManager cacheManager(
+            Environment env,
+            @Value("${cenate.cache.default.ttl-segundos:300}") long ttlPorDefecto,
+            @Value("${cenate.cache.default.max-entradas:100}") long maxPorDefecto) {
+
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        // Cachés no declarados aquí también quedan acotados
+        manager.setCaffeine(Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlPorDefecto))
+                .maximumSize(maxPorDefecto)
+                .recordStats());
+
+        for (String nombre : CACHES_ESTADISTICAS_BOLSAS) {
+            long ttl = env.getProperty("cenate.cache." + nombre + ".ttl-segundos", Long.class, ttlPorDefecto);
+            long max = env.getProperty("cenate.cache." + nombre + ".max-entradas", Long.class, maxPorDefecto);
+            manager.registerCustomCache(nombre, Caffeine.newBuilder()
+                    .expireAfterWrite(Duration.ofSeconds(ttl))
+                    .maximumSize(max)
+                    .recordStats()
+                    .build());
+            log.info("✅ Caché '{}' → TTL {}s, máx {} entradas", nombre, ttl, max);
+        }
+        return new TransactionAwareCacheManagerProxy(manager);
     }
 }
@@ -0,0 +1,27 @@
+package com.styp.cenate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * ⏰ Habilita los métodos @Scheduled (v2.6.0)
+ *
+ * Hasta v2.5 ninguna clase tenía @EnableScheduling y ningún @Scheduled se ejecutaba.
+ * Con {@code cenate.scheduling.enabled=true} (por defecto) corren los jobs nuevos:
+ * - EstadisticasCacheRefreshJob (refresco de cachés de estadísticas)
+ * - TeleECGResumenDiarioJob (reconciliación de KPIs diarios TeleECG)
+ * - DeduplicacionAseguradosJob (detección de duplicados de asegurados)
+ *
+ * Los jobs anteriores que nunca se ejecutaron siguen apagados: su cron por defecto
+ * es "-" ({@code cenate.jobs.*.cron}, ver application.properties) y se encienden uno
+ * por uno. Entre ellos está la limpieza de imágenes TeleECG vencidas, que archiva datos.
+ *
+ * {@code cenate.scheduling.enabled=false} apaga todos (p. ej. en réplicas que no deben
+ * ejecutar jobs).
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "cenate.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,28 @@
+package com.styp.cenate.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * ✅ v2.6.0: Procesamiento asíncrono de Spring MVC (StreamingResponseBody, Callable) sobre un
+ * pool acotado ({@code mvcAsyncExecutor}), separado del de @Async: las exportaciones largas
+ * no compiten con correos ni importaciones, y las descargas simultáneas quedan limitadas.
+ * El timeout sigue en spring.mvc.async.request-timeout.
+ */
+@Configuration
+public class WebMvcAsyncConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor mvcAsyncExecutor;
+
+    public WebMvcAsyncConfig(@Qualifier("mvcAsyncExecutor") ThreadPoolTaskExecutor mvcAsyncExecutor) {
+        this.mvcAsyncExecutor = mvcAsyncExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+}
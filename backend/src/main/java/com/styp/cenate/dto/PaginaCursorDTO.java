@@ -0,0 +1,35 @@
+package com.styp.cenate.dto;
+
+import com.styp.cenate.enumd.ModoConteo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de una búsqueda con paginación por cursor (v2.6.0)
+ *
+ * - siguiente     : cursor para pedir la página siguiente (parámetro after); null = última página
+ * - total         : total de filas según modoConteo
+ * - totalEsMinimo : true si el conteo LIMITADO llegó al tope (hay "total o más")
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorDTO<T> {
+
+    private List<T> contenido;
+
+    private Integer tamano;
+
+    private String siguiente;
+
+    private Long total;
+
+    private ModoConteo modoConteo;
+
+    private Boolean totalEsMinimo;
+}
@@ -0,0 +1,46 @@
+package com.styp.cenate.dto.bolsas;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Búsqueda facetada de la bandeja de bolsas: página, total, KPI por estado y facetas
+ * de un mismo filtro, calculados en una sola consulta
+ *
+ * - conteoPorEstado : código de estado de cita → cantidad (+ ASIGNADOS), como el KPI con filtros
+ * - facetas         : nombre de faceta (tiposBolsa, especialidades, estadosBolsa, tiposCita, ipress)
+ *                     → valores presentes en el resultado filtrado con su cantidad
+ *
+ * @version v2.6.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusquedaFacetadaBolsaDTO {
+
+    private List<SolicitudBolsaDTO> contenido;
+
+    private Integer pagina;
+
+    private Integer tamano;
+
+    private Long total;
+
+    private Integer totalPaginas;
+
+    private Map<String, Long> conteoPorEstado;
+
+    private Map<String, List<Faceta>> facetas;
+
+    /**
+     * Valor de una faceta; id solo para catálogos (tipo de bolsa, IPRESS)
+     */
+    public record Faceta(Long id, String valor, long total) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.styp.cenate.dto.bolsas;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Filtros de la bandeja de solicitudes de bolsa (listado, conteo y KPI con filtros)
+ *
+ * Los valores ya vienen normalizados: null = filtro inactivo ("todas", "todos" y blancos
+ * se descartan en {@link #de}). Las listas separadas por coma llegan como listas y las
+ * fechas como LocalDate.
+ *
+ * @version v2.6.0
+ */
+public record FiltroBandejaBolsa(
+        List<String> bolsas,
+        String macrorregion,
+        String red,
+        String ipress,
+        String especialidad,
+        List<String> estadosCita,
+        String ipressAtencion,
+        String tipoCita,
+        String asignacion,
+        String busqueda,
+        LocalDate fechaInicio,
+        LocalDate fechaFin,
+        String condicionMedica,
+        Long gestoraId,
+        String estadoBolsa,
+        String categoriaEspecialidad,
+        String estrategia) {
+
+    public static final String SIN_ATENCION = "Sin atención";
+
+    /**
+     * Arma el filtro a partir de los parámetros del request
+     *
+     * @throws java.time.format.DateTimeParseException si fechaInicio/fechaFin no son yyyy-MM-dd
+     */
+    public static FiltroBandejaBolsa de(
+            String bolsaNombre, String macrorregion, String red, String ipress, String especialidad,
+            String estadoCodigo, String ipressAtencion, String tipoCita, String asignacion, String busqueda,
+            String fechaInicio, String fechaFin, String condicionMedica, Long gestoraId, String estadoBolsa,
+            String categoriaEspecialidad, String estrategia) {
+        String estrategiaFinal = valor(estrategia, "todos");
+        String fechaInicioFinal = valor(fechaInicio, null);
+        String fechaFinFinal = valor(fechaFin, null);
+        return new FiltroBandejaBolsa(
+                lista(valor(bolsaNombre, "todas"), false),
+                valor(macrorregion, "todas"),
+                valor(red, "todas"),
+                valor(ipress, "todas"),
+                valor(especialidad, "todas"),
+                lista(valor(estadoCodigo, "todos"), true),
+                valor(ipressAtencion, null),
+                valor(tipoCita, "todas"),
+                valor(asignacion, "todos"),
+                valor(busqueda, null),
+                fechaInicioFinal != null ? LocalDate.parse(fechaInicioFinal) : null,
+                fechaFinFinal != null ? LocalDate.parse(fechaFinFinal) : null,
+                valor(condicionMedica, null),
+                gestoraId,
+                valor(estadoBolsa, "todos"),
+                valor(categoriaEspecialidad, null),
+                estrategiaFinal != null ? estrategiaFinal.toUpperCase(Locale.ROOT) : null);
+    }
+
+    private static String valor(String valor, String todos) {
+        if (valor == null || valor.trim().isEmpty() || valor.equals(todos)) {
+            return null;
+        }
+        return valor.trim();
+    }
+
+    /** "a,b,c" → [a, b, c] en minúsculas (o mayúsculas), sin elementos vacíos */
+    private static List<String> lista(String valor, boolean mayusculas) {
+        if (valor == null) {
+            return null;
+        }
+        List<String> elementos = Arrays.stream(valor.split(","))
+                .filter(e -> !e.isEmpty())
+                .map(e -> mayusculas ? e.toUpperCase(Locale.ROOT) : e.toLowerCase(Locale.ROOT))
+                .toList();
+        return elementos.isEmpty() ? null : elementos;
+    }
+}
@@ -0,0 +1,51 @@
+package com.styp.cenate.dto.bolsas;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resultado por ID de una operación masiva sobre solicitudes de bolsa
+ * (asignar gestora, anular, devolver a pendientes, eliminar, reprogramar)
+ *
+ * - idsActualizados : solicitudes modificadas
+ * - idsOmitidos     : solicitudes pedidas que no existen o no están activas
+ *
+ * @version v2.6.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoOperacionMasivaDTO {
+
+    /** IDs distintos recibidos */
+    private Integer solicitados;
+
+    /** Cantidad de solicitudes modificadas */
+    private Integer actualizados;
+
+    private List<Long> idsActualizados;
+
+    private List<Long> idsOmitidos;
+
+    /**
+     * Arma el resultado a partir de los IDs pedidos y los devueltos por el UPDATE
+     */
+    public static ResultadoOperacionMasivaDTO de(List<Long> idsSolicitados, List<Long> idsActualizados) {
+        Set<Long> solicitados = new LinkedHashSet<>(idsSolicitados);
+        Set<Long> actualizados = new HashSet<>(idsActualizados);
+        return ResultadoOperacionMasivaDTO.builder()
+            .solicitados(solicitados.size())
+            .actualizados(idsActualizados.size())
+            .idsActualizados(idsActualizados)
+            .idsOmitidos(solicitados.stream().filter(id -> !actualizados.contains(id)).toList())
+            .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.styp.cenate.dto.mbac;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 🧮 DTO con la matriz completa de permisos MBAC de un usuario.
+ * Devuelto por /api/menu-usuario/permisos para cargar en una sola
+ * llamada los permisos de todas las páginas (menú y botones).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatrizPermisosDTO {
+
+    /** ID del usuario */
+    private Long idUser;
+
+    /** Nombre de usuario */
+    private String username;
+
+    /** Ruta de página (minúsculas) → acciones permitidas (ver, crear, editar, ...) */
+    private Map<String, Set<String>> permisos;
+}
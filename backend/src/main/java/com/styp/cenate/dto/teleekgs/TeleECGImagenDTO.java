@@ -444,4 +444,11 @@ public class TeleECGImagenDTO {
      */
     @JsonProperty("thumbnail_base64")
     private String thumbnailBase64;
+
+    /**
+     * URL de la miniatura JPEG precalculada (v2.3.0)
+     * GET /api/teleekgs/{id}/miniatura?ancho=160|480|1024, con caché larga (inmutable por SHA256)
+     */
+    @JsonProperty("thumbnail_url")
+    private String thumbnailUrl;
 }
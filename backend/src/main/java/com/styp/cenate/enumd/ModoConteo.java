@@ -0,0 +1,13 @@
+package com.styp.cenate.enumd;
+
+/**
+ * Cómo se calcula el total de una búsqueda paginada (v2.6.0)
+ */
+public enum ModoConteo {
+    /** COUNT(*) exacto: recorre todas las filas que cumplen el filtro */
+    EXACTO,
+    /** Filas estimadas por el planificador (EXPLAIN), sin leer la tabla */
+    ESTIMADO,
+    /** COUNT(*) que se detiene en el tope; si lo alcanza, el total es "tope o más" */
+    LIMITADO
+}
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
@@ -354,6 +355,16 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(response, status);
 	}
 
+	/**
+	 * ✅ v2.6.0: Pool de MVC asíncrono lleno (exportaciones en streaming simultáneas).
+	 * Sin cuerpo: la respuesta ya puede tener Content-Type de archivo (text/csv).
+	 */
+	@ExceptionHandler(TaskRejectedException.class)
+	public ResponseEntity<Void> handleTaskRejected(TaskRejectedException ex) {
+		log.warn("⏳ Tarea asíncrona rechazada, pool lleno: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+	}
+
 	/**
 	 * Errores SQL mal formados (defensa adicional)
 	 */
@@ -0,0 +1,49 @@
+package com.styp.cenate.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Blob ECG direccionado por contenido (SHA256)
+ *
+ * Con app.teleekgs.storage.content-addressed=true cada contenido distinto se guarda
+ * una sola vez en {basePath}/cas/ab/cd/{sha256}; las imágenes (tele_ecg_imagenes)
+ * activas que lo usan se cuentan en {@code referencias}. El archivo se elimina
+ * cuando vence (o se elimina) su última referencia.
+ *
+ * @author Styp Canto Rondón
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "tele_ecg_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeleECGBlob {
+
+    /** SHA256 del contenido (64 hex) */
+    @Id
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    /** Ruta del archivo en el almacén por contenido */
+    @Column(name = "storage_ruta", nullable = false, length = 500)
+    private String storageRuta;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    /** Imágenes activas que apuntan a este blob */
+    @Column(name = "referencias", nullable = false)
+    private Integer referencias;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_ultima_referencia", nullable = false)
+    private LocalDateTime fechaUltimaReferencia;
+}
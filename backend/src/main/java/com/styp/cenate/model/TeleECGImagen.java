@@ -80,15 +80,8 @@ public class TeleECGImagen {
     @JoinColumn(name = "id_usuario_paciente", nullable = true)
     private Usuario usuarioPaciente;
 
-    /**
-     * CONTENIDO BINARIO DE LA IMAGEN (v1.22.0 - BYTEA Storage)
-     * Almacena la imagen ECG directamente en PostgreSQL como BYTEA
-     * Máximo: 5MB (5242880 bytes)
-     * Formatos: JPEG, PNG
-     */
-    @JdbcTypeCode(SqlTypes.BINARY)
-    @Column(name = "contenido_imagen")
-    private byte[] contenidoImagen;
+    // v2.4.0: contenido_imagen (BYTEA) se mapea en TeleECGImagenContenido para no
+    // cargarlo con cada consulta de metadatos
 
     /**
      * TIPO DE ALMACENAMIENTO
@@ -0,0 +1,42 @@
+package com.styp.cenate.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Contenido binario (BYTEA) de una imagen ECG
+ *
+ * Mapea solo id_imagen + contenido_imagen de tele_ecg_imagenes para que
+ * {@link TeleECGImagen} (listados, limpieza, estadísticas) no traiga hasta 5MB
+ * por fila. Los bytes se leen únicamente al descargar la imagen o generar sus miniaturas.
+ *
+ * La fila la crea TeleECGImagen; aquí solo se escribe/lee la columna binaria
+ * (TeleECGImagenContenidoRepository).
+ *
+ * @author Styp Canto Rondón
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "tele_ecg_imagenes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeleECGImagenContenido {
+
+    @Id
+    @Column(name = "id_imagen")
+    private Long idImagen;
+
+    /**
+     * CONTENIDO BINARIO DE LA IMAGEN (v1.22.0 - BYTEA Storage)
+     * Máximo: 5MB (5242880 bytes)
+     * Formatos: JPEG, PNG
+     */
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "contenido_imagen")
+    private byte[] contenidoImagen;
+}
@@ -0,0 +1,306 @@
+package com.styp.cenate.repository;
+
+import com.styp.cenate.util.ComparadorAsegurados.Registro;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 👥 Persistencia de la detección de duplicados de asegurados (v2.6.0)
+ *
+ * - asegurados cambiados: en lotes por (fecha_cambio_identidad, pk_asegurado) (keyset)
+ * - asegurados_dedupe_claves: claves de bloque de cada asegurado vigente
+ * - asegurados_duplicados_candidatos: pares con puntaje (upsert; no pisa pares ya revisados)
+ * - asegurados_dedupe_ejecuciones: historial y marca de agua de la revisión incremental
+ */
+@Repository
+@RequiredArgsConstructor
+public class AseguradoDedupeDao {
+
+    private static final String SQL_CAMBIADOS = """
+            SELECT pk_asegurado, doc_paciente, paciente, fecnacimpaciente, vigencia, fecha_cambio_identidad
+            FROM asegurados
+            WHERE (fecha_cambio_identidad, pk_asegurado) > (?, ?)
+            ORDER BY fecha_cambio_identidad, pk_asegurado
+            LIMIT ?
+            """;
+
+    private static final String SQL_UPSERT_CLAVE = """
+            INSERT INTO asegurados_dedupe_claves (pk_asegurado, dni_normalizado, nombre_normalizado, clave_fonetica,
+                                                  fec_nacimiento, clave_nacimiento, fecha_calculo)
+            VALUES (?, ?, ?, ?, ?, ?, NOW())
+            ON CONFLICT (pk_asegurado) DO UPDATE SET
+                dni_normalizado = EXCLUDED.dni_normalizado,
+                nombre_normalizado = EXCLUDED.nombre_normalizado,
+                clave_fonetica = EXCLUDED.clave_fonetica,
+                fec_nacimiento = EXCLUDED.fec_nacimiento,
+                clave_nacimiento = EXCLUDED.clave_nacimiento,
+                fecha_calculo = NOW()
+            """;
+
+    private static final String SQL_ELIMINAR_CLAVES =
+            "DELETE FROM asegurados_dedupe_claves WHERE pk_asegurado = ANY(?)";
+
+    private static final String SQL_DESCARTAR_PARES_NO_VIGENTES = """
+            DELETE FROM asegurados_duplicados_candidatos
+            WHERE estado = 'PENDIENTE'
+              AND (pk_asegurado_a = ANY(?) OR pk_asegurado_b = ANY(?))
+            """;
+
+    private static final String SQL_MIEMBROS_BLOQUE = """
+            SELECT pk_asegurado, dni_normalizado, nombre_normalizado, clave_fonetica, fec_nacimiento
+            FROM asegurados_dedupe_claves
+            WHERE %s = ?%s
+            ORDER BY pk_asegurado
+            LIMIT ?
+            """;
+
+    /** Un par ya revisado (RESUELTO/DESCARTADO) conserva su estado y puntaje */
+    private static final String SQL_UPSERT_PAR = """
+            INSERT INTO asegurados_duplicados_candidatos (pk_asegurado_a, pk_asegurado_b, puntaje, bloques,
+                                                          estado, fecha_deteccion, fecha_actualizacion)
+            VALUES (?, ?, ?, ?, 'PENDIENTE', NOW(), NOW())
+            ON CONFLICT (pk_asegurado_a, pk_asegurado_b) DO UPDATE SET
+                puntaje = EXCLUDED.puntaje,
+                bloques = EXCLUDED.bloques,
+                fecha_actualizacion = NOW()
+            WHERE asegurados_duplicados_candidatos.estado = 'PENDIENTE'
+            """;
+
+    private static final String SQL_ULTIMA_COMPLETADA = """
+            SELECT fecha_inicio FROM asegurados_dedupe_ejecuciones
+            WHERE estado = 'COMPLETADA'
+            ORDER BY fecha_inicio DESC
+            LIMIT 1
+            """;
+
+    private static final String SQL_INICIAR_EJECUCION = """
+            INSERT INTO asegurados_dedupe_ejecuciones (fecha_inicio, revisar_desde, estado)
+            VALUES (?, ?, 'EN_CURSO')
+            RETURNING id_ejecucion
+            """;
+
+    private static final String SQL_FINALIZAR_EJECUCION = """
+            UPDATE asegurados_dedupe_ejecuciones
+            SET fecha_fin = NOW(), estado = ?, registros_revisados = ?, bloques_revisados = ?,
+                pares_escritos = ?, bloques_truncados = ?, detalle_bloques_truncados = ?, detalle_error = ?
+            WHERE id_ejecucion = ?
+            """;
+
+    private static final String SQL_ULTIMAS_EJECUCIONES = """
+            SELECT id_ejecucion, fecha_inicio, fecha_fin, revisar_desde, registros_revisados,
+                   bloques_revisados, pares_escritos, bloques_truncados, detalle_bloques_truncados,
+                   estado, detalle_error
+            FROM asegurados_dedupe_ejecuciones
+            ORDER BY fecha_inicio DESC
+            LIMIT ?
+            """;
+
+    private static final String SQL_CANDIDATOS = """
+            SELECT c.id_candidato, c.puntaje, c.bloques, c.estado, c.fecha_deteccion,
+                   c.pk_asegurado_a, a.doc_paciente AS doc_paciente_a, a.paciente AS paciente_a,
+                   a.fecnacimpaciente AS fecnacimpaciente_a,
+                   c.pk_asegurado_b, b.doc_paciente AS doc_paciente_b, b.paciente AS paciente_b,
+                   b.fecnacimpaciente AS fecnacimpaciente_b
+            FROM asegurados_duplicados_candidatos c
+            JOIN asegurados a ON a.pk_asegurado = c.pk_asegurado_a
+            JOIN asegurados b ON b.pk_asegurado = c.pk_asegurado_b
+            WHERE c.estado = ?
+              AND c.puntaje >= ?
+            ORDER BY c.puntaje DESC, c.id_candidato
+            LIMIT ? OFFSET ?
+            """;
+
+    private static final String SQL_CONTAR_CANDIDATOS = """
+            SELECT COUNT(*) FROM asegurados_duplicados_candidatos
+            WHERE estado = ? AND puntaje >= ?
+            """;
+
+    private static final String SQL_RESOLVER_PARES_DE = """
+            UPDATE asegurados_duplicados_candidatos
+            SET estado = 'RESUELTO', fecha_actualizacion = NOW()
+            WHERE estado = 'PENDIENTE'
+              AND (pk_asegurado_a = ? OR pk_asegurado_b = ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Columna de asegurados_dedupe_claves por la que se arma cada bloque */
+    public enum TipoBloque {
+        DNI("dni_normalizado"),
+        FONETICA("clave_fonetica"),
+        NACIMIENTO("clave_nacimiento");
+
+        private final String columna;
+
+        TipoBloque(String columna) {
+            this.columna = columna;
+        }
+    }
+
+    public record AseguradoCambiado(String pkAsegurado, String docPaciente, String paciente,
+                                    LocalDate fecNacimiento, boolean vigente, LocalDateTime fechaCambio) {
+    }
+
+    public record Par(String pkAseguradoA, String pkAseguradoB, double puntaje, String bloques) {
+    }
+
+    /**
+     * Siguiente lote de asegurados cambiados después de (fechaCambio, pkAsegurado)
+     */
+    public List<AseguradoCambiado> cambiados(LocalDateTime fechaCambio, String pkAsegurado, int limite) {
+        return jdbcTemplate.query(SQL_CAMBIADOS, (rs, i) -> {
+            Date fecha = rs.getDate("fecnacimpaciente");
+            return new AseguradoCambiado(
+                    rs.getString("pk_asegurado"),
+                    rs.getString("doc_paciente"),
+                    rs.getString("paciente"),
+                    fecha != null ? fecha.toLocalDate() : null,
+                    rs.getBoolean("vigencia"),
+                    rs.getTimestamp("fecha_cambio_identidad").toLocalDateTime());
+        }, Timestamp.valueOf(fechaCambio), pkAsegurado, limite);
+    }
+
+    public void guardarClaves(List<Registro> registros) {
+        jdbcTemplate.batchUpdate(SQL_UPSERT_CLAVE, registros, registros.size(), (ps, r) -> {
+            ps.setString(1, r.pkAsegurado());
+            ps.setString(2, r.dni());
+            ps.setString(3, r.nombre());
+            ps.setString(4, r.claveFonetica());
+            ps.setDate(5, r.fecNacimiento() != null ? Date.valueOf(r.fecNacimiento()) : null);
+            ps.setString(6, r.claveNacimiento());
+        });
+    }
+
+    /**
+     * Asegurados que dejaron de estar vigentes: salen de los bloques y de los pares pendientes
+     */
+    public void quitarNoVigentes(List<String> pks) {
+        String[] arreglo = pks.toArray(String[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_ELIMINAR_CLAVES);
+            ps.setArray(1, con.createArrayOf("varchar", arreglo));
+            return ps;
+        });
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_DESCARTAR_PARES_NO_VIGENTES);
+            ps.setArray(1, con.createArrayOf("varchar", arreglo));
+            ps.setArray(2, con.createArrayOf("varchar", arreglo));
+            return ps;
+        });
+    }
+
+    /**
+     * Segunda clave para dividir un bloque demasiado grande: año de nacimiento en el bloque
+     * fonético, clave fonética en los de DNI y nacimiento ("" = sin dato)
+     */
+    public static String segundaClave(TipoBloque tipo, Registro r) {
+        if (tipo == TipoBloque.FONETICA) {
+            return r.fecNacimiento() != null ? String.valueOf(r.fecNacimiento().getYear()) : "";
+        }
+        return r.claveFonetica() != null ? r.claveFonetica() : "";
+    }
+
+    /**
+     * Hasta {@code limite} asegurados del bloque (con sus datos normalizados).
+     * Con {@code subBloque} solo los que comparten su {@link #segundaClave} (null = bloque completo).
+     */
+    public List<Registro> miembrosBloque(TipoBloque tipo, String clave, Registro subBloque, int limite) {
+        List<Object> args = new ArrayList<>();
+        args.add(clave);
+        String condicion = subBloque != null ? condicionSubBloque(tipo, subBloque, args) : "";
+        args.add(limite);
+        return jdbcTemplate.query(SQL_MIEMBROS_BLOQUE.formatted(tipo.columna, condicion), (rs, i) -> {
+            Date fecha = rs.getDate("fec_nacimiento");
+            return new Registro(
+                    rs.getString("pk_asegurado"),
+                    rs.getString("dni_normalizado"),
+                    rs.getString("nombre_normalizado"),
+                    rs.getString("clave_fonetica"),
+                    fecha != null ? fecha.toLocalDate() : null);
+        }, args.toArray());
+    }
+
+    /** Filtro por la segunda clave (índices compuestos de V6_47_0) */
+    private static String condicionSubBloque(TipoBloque tipo, Registro r, List<Object> args) {
+        if (tipo == TipoBloque.FONETICA) {
+            if (r.fecNacimiento() == null) {
+                return " AND fec_nacimiento IS NULL";
+            }
+            LocalDate inicioAnio = LocalDate.of(r.fecNacimiento().getYear(), 1, 1);
+            args.add(Date.valueOf(inicioAnio));
+            args.add(Date.valueOf(inicioAnio.plusYears(1)));
+            return " AND fec_nacimiento >= ? AND fec_nacimiento < ?";
+        }
+        if (r.claveFonetica() == null) {
+            return " AND clave_fonetica IS NULL";
+        }
+        args.add(r.claveFonetica());
+        return " AND clave_fonetica = ?";
+    }
+
+    public int guardarPares(List<Par> pares) {
+        int[][] resultado = jdbcTemplate.batchUpdate(SQL_UPSERT_PAR, pares, pares.size(), (ps, p) -> {
+            ps.setString(1, p.pkAseguradoA());
+            ps.setString(2, p.pkAseguradoB());
+            ps.setDouble(3, p.puntaje());
+            ps.setString(4, p.bloques());
+        });
+        int escritos = 0;
+        for (int[] lote : resultado) {
+            for (int filas : lote) {
+                escritos += Math.max(filas, 0);
+            }
+        }
+        return escritos;
+    }
+
+    /** Inicio de la última ejecución completada (marca de agua) */
+    public Optional<LocalDateTime> ultimaEjecucionCompletada() {
+        return jdbcTemplate.query(SQL_ULTIMA_COMPLETADA,
+                rs -> rs.next() ? Optional.of(rs.getTimestamp(1).toLocalDateTime()) : Optional.empty());
+    }
+
+    public long iniciarEjecucion(LocalDateTime inicio, LocalDateTime revisarDesde) {
+        Long id = jdbcTemplate.queryForObject(SQL_INICIAR_EJECUCION, Long.class,
+                Timestamp.valueOf(inicio), revisarDesde != null ? Timestamp.valueOf(revisarDesde) : null);
+        return id != null ? id : 0;
+    }
+
+    /**
+     * @param detalleTruncados claves de los bloques truncados (acotado por el servicio), null si no hubo
+     */
+    public void finalizarEjecucion(long idEjecucion, String estado, int registros, int bloques, int pares,
+                                   int bloquesTruncados, String detalleTruncados, String detalleError) {
+        jdbcTemplate.update(SQL_FINALIZAR_EJECUCION, estado, registros, bloques, pares, bloquesTruncados,
+                detalleTruncados, detalleError, idEjecucion);
+    }
+
+    public List<Map<String, Object>> ultimasEjecuciones(int limite) {
+        return jdbcTemplate.queryForList(SQL_ULTIMAS_EJECUCIONES, limite);
+    }
+
+    public List<Map<String, Object>> candidatos(String estado, double puntajeMinimo, int limite, long offset) {
+        return jdbcTemplate.queryForList(SQL_CANDIDATOS, estado, puntajeMinimo, limite, offset);
+    }
+
+    public long contarCandidatos(String estado, double puntajeMinimo) {
+        Long total = jdbcTemplate.queryForObject(SQL_CONTAR_CANDIDATOS, Long.class, estado, puntajeMinimo);
+        return total != null ? total : 0;
+    }
+
+    /** Pares pendientes del asegurado desactivado al resolver un duplicado */
+    public int resolverParesDe(String pkAsegurado) {
+        return jdbcTemplate.update(SQL_RESOLVER_PARES_DE, pkAsegurado, pkAsegurado);
+    }
+}
@@ -0,0 +1,149 @@
+package com.styp.cenate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 🔐 Checkpoints de integridad de audit_logs (v2.6.0)
+ *
+ * Cada checkpoint cubre el rango de ids [id_desde, id_hasta] con su digest encadenado.
+ * Los registros de un bloque se leen en orden de id con cursor (fetch size) para que
+ * el uso de memoria no dependa del tamaño del bloque.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditLogCheckpointDao {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String COLUMNAS_CHECKPOINT =
+            "id_checkpoint, id_desde, id_hasta, total_registros, digest_anterior, digest, fecha_creacion";
+
+    private static final String SQL_ULTIMO = "SELECT " + COLUMNAS_CHECKPOINT
+            + " FROM audit_log_checkpoints ORDER BY id_hasta DESC LIMIT 1";
+
+    private static final String SQL_ANTERIOR = "SELECT " + COLUMNAS_CHECKPOINT
+            + " FROM audit_log_checkpoints WHERE id_hasta < ? ORDER BY id_hasta DESC LIMIT 1";
+
+    private static final String SQL_MUESTRA = "SELECT " + COLUMNAS_CHECKPOINT
+            + " FROM audit_log_checkpoints ORDER BY random() LIMIT ?";
+
+    private static final String SQL_INSERTAR = """
+            INSERT INTO audit_log_checkpoints (id_desde, id_hasta, total_registros, digest_anterior, digest,
+                                               fecha_creacion, fecha_verificacion)
+            VALUES (?, ?, ?, ?, ?, NOW(), NOW())
+            """;
+
+    private static final String SQL_MARCAR_VERIFICADO =
+            "UPDATE audit_log_checkpoints SET fecha_verificacion = NOW() WHERE id_checkpoint = ?";
+
+    /**
+     * Id anterior al primer registro posterior a {@code antesDe} (usa idx_audit_fecha).
+     * Sin registros recientes, el último id de la tabla.
+     */
+    private static final String SQL_ID_SELLABLE = """
+            SELECT COALESCE(
+                (SELECT MIN(id) - 1 FROM audit_logs WHERE fecha_hora >= ?),
+                (SELECT MAX(id) FROM audit_logs),
+                0)
+            """;
+
+    private static final String SQL_MIN_ID = "SELECT MIN(id) FROM audit_logs";
+
+    private static final String SQL_REGISTROS_RANGO = """
+            SELECT id, usuario, action, modulo, detalle, ip_address, user_agent, nivel, estado, fecha_hora,
+                   duracion_ms, id_afectado, datos_previos::text AS datos_previos,
+                   datos_nuevos::text AS datos_nuevos, hash_integridad
+            FROM audit_logs
+            WHERE id BETWEEN ? AND ?
+            ORDER BY id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Checkpoint(
+            Long idCheckpoint,
+            long idDesde,
+            long idHasta,
+            int totalRegistros,
+            String digestAnterior,
+            String digest,
+            LocalDateTime fechaCreacion) {
+    }
+
+    private static final RowMapper<Checkpoint> CHECKPOINT_MAPPER = (rs, i) -> new Checkpoint(
+            rs.getLong("id_checkpoint"),
+            rs.getLong("id_desde"),
+            rs.getLong("id_hasta"),
+            rs.getInt("total_registros"),
+            rs.getString("digest_anterior"),
+            rs.getString("digest"),
+            rs.getTimestamp("fecha_creacion").toLocalDateTime());
+
+    public Optional<Checkpoint> ultimo() {
+        return jdbcTemplate.query(SQL_ULTIMO, CHECKPOINT_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * Checkpoint inmediatamente anterior a {@code idDesde} (para verificar el encadenamiento)
+     */
+    public Optional<Checkpoint> anterior(long idDesde) {
+        return jdbcTemplate.query(SQL_ANTERIOR, CHECKPOINT_MAPPER, idDesde).stream().findFirst();
+    }
+
+    /**
+     * Checkpoints ya sellados elegidos al azar
+     */
+    public List<Checkpoint> muestra(int cantidad) {
+        return jdbcTemplate.query(SQL_MUESTRA, CHECKPOINT_MAPPER, cantidad);
+    }
+
+    public void insertar(long idDesde, long idHasta, int totalRegistros, String digestAnterior, String digest) {
+        jdbcTemplate.update(SQL_INSERTAR, idDesde, idHasta, totalRegistros, digestAnterior, digest);
+    }
+
+    public void marcarVerificado(long idCheckpoint) {
+        jdbcTemplate.update(SQL_MARCAR_VERIFICADO, idCheckpoint);
+    }
+
+    /**
+     * Id hasta el que se puede sellar (0 si no hay registros). El límite se toma por id y no
+     * por fecha_hora: AuditLogWriter escribe en segundo plano, así que un registro con id menor
+     * puede confirmarse después que uno más reciente. Se sella solo hasta el id previo al menor
+     * de los registros posteriores a {@code antesDe}, para no cerrar un bloque que todavía
+     * puede recibir INSERTs.
+     */
+    public long idSellable(LocalDateTime antesDe) {
+        Long id = jdbcTemplate.queryForObject(SQL_ID_SELLABLE, Long.class, Timestamp.valueOf(antesDe));
+        return id != null ? id : 0;
+    }
+
+    /**
+     * Primer id de audit_logs (null si la tabla está vacía)
+     */
+    public Long primerId() {
+        return jdbcTemplate.queryForObject(SQL_MIN_ID, Long.class);
+    }
+
+    /**
+     * Recorre los registros con id en [idDesde, idHasta] en orden de id
+     */
+    public void recorrerRegistros(long idDesde, long idHasta, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_REGISTROS_RANGO);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, idDesde);
+            ps.setLong(2, idHasta);
+            return ps;
+        }, handler);
+    }
+}
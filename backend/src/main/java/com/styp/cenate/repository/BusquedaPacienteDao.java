@@ -0,0 +1,123 @@
+package com.styp.cenate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 🔎 Búsqueda de pacientes por nombre (v2.6.0)
+ *
+ * El texto se separa en términos y cada uno debe aparecer en el nombre normalizado
+ * (f_normalizar_busqueda: minúsculas, sin tildes):
+ *   f_normalizar_busqueda(nombre) LIKE '%término%' AND ...
+ * - el orden no importa ("PEREZ JUAN" encuentra "JUAN CARLOS PEREZ");
+ * - un término incompleto funciona como prefijo ("MOLI" encuentra "MOLINA");
+ * - cada LIKE usa el índice trigram del nombre (V6_40_0 bolsas, V6_44_0 asegurados).
+ * Los resultados se ordenan por word_similarity con el texto completo.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BusquedaPacienteDao {
+
+    private static final String SQL_ASEGURADOS = """
+            SELECT a.pk_asegurado, a.doc_paciente, a.paciente, a.cas_adscripcion,
+                   word_similarity(f_normalizar_busqueda(?), f_normalizar_busqueda(a.paciente)) AS puntaje
+            FROM asegurados a
+            WHERE a.vigencia = true
+              AND %s
+            ORDER BY puntaje DESC, a.paciente, a.pk_asegurado
+            LIMIT ?
+            """;
+
+    private static final String SQL_SOLICITUDES = """
+            SELECT sb.id_solicitud
+            FROM dim_solicitud_bolsa sb
+            WHERE %s%s
+            ORDER BY word_similarity(f_normalizar_busqueda(?), f_normalizar_busqueda(sb.paciente_nombre)) DESC,
+                     sb.id_solicitud DESC
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record AseguradoEncontrado(String pkAsegurado, String docPaciente, String paciente,
+                                      String casAdscripcion, double puntaje) {
+    }
+
+    /**
+     * Términos de búsqueda: palabras del texto con los comodines de LIKE escapados
+     */
+    public static List<String> terminos(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(texto.trim().split("\\s+"))
+                .map(BusquedaPacienteDao::escaparLike)
+                .toList();
+    }
+
+    /**
+     * Escapa \, % y _ para usar el texto como literal dentro de un LIKE (carácter de escape por defecto)
+     */
+    public static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Predicado con un LIKE por término sobre {@code columna}; agrega los términos a {@code parametros}
+     * (sin términos no coincide ninguna fila)
+     */
+    public static String predicadoNombre(String columna, List<String> terminos, List<Object> parametros) {
+        if (terminos.isEmpty()) {
+            return "FALSE";
+        }
+        List<String> likes = new ArrayList<>();
+        for (String termino : terminos) {
+            likes.add("f_normalizar_busqueda(" + columna + ") LIKE '%' || f_normalizar_busqueda(?) || '%'");
+            parametros.add(termino);
+        }
+        return "(" + String.join(" AND ", likes) + ")";
+    }
+
+    /**
+     * Asegurados vigentes cuyo nombre contiene todos los términos, los más parecidos primero
+     */
+    public List<AseguradoEncontrado> buscarAsegurados(String texto, int limite) {
+        List<String> terminos = terminos(texto);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(texto.trim());
+        String sql = SQL_ASEGURADOS.formatted(predicadoNombre("a.paciente", terminos, parametros));
+        parametros.add(limite);
+        return jdbcTemplate.query(sql, (rs, i) -> new AseguradoEncontrado(
+                rs.getString("pk_asegurado"),
+                rs.getString("doc_paciente"),
+                rs.getString("paciente"),
+                rs.getString("cas_adscripcion"),
+                rs.getDouble("puntaje")), parametros.toArray());
+    }
+
+    /**
+     * IDs de solicitudes de bolsa por nombre de paciente, los más parecidos primero
+     * @param soloActivas true = solo solicitudes activas
+     */
+    public List<Long> buscarIdsSolicitudes(String texto, boolean soloActivas, int limite) {
+        List<String> terminos = terminos(texto);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+        List<Object> parametros = new ArrayList<>();
+        String sql = SQL_SOLICITUDES.formatted(
+                predicadoNombre("sb.paciente_nombre", terminos, parametros),
+                soloActivas ? " AND sb.activo = true" : "");
+        parametros.add(texto.trim());
+        parametros.add(limite);
+        return jdbcTemplate.queryForList(sql, Long.class, parametros.toArray());
+    }
+}
@@ -0,0 +1,102 @@
+package com.styp.cenate.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.styp.cenate.enumd.ModoConteo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 🔢 Total de búsquedas paginadas según {@link ModoConteo} (v2.6.0)
+ *
+ * Recibe el SELECT de las filas que cumplen el filtro (sin ORDER BY ni LIMIT) y:
+ * - EXACTO   : SELECT COUNT(*) FROM (filas)
+ * - ESTIMADO : EXPLAIN (FORMAT JSON) filas → "Plan Rows" (estadísticas, no lee la tabla)
+ * - LIMITADO : SELECT COUNT(*) FROM (filas LIMIT tope + 1); lee a lo más tope + 1 filas
+ *
+ * Con pocas filas la estimación del planificador es poco fiable (y contar es barato): si
+ * ESTIMADO no supera el tope, o no hay plan, se responde con el conteo LIMITADO.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConteoPaginadoDao {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.paginacion.tope-conteo:1000}")
+    private long tope;
+
+    /**
+     * Prepara {@code sql} con los parámetros del filtro (los mismos del SELECT de filas)
+     */
+    @FunctionalInterface
+    public interface Sentencia {
+        PreparedStatement preparar(Connection con, String sql) throws SQLException;
+    }
+
+    public record Total(long valor, ModoConteo modo, boolean esMinimo) {
+    }
+
+    /** Parámetros posicionales simples (setObject en orden) */
+    public static Sentencia conParametros(List<Object> parametros) {
+        return (con, sql) -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            for (int i = 0; i < parametros.size(); i++) {
+                ps.setObject(i + 1, parametros.get(i));
+            }
+            return ps;
+        };
+    }
+
+    public Total contar(ModoConteo modo, String sqlFilas, Sentencia sentencia) {
+        return switch (modo) {
+            case EXACTO -> new Total(escalar("SELECT COUNT(*) FROM (" + sqlFilas + ") filas", sentencia),
+                    ModoConteo.EXACTO, false);
+            case ESTIMADO -> {
+                long estimadas = estimar(sqlFilas, sentencia);
+                yield estimadas > tope
+                        ? new Total(estimadas, ModoConteo.ESTIMADO, false)
+                        : contarLimitado(sqlFilas, sentencia);
+            }
+            case LIMITADO -> contarLimitado(sqlFilas, sentencia);
+        };
+    }
+
+    public long tope() {
+        return tope;
+    }
+
+    private Total contarLimitado(String sqlFilas, Sentencia sentencia) {
+        long contadas = escalar("SELECT COUNT(*) FROM (" + sqlFilas + " LIMIT " + (tope + 1) + ") filas", sentencia);
+        return contadas > tope
+                ? new Total(tope, ModoConteo.LIMITADO, true)
+                : new Total(contadas, ModoConteo.LIMITADO, false);
+    }
+
+    private long escalar(String sql, Sentencia sentencia) {
+        Long valor = jdbcTemplate.query(con -> sentencia.preparar(con, sql), rs -> rs.next() ? rs.getLong(1) : 0L);
+        return valor != null ? valor : 0;
+    }
+
+    private long estimar(String sqlFilas, Sentencia sentencia) {
+        String plan = jdbcTemplate.query(con -> sentencia.preparar(con, "EXPLAIN (FORMAT JSON) " + sqlFilas),
+                rs -> rs.next() ? rs.getString(1) : null);
+        if (plan == null) {
+            return -1;
+        }
+        try {
+            return JSON.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong(-1);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo leer el plan de la consulta", e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.styp.cenate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 📊 Consultas agregadas del dashboard administrativo (v2.6.0)
+ *
+ * Cada método es una sola consulta independiente para que {@code DashboardSnapshotService}
+ * pueda lanzarlas en paralelo. Las ventanas de audit_logs se resuelven en un único
+ * recorrido del índice idx_audit_fecha con COUNT(*) FILTER.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DashboardEstadisticasDao {
+
+    private static final String SQL_INDICADORES_CATALOGO = """
+            SELECT
+                (SELECT COUNT(*) FROM dim_area) AS total_areas,
+                (SELECT COUNT(*) FROM form_diag_cat_categoria_profesional) AS total_profesiones,
+                (SELECT COUNT(*) FROM dim_regimen_laboral) AS total_regimenes
+            """;
+
+    private static final String SQL_ACTIVIDAD_AUDITORIA = """
+            SELECT COUNT(*) FILTER (WHERE fecha_hora >= ?)                     AS ultima_hora,
+                   COUNT(*) FILTER (WHERE fecha_hora >= ?)                     AS ultimas_24h,
+                   COUNT(*)                                                    AS ultimos_7d,
+                   COUNT(*) FILTER (WHERE fecha_hora >= ? AND action = 'LOGIN') AS logins_24h
+            FROM audit_logs
+            WHERE fecha_hora >= ? AND fecha_hora <= ?
+            """;
+
+    private static final String SQL_TOP_USUARIOS = """
+            SELECT usuario, COUNT(*) AS acciones
+            FROM audit_logs
+            WHERE fecha_hora >= ?
+            GROUP BY usuario
+            ORDER BY acciones DESC
+            LIMIT ?
+            """;
+
+    private static final String SQL_AUDITORIA_POR_MODULO_DESDE_ID = """
+            SELECT modulo, COUNT(*) AS total, MAX(id) AS max_id
+            FROM audit_logs
+            WHERE id > ?
+            GROUP BY modulo
+            """;
+
+    private static final String SQL_DISTRIBUCION_PERSONAL = """
+            SELECT
+                COUNT(*) as total_usuarios,
+                COUNT(DISTINCT CASE WHEN pc.id_usuario IS NOT NULL AND pe.id_user IS NULL THEN u.id_user END) as solo_interno,
+                COUNT(DISTINCT CASE WHEN pe.id_user IS NOT NULL THEN u.id_user END) as externo_o_ambos,
+                COUNT(DISTINCT CASE WHEN pc.id_usuario IS NOT NULL AND pe.id_user IS NOT NULL THEN u.id_user END) as con_ambos
+            FROM dim_usuarios u
+            LEFT JOIN dim_personal_cnt pc ON u.id_user = pc.id_usuario
+            LEFT JOIN dim_personal_externo pe ON u.id_user = pe.id_user
+            WHERE u.stat_user IN ('A', 'ACTIVO')
+            """;
+
+    private static final String SQL_PERSONAL_EXTERNO_POR_RED = """
+            SELECT
+                r.id_red,
+                r.desc_red as nombre_red,
+                COUNT(DISTINCT pe.id_user) as total_usuarios
+            FROM dim_personal_externo pe
+            INNER JOIN dim_ipress i ON pe.id_ipress = i.id_ipress
+            INNER JOIN dim_red r ON i.id_red = r.id_red
+            INNER JOIN dim_usuarios u ON u.id_user = pe.id_user
+            WHERE u.stat_user IN ('A', 'ACTIVO')
+            GROUP BY r.id_red, r.desc_red
+            HAVING COUNT(DISTINCT pe.id_user) > 0
+            ORDER BY total_usuarios DESC
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record IndicadoresCatalogo(long totalAreas, long totalProfesiones, long totalRegimenes) {
+        public static final IndicadoresCatalogo VACIO = new IndicadoresCatalogo(0, 0, 0);
+    }
+
+    public record ActividadAuditoria(long ultimaHora, long ultimas24h, long ultimos7d, long logins24h) {
+    }
+
+    public record UsuarioActividad(String usuario, long acciones) {
+    }
+
+    /** Registros de un módulo con id mayor al pedido; {@code maxId} es el último id visto */
+    public record ConteoModulo(String modulo, long total, long maxId) {
+    }
+
+    public record DistribucionPersonal(long totalGeneral, long soloInterno, long externoOAmbos, long conAmbos) {
+    }
+
+    public record PersonalExternoRed(long idRed, String nombreRed, long totalUsuarios) {
+    }
+
+    /**
+     * Áreas, profesiones y regímenes laborales
+     */
+    public IndicadoresCatalogo indicadoresCatalogo() {
+        return jdbcTemplate.queryForObject(SQL_INDICADORES_CATALOGO, (rs, i) -> new IndicadoresCatalogo(
+                rs.getLong("total_areas"),
+                rs.getLong("total_profesiones"),
+                rs.getLong("total_regimenes")));
+    }
+
+    /**
+     * Registros de auditoría en la última hora, 24 horas y 7 días, y logins de las últimas 24 horas
+     */
+    public ActividadAuditoria actividadAuditoria(LocalDateTime ahora) {
+        Timestamp hace1h = Timestamp.valueOf(ahora.minusHours(1));
+        Timestamp hace24h = Timestamp.valueOf(ahora.minusHours(24));
+        return jdbcTemplate.queryForObject(SQL_ACTIVIDAD_AUDITORIA, (rs, i) -> new ActividadAuditoria(
+                        rs.getLong("ultima_hora"),
+                        rs.getLong("ultimas_24h"),
+                        rs.getLong("ultimos_7d"),
+                        rs.getLong("logins_24h")),
+                hace1h, hace24h, hace24h, Timestamp.valueOf(ahora.minusDays(7)), Timestamp.valueOf(ahora));
+    }
+
+    /**
+     * Usuarios con más acciones desde {@code desde}
+     */
+    public List<UsuarioActividad> topUsuarios(LocalDateTime desde, int limite) {
+        return jdbcTemplate.query(SQL_TOP_USUARIOS,
+                (rs, i) -> new UsuarioActividad(rs.getString("usuario"), rs.getLong("acciones")),
+                Timestamp.valueOf(desde), limite);
+    }
+
+    /**
+     * Conteo por módulo de los registros con id mayor a {@code idDesde} (0 = toda la tabla)
+     */
+    public List<ConteoModulo> auditoriaPorModuloDesde(long idDesde) {
+        return jdbcTemplate.query(SQL_AUDITORIA_POR_MODULO_DESDE_ID,
+                (rs, i) -> new ConteoModulo(rs.getString("modulo"), rs.getLong("total"), rs.getLong("max_id")),
+                idDesde);
+    }
+
+    /**
+     * Usuarios activos por tipo de personal (si tiene personal externo cuenta como externo)
+     */
+    public DistribucionPersonal distribucionPersonal() {
+        return jdbcTemplate.queryForObject(SQL_DISTRIBUCION_PERSONAL, (rs, i) -> new DistribucionPersonal(
+                rs.getLong("total_usuarios"),
+                rs.getLong("solo_interno"),
+                rs.getLong("externo_o_ambos"),
+                rs.getLong("con_ambos")));
+    }
+
+    /**
+     * Usuarios activos con personal externo agrupados por red
+     */
+    public List<PersonalExternoRed> personalExternoPorRed() {
+        return jdbcTemplate.query(SQL_PERSONAL_EXTERNO_POR_RED, (rs, i) -> new PersonalExternoRed(
+                rs.getLong("id_red"),
+                rs.getString("nombre_red"),
+                rs.getLong("total_usuarios")));
+    }
+}
@@ -0,0 +1,154 @@
+package com.styp.cenate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 🩺 Consultas agregadas de enfermería sobre atencion_clinica (v2.6.0)
+ *
+ * Todo se resuelve en la base con el índice idx_atencion_clinica_creador_paciente_fecha
+ * (id_personal_creador, pk_asegurado, fecha_atencion DESC): el tiempo depende de las
+ * atenciones de las enfermeras consultadas, no del tamaño de la tabla.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EnfermeriaEstadisticasDao {
+
+    private static final String SQL_TOTALES = """
+            SELECT COUNT(*)                                                        AS total_atenciones,
+                   COUNT(DISTINCT pk_asegurado)                                    AS pacientes,
+                   COUNT(DISTINCT pk_asegurado) FILTER (WHERE requiere_telemonitoreo) AS pacientes_telemonitoreo
+            FROM atencion_clinica
+            WHERE id_personal_creador = ANY(?)
+            """;
+
+    private static final String SQL_POR_IPRESS = """
+            SELECT t.id_ipress, i.desc_ipress, t.total_atenciones, t.pacientes
+            FROM (
+                SELECT id_ipress, COUNT(*) AS total_atenciones, COUNT(DISTINCT pk_asegurado) AS pacientes
+                FROM atencion_clinica
+                WHERE id_personal_creador = ANY(?)
+                GROUP BY id_ipress
+                ORDER BY total_atenciones DESC
+                LIMIT ?
+            ) t
+            LEFT JOIN dim_ipress i ON i.id_ipress = t.id_ipress
+            ORDER BY t.total_atenciones DESC
+            """;
+
+    private static final String SQL_POR_MES = """
+            SELECT to_char(fecha_atencion, 'YYYY-MM') AS mes,
+                   COUNT(*)                          AS total_atenciones,
+                   COUNT(DISTINCT pk_asegurado)      AS pacientes
+            FROM atencion_clinica
+            WHERE id_personal_creador = ANY(?)
+            GROUP BY mes
+            ORDER BY mes DESC
+            LIMIT ?
+            """;
+
+    /** Última atención de cada paciente del profesional + total de atenciones */
+    private static final String SQL_PACIENTES_POR_CREADOR = """
+            SELECT pk_asegurado, id_atencion, fecha_atencion, id_tipo_atencion, requiere_telemonitoreo, total_atenciones
+            FROM (
+                SELECT DISTINCT ON (pk_asegurado)
+                       pk_asegurado, id_atencion, fecha_atencion, id_tipo_atencion, requiere_telemonitoreo,
+                       COUNT(*) OVER (PARTITION BY pk_asegurado) AS total_atenciones
+                FROM atencion_clinica
+                WHERE id_personal_creador = ?
+                ORDER BY pk_asegurado, fecha_atencion DESC, id_atencion DESC
+            ) ultima
+            ORDER BY fecha_atencion DESC, pk_asegurado
+            LIMIT ? OFFSET ?
+            """;
+
+    private static final String SQL_CONTAR_PACIENTES_POR_CREADOR =
+            "SELECT COUNT(DISTINCT pk_asegurado) FROM atencion_clinica WHERE id_personal_creador = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Totales(long totalAtenciones, long pacientes, long pacientesTelemonitoreo) {
+        public static final Totales VACIO = new Totales(0, 0, 0);
+    }
+
+    public record ConteoIpress(Long idIpress, String descIpress, long totalAtenciones, long pacientes) {
+    }
+
+    public record ConteoMes(String mes, long totalAtenciones, long pacientes) {
+    }
+
+    public record UltimaAtencionPaciente(
+            String pkAsegurado,
+            Long idAtencion,
+            OffsetDateTime fechaAtencion,
+            Long idTipoAtencion,
+            Boolean requiereTelemonitoreo,
+            long totalAtenciones) {
+    }
+
+    public Totales totales(Collection<Long> idsCreadores) {
+        return jdbcTemplate.query(con -> conArreglo(con, SQL_TOTALES, idsCreadores),
+                rs -> rs.next()
+                        ? new Totales(rs.getLong("total_atenciones"), rs.getLong("pacientes"),
+                                rs.getLong("pacientes_telemonitoreo"))
+                        : Totales.VACIO);
+    }
+
+    /**
+     * IPRESS con más atenciones (las {@code limite} primeras)
+     */
+    public List<ConteoIpress> porIpress(Collection<Long> idsCreadores, int limite) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = conArreglo(con, SQL_POR_IPRESS, idsCreadores);
+            ps.setInt(2, limite);
+            return ps;
+        }, (rs, i) -> new ConteoIpress(rs.getObject("id_ipress", Long.class), rs.getString("desc_ipress"),
+                rs.getLong("total_atenciones"), rs.getLong("pacientes")));
+    }
+
+    /**
+     * Meses (yyyy-MM) más recientes con atenciones, del más reciente al más antiguo
+     */
+    public List<ConteoMes> porMes(Collection<Long> idsCreadores, int meses) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = conArreglo(con, SQL_POR_MES, idsCreadores);
+            ps.setInt(2, meses);
+            return ps;
+        }, (rs, i) -> new ConteoMes(rs.getString("mes"), rs.getLong("total_atenciones"), rs.getLong("pacientes")));
+    }
+
+    /**
+     * Pacientes atendidos por un profesional, ordenados por su última atención (más reciente primero)
+     */
+    public List<UltimaAtencionPaciente> pacientesPorCreador(Long idPersonalCreador, int limite, long offset) {
+        return jdbcTemplate.query(SQL_PACIENTES_POR_CREADOR, (rs, i) -> new UltimaAtencionPaciente(
+                        rs.getString("pk_asegurado"),
+                        rs.getLong("id_atencion"),
+                        rs.getObject("fecha_atencion", OffsetDateTime.class),
+                        rs.getObject("id_tipo_atencion", Long.class),
+                        rs.getObject("requiere_telemonitoreo", Boolean.class),
+                        rs.getLong("total_atenciones")),
+                idPersonalCreador, limite, offset);
+    }
+
+    public long contarPacientesPorCreador(Long idPersonalCreador) {
+        Long total = jdbcTemplate.queryForObject(SQL_CONTAR_PACIENTES_POR_CREADOR, Long.class, idPersonalCreador);
+        return total != null ? total : 0;
+    }
+
+    private PreparedStatement conArreglo(Connection con, String sql, Collection<Long> ids) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        Array arreglo = con.createArrayOf("bigint", ids.toArray());
+        ps.setArray(1, arreglo);
+        return ps;
+    }
+}
@@ -19,6 +19,12 @@ public interface IpressRepository extends JpaRepository<Ipress, Long> {
 	 */
 	Optional<Ipress> findByCodIpress(String codIpress);
 
+	/**
+	 * Catálogo completo código → descripción (para IpressCatalogoService)
+	 */
+	@Query(value = "SELECT cod_ipress, desc_ipress FROM dim_ipress WHERE cod_ipress IS NOT NULL", nativeQuery = true)
+	List<Object[]> findCatalogoCodigoDescripcion();
+
 	/**
 	 * Buscar IPRESS activas
 	 */
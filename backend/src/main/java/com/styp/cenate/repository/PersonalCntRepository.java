@@ -29,6 +29,38 @@ public interface PersonalCntRepository extends JpaRepository<PersonalCnt, Long>
 	 */
 	boolean existsByNumDocPers(String numDocPers);
 
+	/**
+	 * v2.6.0: Obtiene el personal CNT por número de documento exacto.
+	 *
+	 * @param numDocPers número de documento del personal
+	 * @return personal encontrado, si existe
+	 */
+	Optional<PersonalCnt> findByNumDocPers(String numDocPers);
+
+	/**
+	 * v2.6.0: Busca personal CNT cuyo nombre completo (nombres + apellidos) contiene el
+	 * texto, sin distinguir tildes ni mayúsculas. Usa el índice trigram
+	 * idx_personal_cnt_nombre_completo_trgm; los más parecidos primero.
+	 *
+	 * @param texto parte del nombre o apellidos
+	 * @param patron el mismo texto con los comodines de LIKE escapados (BusquedaPacienteDao.escaparLike)
+	 * @param limite máximo de resultados
+	 * @return personal encontrado
+	 */
+	@Query(value = """
+			SELECT * FROM dim_personal_cnt
+			WHERE f_normalizar_busqueda(coalesce(nom_pers, '') || ' ' || coalesce(ape_pater_pers, '') || ' ' || coalesce(ape_mater_pers, ''))
+			      LIKE '%' || f_normalizar_busqueda(:patron) || '%'
+			ORDER BY similarity(
+			      f_normalizar_busqueda(coalesce(nom_pers, '') || ' ' || coalesce(ape_pater_pers, '') || ' ' || coalesce(ape_mater_pers, '')),
+			      f_normalizar_busqueda(:texto)) DESC
+			LIMIT :limite
+			""", nativeQuery = true)
+	List<PersonalCnt> buscarPorNombreCompletoSinAcentos(
+	    @org.springframework.data.repository.query.Param("texto") String texto,
+	    @org.springframework.data.repository.query.Param("patron") String patron,
+	    @org.springframework.data.repository.query.Param("limite") int limite);
+
 	/**
 	 * Obtiene el registro de personal CNT asociado a un usuario específico.
 	 *
@@ -0,0 +1,339 @@
+package com.styp.cenate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 📊 Agregaciones de TeleECG calculadas en PostgreSQL (v2.4.0)
+ *
+ * Los dashboards de analytics ya no cargan tele_ecg_imagenes completa en memoria.
+ * ✅ v2.5.0: conteos, TAT, SLA y distribuciones se leen de tele_ecg_resumen_diario
+ * (una fila por día × IPRESS × estado × evaluación × urgencia), así un mes cuesta unos
+ * cientos de filas sin importar cuántas imágenes tenga. Solo los pacientes únicos y las
+ * observaciones de ejemplo se consultan sobre tele_ecg_imagenes.
+ *
+ * El TAT es el promedio de minutos enteros entre fecha_envio y fecha_evaluacion, igual
+ * que ChronoUnit.MINUTES.between. Los filtros nulos no se agregan al WHERE.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TeleECGAnalyticsDao {
+
+    /** Días de vigencia de una imagen (fecha_expiracion = carga + 30 días) */
+    private static final int DIAS_VIGENCIA = 30;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Criterios comunes de las agregaciones. {@code desde}/{@code hasta}: días de envío
+     * inclusive (NULL = sin límite). {@code soloVigentes}: activas y no vencidas (salvo
+     * ATENDIDA); en el resumen diario el vencimiento se evalúa por día de envío.
+     */
+    public record FiltroAnalytics(
+            LocalDate desde,
+            LocalDate hasta,
+            String codigoIpress,
+            String evaluacion,
+            Boolean esUrgente,
+            boolean soloVigentes) {
+    }
+
+    public record ResumenAnalytics(
+            long total,
+            long normales,
+            long anormales,
+            long enviadas,
+            long observadas,
+            long atendidas,
+            long rechazadas,
+            long urgentes,
+            long conTat,
+            double tatPromedio,
+            long dentroSla,
+            double tatUrgentes,
+            double tatNoUrgentes) {
+    }
+
+    public record ResumenPacientes(
+            long totalPacientes,
+            long pacientesPendientes,
+            long pacientesObservados,
+            long pacientesAtendidos,
+            long totalImagenes,
+            long imagenesPendientes) {
+    }
+
+    /** {@code tatPromedio} es null si la IPRESS no tiene ECGs evaluados */
+    public record AgregadoIpress(String nombreIpress, long total, long observadas, Double tatPromedio) {
+    }
+
+    /** {@code tatPromedio} es null si el día no tiene ECGs evaluados */
+    public record AgregadoDia(LocalDate fecha, long total, Double tatPromedio) {
+    }
+
+    /**
+     * Conteos, TAT y cumplimiento de SLA en una sola fila.
+     * {@code slaMinutos} debe ser 15 o 90 (umbrales precalculados en el resumen diario).
+     */
+    public ResumenAnalytics resumen(FiltroAnalytics filtro, int slaMinutos) {
+        List<Object> args = new ArrayList<>();
+        String sql = """
+                SELECT COALESCE(SUM(total), 0)                                         AS total,
+                       COALESCE(SUM(total) FILTER (WHERE evaluacion = 'NORMAL'), 0)    AS normales,
+                       COALESCE(SUM(total) FILTER (WHERE evaluacion = 'ANORMAL'), 0)   AS anormales,
+                       COALESCE(SUM(total) FILTER (WHERE estado = 'ENVIADA'), 0)       AS enviadas,
+                       COALESCE(SUM(total) FILTER (WHERE estado = 'OBSERVADA'), 0)     AS observadas,
+                       COALESCE(SUM(total) FILTER (WHERE estado = 'ATENDIDA'), 0)      AS atendidas,
+                       COALESCE(SUM(total) FILTER (WHERE estado = 'RECHAZADA'), 0)     AS rechazadas,
+                       COALESCE(SUM(total) FILTER (WHERE es_urgente), 0)               AS urgentes,
+                       COALESCE(SUM(con_tat), 0)                                       AS con_tat,
+                       CAST(SUM(suma_tat_minutos) AS numeric) / NULLIF(SUM(con_tat), 0) AS tat_promedio,
+                       COALESCE(SUM(%s), 0)                                            AS dentro_sla,
+                       CAST(SUM(suma_tat_minutos) FILTER (WHERE es_urgente) AS numeric)
+                           / NULLIF(SUM(con_tat) FILTER (WHERE es_urgente), 0)         AS tat_urgentes,
+                       CAST(SUM(suma_tat_minutos) FILTER (WHERE NOT es_urgente) AS numeric)
+                           / NULLIF(SUM(con_tat) FILTER (WHERE NOT es_urgente), 0)     AS tat_no_urgentes
+                FROM tele_ecg_resumen_diario""".formatted(columnaSla(slaMinutos)) + condicionesResumen(filtro, args);
+
+        return jdbcTemplate.queryForObject(sql, (rs, i) -> new ResumenAnalytics(
+                rs.getLong("total"),
+                rs.getLong("normales"),
+                rs.getLong("anormales"),
+                rs.getLong("enviadas"),
+                rs.getLong("observadas"),
+                rs.getLong("atendidas"),
+                rs.getLong("rechazadas"),
+                rs.getLong("urgentes"),
+                rs.getLong("con_tat"),
+                rs.getDouble("tat_promedio"),
+                rs.getLong("dentro_sla"),
+                rs.getDouble("tat_urgentes"),
+                rs.getDouble("tat_no_urgentes")), args.toArray());
+    }
+
+    /**
+     * Imágenes activas y vigentes por estado con el vencimiento exacto
+     * ({@code fecha_expiracion >= CURRENT_TIMESTAMP}, salvo ATENDIDA):
+     * las ATENDIDAS salen del resumen diario (no vencen) y el resto de tele_ecg_imagenes
+     * (índice parcial idx_tele_ecg_vigentes, V6_46_0).
+     */
+    public Map<String, Long> conteoVigentesPorEstado() {
+        String sql = """
+                SELECT estado, SUM(cantidad) AS cantidad
+                FROM (
+                    SELECT estado, total AS cantidad
+                    FROM tele_ecg_resumen_diario
+                    WHERE activa AND estado = 'ATENDIDA'
+                    UNION ALL
+                    SELECT estado, COUNT(*)
+                    FROM tele_ecg_imagenes
+                    WHERE stat_imagen = 'A' AND estado <> 'ATENDIDA' AND fecha_expiracion >= CURRENT_TIMESTAMP
+                    GROUP BY estado
+                ) t
+                GROUP BY estado
+                """;
+
+        Map<String, Long> conteo = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            conteo.put(rs.getString("estado"), rs.getLong("cantidad"));
+        });
+        return conteo;
+    }
+
+    /**
+     * Pacientes únicos (DNI) por estado sobre toda la tabla, sin distinguir mayúsculas
+     */
+    public ResumenPacientes resumenPacientes() {
+        String sql = """
+                SELECT COUNT(DISTINCT num_doc_paciente) FILTER (WHERE con_dni)                             AS total_pacientes,
+                       COUNT(DISTINCT num_doc_paciente) FILTER (WHERE con_dni AND estado_norm = 'ENVIADA')   AS pacientes_pendientes,
+                       COUNT(DISTINCT num_doc_paciente) FILTER (WHERE con_dni AND estado_norm = 'OBSERVADA') AS pacientes_observados,
+                       COUNT(DISTINCT num_doc_paciente) FILTER (WHERE con_dni AND estado_norm = 'ATENDIDA')  AS pacientes_atendidos,
+                       COUNT(*)                                                                             AS total_imagenes,
+                       COUNT(*) FILTER (WHERE estado_norm = 'ENVIADA')                                      AS imagenes_pendientes
+                FROM (
+                    SELECT num_doc_paciente,
+                           UPPER(estado) AS estado_norm,
+                           TRIM(COALESCE(num_doc_paciente, '')) <> '' AS con_dni
+                    FROM tele_ecg_imagenes
+                ) t
+                """;
+        return jdbcTemplate.queryForObject(sql, (rs, i) -> new ResumenPacientes(
+                rs.getLong("total_pacientes"),
+                rs.getLong("pacientes_pendientes"),
+                rs.getLong("pacientes_observados"),
+                rs.getLong("pacientes_atendidos"),
+                rs.getLong("total_imagenes"),
+                rs.getLong("imagenes_pendientes")));
+    }
+
+    /**
+     * Cantidad de ECGs por evaluación (sin evaluación → SIN_EVALUAR)
+     */
+    public Map<String, Long> distribucionEvaluacion(FiltroAnalytics filtro) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT COALESCE(NULLIF(evaluacion, ''), 'SIN_EVALUAR') AS evaluacion, SUM(total) AS total"
+                + " FROM tele_ecg_resumen_diario" + condicionesResumen(filtro, args) + " GROUP BY 1";
+
+        Map<String, Long> distribucion = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            distribucion.put(rs.getString("evaluacion"), rs.getLong("total"));
+        }, args.toArray());
+        return distribucion;
+    }
+
+    /**
+     * Totales, observadas y TAT promedio por IPRESS (sin nombre → SIN_IPRESS)
+     */
+    public List<AgregadoIpress> agregadoPorIpress(FiltroAnalytics filtro) {
+        List<Object> args = new ArrayList<>();
+        String sql = """
+                SELECT COALESCE(NULLIF(nombre_ipress, ''), 'SIN_IPRESS')                      AS nombre_ipress,
+                       SUM(total)                                                            AS total,
+                       COALESCE(SUM(total) FILTER (WHERE estado = 'OBSERVADA'), 0)           AS observadas,
+                       CAST(SUM(suma_tat_minutos) AS numeric) / NULLIF(SUM(con_tat), 0)      AS tat_promedio
+                FROM tele_ecg_resumen_diario""" + condicionesResumen(filtro, args) + " GROUP BY 1";
+
+        return jdbcTemplate.query(sql, (rs, i) -> new AgregadoIpress(
+                rs.getString("nombre_ipress"),
+                rs.getLong("total"),
+                rs.getLong("observadas"),
+                doubleONulo(rs, "tat_promedio")), args.toArray());
+    }
+
+    /**
+     * Hasta {@code limite} observaciones de ECGs OBSERVADOS por IPRESS, las más recientes primero
+     */
+    public Map<String, List<String>> motivosObservacionPorIpress(FiltroAnalytics filtro, int limite) {
+        List<Object> args = new ArrayList<>();
+        String sql = """
+                SELECT nombre_ipress, observaciones
+                FROM (
+                    SELECT COALESCE(nombre_ipress, 'SIN_IPRESS') AS nombre_ipress,
+                           observaciones,
+                           ROW_NUMBER() OVER (PARTITION BY COALESCE(nombre_ipress, 'SIN_IPRESS')
+                                              ORDER BY fecha_envio DESC) AS rn
+                    FROM (""" + consultaBase(filtro, args) + """
+                    ) b
+                    WHERE estado = 'OBSERVADA' AND observaciones IS NOT NULL
+                ) t
+                WHERE rn <= ?
+                ORDER BY nombre_ipress, rn
+                """;
+        args.add(limite);
+
+        Map<String, List<String>> motivos = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            motivos.computeIfAbsent(rs.getString("nombre_ipress"), k -> new ArrayList<>())
+                    .add(rs.getString("observaciones"));
+        }, args.toArray());
+        return motivos;
+    }
+
+    /**
+     * Volumen y TAT promedio por día de envío, ordenado por fecha
+     */
+    public List<AgregadoDia> agregadoPorDia(FiltroAnalytics filtro) {
+        List<Object> args = new ArrayList<>();
+        String sql = """
+                SELECT fecha                                                            AS dia,
+                       SUM(total)                                                       AS total,
+                       CAST(SUM(suma_tat_minutos) AS numeric) / NULLIF(SUM(con_tat), 0) AS tat_promedio
+                FROM tele_ecg_resumen_diario""" + condicionesResumen(filtro, args) + " GROUP BY fecha ORDER BY fecha";
+
+        return jdbcTemplate.query(sql, (rs, i) -> new AgregadoDia(
+                rs.getDate("dia").toLocalDate(),
+                rs.getLong("total"),
+                doubleONulo(rs, "tat_promedio")), args.toArray());
+    }
+
+    /**
+     * WHERE sobre tele_ecg_resumen_diario con los filtros presentes
+     */
+    private static String condicionesResumen(FiltroAnalytics filtro, List<Object> args) {
+        List<String> condiciones = new ArrayList<>();
+        if (filtro.desde() != null) {
+            condiciones.add("fecha >= ?");
+            args.add(Date.valueOf(filtro.desde()));
+        }
+        if (filtro.hasta() != null) {
+            condiciones.add("fecha <= ?");
+            args.add(Date.valueOf(filtro.hasta()));
+        }
+        if (filtro.codigoIpress() != null) {
+            condiciones.add("codigo_ipress = ?");
+            args.add(filtro.codigoIpress());
+        }
+        if (filtro.evaluacion() != null && !filtro.evaluacion().isBlank()) {
+            condiciones.add("evaluacion = ?");
+            args.add(filtro.evaluacion());
+        }
+        if (filtro.esUrgente() != null) {
+            condiciones.add("es_urgente = ?");
+            args.add(filtro.esUrgente());
+        }
+        if (filtro.soloVigentes()) {
+            condiciones.add("activa");
+            condiciones.add("(estado = 'ATENDIDA' OR fecha >= CURRENT_DATE - " + DIAS_VIGENCIA + ")");
+        }
+        return condiciones.isEmpty() ? "" : " WHERE " + String.join(" AND ", condiciones);
+    }
+
+    /**
+     * Subconsulta sobre tele_ecg_imagenes para lo que no está en el resumen diario. Solo se agregan al WHERE los filtros presentes.
+     */
+    private static String consultaBase(FiltroAnalytics filtro, List<Object> args) {
+        List<String> condiciones = new ArrayList<>();
+        if (filtro.desde() != null) {
+            condiciones.add("fecha_envio >= ?");
+            args.add(Timestamp.valueOf(filtro.desde().atStartOfDay()));
+        }
+        if (filtro.hasta() != null) {
+            condiciones.add("fecha_envio < ?");
+            args.add(Timestamp.valueOf(filtro.hasta().plusDays(1).atStartOfDay()));
+        }
+        if (filtro.codigoIpress() != null) {
+            condiciones.add("codigo_ipress = ?");
+            args.add(filtro.codigoIpress());
+        }
+        if (filtro.evaluacion() != null && !filtro.evaluacion().isBlank()) {
+            condiciones.add("evaluacion = ?");
+            args.add(filtro.evaluacion());
+        }
+        if (filtro.esUrgente() != null) {
+            condiciones.add("es_urgente = ?");
+            args.add(filtro.esUrgente());
+        }
+        if (filtro.soloVigentes()) {
+            condiciones.add("stat_imagen = 'A'");
+            condiciones.add("(fecha_expiracion >= CURRENT_TIMESTAMP OR estado = 'ATENDIDA')");
+        }
+
+        return "SELECT estado, nombre_ipress, observaciones, fecha_envio FROM tele_ecg_imagenes"
+                + (condiciones.isEmpty() ? "" : " WHERE " + String.join(" AND ", condiciones));
+    }
+
+    private static String columnaSla(int slaMinutos) {
+        return switch (slaMinutos) {
+            case 15 -> "tat_hasta_15";
+            case 90 -> "tat_hasta_90";
+            default -> throw new IllegalArgumentException("SLA sin columna en tele_ecg_resumen_diario: " + slaMinutos);
+        };
+    }
+
+    private static Double doubleONulo(ResultSet rs, String columna) throws SQLException {
+        Number valor = (Number) rs.getObject(columna);
+        return valor != null ? valor.doubleValue() : null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.styp.cenate.repository;
+
+import com.styp.cenate.model.TeleECGBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Conteo de referencias de los blobs ECG direccionados por contenido
+ *
+ * Los incrementos/decrementos son atómicos en BD para que dos cargas
+ * concurrentes del mismo ECG no pierdan referencias.
+ *
+ * Quien decide si el archivo físico existe (reutilizarlo, escribirlo o borrarlo)
+ * primero bloquea la fila con {@link #reservar} + {@link #bloquear}, hasta el fin
+ * de su transacción.
+ */
+@Repository
+public interface TeleECGBlobRepository extends JpaRepository<TeleECGBlob, String> {
+
+    /**
+     * Registra una referencia: crea el blob con 1 o suma 1 si ya existía
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO tele_ecg_blobs (sha256, storage_ruta, size_bytes, referencias, fecha_creacion, fecha_ultima_referencia)
+        VALUES (:sha256, :storageRuta, :sizeBytes, 1, NOW(), NOW())
+        ON CONFLICT (sha256) DO UPDATE
+           SET referencias = tele_ecg_blobs.referencias + 1,
+               fecha_ultima_referencia = NOW()
+        """, nativeQuery = true)
+    int registrarReferencia(@Param("sha256") String sha256,
+                            @Param("storageRuta") String storageRuta,
+                            @Param("sizeBytes") long sizeBytes);
+
+    /**
+     * Crea la fila del blob sin referencias si no existe, para poder bloquearla.
+     * Si otra transacción la está creando, espera a que termine.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO tele_ecg_blobs (sha256, storage_ruta, size_bytes, referencias, fecha_creacion, fecha_ultima_referencia)
+        VALUES (:sha256, :storageRuta, :sizeBytes, 0, NOW(), NOW())
+        ON CONFLICT (sha256) DO NOTHING
+        """, nativeQuery = true)
+    int reservar(@Param("sha256") String sha256,
+                 @Param("storageRuta") String storageRuta,
+                 @Param("sizeBytes") long sizeBytes);
+
+    /**
+     * Bloquea la fila del blob (SELECT ... FOR UPDATE) hasta el fin de la transacción
+     *
+     * @return referencias actuales, o null si la fila no existe
+     */
+    @Query(value = "SELECT referencias FROM tele_ecg_blobs WHERE sha256 = :sha256 FOR UPDATE", nativeQuery = true)
+    Integer bloquear(@Param("sha256") String sha256);
+
+    /**
+     * Resta una referencia (nunca por debajo de 0)
+     */
+    @Modifying
+    @Query(value = "UPDATE tele_ecg_blobs SET referencias = referencias - 1 WHERE sha256 = :sha256 AND referencias > 0",
+           nativeQuery = true)
+    int liberarReferencia(@Param("sha256") String sha256);
+
+    /**
+     * Elimina el blob si ya no tiene referencias
+     *
+     * @return 1 si se eliminó (el archivo físico puede borrarse)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM tele_ecg_blobs WHERE sha256 = :sha256 AND referencias <= 0", nativeQuery = true)
+    int eliminarSinReferencias(@Param("sha256") String sha256);
+}
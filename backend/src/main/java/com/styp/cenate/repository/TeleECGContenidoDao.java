@@ -0,0 +1,166 @@
+package com.styp.cenate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 🖼️ Lectura por bloques de la columna BYTEA contenido_imagen de tele_ecg_imagenes (v2.6.0)
+ *
+ * El driver de PostgreSQL materializa un BYTEA completo al leerlo (getBinaryStream incluido),
+ * así que el contenido se pide en bloques con substring(): la descarga nunca tiene más de
+ * TAMANO_BLOQUE bytes en memoria y cada bloque es una consulta corta (no retiene una
+ * conexión mientras se escribe la respuesta). Un Range salta los bloques anteriores sin leerlos.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TeleECGContenidoDao {
+
+    /** Bytes por consulta */
+    private static final int TAMANO_BLOQUE = 256 * 1024;
+
+    private static final String SQL_LONGITUD =
+            "SELECT octet_length(contenido_imagen) FROM tele_ecg_imagenes WHERE id_imagen = ?";
+
+    private static final String SQL_BLOQUE = """
+            SELECT substring(contenido_imagen FROM ? FOR ?)
+            FROM tele_ecg_imagenes
+            WHERE id_imagen = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Contenido de la imagen como Resource leído por bloques (vacío si no está en BD)
+     */
+    public Optional<Resource> abrir(long idImagen) {
+        List<Long> longitud = jdbcTemplate.queryForList(SQL_LONGITUD, Long.class, idImagen);
+        if (longitud.isEmpty() || longitud.get(0) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ContenidoPorBloques(idImagen, longitud.get(0)));
+    }
+
+    private byte[] leerBloque(long idImagen, long desde, int cantidad) {
+        // substring es 1-based; un BYTEA no supera 1 GB, así que la posición cabe en un int
+        return jdbcTemplate.queryForObject(SQL_BLOQUE, byte[].class, (int) desde + 1, cantidad, idImagen);
+    }
+
+    private final class ContenidoPorBloques extends AbstractResource {
+
+        private final long idImagen;
+        private final long longitud;
+
+        private ContenidoPorBloques(long idImagen, long longitud) {
+            this.idImagen = idImagen;
+            this.longitud = longitud;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return longitud;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new LectorPorBloques(idImagen, longitud);
+        }
+
+        @Override
+        public String getDescription() {
+            return "contenido_imagen de tele_ecg_imagenes " + idImagen;
+        }
+    }
+
+    private final class LectorPorBloques extends InputStream {
+
+        private final long idImagen;
+        private final long longitud;
+        /** Posición del próximo bloque a pedir */
+        private long posicion;
+        private byte[] bloque = new byte[0];
+        private int indice;
+
+        private LectorPorBloques(long idImagen, long longitud) {
+            this.idImagen = idImagen;
+            this.longitud = longitud;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (indice >= bloque.length && !cargarBloque()) {
+                return -1;
+            }
+            return bloque[indice++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int cantidad) throws IOException {
+            if (cantidad == 0) {
+                return 0;
+            }
+            if (indice >= bloque.length && !cargarBloque()) {
+                return -1;
+            }
+            int copiados = Math.min(cantidad, bloque.length - indice);
+            System.arraycopy(bloque, indice, destino, desde, copiados);
+            indice += copiados;
+            return copiados;
+        }
+
+        /** Salta sin consultar los bloques completos que quedan antes del destino */
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            long enBloque = bloque.length - indice;
+            if (n <= enBloque) {
+                indice += (int) n;
+                return n;
+            }
+            indice = bloque.length;
+            long saltados = Math.min(n - enBloque, longitud - posicion);
+            posicion += saltados;
+            return enBloque + saltados;
+        }
+
+        @Override
+        public int available() {
+            return bloque.length - indice;
+        }
+
+        private boolean cargarBloque() throws IOException {
+            if (posicion >= longitud) {
+                return false;
+            }
+            int cantidad = (int) Math.min(TAMANO_BLOQUE, longitud - posicion);
+            byte[] leido;
+            try {
+                leido = leerBloque(idImagen, posicion, cantidad);
+            } catch (DataAccessException e) {
+                throw new IOException("No se pudo leer la imagen " + idImagen + " de BD", e);
+            }
+            if (leido == null || leido.length == 0) {
+                throw new IOException("Contenido de la imagen " + idImagen + " más corto de lo esperado");
+            }
+            bloque = leido;
+            posicion += bloque.length;
+            indice = 0;
+            return true;
+        }
+    }
+}
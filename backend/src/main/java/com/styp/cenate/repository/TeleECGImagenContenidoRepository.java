@@ -0,0 +1,28 @@
+package com.styp.cenate.repository;
+
+import com.styp.cenate.model.TeleECGImagenContenido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Acceso a la columna BYTEA contenido_imagen de tele_ecg_imagenes
+ */
+@Repository
+public interface TeleECGImagenContenidoRepository extends JpaRepository<TeleECGImagenContenido, Long> {
+
+    /**
+     * Solo los bytes de la imagen (null si no está en BD)
+     */
+    @Query("SELECT c.contenidoImagen FROM TeleECGImagenContenido c WHERE c.idImagen = :idImagen")
+    byte[] findContenido(@Param("idImagen") Long idImagen);
+
+    /**
+     * Guarda los bytes en la fila ya insertada por TeleECGImagen
+     */
+    @Modifying
+    @Query("UPDATE TeleECGImagenContenido c SET c.contenidoImagen = :contenido WHERE c.idImagen = :idImagen")
+    int guardarContenido(@Param("idImagen") Long idImagen, @Param("contenido") byte[] contenido);
+}
@@ -275,10 +275,27 @@ public interface TeleECGImagenRepository extends JpaRepository<TeleECGImagen, Lo
         """)
     List<TeleECGImagen> findProcessedWithTimestamps();
 
+    /**
+     * v2.2.0: Metadatos para descarga en streaming, sin cargar contenido_imagen (BYTEA)
+     * Columnas: storageTipo, storageRuta, sha256, mimeType, nombreArchivo, sizeBytes
+     */
+    @Query("""
+        SELECT t.storageTipo, t.storageRuta, t.sha256, t.mimeType, t.nombreArchivo, t.sizeBytes
+        FROM TeleECGImagen t
+        WHERE t.idImagen = :idImagen
+        """)
+    List<Object[]> findMetadatosDescarga(@Param("idImagen") Long idImagen);
+
     /**
      * Busca imagen por hash SHA256 (para detectar duplicados)
+     * v2.1.0: findFirst: en almacenamiento por contenido varias imágenes comparten el hash
+     */
+    Optional<TeleECGImagen> findFirstBySha256AndStatImagenEquals(String sha256, String statImagen);
+
+    /**
+     * v2.3.0: Otra imagen con el mismo contenido (comparte miniaturas)
      */
-    Optional<TeleECGImagen> findBySha256AndStatImagenEquals(String sha256, String statImagen);
+    boolean existsBySha256AndIdImagenNot(String sha256, Long idImagen);
 
     /**
      * Verifica si existe una imagen con el mismo DNI y hash en los últimos X minutos
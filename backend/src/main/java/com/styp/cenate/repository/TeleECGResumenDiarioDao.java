@@ -0,0 +1,161 @@
+package com.styp.cenate.repository;
+
+import com.styp.cenate.model.TeleECGImagen;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 📅 Mantenimiento de tele_ecg_resumen_diario (v2.5.0)
+ *
+ * Una fila por día de envío × IPRESS × estado × evaluación × urgencia × activa, con
+ * conteos y sumas de TAT. Se actualiza con deltas (+1/-1) en la misma transacción que
+ * cambia la imagen y se reconstruye desde tele_ecg_imagenes por rango de días.
+ *
+ * Las columnas de texto NULL se guardan como '' para que formen parte de la clave.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TeleECGResumenDiarioDao {
+
+    private static final String SQL_SUMAR = """
+            INSERT INTO tele_ecg_resumen_diario AS r (fecha, codigo_ipress, nombre_ipress, estado, evaluacion,
+                                                      es_urgente, activa, total, con_tat, suma_tat_minutos,
+                                                      tat_hasta_15, tat_hasta_90, fecha_actualizacion)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW())
+            ON CONFLICT (fecha, codigo_ipress, nombre_ipress, estado, evaluacion, es_urgente, activa) DO UPDATE SET
+                total               = r.total + EXCLUDED.total,
+                con_tat             = r.con_tat + EXCLUDED.con_tat,
+                suma_tat_minutos    = r.suma_tat_minutos + EXCLUDED.suma_tat_minutos,
+                tat_hasta_15        = r.tat_hasta_15 + EXCLUDED.tat_hasta_15,
+                tat_hasta_90        = r.tat_hasta_90 + EXCLUDED.tat_hasta_90,
+                fecha_actualizacion = NOW()
+            """;
+
+    private static final String SQL_BLOQUEAR = "LOCK TABLE tele_ecg_resumen_diario IN SHARE ROW EXCLUSIVE MODE";
+
+    private static final String SQL_ELIMINAR_RANGO = "DELETE FROM tele_ecg_resumen_diario WHERE fecha >= ? AND fecha < ?";
+
+    private static final String SQL_RECONSTRUIR_RANGO = """
+            INSERT INTO tele_ecg_resumen_diario (fecha, codigo_ipress, nombre_ipress, estado, evaluacion,
+                                                 es_urgente, activa, total, con_tat, suma_tat_minutos,
+                                                 tat_hasta_15, tat_hasta_90, fecha_actualizacion)
+            SELECT fecha, codigo_ipress, nombre_ipress, estado, evaluacion, es_urgente, activa,
+                   COUNT(*),
+                   COUNT(tat),
+                   COALESCE(SUM(tat), 0),
+                   COUNT(*) FILTER (WHERE tat <= 15),
+                   COUNT(*) FILTER (WHERE tat <= 90),
+                   NOW()
+            FROM (
+                SELECT CAST(fecha_envio AS date)       AS fecha,
+                       COALESCE(codigo_ipress, '')     AS codigo_ipress,
+                       COALESCE(nombre_ipress, '')     AS nombre_ipress,
+                       estado,
+                       COALESCE(evaluacion, '')        AS evaluacion,
+                       COALESCE(es_urgente, false)     AS es_urgente,
+                       COALESCE(stat_imagen = 'A', false) AS activa,
+                       TRUNC(EXTRACT(EPOCH FROM (fecha_evaluacion - fecha_envio)) / 60) AS tat
+                FROM tele_ecg_imagenes
+                WHERE fecha_envio >= ? AND fecha_envio < ?
+            ) t
+            GROUP BY fecha, codigo_ipress, nombre_ipress, estado, evaluacion, es_urgente, activa
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lo que una imagen aporta al resumen. {@code tatMinutos} es null si aún no se evaluó.
+     * Una imagen sin fecha de envío no aporta nada (tampoco entra en la reconstrucción).
+     */
+    public record AporteResumen(
+            LocalDate fecha,
+            String codigoIpress,
+            String nombreIpress,
+            String estado,
+            String evaluacion,
+            boolean esUrgente,
+            boolean activa,
+            Long tatMinutos) {
+
+        /** @return null si la imagen no tiene fecha de envío */
+        public static AporteResumen de(TeleECGImagen imagen) {
+            if (imagen.getFechaEnvio() == null) {
+                return null;
+            }
+            Long tat = imagen.getFechaEvaluacion() != null
+                    ? ChronoUnit.MINUTES.between(imagen.getFechaEnvio(), imagen.getFechaEvaluacion())
+                    : null;
+            return new AporteResumen(
+                    imagen.getFechaEnvio().toLocalDate(),
+                    imagen.getCodigoIpress() != null ? imagen.getCodigoIpress() : "",
+                    imagen.getNombreIpress() != null ? imagen.getNombreIpress() : "",
+                    imagen.getEstado(),
+                    imagen.getEvaluacion() != null ? imagen.getEvaluacion() : "",
+                    Boolean.TRUE.equals(imagen.getEsUrgente()),
+                    "A".equals(imagen.getStatImagen()),
+                    tat);
+        }
+
+        /** Orden fijo de filas para que dos transacciones no se bloqueen en sentido inverso */
+        private String clave() {
+            return fecha + "|" + codigoIpress + "|" + nombreIpress + "|" + estado + "|" + evaluacion
+                    + "|" + esUrgente + "|" + activa;
+        }
+    }
+
+    /**
+     * Delta a aplicar: {@code signo} +1 suma el aporte, -1 lo resta
+     */
+    public record DeltaResumen(AporteResumen aporte, int signo) {
+    }
+
+    /**
+     * Aplica los deltas en la transacción actual (UPSERT por fila)
+     */
+    public void aplicar(List<DeltaResumen> deltas) {
+        List<DeltaResumen> ordenados = deltas.stream()
+                .sorted(Comparator.comparing(d -> d.aporte().clave()))
+                .toList();
+        jdbcTemplate.batchUpdate(SQL_SUMAR, ordenados, ordenados.size(), (ps, d) -> {
+            AporteResumen a = d.aporte();
+            long conTat = a.tatMinutos() != null ? 1 : 0;
+            long tat = a.tatMinutos() != null ? a.tatMinutos() : 0;
+            ps.setDate(1, Date.valueOf(a.fecha()));
+            ps.setString(2, a.codigoIpress());
+            ps.setString(3, a.nombreIpress());
+            ps.setString(4, a.estado());
+            ps.setString(5, a.evaluacion());
+            ps.setBoolean(6, a.esUrgente());
+            ps.setBoolean(7, a.activa());
+            ps.setLong(8, d.signo());
+            ps.setLong(9, d.signo() * conTat);
+            ps.setLong(10, d.signo() * tat);
+            ps.setLong(11, a.tatMinutos() != null && tat <= 15 ? d.signo() : 0);
+            ps.setLong(12, a.tatMinutos() != null && tat <= 90 ? d.signo() : 0);
+        });
+    }
+
+    /**
+     * Recalcula desde tele_ecg_imagenes los días [desde, hasta]. Debe ejecutarse en una
+     * transacción: el bloqueo impide que se apliquen deltas mientras se reemplazan las filas
+     * y espera a que terminen las transacciones que ya aplicaron los suyos.
+     *
+     * @return filas de resumen generadas
+     */
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        Date inicio = Date.valueOf(desde);
+        Date fin = Date.valueOf(hasta.plusDays(1));
+        jdbcTemplate.execute(SQL_BLOQUEAR);
+        jdbcTemplate.update(SQL_ELIMINAR_RANGO, inicio, fin);
+        return jdbcTemplate.update(SQL_RECONSTRUIR_RANGO,
+                Timestamp.valueOf(desde.atStartOfDay()), Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * SEC-003: Repositorio para tokens invalidados.
@@ -19,6 +20,21 @@ public interface TokenBlacklistRepository extends JpaRepository<TokenBlacklist,
      */
     boolean existsByTokenHash(String tokenHash);
 
+    /**
+     * Tokens aun vigentes; se usa para precargar la blacklist en memoria al iniciar.
+     */
+    List<TokenBlacklist> findByFechaExpiracionAfter(LocalDateTime now);
+
+    /**
+     * Cantidad de tokens aun vigentes; indica si la blacklist vuelve a caber en memoria.
+     */
+    long countByFechaExpiracionAfter(LocalDateTime now);
+
+    /**
+     * Tokens invalidados desde una fecha (sincronizacion entre instancias).
+     */
+    List<TokenBlacklist> findByCreatedAtAfter(LocalDateTime desde);
+
     /**
      * Elimina tokens cuya fecha de expiracion ya paso.
      * Se ejecuta periodicamente para limpiar la tabla.
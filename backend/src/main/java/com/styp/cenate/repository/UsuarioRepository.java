@@ -7,7 +7,9 @@
 
 package com.styp.cenate.repository;
 
+import com.styp.cenate.config.CacheConfig;
 import com.styp.cenate.model.Usuario;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -219,4 +221,44 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
         AND u.statUser IN ('A', 'ACTIVO')
     """)
     long countByPersonalExternoIsNotNull();
-}
\ No newline at end of file
+
+    /**
+     * v2.6.0: Usuarios cuyo login contiene el criterio (sin mayúsculas), con sus roles agregados
+     * Usa el índice trigram idx_usuarios_name_user_trgm. {@code criterio} llega con los comodines
+     * de LIKE escapados (BusquedaPacienteDao.escaparLike).
+     * Retorna: [name_user, stat_user, roles (separados por coma)]
+     */
+    @Query(value = """
+        SELECT u.name_user, u.stat_user, COALESCE(STRING_AGG(r.desc_rol, ', ' ORDER BY r.desc_rol), '') AS roles
+        FROM (
+            SELECT id_user, name_user, stat_user
+            FROM dim_usuarios
+            WHERE lower(name_user) LIKE '%' || lower(:criterio) || '%'
+            ORDER BY name_user
+            LIMIT :limite
+        ) u
+        LEFT JOIN rel_user_roles ur ON ur.id_user = u.id_user
+        LEFT JOIN dim_roles r ON r.id_rol = ur.id_rol
+        GROUP BY u.id_user, u.name_user, u.stat_user
+        ORDER BY u.name_user
+        """, nativeQuery = true)
+    List<Object[]> buscarPorNameUserConRoles(@Param("criterio") String criterio, @Param("limite") int limite);
+
+    /**
+     * ✅ v2.6.0: id_pers del personal con usuario activo que tiene el rol indicado.
+     * Cacheado por rol (personal-ids-por-rol); todas las escrituras de usuarios/roles
+     * lo invalidan con @InvalidarPersonalPorRol.
+     */
+    @Cacheable(cacheNames = CacheConfig.PERSONAL_IDS_POR_ROL)
+    @Query(value = """
+        SELECT DISTINCT p.id_pers
+        FROM dim_roles r
+        JOIN rel_user_roles ur ON ur.id_rol = r.id_rol
+        JOIN dim_usuarios u ON u.id_user = ur.id_user
+        JOIN dim_personal_cnt p ON p.id_usuario = u.id_user
+        WHERE r.desc_rol = :rol
+          AND upper(u.stat_user) IN ('A', 'ACTIVO')
+        ORDER BY p.id_pers
+        """, nativeQuery = true)
+    List<Long> findIdsPersonalActivoPorRol(@Param("rol") String rol);
+}
@@ -1,8 +1,12 @@
 package com.styp.cenate.repository.bolsas;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.styp.cenate.model.bolsas.HistorialCargaBolsas;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +22,24 @@ public interface HistorialCargaBolsasRepository extends JpaRepository<HistorialC
 
     // ✅ v1.40.0: Validar si un archivo ya fue cargado por su hash SHA-256
     Optional<HistorialCargaBolsas> findByHashArchivo(String hashArchivo);
+
+    // ✅ v2.3.0: Avance de la importación en streaming (lo consulta el frontend por polling)
+    @Modifying
+    @Query("UPDATE HistorialCargaBolsas h SET h.totalFilas = :total, h.filasOk = :ok, h.filasError = :error, " +
+           "h.fechaActualizacion = :ahora WHERE h.idCarga = :idCarga")
+    int actualizarAvance(@Param("idCarga") Long idCarga,
+                         @Param("total") Integer total,
+                         @Param("ok") Integer ok,
+                         @Param("error") Integer error,
+                         @Param("ahora") OffsetDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE HistorialCargaBolsas h SET h.estadoCarga = :estado, h.totalFilas = :total, h.filasOk = :ok, " +
+           "h.filasError = :error, h.fechaActualizacion = :ahora WHERE h.idCarga = :idCarga")
+    int finalizarCarga(@Param("idCarga") Long idCarga,
+                       @Param("estado") String estado,
+                       @Param("total") Integer total,
+                       @Param("ok") Integer ok,
+                       @Param("error") Integer error,
+                       @Param("ahora") OffsetDateTime ahora);
 }
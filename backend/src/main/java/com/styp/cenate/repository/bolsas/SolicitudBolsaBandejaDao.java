@@ -0,0 +1,543 @@
+package com.styp.cenate.repository.bolsas;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.styp.cenate.dto.bolsas.BusquedaFacetadaBolsaDTO.Faceta;
+import com.styp.cenate.dto.bolsas.FiltroBandejaBolsa;
+import com.styp.cenate.enumd.ModoConteo;
+import com.styp.cenate.repository.BusquedaPacienteDao;
+import com.styp.cenate.repository.ConteoPaginadoDao;
+import com.styp.cenate.util.CursorPaginacion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🗂️ Bandeja de solicitudes de bolsa con filtros (v2.6.0)
+ *
+ * Listado, conteo y KPI por estado comparten el mismo WHERE, armado solo con los filtros
+ * activos. Los predicados son indexables (ver V6_43_0):
+ * - catálogos (bolsa, red, macrorregión, IPRESS, estado de cita) se resuelven a ids con
+ *   una subconsulta sobre la tabla dim y se comparan contra la FK de la solicitud;
+ * - las fechas son rangos semiabiertos [inicio, fin + 1 día) sobre fecha_cambio_estado;
+ * - los LIKE '%texto%' (DNI, especialidad) usan índices trigram.
+ * Conteo y KPI no hacen JOIN a tablas que el filtro no necesita.
+ *
+ * El listado admite paginación por cursor ({@link #listarDesde}): la página siguiente se
+ * pide "después de" la clave de la última fila, sin OFFSET, y el total puede ser
+ * estimado o limitado ({@link ModoConteo}) en vez de un COUNT(*) completo.
+ *
+ * {@link #buscarFacetado} resuelve página, total, KPI por estado y facetas con una sola
+ * consulta: el conjunto filtrado se evalúa una vez (CTE materializada) y todo lo demás se
+ * agrega sobre él.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SolicitudBolsaBandejaDao {
+
+    /** Mismas columnas (y orden) que espera SolicitudBolsaServiceImpl.mapearFilas */
+    private static final String SQL_COLUMNAS_LISTADO = """
+            SELECT sb.id_solicitud, sb.numero_solicitud, sb.paciente_id, sb.paciente_nombre,
+                   sb.paciente_dni, sb.especialidad, sb.fecha_preferida_no_atendida,
+                   sb.tipo_documento, sb.fecha_nacimiento, sb.paciente_sexo,
+                   sb.paciente_telefono, sb.paciente_telefono_alterno,
+                   sb.paciente_email,
+                   di.cod_ipress, sb.tipo_cita,
+                   sb.id_bolsa, tb.desc_tipo_bolsa,
+                   sb.id_servicio, di.cod_ipress as codigo_adscripcion, sb.id_ipress,
+                   sb.estado, COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA') as cod_estado_cita,
+                   COALESCE(deg.desc_estado_cita, 'Paciente nuevo que ingresó a la bolsa') as desc_estado_cita,
+                   sb.fecha_solicitud, sb.fecha_actualizacion,
+                   sb.estado_gestion_citas_id, sb.activo,
+                   di.desc_ipress, dr.desc_red, dm.desc_macro,
+                   sb.responsable_gestora_id, sb.fecha_asignacion,
+                   sb.fecha_cambio_estado, sb.usuario_cambio_estado_id,
+                   COALESCE(CONCAT(pc.nom_pers, ' ', pc.ape_pater_pers, ' ', pc.ape_mater_pers), u.name_user, 'Sin asignar') as nombre_usuario_cambio_estado,
+                   COALESCE(sb.fecha_atencion, (SELECT sc.fecha_cita FROM solicitud_cita sc WHERE sc.doc_paciente = sb.paciente_dni AND sc.estado_registro = true ORDER BY sc.fecha_cita DESC LIMIT 1)) as fecha_atencion,
+                   COALESCE(sb.hora_atencion, (SELECT sc.hora_cita FROM solicitud_cita sc WHERE sc.doc_paciente = sb.paciente_dni AND sc.estado_registro = true ORDER BY sc.fecha_cita DESC LIMIT 1)) as hora_atencion,
+                   sb.id_personal,
+                   sb.condicion_medica, sb.fecha_atencion_medica,
+                   COALESCE(CONCAT(med.nom_pers, ' ', med.ape_pater_pers, ' ', med.ape_mater_pers), '') as nombre_medico,
+                   sb.id_ipress_atencion, COALESCE(di2.cod_ipress, di.cod_ipress, '') as cod_ipress_atencion,
+                   COALESCE(di2.desc_ipress, di.desc_ipress, '') as desc_ipress_atencion,
+                   COALESCE(CONCAT(pcg.nom_pers, ' ', pcg.ape_pater_pers, ' ', pcg.ape_mater_pers), ug.name_user) as nombre_gestora,
+                   sb.tiempo_inicio_sintomas
+            """;
+
+    private static final String SQL_FROM_LISTADO = """
+            FROM dim_solicitud_bolsa sb
+            LEFT JOIN dim_tipos_bolsas tb ON sb.id_bolsa = tb.id_tipo_bolsa
+            LEFT JOIN dim_ipress di ON sb.id_ipress = di.id_ipress
+            LEFT JOIN dim_ipress di2 ON sb.id_ipress_atencion = di2.id_ipress
+            LEFT JOIN dim_red dr ON di.id_red = dr.id_red
+            LEFT JOIN dim_macroregion dm ON dr.id_macro = dm.id_macro
+            LEFT JOIN dim_estados_gestion_citas deg ON sb.estado_gestion_citas_id = deg.id_estado_cita
+            LEFT JOIN dim_usuarios u ON sb.usuario_cambio_estado_id = u.id_user
+            LEFT JOIN dim_personal_cnt pc ON u.id_user = pc.id_usuario
+            LEFT JOIN dim_personal_cnt med ON sb.id_personal = med.id_pers
+            LEFT JOIN dim_usuarios ug ON sb.responsable_gestora_id = ug.id_user
+            LEFT JOIN dim_personal_cnt pcg ON ug.id_user = pcg.id_usuario
+            """;
+
+    private static final String SQL_LISTADO = SQL_COLUMNAS_LISTADO + SQL_FROM_LISTADO;
+
+    /** Pendientes de citar primero, luego citados y el resto (igual que el listado sin filtros) */
+    private static final String PRIORIDAD_ESTADO = """
+            CASE WHEN COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA') = 'PENDIENTE_CITA' THEN 0
+                 WHEN COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA') = 'CITADO' THEN 1
+                 ELSE 2 END""";
+
+    /** id_solicitud desempata: el orden es total y sirve como clave del cursor */
+    private static final String SQL_ORDEN_LISTADO =
+            "ORDER BY " + PRIORIDAD_ESTADO + ", sb.fecha_solicitud DESC, sb.id_solicitud DESC\n";
+
+    /** Filas "después" del cursor en el orden del listado */
+    private static final String SQL_DESPUES_DE_CURSOR = "(" + PRIORIDAD_ESTADO + " > ? OR (" + PRIORIDAD_ESTADO
+            + " = ? AND (sb.fecha_solicitud < ? OR (sb.fecha_solicitud = ? AND sb.id_solicitud < ?))))";
+
+    private static final String SQL_FILAS = """
+            SELECT 1
+            FROM dim_solicitud_bolsa sb
+            """;
+
+    /**
+     * Una sola pasada: "cantidad" respeta el filtro de asignación (FILTER) y "asignados"
+     * cuenta las solicitudes con gestora ignorándolo, como la card ASIGNADOS.
+     */
+    private static final String SQL_KPI = """
+            SELECT COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA') AS estado,
+                   COUNT(*) FILTER (WHERE %s) AS cantidad,
+                   COUNT(*) FILTER (WHERE sb.responsable_gestora_id IS NOT NULL) AS asignados
+            FROM dim_solicitud_bolsa sb
+            LEFT JOIN dim_estados_gestion_citas deg ON sb.estado_gestion_citas_id = deg.id_estado_cita
+            """;
+
+    /**
+     * filtradas: solicitudes que cumplen el filtro sin el de asignación (en_asignacion lo
+     * aplica después, porque la fila ASIGNADOS del KPI lo ignora). Columnas angostas: solo
+     * lo que usan el KPI, las facetas y la página.
+     */
+    private static final String SQL_FACETADO_FILTRADAS = """
+            WITH filtradas AS MATERIALIZED (
+                SELECT sb.id_solicitud, sb.id_bolsa, sb.id_ipress, sb.especialidad, sb.estado,
+                       COALESCE(sb.tipo_cita, 'VOLUNTARIA') AS tipo_cita, sb.responsable_gestora_id,
+                       COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA') AS cod_estado,
+                       (%s) AS en_asignacion
+                FROM dim_solicitud_bolsa sb
+                LEFT JOIN dim_estados_gestion_citas deg ON sb.estado_gestion_citas_id = deg.id_estado_cita
+            """;
+
+    private static final String SQL_FACETADO_RESUMEN = """
+            ),
+            estados AS (
+                SELECT cod_estado,
+                       COUNT(*) FILTER (WHERE en_asignacion) AS cantidad,
+                       COUNT(*) FILTER (WHERE responsable_gestora_id IS NOT NULL) AS asignados
+                FROM filtradas
+                GROUP BY cod_estado
+            ),
+            facetas AS (
+                SELECT 'tiposBolsa' AS faceta, f.id_bolsa AS id, tb.desc_tipo_bolsa AS valor, COUNT(*) AS total
+                FROM filtradas f
+                LEFT JOIN dim_tipos_bolsas tb ON f.id_bolsa = tb.id_tipo_bolsa
+                WHERE f.en_asignacion
+                GROUP BY f.id_bolsa, tb.desc_tipo_bolsa
+                UNION ALL
+                SELECT 'especialidades', NULL, f.especialidad, COUNT(*)
+                FROM filtradas f
+                WHERE f.en_asignacion AND f.especialidad IS NOT NULL AND f.especialidad <> ''
+                GROUP BY f.especialidad
+                UNION ALL
+                SELECT 'estadosBolsa', NULL, f.estado, COUNT(*)
+                FROM filtradas f
+                WHERE f.en_asignacion
+                GROUP BY f.estado
+                UNION ALL
+                SELECT 'tiposCita', NULL, f.tipo_cita, COUNT(*)
+                FROM filtradas f
+                WHERE f.en_asignacion
+                GROUP BY f.tipo_cita
+                UNION ALL
+                SELECT 'ipress', f.id_ipress, di.desc_ipress, COUNT(*)
+                FROM filtradas f
+                LEFT JOIN dim_ipress di ON f.id_ipress = di.id_ipress
+                WHERE f.en_asignacion
+                GROUP BY f.id_ipress, di.desc_ipress
+            ),
+            resumen AS (
+                SELECT (SELECT COUNT(*) FROM filtradas WHERE en_asignacion) AS total_filtrado,
+                       (SELECT json_agg(json_build_object('estado', cod_estado, 'cantidad', cantidad,
+                                                          'asignados', asignados))
+                        FROM estados) AS estados_json,
+                       (SELECT json_agg(json_build_object('faceta', faceta, 'id', id, 'valor', valor, 'total', total)
+                                        ORDER BY faceta, total DESC, valor)
+                        FROM facetas) AS facetas_json
+            ),
+            pagina AS (
+            """;
+
+    /** La página se arma solo con los ids ya filtrados; resumen va en cada fila (o sola si la página está vacía) */
+    private static final String SQL_FACETADO_PAGINA = """
+            JOIN filtradas f ON f.id_solicitud = sb.id_solicitud
+            WHERE f.en_asignacion
+            ORDER BY prioridad_estado, sb.fecha_solicitud DESC, sb.id_solicitud DESC
+            LIMIT ? OFFSET ?
+            )
+            SELECT p.*, r.total_filtrado, r.estados_json::text, r.facetas_json::text
+            FROM resumen r
+            LEFT JOIN pagina p ON true
+            ORDER BY p.prioridad_estado, p.fecha_solicitud DESC, p.id_solicitud DESC
+            """;
+
+    /** Columnas que SQL_FACETADO_PAGINA agrega después de las del listado */
+    private static final int COLUMNAS_EXTRA_FACETADO = 4;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String ESTADO_PENDIENTE_CITA = "PENDIENTE_CITA";
+    private static final String ESTADO_ASIGNADOS = "ASIGNADOS";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConteoPaginadoDao conteoPaginadoDao;
+
+    public record ConteoEstado(String estado, long cantidad) {
+    }
+
+    /**
+     * Resultado de {@link #buscarFacetado}: filas en el formato de mapearFilas, total con el
+     * filtro completo, KPI por estado (+ ASIGNADOS) y facetas por nombre
+     */
+    public record Facetado(List<Object[]> filas, long total, List<ConteoEstado> conteoPorEstado,
+                           Map<String, List<Faceta>> facetas) {
+    }
+
+    /**
+     * Clave de orden de la última fila entregada (prioridad de estado, fecha_solicitud, id)
+     */
+    public record Cursor(int prioridad, Instant fechaSolicitud, long idSolicitud) {
+
+        public String codificar() {
+            return CursorPaginacion.codificar(prioridad, fechaSolicitud, idSolicitud);
+        }
+
+        /** @throws IllegalArgumentException si el cursor no es válido */
+        public static Cursor decodificar(String cursor) {
+            String[] partes = CursorPaginacion.decodificar(cursor, 3);
+            try {
+                return new Cursor(Integer.parseInt(partes[0]), Instant.parse(partes[1]), Long.parseLong(partes[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido", e);
+            }
+        }
+
+        /** Cursor de una fila de {@link #listar} / {@link #listarDesde} */
+        public static Cursor de(Object[] fila) {
+            String codEstado = (String) fila[21];
+            int prioridad = ESTADO_PENDIENTE_CITA.equals(codEstado) ? 0 : "CITADO".equals(codEstado) ? 1 : 2;
+            return new Cursor(prioridad, ((Timestamp) fila[23]).toInstant(), ((Number) fila[0]).longValue());
+        }
+    }
+
+    /**
+     * Página de la bandeja (filas en el formato de mapearFilas)
+     */
+    public List<Object[]> listar(FiltroBandejaBolsa filtro, int limite, long offset) {
+        Condiciones condiciones = condiciones(filtro, true);
+        condiciones.parametros.add(limite);
+        condiciones.parametros.add(offset);
+        return filas(condiciones, SQL_LISTADO + condiciones.where() + SQL_ORDEN_LISTADO + "LIMIT ? OFFSET ?");
+    }
+
+    /**
+     * Hasta {@code limite} filas posteriores al cursor (null = desde el inicio), sin OFFSET
+     */
+    public List<Object[]> listarDesde(FiltroBandejaBolsa filtro, Cursor desde, int limite) {
+        Condiciones condiciones = condiciones(filtro, true);
+        if (desde != null) {
+            Timestamp fecha = Timestamp.from(desde.fechaSolicitud());
+            condiciones.y(SQL_DESPUES_DE_CURSOR,
+                    desde.prioridad(), desde.prioridad(), fecha, fecha, desde.idSolicitud());
+        }
+        condiciones.parametros.add(limite);
+        return filas(condiciones, SQL_LISTADO + condiciones.where() + SQL_ORDEN_LISTADO + "LIMIT ?");
+    }
+
+    public long contar(FiltroBandejaBolsa filtro) {
+        return contar(filtro, ModoConteo.EXACTO).valor();
+    }
+
+    public ConteoPaginadoDao.Total contar(FiltroBandejaBolsa filtro, ModoConteo modo) {
+        Condiciones condiciones = condiciones(filtro, true);
+        return conteoPaginadoDao.contar(modo, SQL_FILAS + condiciones.where(), condiciones::preparar);
+    }
+
+    /**
+     * Cantidad por código de estado de cita (solo estados con solicitudes) + fila ASIGNADOS
+     */
+    public List<ConteoEstado> conteoPorEstado(FiltroBandejaBolsa filtro) {
+        Condiciones condiciones = condiciones(filtro, false);
+        String sql = SQL_KPI.formatted(asignacion(filtro.asignacion()))
+                + condiciones.where()
+                + "GROUP BY COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA')";
+        List<ConteoEstado> resultado = new ArrayList<>();
+        long[] asignados = {0};
+        jdbcTemplate.query(con -> condiciones.preparar(con, sql), rs -> {
+            long cantidad = rs.getLong("cantidad");
+            if (cantidad > 0) {
+                resultado.add(new ConteoEstado(rs.getString("estado"), cantidad));
+            }
+            asignados[0] += rs.getLong("asignados");
+        });
+        resultado.add(new ConteoEstado(ESTADO_ASIGNADOS, asignados[0]));
+        return resultado;
+    }
+
+    /**
+     * Página + total + KPI por estado + facetas en una sola consulta (el filtro se evalúa una vez)
+     */
+    public Facetado buscarFacetado(FiltroBandejaBolsa filtro, int limite, long offset) {
+        Condiciones condiciones = condiciones(filtro, false);
+        condiciones.parametros.add(limite);
+        condiciones.parametros.add(offset);
+        String sql = SQL_FACETADO_FILTRADAS.formatted(asignacion(filtro.asignacion()))
+                + condiciones.where()
+                + SQL_FACETADO_RESUMEN
+                + SQL_COLUMNAS_LISTADO.stripTrailing() + ",\n" + PRIORIDAD_ESTADO + " AS prioridad_estado\n"
+                + SQL_FROM_LISTADO
+                + SQL_FACETADO_PAGINA;
+
+        return jdbcTemplate.query(con -> condiciones.preparar(con, sql), rs -> {
+            // Columnas: listado, prioridad_estado, total_filtrado, estados_json, facetas_json
+            int columnasListado = rs.getMetaData().getColumnCount() - COLUMNAS_EXTRA_FACETADO;
+            List<Object[]> filas = new ArrayList<>();
+            long total = 0;
+            String estadosJson = null;
+            String facetasJson = null;
+            while (rs.next()) {
+                total = rs.getLong(columnasListado + 2);
+                estadosJson = rs.getString(columnasListado + 3);
+                facetasJson = rs.getString(columnasListado + 4);
+                if (rs.getObject(1) != null) {
+                    Object[] fila = new Object[columnasListado];
+                    for (int c = 0; c < columnasListado; c++) {
+                        fila[c] = rs.getObject(c + 1);
+                    }
+                    filas.add(fila);
+                }
+            }
+            return new Facetado(filas, total, conteosDeJson(estadosJson), facetasDeJson(facetasJson));
+        });
+    }
+
+    /** Mismo criterio que {@link #conteoPorEstado}: estados con cantidad > 0 y la fila ASIGNADOS */
+    private static List<ConteoEstado> conteosDeJson(String json) {
+        List<ConteoEstado> resultado = new ArrayList<>();
+        long asignados = 0;
+        for (JsonNode estado : leerJson(json)) {
+            long cantidad = estado.path("cantidad").asLong();
+            if (cantidad > 0) {
+                resultado.add(new ConteoEstado(estado.path("estado").asText(), cantidad));
+            }
+            asignados += estado.path("asignados").asLong();
+        }
+        resultado.add(new ConteoEstado(ESTADO_ASIGNADOS, asignados));
+        return resultado;
+    }
+
+    private static Map<String, List<Faceta>> facetasDeJson(String json) {
+        Map<String, List<Faceta>> facetas = new LinkedHashMap<>();
+        for (JsonNode valor : leerJson(json)) {
+            facetas.computeIfAbsent(valor.path("faceta").asText(), k -> new ArrayList<>())
+                    .add(new Faceta(valor.path("id").isNull() ? null : valor.path("id").asLong(),
+                            valor.path("valor").isNull() ? null : valor.path("valor").asText(),
+                            valor.path("total").asLong()));
+        }
+        return facetas;
+    }
+
+    /** json_agg de un conjunto vacío es NULL → arreglo vacío */
+    private static JsonNode leerJson(String json) {
+        if (json == null) {
+            return JSON.createArrayNode();
+        }
+        try {
+            return JSON.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo leer el resumen de la búsqueda facetada", e);
+        }
+    }
+
+    private List<Object[]> filas(Condiciones condiciones, String sql) {
+        return jdbcTemplate.query(con -> condiciones.preparar(con, sql), (rs, i) -> {
+            int columnas = rs.getMetaData().getColumnCount();
+            Object[] fila = new Object[columnas];
+            for (int c = 0; c < columnas; c++) {
+                fila[c] = rs.getObject(c + 1);
+            }
+            return fila;
+        });
+    }
+
+    // ============================================================
+    // 🧩 WHERE DINÁMICO
+    // ============================================================
+
+    private static Condiciones condiciones(FiltroBandejaBolsa f, boolean conAsignacion) {
+        Condiciones c = new Condiciones();
+        c.y("sb.activo = true");
+
+        if (f.bolsas() != null) {
+            c.y("sb.id_bolsa IN (SELECT id_tipo_bolsa FROM dim_tipos_bolsas WHERE LOWER(desc_tipo_bolsa) = ANY(?))",
+                    (Object) f.bolsas().toArray(String[]::new));
+        }
+        if (f.macrorregion() != null) {
+            c.y("""
+                    sb.id_ipress IN (SELECT di.id_ipress FROM dim_ipress di
+                                     JOIN dim_red dr ON di.id_red = dr.id_red
+                                     JOIN dim_macroregion dm ON dr.id_macro = dm.id_macro
+                                     WHERE dm.desc_macro = ?)""", f.macrorregion());
+        }
+        if (f.red() != null) {
+            c.y("""
+                    sb.id_ipress IN (SELECT di.id_ipress FROM dim_ipress di
+                                     JOIN dim_red dr ON di.id_red = dr.id_red
+                                     WHERE dr.desc_red = ?)""", f.red());
+        }
+        if (f.ipress() != null) {
+            if ("N/A".equals(f.ipress())) {
+                // Sin IPRESS, FK huérfana o IPRESS sin descripción (como el LEFT JOIN: di.desc_ipress IS NULL)
+                c.y("NOT EXISTS (SELECT 1 FROM dim_ipress dip WHERE dip.id_ipress = sb.id_ipress AND dip.desc_ipress <> ?)",
+                        f.ipress());
+            } else {
+                c.y("sb.id_ipress IN (SELECT id_ipress FROM dim_ipress WHERE desc_ipress = ?)", f.ipress());
+            }
+        }
+        if (f.especialidad() != null) {
+            c.y("LOWER(sb.especialidad) LIKE LOWER(?)", contiene(f.especialidad()));
+        }
+        if (f.estadosCita() != null) {
+            // Sin estado o con FK huérfana cuenta como PENDIENTE_CITA (igual que COALESCE en el listado)
+            String sinEstado = f.estadosCita().contains(ESTADO_PENDIENTE_CITA)
+                    ? " OR NOT EXISTS (SELECT 1 FROM dim_estados_gestion_citas d"
+                    + " WHERE d.id_estado_cita = sb.estado_gestion_citas_id)" : "";
+            c.y("(sb.estado_gestion_citas_id IN (SELECT id_estado_cita FROM dim_estados_gestion_citas"
+                    + " WHERE UPPER(COALESCE(cod_estado_cita, 'PENDIENTE_CITA')) = ANY(?))" + sinEstado + ")",
+                    (Object) f.estadosCita().toArray(String[]::new));
+        }
+        if (f.ipressAtencion() != null) {
+            c.y("sb.id_ipress_atencion IN (SELECT id_ipress FROM dim_ipress WHERE LOWER(desc_ipress) LIKE LOWER(?))",
+                    contiene(f.ipressAtencion()));
+        }
+        if (f.tipoCita() != null) {
+            c.y("UPPER(COALESCE(sb.tipo_cita, 'VOLUNTARIA')) = UPPER(?)", f.tipoCita());
+        }
+        if (conAsignacion && f.asignacion() != null) {
+            c.y(asignacion(f.asignacion()));
+        }
+        if (f.busqueda() != null) {
+            c.y("sb.paciente_dni LIKE ?", contiene(f.busqueda()));
+        }
+        if (f.fechaInicio() != null) {
+            c.y("sb.fecha_cambio_estado >= ?", f.fechaInicio());
+        }
+        if (f.fechaFin() != null) {
+            c.y("sb.fecha_cambio_estado < ?", f.fechaFin().plusDays(1));
+        }
+        if (f.condicionMedica() != null) {
+            if (FiltroBandejaBolsa.SIN_ATENCION.equals(f.condicionMedica())) {
+                c.y("(sb.condicion_medica IS NULL OR TRIM(sb.condicion_medica) = '')");
+            } else {
+                c.y("TRIM(sb.condicion_medica) = ?", f.condicionMedica());
+            }
+        }
+        if (f.gestoraId() != null) {
+            c.y("sb.responsable_gestora_id = ?", f.gestoraId());
+        }
+        if (f.estadoBolsa() != null) {
+            c.y("UPPER(sb.estado) = UPPER(?)", f.estadoBolsa());
+        }
+        if (f.categoriaEspecialidad() != null) {
+            c.y(categoria(f.categoriaEspecialidad()));
+        }
+        if (f.estrategia() != null) {
+            c.y("""
+                    sb.paciente_dni IN (SELECT pe.pk_asegurado FROM paciente_estrategia pe
+                                        JOIN dim_estrategia_institucional dei ON dei.id_estrategia = pe.id_estrategia
+                                        WHERE dei.sigla = ? AND pe.estado = 'ACTIVO')""", f.estrategia());
+        }
+        return c;
+    }
+
+    /** Valor desconocido = ninguna solicitud (igual que el CASE anterior) */
+    private static String asignacion(String asignacion) {
+        if (asignacion == null) {
+            return "TRUE";
+        }
+        return switch (asignacion) {
+            case "asignados" -> "sb.responsable_gestora_id IS NOT NULL";
+            case "sin_asignar" -> "sb.responsable_gestora_id IS NULL";
+            default -> "FALSE";
+        };
+    }
+
+    private static String categoria(String categoria) {
+        return switch (categoria) {
+            case "especialidades" -> "(sb.id_bolsa <> 1 AND LOWER(COALESCE(sb.especialidad, '')) NOT IN ('medicina general', 'enfermeria'))";
+            case "bolsa107" -> "sb.id_bolsa = 1";
+            case "recita" -> "sb.id_bolsa = 15";
+            case "interconsulta" -> "sb.id_bolsa = 16";
+            case "maraton" -> "sb.id_bolsa = 17";
+            default -> "FALSE";
+        };
+    }
+
+    /** Patrón LIKE '%texto%' con los comodines del texto escapados (se busca como literal) */
+    private static String contiene(String texto) {
+        return "%" + BusquedaPacienteDao.escaparLike(texto) + "%";
+    }
+
+    /**
+     * Predicados activos y sus parámetros, en el mismo orden que los ?
+     */
+    private static final class Condiciones {
+        private final List<String> predicados = new ArrayList<>();
+        private final List<Object> parametros = new ArrayList<>();
+
+        void y(String predicado, Object... valores) {
+            predicados.add(predicado);
+            parametros.addAll(List.of(valores));
+        }
+
+        String where() {
+            return "WHERE " + String.join("\n  AND ", predicados) + "\n";
+        }
+
+        PreparedStatement preparar(Connection con, String sql) throws SQLException {
+            PreparedStatement ps = con.prepareStatement(sql);
+            for (int i = 0; i < parametros.size(); i++) {
+                Object valor = parametros.get(i);
+                if (valor instanceof String[] arreglo) {
+                    ps.setArray(i + 1, con.createArrayOf("text", arreglo));
+                } else if (valor instanceof LocalDate fecha) {
+                    ps.setDate(i + 1, Date.valueOf(fecha));
+                } else {
+                    ps.setObject(i + 1, valor);
+                }
+            }
+            return ps;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.styp.cenate.repository.bolsas;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * 📤 Consultas de exportación de solicitudes de bolsa (v2.6.0)
+ *
+ * Trae los datos ya unidos con IPRESS, red, macrorregión, tipo de bolsa, estado,
+ * especialista y usuario del último cambio de estado, por lotes de ids. Usa JdbcTemplate
+ * porque se ejecuta dentro de StreamingResponseBody, fuera de la transacción del request.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SolicitudBolsaExportDao {
+
+    private static final String SQL_IDS_POR_FECHA_ASIGNACION = """
+            SELECT id_solicitud
+            FROM dim_solicitud_bolsa
+            WHERE id_solicitud = ANY(?)
+            ORDER BY fecha_asignacion DESC, id_solicitud DESC
+            """;
+
+    private static final String SQL_IDS_EXISTENTES =
+            "SELECT id_solicitud FROM dim_solicitud_bolsa WHERE id_solicitud = ANY(?)";
+
+    private static final String SQL_FILAS = """
+            SELECT sb.id_solicitud,
+                   sb.fecha_asignacion,
+                   sb.paciente_dni,
+                   sb.paciente_nombre,
+                   CAST(EXTRACT(YEAR FROM AGE(sb.fecha_nacimiento)) AS INTEGER) AS paciente_edad,
+                   sb.paciente_sexo,
+                   sb.especialidad,
+                   per.nom_pers AS especialista_nombre,
+                   sb.fecha_atencion,
+                   sb.hora_atencion,
+                   di.desc_ipress,
+                   dr.desc_red,
+                   dm.desc_macro,
+                   tb.desc_tipo_bolsa,
+                   sb.tipo_cita,
+                   sb.paciente_telefono,
+                   sb.paciente_telefono_alterno,
+                   deg.desc_estado_cita,
+                   sb.fecha_cambio_estado,
+                   u.name_user AS nombre_usuario_cambio_estado,
+                   sb.fecha_solicitud
+            FROM dim_solicitud_bolsa sb
+            LEFT JOIN dim_personal_cnt per ON sb.id_personal = per.id_pers
+            LEFT JOIN dim_ipress di ON sb.id_ipress = di.id_ipress
+            LEFT JOIN dim_red dr ON di.id_red = dr.id_red
+            LEFT JOIN dim_macroregion dm ON dr.id_macro = dm.id_macro
+            LEFT JOIN dim_tipos_bolsas tb ON sb.id_bolsa = tb.id_tipo_bolsa
+            LEFT JOIN dim_estados_gestion_citas deg ON sb.estado_gestion_citas_id = deg.id_estado_cita
+            LEFT JOIN dim_usuarios u ON sb.usuario_cambio_estado_id = u.id_user
+            WHERE sb.id_solicitud = ANY(?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Una fila exportable (columnas del CSV general y del EXCEL de "Mi Bandeja") */
+    public record FilaExportacion(
+            Long idSolicitud,
+            OffsetDateTime fechaAsignacion,
+            String pacienteDni,
+            String pacienteNombre,
+            Integer pacienteEdad,
+            String pacienteSexo,
+            String especialidad,
+            String especialistaNombre,
+            LocalDate fechaAtencion,
+            LocalTime horaAtencion,
+            String descIpress,
+            String descRed,
+            String descMacroregion,
+            String descTipoBolsa,
+            String tipoCita,
+            String pacienteTelefono,
+            String pacienteTelefonoAlterno,
+            String descEstadoCita,
+            OffsetDateTime fechaCambioEstado,
+            String nombreUsuarioCambioEstado,
+            OffsetDateTime fechaSolicitud) {
+    }
+
+    private static final RowMapper<FilaExportacion> FILA_MAPPER = (rs, i) -> new FilaExportacion(
+            rs.getLong("id_solicitud"),
+            rs.getObject("fecha_asignacion", OffsetDateTime.class),
+            rs.getString("paciente_dni"),
+            rs.getString("paciente_nombre"),
+            rs.getObject("paciente_edad", Integer.class),
+            rs.getString("paciente_sexo"),
+            rs.getString("especialidad"),
+            rs.getString("especialista_nombre"),
+            rs.getObject("fecha_atencion", LocalDate.class),
+            rs.getObject("hora_atencion", LocalTime.class),
+            rs.getString("desc_ipress"),
+            rs.getString("desc_red"),
+            rs.getString("desc_macro"),
+            rs.getString("desc_tipo_bolsa"),
+            rs.getString("tipo_cita"),
+            rs.getString("paciente_telefono"),
+            rs.getString("paciente_telefono_alterno"),
+            rs.getString("desc_estado_cita"),
+            rs.getObject("fecha_cambio_estado", OffsetDateTime.class),
+            rs.getString("nombre_usuario_cambio_estado"),
+            rs.getObject("fecha_solicitud", OffsetDateTime.class));
+
+    /**
+     * Ids existentes ordenados por fecha de asignación (más reciente primero)
+     */
+    public List<Long> idsPorFechaAsignacion(List<Long> ids) {
+        return jdbcTemplate.query(con -> conArreglo(con, SQL_IDS_POR_FECHA_ASIGNACION, ids),
+                (rs, i) -> rs.getLong(1));
+    }
+
+    /**
+     * Cuáles de los ids existen (sin orden)
+     */
+    public List<Long> idsExistentes(List<Long> ids) {
+        return jdbcTemplate.query(con -> conArreglo(con, SQL_IDS_EXISTENTES, ids), (rs, i) -> rs.getLong(1));
+    }
+
+    /**
+     * Filas de un lote de ids (sin orden; quien llama las reordena)
+     */
+    public List<FilaExportacion> filas(List<Long> lote) {
+        return jdbcTemplate.query(con -> conArreglo(con, SQL_FILAS, lote), FILA_MAPPER);
+    }
+
+    private PreparedStatement conArreglo(Connection con, String sql, List<Long> ids) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        Array arreglo = con.createArrayOf("bigint", ids.toArray());
+        ps.setArray(1, arreglo);
+        return ps;
+    }
+}
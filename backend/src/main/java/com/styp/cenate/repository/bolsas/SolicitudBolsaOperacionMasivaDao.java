@@ -0,0 +1,192 @@
+package com.styp.cenate.repository.bolsas;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * 📦 Operaciones masivas sobre dim_solicitud_bolsa (v2.6.0)
+ *
+ * Cada operación es un solo UPDATE ... WHERE id_solicitud = ANY(?) con RETURNING, así
+ * el costo depende del tamaño del lote y no de la cantidad de filas, y el servicio sabe
+ * exactamente qué ids se actualizaron. La devolución a pendientes escribe además el
+ * historial (dim_historial_cambios_solicitud) en la misma sentencia.
+ *
+ * Todas devuelven los ids actualizados. Al igual que el @PreUpdate de la entidad,
+ * actualizan fecha_actualizacion.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SolicitudBolsaOperacionMasivaDao {
+
+    private static final String SQL_ASIGNAR_GESTORA = """
+            UPDATE dim_solicitud_bolsa
+            SET responsable_gestora_id = ?, fecha_asignacion = ?, fecha_actualizacion = NOW()
+            WHERE id_solicitud = ANY(?) AND activo = true
+            RETURNING id_solicitud
+            """;
+
+    private static final String SQL_CAMBIAR_ESTADO = """
+            UPDATE dim_solicitud_bolsa
+            SET estado_gestion_citas_id = ?, fecha_cambio_estado = NOW(), fecha_actualizacion = NOW()
+            WHERE id_solicitud = ANY(?) AND activo = true
+            RETURNING id_solicitud
+            """;
+
+    private static final String SQL_ANULAR = """
+            UPDATE dim_solicitud_bolsa
+            SET estado_gestion_citas_id = ?,
+                fecha_cambio_estado = NOW(),
+                motivo_anulacion = ?,
+                condicion_medica = 'Anulado',
+                estado = 'Observado',
+                usuario_cambio_estado_id = ?,
+                fecha_actualizacion = NOW()
+            WHERE id_solicitud = ANY(?) AND activo = true
+            RETURNING id_solicitud
+            """;
+
+    /**
+     * Guarda en el historial la cita previa (estado, médico, fecha y hora) y luego la limpia.
+     * Las filas se bloquean en "previo" para que historial y UPDATE vean los mismos datos.
+     */
+    private static final String SQL_DEVOLVER_A_PENDIENTES = """
+            WITH previo AS (
+                SELECT sb.id_solicitud, sb.estado_gestion_citas_id, sb.id_personal,
+                       sb.fecha_atencion, sb.hora_atencion
+                FROM dim_solicitud_bolsa sb
+                WHERE sb.id_solicitud = ANY(?) AND sb.activo = true
+                FOR UPDATE
+            ), historial AS (
+                INSERT INTO dim_historial_cambios_solicitud (
+                    id_solicitud, tipo_cambio, motivo, estado_anterior_id, estado_anterior_desc,
+                    medico_anterior_id, medico_anterior_nombre, fecha_cita_anterior, hora_cita_anterior,
+                    usuario_id, usuario_nombre, fecha_cambio)
+                SELECT p.id_solicitud, 'DEVOLUCION_A_PENDIENTE', ?, p.estado_gestion_citas_id,
+                       deg.desc_estado_cita, p.id_personal,
+                       CASE WHEN p.id_personal IS NULL THEN NULL
+                            ELSE COALESCE(NULLIF(INITCAP(CONCAT_WS(' ', NULLIF(TRIM(per.nom_pers), ''),
+                                                                   NULLIF(TRIM(per.ape_pater_pers), ''),
+                                                                   NULLIF(TRIM(per.ape_mater_pers), ''))), ''),
+                                          'Personal #' || p.id_personal)
+                       END,
+                       p.fecha_atencion, p.hora_atencion, ?, ?, NOW()
+                FROM previo p
+                LEFT JOIN dim_estados_gestion_citas deg ON p.estado_gestion_citas_id = deg.id_estado_cita
+                LEFT JOIN dim_personal_cnt per ON p.id_personal = per.id_pers
+            )
+            UPDATE dim_solicitud_bolsa sb
+            SET estado_gestion_citas_id = 11,
+                estado = 'PENDIENTE',
+                id_personal = NULL,
+                fecha_atencion = NULL,
+                hora_atencion = NULL,
+                condicion_medica = NULL,
+                fecha_atencion_medica = NULL,
+                motivo_anulacion = ?,
+                fecha_cambio_estado = NOW(),
+                fecha_actualizacion = NOW()
+            FROM previo p
+            WHERE sb.id_solicitud = p.id_solicitud
+            RETURNING sb.id_solicitud
+            """;
+
+    private static final String SQL_DESACTIVAR = """
+            UPDATE dim_solicitud_bolsa
+            SET activo = false, fecha_actualizacion = NOW()
+            WHERE id_solicitud = ANY(?)
+            RETURNING id_solicitud
+            """;
+
+    /** gestora null conserva la gestora actual */
+    private static final String SQL_REPROGRAMAR = """
+            UPDATE dim_solicitud_bolsa
+            SET fecha_atencion = ?,
+                responsable_gestora_id = COALESCE(?, responsable_gestora_id),
+                fecha_actualizacion = NOW()
+            WHERE id_solicitud = ANY(?) AND activo = true
+            RETURNING id_solicitud
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Long> asignarGestora(List<Long> ids, Long idGestora, OffsetDateTime ahora) {
+        return actualizar(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_ASIGNAR_GESTORA);
+            ps.setLong(1, idGestora);
+            ps.setTimestamp(2, Timestamp.from(ahora.toInstant()));
+            ps.setArray(3, arreglo(con, ids));
+            return ps;
+        });
+    }
+
+    public List<Long> cambiarEstado(List<Long> ids, Long idEstado) {
+        return actualizar(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_CAMBIAR_ESTADO);
+            ps.setLong(1, idEstado);
+            ps.setArray(2, arreglo(con, ids));
+            return ps;
+        });
+    }
+
+    public List<Long> anular(List<Long> ids, Long idEstado, String motivo, Long idUsuario) {
+        return actualizar(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_ANULAR);
+            ps.setLong(1, idEstado);
+            ps.setString(2, motivo);
+            ps.setObject(3, idUsuario, Types.BIGINT);
+            ps.setArray(4, arreglo(con, ids));
+            return ps;
+        });
+    }
+
+    public List<Long> devolverAPendientes(List<Long> ids, String motivo, Long idUsuario, String nombreUsuario) {
+        return actualizar(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_DEVOLVER_A_PENDIENTES);
+            ps.setArray(1, arreglo(con, ids));
+            ps.setString(2, motivo);
+            ps.setObject(3, idUsuario, Types.BIGINT);
+            ps.setString(4, nombreUsuario);
+            ps.setString(5, motivo);
+            return ps;
+        });
+    }
+
+    public List<Long> desactivar(List<Long> ids) {
+        return actualizar(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_DESACTIVAR);
+            ps.setArray(1, arreglo(con, ids));
+            return ps;
+        });
+    }
+
+    public List<Long> reprogramar(List<Long> ids, LocalDate fechaCita, Long idGestora) {
+        return actualizar(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_REPROGRAMAR);
+            ps.setDate(1, Date.valueOf(fechaCita));
+            ps.setObject(2, idGestora, Types.BIGINT);
+            ps.setArray(3, arreglo(con, ids));
+            return ps;
+        });
+    }
+
+    private List<Long> actualizar(PreparedStatementCreator creador) {
+        return jdbcTemplate.query(creador, (rs, i) -> rs.getLong(1));
+    }
+
+    private static Array arreglo(Connection con, List<Long> ids) throws SQLException {
+        return con.createArrayOf("bigint", ids.toArray());
+    }
+}
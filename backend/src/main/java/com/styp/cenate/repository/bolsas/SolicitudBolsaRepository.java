@@ -10,7 +10,6 @@ import org.springframework.stereotype.Repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -224,188 +223,7 @@ public interface SolicitudBolsaRepository extends JpaRepository<SolicitudBolsa,
         """, nativeQuery = true)
     List<Object[]> findAllWithBolsaDescriptionPaginado(org.springframework.data.domain.Pageable pageable);
 
-    /**
-     * Obtiene solicitudes paginadas CON FILTROS avanzados (v2.6.0)
-     * Soporta filtrado por: bolsa, macrorregión, red, IPRESS, especialidad, estado, tipo de cita, búsqueda
-     * Pensado para UX: filtrado server-side + paginación integrada
-     *
-     * @param idBolsa ID de la bolsa (null = todas)
-     * @param macrorregion descripción de macrorregión (null = todas)
-     * @param red descripción de red (null = todas)
-     * @param ipress descripción de IPRESS (null = todas)
-     * @param especialidad especialidad (null = todas)
-     * @param estadoId ID estado gestión citas (null = todos)
-     * @param tipoCita tipo de cita (null = todos)
-     * @param busqueda búsqueda por DNI solamente (null = ignorar)
-     * @param pageable paginación
-     * @return lista paginada de solicitudes enriquecidas
-     */
-    @Query(value = """
-        SELECT sb.id_solicitud, sb.numero_solicitud, sb.paciente_id, sb.paciente_nombre,
-               sb.paciente_dni, sb.especialidad, sb.fecha_preferida_no_atendida,
-               sb.tipo_documento, sb.fecha_nacimiento, sb.paciente_sexo,
-               sb.paciente_telefono, sb.paciente_telefono_alterno,
-               sb.paciente_email,
-               di.cod_ipress, sb.tipo_cita,
-               sb.id_bolsa, tb.desc_tipo_bolsa,
-               sb.id_servicio, di.cod_ipress as codigo_adscripcion, sb.id_ipress,
-               sb.estado, COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA') as cod_estado_cita,
-               COALESCE(deg.desc_estado_cita, 'Paciente nuevo que ingresó a la bolsa') as desc_estado_cita,
-               sb.fecha_solicitud, sb.fecha_actualizacion,
-               sb.estado_gestion_citas_id, sb.activo,
-               di.desc_ipress, dr.desc_red, dm.desc_macro,
-               sb.responsable_gestora_id, sb.fecha_asignacion,
-               sb.fecha_cambio_estado, sb.usuario_cambio_estado_id,
-               COALESCE(CONCAT(pc.nom_pers, ' ', pc.ape_pater_pers, ' ', pc.ape_mater_pers), u.name_user, 'Sin asignar') as nombre_usuario_cambio_estado,
-               COALESCE(sb.fecha_atencion, (SELECT sc.fecha_cita FROM solicitud_cita sc WHERE sc.doc_paciente = sb.paciente_dni AND sc.estado_registro = true ORDER BY sc.fecha_cita DESC LIMIT 1)) as fecha_atencion,
-               COALESCE(sb.hora_atencion, (SELECT sc.hora_cita FROM solicitud_cita sc WHERE sc.doc_paciente = sb.paciente_dni AND sc.estado_registro = true ORDER BY sc.fecha_cita DESC LIMIT 1)) as hora_atencion,
-               sb.id_personal,
-               sb.condicion_medica, sb.fecha_atencion_medica,
-               COALESCE(CONCAT(med.nom_pers, ' ', med.ape_pater_pers, ' ', med.ape_mater_pers), '') as nombre_medico,
-               sb.id_ipress_atencion, COALESCE(di2.cod_ipress, di.cod_ipress, '') as cod_ipress_atencion,
-               COALESCE(di2.desc_ipress, di.desc_ipress, '') as desc_ipress_atencion,
-               COALESCE(CONCAT(pcg.nom_pers, ' ', pcg.ape_pater_pers, ' ', pcg.ape_mater_pers), ug.name_user) as nombre_gestora,
-               sb.tiempo_inicio_sintomas
-        FROM dim_solicitud_bolsa sb
-        LEFT JOIN dim_tipos_bolsas tb ON sb.id_bolsa = tb.id_tipo_bolsa
-        LEFT JOIN dim_ipress di ON sb.id_ipress = di.id_ipress
-        LEFT JOIN dim_ipress di2 ON sb.id_ipress_atencion = di2.id_ipress
-        LEFT JOIN dim_red dr ON di.id_red = dr.id_red
-        LEFT JOIN dim_macroregion dm ON dr.id_macro = dm.id_macro
-        LEFT JOIN dim_estados_gestion_citas deg ON sb.estado_gestion_citas_id = deg.id_estado_cita
-        LEFT JOIN dim_usuarios u ON sb.usuario_cambio_estado_id = u.id_user
-        LEFT JOIN dim_personal_cnt pc ON u.id_user = pc.id_usuario
-        LEFT JOIN dim_personal_cnt med ON sb.id_personal = med.id_pers
-        LEFT JOIN dim_usuarios ug ON sb.responsable_gestora_id = ug.id_user
-        LEFT JOIN dim_personal_cnt pcg ON ug.id_user = pcg.id_usuario
-        WHERE sb.activo = true
-          AND (CAST(:bolsaNombre AS VARCHAR) IS NULL OR POSITION(',' || LOWER(COALESCE(tb.desc_tipo_bolsa, '')) || ',' IN ',' || LOWER(CAST(:bolsaNombre AS VARCHAR)) || ',') > 0)
-          AND (CAST(:macrorregion AS VARCHAR) IS NULL OR dm.desc_macro = CAST(:macrorregion AS VARCHAR))
-          AND (CAST(:red AS VARCHAR) IS NULL OR dr.desc_red = CAST(:red AS VARCHAR))
-          AND (CAST(:ipress AS VARCHAR) IS NULL OR (CAST(:ipress AS VARCHAR) = 'N/A' AND di.desc_ipress IS NULL) OR di.desc_ipress = CAST(:ipress AS VARCHAR))
-          AND (CAST(:especialidad AS VARCHAR) IS NULL OR LOWER(COALESCE(sb.especialidad, '')) LIKE LOWER(CONCAT('%', CAST(:especialidad AS VARCHAR), '%')))
-          AND (CAST(:estadoCodigo AS VARCHAR) IS NULL OR POSITION(',' || UPPER(COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA')) || ',' IN ',' || UPPER(CAST(:estadoCodigo AS VARCHAR)) || ',') > 0)
-          AND (CAST(:ipressAtencion AS VARCHAR) IS NULL OR LOWER(COALESCE(di2.desc_ipress, '')) LIKE LOWER(CONCAT('%', CAST(:ipressAtencion AS VARCHAR), '%')))
-          AND (CAST(:tipoCita AS VARCHAR) IS NULL OR UPPER(COALESCE(sb.tipo_cita, 'VOLUNTARIA')) = UPPER(CAST(:tipoCita AS VARCHAR)))
-          AND (CASE
-               WHEN CAST(:asignacion AS VARCHAR) IS NULL THEN 1=1
-               WHEN CAST(:asignacion AS VARCHAR) = 'asignados' THEN sb.responsable_gestora_id IS NOT NULL
-               WHEN CAST(:asignacion AS VARCHAR) = 'sin_asignar' THEN sb.responsable_gestora_id IS NULL
-               ELSE 1=0
-               END)
-          AND (CAST(:busqueda AS VARCHAR) IS NULL OR COALESCE(sb.paciente_dni, '') LIKE CONCAT('%', CAST(:busqueda AS VARCHAR), '%'))
-          AND (CAST(:fechaInicio AS VARCHAR) IS NULL OR CAST(:fechaInicio AS DATE) IS NULL OR DATE(sb.fecha_cambio_estado) >= CAST(:fechaInicio AS DATE))
-          AND (CAST(:fechaFin AS VARCHAR) IS NULL OR CAST(:fechaFin AS DATE) IS NULL OR DATE(sb.fecha_cambio_estado) <= CAST(:fechaFin AS DATE))
-          AND (CAST(:condicionMedica AS VARCHAR) IS NULL
-               OR (CAST(:condicionMedica AS VARCHAR) != 'Sin atención' AND COALESCE(TRIM(sb.condicion_medica), '') = CAST(:condicionMedica AS VARCHAR))
-               OR (CAST(:condicionMedica AS VARCHAR) = 'Sin atención' AND (sb.condicion_medica IS NULL OR TRIM(sb.condicion_medica) = '')))
-          AND (:gestoraId IS NULL OR sb.responsable_gestora_id = :gestoraId)
-          AND (CAST(:estadoBolsa AS VARCHAR) IS NULL OR UPPER(COALESCE(sb.estado, '')) = UPPER(CAST(:estadoBolsa AS VARCHAR)))
-          AND (CAST(:categoriaEspecialidad AS VARCHAR) IS NULL
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'especialidades' AND LOWER(COALESCE(sb.especialidad,'')) NOT IN ('medicina general', 'enfermeria') AND sb.id_bolsa != 1)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'bolsa107'       AND sb.id_bolsa = 1)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'recita'         AND sb.id_bolsa = 15)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'interconsulta'  AND sb.id_bolsa = 16)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'maraton'        AND sb.id_bolsa = 17))
-          AND (CAST(:estrategia AS VARCHAR) IS NULL
-               OR sb.paciente_dni IN (
-                   SELECT pe.pk_asegurado FROM paciente_estrategia pe
-                   JOIN dim_estrategia_institucional dei ON dei.id_estrategia = pe.id_estrategia
-                   WHERE dei.sigla = CAST(:estrategia AS VARCHAR) AND pe.estado = 'ACTIVO'
-               ))
-        ORDER BY CASE WHEN COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA') = 'PENDIENTE_CITA' THEN 0
-                      WHEN COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA') = 'CITADO' THEN 1
-                      ELSE 2 END, sb.fecha_solicitud DESC
-        LIMIT :#{#pageable.pageSize} OFFSET :#{#pageable.offset}
-        """, nativeQuery = true)
-    List<Object[]> findAllWithFiltersAndPagination(
-            @org.springframework.data.repository.query.Param("bolsaNombre") String bolsaNombre,
-            @org.springframework.data.repository.query.Param("macrorregion") String macrorregion,
-            @org.springframework.data.repository.query.Param("red") String red,
-            @org.springframework.data.repository.query.Param("ipress") String ipress,
-            @org.springframework.data.repository.query.Param("especialidad") String especialidad,
-            @org.springframework.data.repository.query.Param("estadoCodigo") String estadoCodigo,
-            @org.springframework.data.repository.query.Param("ipressAtencion") String ipressAtencion,
-            @org.springframework.data.repository.query.Param("tipoCita") String tipoCita,
-            @org.springframework.data.repository.query.Param("asignacion") String asignacion,
-            @org.springframework.data.repository.query.Param("busqueda") String busqueda,
-            @org.springframework.data.repository.query.Param("fechaInicio") String fechaInicio,
-            @org.springframework.data.repository.query.Param("fechaFin") String fechaFin,
-            @org.springframework.data.repository.query.Param("condicionMedica") String condicionMedica,
-            @org.springframework.data.repository.query.Param("gestoraId") Long gestoraId,
-            @org.springframework.data.repository.query.Param("estadoBolsa") String estadoBolsa,
-            @org.springframework.data.repository.query.Param("categoriaEspecialidad") String categoriaEspecialidad,
-            @org.springframework.data.repository.query.Param("estrategia") String estrategia,
-            org.springframework.data.domain.Pageable pageable);
-
-    /**
-     * Cuenta solicitudes con filtros aplicados (v2.6.0 + v1.42.0: asignación)
-     * ✅ v1.54.4: Fixed estado filter to use deg.cod_estado_cita instead of sb.estado
-     * Se usa para calcular el total de páginas en filtrado
-     */
-    @Query(value = """
-        SELECT COUNT(*)
-        FROM dim_solicitud_bolsa sb
-        LEFT JOIN dim_tipos_bolsas tb ON sb.id_bolsa = tb.id_tipo_bolsa
-        LEFT JOIN dim_ipress di ON sb.id_ipress = di.id_ipress
-        LEFT JOIN dim_ipress di2 ON sb.id_ipress_atencion = di2.id_ipress
-        LEFT JOIN dim_red dr ON di.id_red = dr.id_red
-        LEFT JOIN dim_macroregion dm ON dr.id_macro = dm.id_macro
-        LEFT JOIN dim_estados_gestion_citas deg ON sb.estado_gestion_citas_id = deg.id_estado_cita
-        WHERE sb.activo = true
-          AND (CAST(:bolsaNombre AS VARCHAR) IS NULL OR POSITION(',' || LOWER(COALESCE(tb.desc_tipo_bolsa, '')) || ',' IN ',' || LOWER(CAST(:bolsaNombre AS VARCHAR)) || ',') > 0)
-          AND (CAST(:macrorregion AS VARCHAR) IS NULL OR dm.desc_macro = CAST(:macrorregion AS VARCHAR))
-          AND (CAST(:red AS VARCHAR) IS NULL OR dr.desc_red = CAST(:red AS VARCHAR))
-          AND (CAST(:ipress AS VARCHAR) IS NULL OR (CAST(:ipress AS VARCHAR) = 'N/A' AND di.desc_ipress IS NULL) OR di.desc_ipress = CAST(:ipress AS VARCHAR))
-          AND (CAST(:especialidad AS VARCHAR) IS NULL OR LOWER(COALESCE(sb.especialidad, '')) LIKE LOWER(CONCAT('%', CAST(:especialidad AS VARCHAR), '%')))
-          AND (CAST(:estadoCodigo AS VARCHAR) IS NULL OR POSITION(',' || UPPER(COALESCE(deg.cod_estado_cita, 'PENDIENTE_CITA')) || ',' IN ',' || UPPER(CAST(:estadoCodigo AS VARCHAR)) || ',') > 0)
-          AND (CAST(:ipressAtencion AS VARCHAR) IS NULL OR LOWER(COALESCE(di2.desc_ipress, '')) LIKE LOWER(CONCAT('%', CAST(:ipressAtencion AS VARCHAR), '%')))
-          AND (CAST(:tipoCita AS VARCHAR) IS NULL OR UPPER(COALESCE(sb.tipo_cita, 'VOLUNTARIA')) = UPPER(CAST(:tipoCita AS VARCHAR)))
-          AND (CASE
-               WHEN CAST(:asignacion AS VARCHAR) IS NULL THEN 1=1
-               WHEN CAST(:asignacion AS VARCHAR) = 'asignados' THEN sb.responsable_gestora_id IS NOT NULL
-               WHEN CAST(:asignacion AS VARCHAR) = 'sin_asignar' THEN sb.responsable_gestora_id IS NULL
-               ELSE 1=0
-               END)
-          AND (CAST(:busqueda AS VARCHAR) IS NULL OR COALESCE(sb.paciente_dni, '') LIKE CONCAT('%', CAST(:busqueda AS VARCHAR), '%'))
-          AND (CAST(:fechaInicio AS VARCHAR) IS NULL OR CAST(:fechaInicio AS DATE) IS NULL OR DATE(sb.fecha_cambio_estado) >= CAST(:fechaInicio AS DATE))
-          AND (CAST(:fechaFin AS VARCHAR) IS NULL OR CAST(:fechaFin AS DATE) IS NULL OR DATE(sb.fecha_cambio_estado) <= CAST(:fechaFin AS DATE))
-          AND (CAST(:condicionMedica AS VARCHAR) IS NULL
-               OR (CAST(:condicionMedica AS VARCHAR) != 'Sin atención' AND COALESCE(TRIM(sb.condicion_medica), '') = CAST(:condicionMedica AS VARCHAR))
-               OR (CAST(:condicionMedica AS VARCHAR) = 'Sin atención' AND (sb.condicion_medica IS NULL OR TRIM(sb.condicion_medica) = '')))
-          AND (:gestoraId IS NULL OR sb.responsable_gestora_id = :gestoraId)
-          AND (CAST(:estadoBolsa AS VARCHAR) IS NULL OR UPPER(COALESCE(sb.estado, '')) = UPPER(CAST(:estadoBolsa AS VARCHAR)))
-          AND (CAST(:categoriaEspecialidad AS VARCHAR) IS NULL
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'especialidades' AND LOWER(COALESCE(sb.especialidad,'')) NOT IN ('medicina general', 'enfermeria') AND sb.id_bolsa != 1)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'bolsa107'       AND sb.id_bolsa = 1)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'recita'         AND sb.id_bolsa = 15)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'interconsulta'  AND sb.id_bolsa = 16)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'maraton'        AND sb.id_bolsa = 17))
-          AND (CAST(:estrategia AS VARCHAR) IS NULL
-               OR sb.paciente_dni IN (
-                   SELECT pe.pk_asegurado FROM paciente_estrategia pe
-                   JOIN dim_estrategia_institucional dei ON dei.id_estrategia = pe.id_estrategia
-                   WHERE dei.sigla = CAST(:estrategia AS VARCHAR) AND pe.estado = 'ACTIVO'
-               ))
-        """, nativeQuery = true)
-    long countWithFilters(
-            @org.springframework.data.repository.query.Param("bolsaNombre") String bolsaNombre,
-            @org.springframework.data.repository.query.Param("macrorregion") String macrorregion,
-            @org.springframework.data.repository.query.Param("red") String red,
-            @org.springframework.data.repository.query.Param("ipress") String ipress,
-            @org.springframework.data.repository.query.Param("especialidad") String especialidad,
-            @org.springframework.data.repository.query.Param("estadoCodigo") String estadoCodigo,
-            @org.springframework.data.repository.query.Param("ipressAtencion") String ipressAtencion,
-            @org.springframework.data.repository.query.Param("tipoCita") String tipoCita,
-            @org.springframework.data.repository.query.Param("asignacion") String asignacion,
-            @org.springframework.data.repository.query.Param("busqueda") String busqueda,
-            @org.springframework.data.repository.query.Param("fechaInicio") String fechaInicio,
-            @org.springframework.data.repository.query.Param("fechaFin") String fechaFin,
-            @org.springframework.data.repository.query.Param("condicionMedica") String condicionMedica,
-            @org.springframework.data.repository.query.Param("gestoraId") Long gestoraId,
-            @org.springframework.data.repository.query.Param("estadoBolsa") String estadoBolsa,
-            @org.springframework.data.repository.query.Param("categoriaEspecialidad") String categoriaEspecialidad,
-            @org.springframework.data.repository.query.Param("estrategia") String estrategia);
+    // ✅ v2.6.0: listado y conteo con filtros de la bandeja → SolicitudBolsaBandejaDao
 
     /**
      * Cuenta total de solicitudes activas (para calcular páginas totales)
@@ -477,112 +295,7 @@ public interface SolicitudBolsaRepository extends JpaRepository<SolicitudBolsa,
     List<Map<String, Object>> estadisticasPorEstadoFiltrado(
             @org.springframework.data.repository.query.Param("ipressAtencion") String ipressAtencion);
 
-    /**
-     * v1.78.3: KPI cards filtrados — mismas condiciones que findAllWithFiltersAndPagination
-     * pero agrupados por estado + fila extra ASIGNADOS (UNION ALL).
-     * Permite actualizar los 4 cards dinámicamente al aplicar filtros.
-     */
-    @Query(value = """
-        SELECT
-            COALESCE(dgc.cod_estado_cita, 'PENDIENTE_CITA') AS estado,
-            COUNT(sb.id_solicitud) AS cantidad
-        FROM dim_solicitud_bolsa sb
-        LEFT JOIN dim_tipos_bolsas tb    ON sb.id_bolsa             = tb.id_tipo_bolsa
-        LEFT JOIN dim_ipress di          ON sb.id_ipress            = di.id_ipress
-        LEFT JOIN dim_ipress di2         ON sb.id_ipress_atencion   = di2.id_ipress
-        LEFT JOIN dim_red dr             ON di.id_red               = dr.id_red
-        LEFT JOIN dim_macroregion dm     ON dr.id_macro             = dm.id_macro
-        LEFT JOIN dim_estados_gestion_citas dgc ON sb.estado_gestion_citas_id = dgc.id_estado_cita
-        WHERE sb.activo = true
-          AND (CAST(:bolsaNombre    AS VARCHAR) IS NULL OR POSITION(',' || LOWER(COALESCE(tb.desc_tipo_bolsa,'')) || ',' IN ',' || LOWER(CAST(:bolsaNombre AS VARCHAR)) || ',') > 0)
-          AND (CAST(:macrorregion   AS VARCHAR) IS NULL OR dm.desc_macro   = CAST(:macrorregion AS VARCHAR))
-          AND (CAST(:red            AS VARCHAR) IS NULL OR dr.desc_red     = CAST(:red AS VARCHAR))
-          AND (CAST(:ipress         AS VARCHAR) IS NULL OR (CAST(:ipress AS VARCHAR) = 'N/A' AND di.desc_ipress IS NULL) OR di.desc_ipress = CAST(:ipress AS VARCHAR))
-          AND (CAST(:especialidad   AS VARCHAR) IS NULL OR LOWER(COALESCE(sb.especialidad,'')) LIKE LOWER(CONCAT('%', CAST(:especialidad AS VARCHAR), '%')))
-          AND (CAST(:estadoCodigo   AS VARCHAR) IS NULL OR POSITION(',' || UPPER(COALESCE(dgc.cod_estado_cita,'PENDIENTE_CITA')) || ',' IN ',' || UPPER(CAST(:estadoCodigo AS VARCHAR)) || ',') > 0)
-          AND (CAST(:ipressAtencion AS VARCHAR) IS NULL OR LOWER(COALESCE(di2.desc_ipress,'')) LIKE LOWER(CONCAT('%', CAST(:ipressAtencion AS VARCHAR), '%')))
-          AND (CAST(:tipoCita       AS VARCHAR) IS NULL OR UPPER(COALESCE(sb.tipo_cita,'VOLUNTARIA')) = UPPER(CAST(:tipoCita AS VARCHAR)))
-          AND (CASE
-               WHEN CAST(:asignacion AS VARCHAR) IS NULL THEN 1=1
-               WHEN CAST(:asignacion AS VARCHAR) = 'asignados'   THEN sb.responsable_gestora_id IS NOT NULL
-               WHEN CAST(:asignacion AS VARCHAR) = 'sin_asignar' THEN sb.responsable_gestora_id IS NULL
-               ELSE 1=0 END)
-          AND (CAST(:busqueda    AS VARCHAR) IS NULL OR COALESCE(sb.paciente_dni,'') LIKE CONCAT('%', CAST(:busqueda AS VARCHAR), '%'))
-          AND (CAST(:fechaInicio AS VARCHAR) IS NULL OR DATE(sb.fecha_cambio_estado) >= CAST(:fechaInicio AS DATE))
-          AND (CAST(:fechaFin    AS VARCHAR) IS NULL OR DATE(sb.fecha_cambio_estado) <= CAST(:fechaFin AS DATE))
-          AND (:gestoraId IS NULL OR sb.responsable_gestora_id = :gestoraId)
-          AND (CAST(:estadoBolsa AS VARCHAR) IS NULL OR UPPER(COALESCE(sb.estado,'')) = UPPER(CAST(:estadoBolsa AS VARCHAR)))
-          AND (CAST(:categoriaEspecialidad AS VARCHAR) IS NULL
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'especialidades' AND LOWER(COALESCE(sb.especialidad,'')) NOT IN ('medicina general', 'enfermeria') AND sb.id_bolsa != 1)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'bolsa107'       AND sb.id_bolsa = 1)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'recita'         AND sb.id_bolsa = 15)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'interconsulta'  AND sb.id_bolsa = 16)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'maraton'        AND sb.id_bolsa = 17))
-          AND (CAST(:estrategia AS VARCHAR) IS NULL
-               OR sb.paciente_dni IN (
-                   SELECT pe.pk_asegurado FROM paciente_estrategia pe
-                   JOIN dim_estrategia_institucional dei ON dei.id_estrategia = pe.id_estrategia
-                   WHERE dei.sigla = CAST(:estrategia AS VARCHAR) AND pe.estado = 'ACTIVO'
-               ))
-        GROUP BY COALESCE(dgc.cod_estado_cita, 'PENDIENTE_CITA')
-
-        UNION ALL
-
-        SELECT 'ASIGNADOS' AS estado,
-               COUNT(sb.id_solicitud) AS cantidad
-        FROM dim_solicitud_bolsa sb
-        LEFT JOIN dim_tipos_bolsas tb    ON sb.id_bolsa             = tb.id_tipo_bolsa
-        LEFT JOIN dim_ipress di          ON sb.id_ipress            = di.id_ipress
-        LEFT JOIN dim_ipress di2         ON sb.id_ipress_atencion   = di2.id_ipress
-        LEFT JOIN dim_red dr             ON di.id_red               = dr.id_red
-        LEFT JOIN dim_macroregion dm     ON dr.id_macro             = dm.id_macro
-        LEFT JOIN dim_estados_gestion_citas dgc ON sb.estado_gestion_citas_id = dgc.id_estado_cita
-        WHERE sb.activo = true
-          AND sb.responsable_gestora_id IS NOT NULL
-          AND (CAST(:bolsaNombre    AS VARCHAR) IS NULL OR POSITION(',' || LOWER(COALESCE(tb.desc_tipo_bolsa,'')) || ',' IN ',' || LOWER(CAST(:bolsaNombre AS VARCHAR)) || ',') > 0)
-          AND (CAST(:macrorregion   AS VARCHAR) IS NULL OR dm.desc_macro   = CAST(:macrorregion AS VARCHAR))
-          AND (CAST(:red            AS VARCHAR) IS NULL OR dr.desc_red     = CAST(:red AS VARCHAR))
-          AND (CAST(:ipress         AS VARCHAR) IS NULL OR (CAST(:ipress AS VARCHAR) = 'N/A' AND di.desc_ipress IS NULL) OR di.desc_ipress = CAST(:ipress AS VARCHAR))
-          AND (CAST(:especialidad   AS VARCHAR) IS NULL OR LOWER(COALESCE(sb.especialidad,'')) LIKE LOWER(CONCAT('%', CAST(:especialidad AS VARCHAR), '%')))
-          AND (CAST(:estadoCodigo   AS VARCHAR) IS NULL OR POSITION(',' || UPPER(COALESCE(dgc.cod_estado_cita,'PENDIENTE_CITA')) || ',' IN ',' || UPPER(CAST(:estadoCodigo AS VARCHAR)) || ',') > 0)
-          AND (CAST(:ipressAtencion AS VARCHAR) IS NULL OR LOWER(COALESCE(di2.desc_ipress,'')) LIKE LOWER(CONCAT('%', CAST(:ipressAtencion AS VARCHAR), '%')))
-          AND (CAST(:tipoCita       AS VARCHAR) IS NULL OR UPPER(COALESCE(sb.tipo_cita,'VOLUNTARIA')) = UPPER(CAST(:tipoCita AS VARCHAR)))
-          AND (CAST(:busqueda    AS VARCHAR) IS NULL OR COALESCE(sb.paciente_dni,'') LIKE CONCAT('%', CAST(:busqueda AS VARCHAR), '%'))
-          AND (CAST(:fechaInicio AS VARCHAR) IS NULL OR DATE(sb.fecha_cambio_estado) >= CAST(:fechaInicio AS DATE))
-          AND (CAST(:fechaFin    AS VARCHAR) IS NULL OR DATE(sb.fecha_cambio_estado) <= CAST(:fechaFin AS DATE))
-          AND (:gestoraId IS NULL OR sb.responsable_gestora_id = :gestoraId)
-          AND (CAST(:estadoBolsa AS VARCHAR) IS NULL OR UPPER(COALESCE(sb.estado,'')) = UPPER(CAST(:estadoBolsa AS VARCHAR)))
-          AND (CAST(:categoriaEspecialidad AS VARCHAR) IS NULL
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'especialidades' AND LOWER(COALESCE(sb.especialidad,'')) NOT IN ('medicina general', 'enfermeria') AND sb.id_bolsa != 1)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'bolsa107'       AND sb.id_bolsa = 1)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'recita'         AND sb.id_bolsa = 15)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'interconsulta'  AND sb.id_bolsa = 16)
-               OR (CAST(:categoriaEspecialidad AS VARCHAR) = 'maraton'        AND sb.id_bolsa = 17))
-          AND (CAST(:estrategia AS VARCHAR) IS NULL
-               OR sb.paciente_dni IN (
-                   SELECT pe.pk_asegurado FROM paciente_estrategia pe
-                   JOIN dim_estrategia_institucional dei ON dei.id_estrategia = pe.id_estrategia
-                   WHERE dei.sigla = CAST(:estrategia AS VARCHAR) AND pe.estado = 'ACTIVO'
-               ))
-        """, nativeQuery = true)
-    List<Map<String, Object>> estadisticasKpiConFiltros(
-            @org.springframework.data.repository.query.Param("bolsaNombre")    String bolsaNombre,
-            @org.springframework.data.repository.query.Param("macrorregion")   String macrorregion,
-            @org.springframework.data.repository.query.Param("red")            String red,
-            @org.springframework.data.repository.query.Param("ipress")         String ipress,
-            @org.springframework.data.repository.query.Param("especialidad")   String especialidad,
-            @org.springframework.data.repository.query.Param("estadoCodigo")   String estadoCodigo,
-            @org.springframework.data.repository.query.Param("ipressAtencion") String ipressAtencion,
-            @org.springframework.data.repository.query.Param("tipoCita")       String tipoCita,
-            @org.springframework.data.repository.query.Param("asignacion")     String asignacion,
-            @org.springframework.data.repository.query.Param("busqueda")       String busqueda,
-            @org.springframework.data.repository.query.Param("fechaInicio")    String fechaInicio,
-            @org.springframework.data.repository.query.Param("fechaFin")       String fechaFin,
-            @org.springframework.data.repository.query.Param("gestoraId")      Long gestoraId,
-            @org.springframework.data.repository.query.Param("estadoBolsa")    String estadoBolsa,
-            @org.springframework.data.repository.query.Param("categoriaEspecialidad") String categoriaEspecialidad,
-            @org.springframework.data.repository.query.Param("estrategia")     String estrategia
-    );
+    // ✅ v2.6.0: KPI cards filtrados → SolicitudBolsaBandejaDao.conteoPorEstado
 
     /**
      * Estadísticas por condicion_medica para bolsa PADOMI (v1.73.1)
@@ -1271,6 +984,34 @@ public interface SolicitudBolsaRepository extends JpaRepository<SolicitudBolsa,
      */
     List<SolicitudBolsa> findByPacienteDni(String pacienteDni);
 
+    // ✅ v2.6.0: La búsqueda por nombre de paciente (sin tildes, por términos) está en BusquedaPacienteDao
+
+    /**
+     * v2.6.0: Conteo de todas las solicitudes por estado
+     * Retorna: [estado, total] ordenado de mayor a menor
+     */
+    @Query(value = """
+        SELECT COALESCE(estado, 'SIN ESTADO') AS estado, COUNT(*) AS total
+        FROM dim_solicitud_bolsa
+        GROUP BY 1
+        ORDER BY 2 DESC
+        """, nativeQuery = true)
+    List<Object[]> contarPorEstado();
+
+    /**
+     * v2.6.0: Conteo de solicitudes de una especialidad por estado
+     * Usa el índice idx_solicitud_bolsa_especialidad_estado (upper(especialidad), estado).
+     * Retorna: [estado, total] ordenado de mayor a menor
+     */
+    @Query(value = """
+        SELECT COALESCE(estado, 'SIN ESTADO') AS estado, COUNT(*) AS total
+        FROM dim_solicitud_bolsa
+        WHERE UPPER(especialidad) = UPPER(:especialidad)
+        GROUP BY 1
+        ORDER BY 2 DESC
+        """, nativeQuery = true)
+    List<Object[]> contarPorEstadoDeEspecialidad(@Param("especialidad") String especialidad);
+
     /**
      * v1.67.0: Obtener citas de un profesional en una fecha específica (solo activos)
      * Usado para calcular horas ocupadas al agendar citas.
@@ -1805,7 +1546,7 @@ public interface SolicitudBolsaRepository extends JpaRepository<SolicitudBolsa,
     /**
      * 🚀 v1.79.1: Lista TODOS los registros gestionados (estados != PENDIENTE_CITA y != NO_CONTESTA)
      * Optimizado para SolicitudesAtendidas: sin subconsultas correlacionadas, sin paginación.
-     * Mucho más rápido que findAllWithFiltersAndPagination con size=9999.
+     * Mucho más rápido que el listado paginado de la bandeja con size=9999.
      *
      * @return lista completa de registros gestionados
      */
@@ -1853,77 +1594,6 @@ public interface SolicitudBolsaRepository extends JpaRepository<SolicitudBolsa,
         """, nativeQuery = true)
     List<Object[]> findAllGestionadosList();
 
-    /**
-     * Asigna una gestora a múltiples solicitudes en una sola operación SQL
-     * Actualiza responsable_gestora_id y fecha_asignacion para todos los IDs dados
-     *
-     * @param ids       lista de IDs de solicitudes a actualizar
-     * @param idGestora ID del usuario gestora a asignar
-     * @param ahora     timestamp de asignación
-     * @return cantidad de registros actualizados
-     */
-    @Modifying
-    @Query("UPDATE SolicitudBolsa s SET s.responsableGestoraId = :idGestora, s.fechaAsignacion = :ahora WHERE s.idSolicitud IN :ids AND s.activo = true")
-    int asignarGestoraMasivo(
-        @org.springframework.data.repository.query.Param("ids") List<Long> ids,
-        @org.springframework.data.repository.query.Param("idGestora") Long idGestora,
-        @org.springframework.data.repository.query.Param("ahora") OffsetDateTime ahora
-    );
-
-    /**
-     * Cambia el estado de múltiples solicitudes en una sola operación (bulk)
-     * Reutilizable para cualquier cambio de estado masivo
-     *
-     * @param ids      lista de IDs de solicitudes a actualizar
-     * @param idEstado ID del nuevo estado de gestión de citas
-     * @return cantidad de registros actualizados
-     */
-    @Modifying
-    @Query("UPDATE SolicitudBolsa s SET s.estadoGestionCitasId = :idEstado, s.fechaCambioEstado = CURRENT_TIMESTAMP WHERE s.idSolicitud IN :ids AND s.activo = true")
-    int cambiarEstadoMasivo(
-        @org.springframework.data.repository.query.Param("ids") List<Long> ids,
-        @org.springframework.data.repository.query.Param("idEstado") Long idEstado
-    );
-
-    /**
-     * Cambia el estado masivo y guarda el motivo de anulación (v1.69.0)
-     */
-    @Modifying
-    @Query("UPDATE SolicitudBolsa s SET " +
-        "s.estadoGestionCitasId = :idEstado, " +
-        "s.fechaCambioEstado = CURRENT_TIMESTAMP, " +
-        "s.motivoAnulacion = :motivo, " +
-        "s.condicionMedica = 'Anulado', " +
-        "s.estado = 'Observado', " +
-        "s.usuarioCambioEstadoId = :idUsuario " +
-        "WHERE s.idSolicitud IN :ids AND s.activo = true")
-    int cambiarEstadoMasivoConMotivo(
-        @org.springframework.data.repository.query.Param("ids") List<Long> ids,
-        @org.springframework.data.repository.query.Param("idEstado") Long idEstado,
-        @org.springframework.data.repository.query.Param("motivo") String motivo,
-        @org.springframework.data.repository.query.Param("idUsuario") Long idUsuario
-    );
-
-    /**
-     * Devuelve solicitudes al estado PENDIENTE_CITA (ID=11) limpiando campos de cita médica (v1.81.5)
-     */
-    @Modifying
-    @Query("UPDATE SolicitudBolsa s SET " +
-        "s.estadoGestionCitasId = 11, " +
-        "s.estado = 'PENDIENTE', " +
-        "s.idPersonal = null, " +
-        "s.fechaAtencion = null, " +
-        "s.horaAtencion = null, " +
-        "s.condicionMedica = null, " +
-        "s.fechaAtencionMedica = null, " +
-        "s.motivoAnulacion = :motivo, " +
-        "s.fechaCambioEstado = CURRENT_TIMESTAMP " +
-        "WHERE s.idSolicitud IN :ids AND s.activo = true")
-    int devolverAPendientesMasivo(
-        @org.springframework.data.repository.query.Param("ids") List<Long> ids,
-        @org.springframework.data.repository.query.Param("motivo") String motivo
-    );
-
     /**
      * ✅ Trazabilidad de Recitas e Interconsultas para Coordinadora de Enfermería
      * Recupera recitas/interconsultas con datos del profesional que las generó.
@@ -2491,45 +2161,6 @@ public interface SolicitudBolsaRepository extends JpaRepository<SolicitudBolsa,
     """)
     List<SolicitudBolsa> findByIdPersonalWithAllFields(@org.springframework.data.repository.query.Param("idPersonal") Long idPersonal);
 
-    // =========================================================================
-    // 📅 REPROGRAMACIÓN MASIVA (v1.85.0)
-    // =========================================================================
-
-    /**
-     * Reprograma la fecha de atención de múltiples solicitudes SIN cambiar la gestora.
-     *
-     * Solo actualiza solicitudes activas (activo = true).
-     *
-     * @param ids        lista de IDs de solicitudes a actualizar
-     * @param fechaCita  nueva fecha de atención
-     * @return cantidad de registros actualizados
-     */
-    @Modifying
-    @Query("UPDATE SolicitudBolsa s SET s.fechaAtencion = :fechaCita WHERE s.idSolicitud IN :ids AND s.activo = true")
-    int reprogramarMasivoSinGestora(
-        @org.springframework.data.repository.query.Param("ids") List<Long> ids,
-        @org.springframework.data.repository.query.Param("fechaCita") java.time.LocalDate fechaCita
-    );
-
-    /**
-     * Reprograma la fecha de atención Y reasigna la gestora responsable en una
-     * sola operación masiva.
-     *
-     * Solo actualiza solicitudes activas (activo = true).
-     *
-     * @param ids        lista de IDs de solicitudes a actualizar
-     * @param fechaCita  nueva fecha de atención
-     * @param gestoraId  ID del usuario gestora a asignar
-     * @return cantidad de registros actualizados
-     */
-    @Modifying
-    @Query("UPDATE SolicitudBolsa s SET s.fechaAtencion = :fechaCita, s.responsableGestoraId = :gestoraId WHERE s.idSolicitud IN :ids AND s.activo = true")
-    int reprogramarMasivoConGestora(
-        @org.springframework.data.repository.query.Param("ids") List<Long> ids,
-        @org.springframework.data.repository.query.Param("fechaCita") java.time.LocalDate fechaCita,
-        @org.springframework.data.repository.query.Param("gestoraId") Long gestoraId
-    );
-
     // =========================================================================
     // 🏥 SGDT — MEDICINA ESPECIALIZADA — Estadísticas por médico (patrón enfermería)
     // Filtra por especialidades que NO son 'medicina general' ni 'enfermeria'
@@ -17,6 +17,11 @@ import org.springframework.stereotype.Component;
  * - Cambios de permisos sospechosos
  * - Logs manipulados (integridad)
  *
+ * ✅ v2.6.0: Las mismas reglas se evalúan en línea con cada evento en
+ * {@code AnomalyStreamDetector}; este análisis queda como respaldo.
+ * Apagado por defecto (nunca se había ejecutado); se enciende con
+ * cenate.jobs.anomalias/integridad-logs/reporte-alertas.cron (ver SchedulingConfig).
+ *
  * @author Ing. Styp Canto Rondón
  * @version 1.0.0
  * @since 2025-12-29
@@ -34,7 +39,7 @@ public class AnomalyDetectionJob {
      * Analiza actividad reciente para detectar patrones sospechosos
      * y generar alertas automáticas
      */
-    @Scheduled(fixedRate = 1800000) // Cada 30 minutos (1800000 ms)
+    @Scheduled(cron = "${cenate.jobs.anomalias.cron:-}") // v2.6.0: apagado por defecto
     public void ejecutarAnalisisDeAnomalias() {
         log.info("🔍 [ANOMALY-DETECTION] Iniciando análisis automático de anomalías...");
 
@@ -57,8 +62,10 @@ public class AnomalyDetectionJob {
      *
      * Detecta logs manipulados comparando hashes almacenados vs calculados
      * Genera alertas CRITICAL si encuentra discrepancias
+     * ✅ v2.6.0: Solo sella los registros nuevos por bloques (audit_log_checkpoints)
+     * y recalcula una muestra de bloques ya sellados
      */
-    @Scheduled(cron = "0 0 */4 * * ?") // Cada 4 horas
+    @Scheduled(cron = "${cenate.jobs.integridad-logs.cron:-}") // v2.6.0: apagado por defecto
     public void verificarIntegridadLogs() {
         log.info("🔐 [INTEGRITY-CHECK] Iniciando verificación de integridad de logs...");
 
@@ -82,7 +89,7 @@ public class AnomalyDetectionJob {
      *
      * Genera un resumen ejecutivo de alertas detectadas en las últimas 24 horas
      */
-    @Scheduled(cron = "0 0 8 * * ?") // Diariamente a las 8:00 AM
+    @Scheduled(cron = "${cenate.jobs.reporte-alertas.cron:-}") // v2.6.0: apagado por defecto
     public void generarReporteDiarioAlertas() {
         log.info("📊 [DAILY-REPORT] Generando reporte diario de alertas de seguridad...");
 
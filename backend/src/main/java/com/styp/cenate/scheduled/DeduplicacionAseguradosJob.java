@@ -0,0 +1,33 @@
+package com.styp.cenate.scheduled;
+
+import com.styp.cenate.service.asegurados.DeduplicacionAseguradosService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Job nocturno de detección de duplicados de asegurados.
+ *
+ * Revisa solo los asegurados cuyo DNI, nombre, fecha de nacimiento o vigencia cambiaron
+ * desde la última ejecución completada (la primera revisa todos).
+ *
+ * Configuración:
+ * - cenate.asegurados.dedupe.cron (por defecto 0 0 3 * * ?)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeduplicacionAseguradosJob {
+
+    private final DeduplicacionAseguradosService deduplicacionService;
+
+    @Scheduled(cron = "${cenate.asegurados.dedupe.cron:0 0 3 * * ?}")
+    public void detectarDuplicados() {
+        try {
+            deduplicacionService.ejecutar(false);
+        } catch (Exception e) {
+            log.error("❌ Error en la detección de duplicados de asegurados: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.styp.cenate.scheduled;
+
+import com.styp.cenate.config.CacheConfig;
+import com.styp.cenate.service.bolsas.SolicitudBolsaEstadisticasService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job de refresco anticipado de los cachés estadisticas-* de bolsas.
+ *
+ * Antes de que venza el TTL recalcula solo los cachés que se leyeron desde
+ * la ejecución anterior (según los hits de Caffeine), para que el dashboard
+ * no pague la consulta completa al expirar. Los cachés sin lecturas se dejan
+ * expirar.
+ *
+ * Intervalo: cenate.cache.estadisticas.refresh-segundos (por defecto 240s,
+ * menor que el TTL de 300s).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EstadisticasCacheRefreshJob {
+
+    private final CacheManager cacheManager;
+    private final SolicitudBolsaEstadisticasService estadisticasService;
+
+    /** Hits acumulados por caché en la ejecución anterior */
+    private final Map<String, Long> hitsPrevios = new ConcurrentHashMap<>();
+
+    @Scheduled(
+            fixedDelayString = "${cenate.cache.estadisticas.refresh-segundos:240}",
+            initialDelayString = "${cenate.cache.estadisticas.refresh-segundos:240}",
+            timeUnit = TimeUnit.SECONDS)
+    public void refrescarEstadisticasLeidas() {
+        for (String nombre : CacheConfig.CACHES_ESTADISTICAS_BOLSAS) {
+            try {
+                Cache cache = cacheManager.getCache(nombre);
+                if (cache == null) {
+                    continue;
+                }
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativo = nativo(cache);
+                if (nativo == null) {
+                    continue;
+                }
+                long hits = nativo.stats().hitCount();
+                Long previos = hitsPrevios.put(nombre, hits);
+                if (previos == null || hits <= previos || nativo.estimatedSize() == 0) {
+                    continue;
+                }
+                nativo.invalidateAll();
+                recalcular(nombre);
+                log.debug("♻️ [CACHE] '{}' refrescado ({} lecturas desde la última pasada)", nombre, hits - previos);
+            } catch (Exception e) {
+                log.warn("⚠️ [CACHE] Error refrescando '{}': {}", nombre, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Llama al método cacheado a través del proxy para repoblar la entrada.
+     */
+    private void recalcular(String nombre) {
+        switch (nombre) {
+            case CacheConfig.ESTADISTICAS_GENERALES -> estadisticasService.obtenerEstadisticasGenerales();
+            case CacheConfig.ESTADISTICAS_POR_ESTADO -> estadisticasService.obtenerEstadisticasPorEstado();
+            case CacheConfig.ESTADISTICAS_POR_IPRESS -> estadisticasService.obtenerEstadisticasPorIpress();
+            case CacheConfig.ESTADISTICAS_POR_IPRESS_ATENCION -> estadisticasService.obtenerEstadisticasPorIpressAtencion();
+            case CacheConfig.ESTADISTICAS_POR_TIPO_CITA -> estadisticasService.obtenerEstadisticasPorTipoCita();
+            default -> { }
+        }
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativo(Cache cache) {
+        Cache destino = cache instanceof TransactionAwareCacheDecorator decorador
+                ? decorador.getTargetCache()
+                : cache;
+        return destino instanceof CaffeineCache caffeineCache ? caffeineCache.getNativeCache() : null;
+    }
+}
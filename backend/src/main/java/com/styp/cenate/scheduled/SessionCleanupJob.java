@@ -11,6 +11,9 @@ import org.springframework.stereotype.Component;
  *
  * Ejecuta cada 15 minutos para cerrar sesiones sin actividad por más de 30 minutos
  *
+ * ✅ v2.6.0: Apagado por defecto (nunca se había ejecutado); se enciende con
+ * cenate.jobs.sesiones-*.cron (ver SchedulingConfig)
+ *
  * @author Styp Canto Rondón
  * @version 1.0.0
  * @since 2025-12-29
@@ -25,10 +28,9 @@ public class SessionCleanupJob {
     /**
      * Limpia sesiones inactivas cada 15 minutos
      *
-     * Cron: Ejecutar cada 15 minutos
-     * fixedRate: 900000 ms = 15 minutos
+     * Cron sugerido: "0 */15 * * * ?" = Cada 15 minutos
      */
-    @Scheduled(fixedRate = 900000) // Cada 15 minutos
+    @Scheduled(cron = "${cenate.jobs.sesiones-inactivas.cron:-}") // v2.6.0: apagado por defecto
     public void limpiarSesionesInactivas() {
         log.debug("🧹 Iniciando limpieza de sesiones inactivas...");
 
@@ -53,7 +55,7 @@ public class SessionCleanupJob {
      *
      * Cron: "0 0 2 * * ?" = Cada día a las 2:00 AM
      */
-    @Scheduled(cron = "0 0 2 * * ?")
+    @Scheduled(cron = "${cenate.jobs.sesiones-antiguas.cron:-}") // v2.6.0: apagado por defecto
     public void limpiarSesionesAntiguas() {
         log.info("🧹 [CLEANUP] Iniciando limpieza de sesiones antiguas cerradas...");
 
@@ -74,7 +76,7 @@ public class SessionCleanupJob {
      *
      * Cron: "0 0 * * * ?" = Cada hora en punto
      */
-    @Scheduled(cron = "0 0 * * * ?")
+    @Scheduled(cron = "${cenate.jobs.sesiones-reporte.cron:-}") // v2.6.0: apagado por defecto
     public void reportarEstadisticasSesiones() {
         log.debug("📊 Generando reporte de sesiones...");
 
@@ -0,0 +1,42 @@
+package com.styp.cenate.scheduled;
+
+import com.styp.cenate.service.teleekgs.TeleECGResumenDiarioService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Job de reconciliación del resumen diario TeleECG.
+ *
+ * Reconstruye desde tele_ecg_imagenes los últimos días del resumen, que son los que
+ * todavía cambian (evaluaciones, observaciones, archivado a los 30 días). Corre
+ * después de la limpieza de imágenes vencidas de las 2:00.
+ *
+ * Configuración:
+ * - cenate.teleecg.resumen.cron (por defecto 0 30 2 * * ?)
+ * - cenate.teleecg.resumen.dias-reconciliacion (por defecto 35)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TeleECGResumenDiarioJob {
+
+    private final TeleECGResumenDiarioService resumenDiarioService;
+
+    @Value("${cenate.teleecg.resumen.dias-reconciliacion:35}")
+    private int diasReconciliacion;
+
+    @Scheduled(cron = "${cenate.teleecg.resumen.cron:0 30 2 * * ?}")
+    public void reconciliar() {
+        LocalDate hoy = LocalDate.now();
+        try {
+            resumenDiarioService.reconstruir(hoy.minusDays(diasReconciliacion), hoy);
+        } catch (Exception e) {
+            log.error("❌ Error reconciliando resumen diario TeleECG: {}", e.getMessage(), e);
+        }
+    }
+}
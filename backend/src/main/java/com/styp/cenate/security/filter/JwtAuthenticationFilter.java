@@ -1,7 +1,7 @@
 package com.styp.cenate.security.filter;
 
 import com.styp.cenate.security.service.JwtUtil;
-import com.styp.cenate.security.service.UserDetailsServiceImpl;
+import com.styp.cenate.security.service.PrincipalCacheService;
 import com.styp.cenate.service.security.TokenBlacklistService;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
@@ -33,14 +33,14 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final PrincipalCacheService principalCacheService;
     private final TokenBlacklistService tokenBlacklistService;
 
     public JwtAuthenticationFilter(JwtUtil jwtUtil,
-                                   UserDetailsServiceImpl userDetailsService,
+                                   PrincipalCacheService principalCacheService,
                                    TokenBlacklistService tokenBlacklistService) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalCacheService = principalCacheService;
         this.tokenBlacklistService = tokenBlacklistService;
     }
 
@@ -71,7 +71,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             final String username = jwtUtil.extractUsername(token);
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // Principal cacheado por usuario (TTL corto, invalidado en cambios de roles/estado)
+                UserDetails userDetails = principalCacheService.obtener(username);
 
                 if (jwtUtil.validateToken(token, userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken authToken =
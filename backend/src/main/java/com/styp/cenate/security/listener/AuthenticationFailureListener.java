@@ -1,6 +1,7 @@
 package com.styp.cenate.security.listener;
 
 import com.styp.cenate.repository.UsuarioRepository;
+import com.styp.cenate.security.service.PrincipalCacheService;
 import com.styp.cenate.service.auditlog.AuditLogService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +23,7 @@ public class AuthenticationFailureListener
 
     private final UsuarioRepository usuarioRepository;
     private final AuditLogService auditLogService;
+    private final PrincipalCacheService principalCacheService;
 
     @Override
     @Transactional
@@ -32,6 +34,7 @@ public class AuthenticationFailureListener
         usuarioRepository.findByNameUser(username).ifPresent(usuario -> {
             usuario.increaseFailedAttempts();
             usuarioRepository.save(usuario);
+            principalCacheService.invalidar(username);
 
             // Preparar detalle para auditoria
             String detalle = String.format("Intento fallido #%d para usuario %s",
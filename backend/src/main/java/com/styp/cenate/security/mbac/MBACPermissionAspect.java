@@ -1,9 +1,7 @@
 package com.styp.cenate.security.mbac;
 import lombok.Data;
 
-import com.styp.cenate.model.Usuario;
-import com.styp.cenate.repository.UsuarioRepository;
-import com.styp.cenate.service.mbac.PermisosService;
+import com.styp.cenate.service.mbac.MatrizPermisosService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -16,7 +14,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
-import java.util.Optional;
 
 /**
  * 🧩 Aspecto de seguridad MBAC para verificar permisos dinámicamente.
@@ -25,7 +22,8 @@ import java.util.Optional;
  * y valida si el usuario autenticado tiene acceso al recurso
  * (página, acción o módulo) solicitado.
  *
- * 🔒 Integración: vista PostgreSQL `vw_permisos_activos`
+ * 🔒 Integración: vista PostgreSQL `vw_permisos_activos`, resuelta en memoria
+ *    mediante la matriz precompilada de {@link MatrizPermisosService}.
  * 🧠 Paquete: com.styp.cenate.security.mbac
  * 📦 Versión: 1.2 — CENATE MBAC 2025
  */
@@ -36,8 +34,7 @@ import java.util.Optional;
 @Data
 public class MBACPermissionAspect {
 
-    private final PermisosService permisosService;
-    private final UsuarioRepository usuarioRepository;
+    private final MatrizPermisosService matrizPermisosService;
 
     /**
      * Intercepta cualquier método anotado con @CheckMBACPermission
@@ -69,16 +66,6 @@ public class MBACPermissionAspect {
 
         log.debug("🔍 Verificando permiso MBAC → Usuario: {}, Página: {}, Acción: {}", username, pagina, accion);
 
-        // Buscar usuario en BD
-        Optional<Usuario> usuarioOpt = usuarioRepository.findByNameUser(username);
-        if (usuarioOpt.isEmpty()) {
-            log.error("❌ Usuario no encontrado en la base de datos: {}", username);
-            throw new AccessDeniedException("Usuario no encontrado");
-        }
-
-        Usuario usuario = usuarioOpt.get();
-        Long userId = usuario.getIdUser();
-
         // 🔑 SUPERADMIN y ADMIN tienen acceso total (bypass MBAC)
         boolean esSuperAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_SUPERADMIN") ||
@@ -89,8 +76,14 @@ public class MBACPermissionAspect {
             return joinPoint.proceed();
         }
 
-        // Verificar permiso activo para usuarios normales
-        boolean tienePermiso = permisosService.validarPermiso(userId, pagina, accion);
+        // Verificar permiso activo para usuarios normales (matriz en caché)
+        MatrizPermisos matriz = matrizPermisosService.obtenerPorUsername(username);
+        if (matriz == null) {
+            log.error("❌ Usuario no encontrado en la base de datos: {}", username);
+            throw new AccessDeniedException("Usuario no encontrado");
+        }
+
+        boolean tienePermiso = matriz.permite(pagina, accion);
 
         if (!tienePermiso) {
             log.warn("🚫 Acceso denegado → Usuario: {}, Página: {}, Acción: {}", username, pagina, accion);
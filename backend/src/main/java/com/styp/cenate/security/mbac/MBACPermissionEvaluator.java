@@ -1,7 +1,7 @@
 package com.styp.cenate.security.mbac;
 import lombok.Data;
 
-import com.styp.cenate.service.mbac.PermisosService;
+import com.styp.cenate.service.mbac.MatrizPermisosService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.PermissionEvaluator;
@@ -21,7 +21,7 @@ import java.io.Serializable;
 @Data
 public class MBACPermissionEvaluator implements PermissionEvaluator {
 
-    private final PermisosService permisosService;
+    private final MatrizPermisosService matrizPermisosService;
 
     @Override
     public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
@@ -34,13 +34,13 @@ public class MBACPermissionEvaluator implements PermissionEvaluator {
             String rutaPagina = (targetDomainObject != null) ? targetDomainObject.toString() : null;
             String accion = (permission != null) ? permission.toString() : null;
 
-            Long userId = permisosService.obtenerUserIdPorUsername(username);
-            if (userId == null || rutaPagina == null || accion == null) {
-                log.warn("⚠️ Parámetros inválidos para evaluación MBAC: userId={}, ruta={}, acción={}", userId, rutaPagina, accion);
+            MatrizPermisos matriz = matrizPermisosService.obtenerPorUsername(username);
+            if (matriz == null || rutaPagina == null || accion == null) {
+                log.warn("⚠️ Parámetros inválidos para evaluación MBAC: usuario={}, ruta={}, acción={}", username, rutaPagina, accion);
                 return false;
             }
 
-            boolean tienePermiso = permisosService.validarPermiso(userId, rutaPagina, accion);
+            boolean tienePermiso = matriz.permite(rutaPagina, accion);
 
             log.debug("🔐 Evaluando permiso [{}] para [{}] en [{}]: {}", accion, username, rutaPagina, tienePermiso);
             return tienePermiso;
@@ -0,0 +1,136 @@
+package com.styp.cenate.security.mbac;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 🧮 Matriz de permisos MBAC precompilada de un usuario.
+ * -----------------------------------------------------------------
+ * Ruta de página (normalizada a minúsculas) → bitset de acciones.
+ * Combina los permisos por rol (vista {@code vw_permisos_usuario_activos})
+ * y los permisos directos ({@code segu_permisos_usuario_pagina}) con OR,
+ * igual que {@code PermisosService.tienePermiso}.
+ *
+ * Es inmutable: se reconstruye completa al invalidarse.
+ */
+public final class MatrizPermisos {
+
+    public static final int VER = 1;
+    public static final int CREAR = 1 << 1;
+    public static final int EDITAR = 1 << 2;
+    public static final int ELIMINAR = 1 << 3;
+    public static final int EXPORTAR = 1 << 4;
+    public static final int APROBAR = 1 << 5;
+
+    private final Long idUser;
+    private final String username;
+    private final Map<String, Integer> accionesPorRuta;
+
+    private MatrizPermisos(Long idUser, String username, Map<String, Integer> accionesPorRuta) {
+        this.idUser = idUser;
+        this.username = username;
+        this.accionesPorRuta = accionesPorRuta;
+    }
+
+    public Long getIdUser() {
+        return idUser;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Verifica si la matriz concede la acción sobre la ruta.
+     * Acepta los mismos alias que {@code PermisosServiceImpl.tienePermiso}
+     * ("actualizar" y "asignar" equivalen a "editar").
+     */
+    public boolean permite(String rutaPagina, String accion) {
+        if (rutaPagina == null || accion == null) {
+            return false;
+        }
+        int bit = bitDeAccion(accion);
+        if (bit == 0) {
+            return false;
+        }
+        Integer bits = accionesPorRuta.get(rutaPagina.toLowerCase(Locale.ROOT));
+        return bits != null && (bits & bit) != 0;
+    }
+
+    /**
+     * Representación para el frontend: ruta → acciones permitidas.
+     */
+    public Map<String, Set<String>> comoMapa() {
+        Map<String, Set<String>> resultado = new LinkedHashMap<>();
+        accionesPorRuta.forEach((ruta, bits) -> {
+            Set<String> acciones = new LinkedHashSet<>();
+            if ((bits & VER) != 0) acciones.add("ver");
+            if ((bits & CREAR) != 0) acciones.add("crear");
+            if ((bits & EDITAR) != 0) acciones.add("editar");
+            if ((bits & ELIMINAR) != 0) acciones.add("eliminar");
+            if ((bits & EXPORTAR) != 0) acciones.add("exportar");
+            if ((bits & APROBAR) != 0) acciones.add("aprobar");
+            resultado.put(ruta, acciones);
+        });
+        return resultado;
+    }
+
+    public int totalRutas() {
+        return accionesPorRuta.size();
+    }
+
+    public static int bitDeAccion(String accion) {
+        return switch (accion.toLowerCase(Locale.ROOT)) {
+            case "ver" -> VER;
+            case "crear" -> CREAR;
+            case "editar", "actualizar", "asignar" -> EDITAR;
+            case "eliminar" -> ELIMINAR;
+            case "exportar" -> EXPORTAR;
+            case "aprobar" -> APROBAR;
+            default -> 0;
+        };
+    }
+
+    public static Builder builder(Long idUser, String username) {
+        return new Builder(idUser, username);
+    }
+
+    /**
+     * Acumula permisos con OR por ruta.
+     */
+    public static final class Builder {
+        private final Long idUser;
+        private final String username;
+        private final Map<String, Integer> accionesPorRuta = new HashMap<>();
+
+        private Builder(Long idUser, String username) {
+            this.idUser = idUser;
+            this.username = username;
+        }
+
+        public Builder agregar(String rutaPagina, Boolean ver, Boolean crear, Boolean editar,
+                               Boolean eliminar, Boolean exportar, Boolean aprobar) {
+            if (rutaPagina == null) {
+                return this;
+            }
+            int bits = 0;
+            if (Boolean.TRUE.equals(ver)) bits |= VER;
+            if (Boolean.TRUE.equals(crear)) bits |= CREAR;
+            if (Boolean.TRUE.equals(editar)) bits |= EDITAR;
+            if (Boolean.TRUE.equals(eliminar)) bits |= ELIMINAR;
+            if (Boolean.TRUE.equals(exportar)) bits |= EXPORTAR;
+            if (Boolean.TRUE.equals(aprobar)) bits |= APROBAR;
+            accionesPorRuta.merge(rutaPagina.toLowerCase(Locale.ROOT), bits, (a, b) -> a | b);
+            return this;
+        }
+
+        public MatrizPermisos build() {
+            return new MatrizPermisos(idUser, username, Collections.unmodifiableMap(new HashMap<>(accionesPorRuta)));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.styp.cenate.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 🔐 Caché de corta duración del principal autenticado por JWT.
+ *
+ * Evita que {@code JwtAuthenticationFilter} ejecute
+ * {@link UserDetailsServiceImpl#loadUserByUsername} (usuario + roles) en cada request.
+ * Solo se cachean usuarios activos y no bloqueados; cualquier cambio de roles,
+ * estado, bloqueo o contraseña debe llamar a {@link #invalidar(String)}.
+ *
+ * El login NO usa esta caché: {@code DaoAuthenticationProvider} sigue leyendo de BD.
+ *
+ * Métricas: {@code cache.gets{cache="principal-jwt",result=hit|miss}} en /actuator/prometheus.
+ */
+@Slf4j
+@Service
+public class PrincipalCacheService {
+
+    private static final String NOMBRE_CACHE = "principal-jwt";
+
+    private final UserDetailsServiceImpl userDetailsService;
+    private final Cache<String, UserDetails> cache;
+
+    public PrincipalCacheService(UserDetailsServiceImpl userDetailsService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${cenate.security.principal-cache.ttl-segundos:60}") long ttlSegundos,
+                                 @Value("${cenate.security.principal-cache.max-usuarios:5000}") long maxUsuarios) {
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .maximumSize(maxUsuarios)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NOMBRE_CACHE);
+    }
+
+    /**
+     * Obtiene el principal desde caché o lo carga desde BD.
+     * Las excepciones de usuario bloqueado/inactivo/no encontrado se propagan
+     * y no se cachean.
+     */
+    public UserDetails obtener(String username) {
+        return cache.get(username, userDetailsService::loadUserByUsername);
+    }
+
+    /**
+     * Invalida el principal de un usuario. Si hay una transacción activa,
+     * se invalida de nuevo tras el commit para que ningún request vuelva a
+     * cachear el estado anterior mientras la transacción sigue abierta.
+     */
+    public void invalidar(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        }
+        log.debug("Principal invalidado en caché: {}", username);
+    }
+
+    /**
+     * Vacía la caché completa (p. ej. cambios masivos de roles).
+     */
+    public void invalidarTodo() {
+        cache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll();
+                }
+            });
+        }
+    }
+}
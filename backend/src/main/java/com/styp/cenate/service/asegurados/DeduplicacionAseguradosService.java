@@ -0,0 +1,302 @@
+package com.styp.cenate.service.asegurados;
+
+import com.styp.cenate.repository.AseguradoDedupeDao;
+import com.styp.cenate.repository.AseguradoDedupeDao.AseguradoCambiado;
+import com.styp.cenate.repository.AseguradoDedupeDao.Par;
+import com.styp.cenate.repository.AseguradoDedupeDao.TipoBloque;
+import com.styp.cenate.util.ComparadorAsegurados;
+import com.styp.cenate.util.ComparadorAsegurados.Registro;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 👥 Detección de duplicados de asegurados por bloques (v2.6.0)
+ *
+ * Comparar todos contra todos es imposible con millones de asegurados; cada asegurado
+ * solo se compara con los de sus bloques (ver {@link ComparadorAsegurados}): mismo DNI
+ * normalizado, misma clave fonética de apellidos o misma fecha de nacimiento + inicial.
+ *
+ * Cada ejecución:
+ * 1. Lee en lotes (keyset por fecha_cambio_identidad, pk_asegurado) solo los asegurados cambiados
+ *    desde la última ejecución completada (todos en la primera o si se pide completa).
+ * 2. Recalcula sus claves de bloque; los no vigentes salen de los bloques y de los pares pendientes.
+ * 3. Compara cada asegurado del lote con los miembros de sus bloques, en paralelo por bloque
+ *    (pool dedupeAseguradosExecutor, {@code cenate.asegurados.dedupe.hilos}) y con un tope de
+ *    miembros por bloque. Un bloque que supera el tope se divide por una segunda clave
+ *    ({@link AseguradoDedupeDao#segundaClave}: año de nacimiento en el fonético, clave fonética en
+ *    los demás); si un sub-bloque aún lo supera se compara con sus primeros miembros y queda
+ *    registrado en asegurados_dedupe_ejecuciones (bloques_truncados).
+ * 4. Guarda los pares con puntaje ≥ umbral al terminar cada lote (memoria acotada por lote).
+ *
+ * La marca de agua se retrocede {@code margen-minutos} para no perder cambios de transacciones
+ * que se confirmaron después de iniciada la ejecución anterior (re-procesarlos es idempotente).
+ */
+@Service
+@Slf4j
+public class DeduplicacionAseguradosService {
+
+    /** Fecha de corte para revisar todos los asegurados */
+    private static final LocalDateTime REVISION_COMPLETA = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    /** Claves de bloques truncados guardadas en detalle_bloques_truncados */
+    private static final int MAX_DETALLE_TRUNCADOS = 50;
+
+    private final AseguradoDedupeDao dedupeDao;
+    private final ThreadPoolTaskExecutor executor;
+    private final int tamanoLote;
+    private final int topeBloque;
+    private final double umbral;
+    private final Duration margen;
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+
+    public DeduplicacionAseguradosService(AseguradoDedupeDao dedupeDao,
+                                          @Qualifier("dedupeAseguradosExecutor") ThreadPoolTaskExecutor executor,
+                                          @Value("${cenate.asegurados.dedupe.tamano-lote:2000}") int tamanoLote,
+                                          @Value("${cenate.asegurados.dedupe.tope-bloque:500}") int topeBloque,
+                                          @Value("${cenate.asegurados.dedupe.umbral:0.72}") double umbral,
+                                          @Value("${cenate.asegurados.dedupe.margen-minutos:30}") long margenMinutos) {
+        this.dedupeDao = dedupeDao;
+        this.executor = executor;
+        this.tamanoLote = tamanoLote;
+        this.topeBloque = topeBloque;
+        this.umbral = umbral;
+        this.margen = Duration.ofMinutes(margenMinutos);
+    }
+
+    public record ResultadoDeduplicacion(
+            long idEjecucion,
+            LocalDateTime revisarDesde,
+            int registrosRevisados,
+            int bloquesRevisados,
+            int paresEscritos,
+            int bloquesTruncados,
+            long duracionMs) {
+    }
+
+    private record Bloque(TipoBloque tipo, String clave) {
+    }
+
+    public boolean enEjecucion() {
+        return enEjecucion.get();
+    }
+
+    /**
+     * Lanza la detección en segundo plano (para el endpoint manual)
+     */
+    @Async
+    public void ejecutarEnSegundoPlano(boolean completa) {
+        try {
+            ejecutar(completa);
+        } catch (Exception e) {
+            log.error("❌ Error en la detección de duplicados de asegurados: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ejecuta la detección: incremental desde la última ejecución completada, o completa
+     * @throws IllegalStateException si ya hay una ejecución en curso
+     */
+    public ResultadoDeduplicacion ejecutar(boolean completa) {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una detección de duplicados en curso");
+        }
+        long inicioMs = System.currentTimeMillis();
+        LocalDateTime inicio = LocalDateTime.now();
+        LocalDateTime revisarDesde = completa ? null
+                : dedupeDao.ultimaEjecucionCompletada().map(f -> f.minus(margen)).orElse(null);
+        long idEjecucion = dedupeDao.iniciarEjecucion(inicio, revisarDesde);
+        log.info("👥 Detección de duplicados #{} iniciada (desde: {})", idEjecucion,
+                revisarDesde != null ? revisarDesde : "revisión completa");
+
+        int registros = 0;
+        int bloques = 0;
+        int pares = 0;
+        // Sub-bloques truncados en la ejecución (se advierte una sola vez por sub-bloque)
+        Set<String> truncados = ConcurrentHashMap.newKeySet();
+        try {
+            LocalDateTime fechaCursor = revisarDesde != null ? revisarDesde : REVISION_COMPLETA;
+            String pkCursor = "";
+            List<AseguradoCambiado> lote;
+            do {
+                lote = dedupeDao.cambiados(fechaCursor, pkCursor, tamanoLote);
+                if (lote.isEmpty()) {
+                    break;
+                }
+                int[] resultadoLote = procesarLote(lote, truncados);
+                registros += lote.size();
+                bloques += resultadoLote[0];
+                pares += resultadoLote[1];
+                AseguradoCambiado ultimo = lote.get(lote.size() - 1);
+                fechaCursor = ultimo.fechaCambio();
+                pkCursor = ultimo.pkAsegurado();
+                log.info("   👥 {} asegurados revisados, {} pares escritos", registros, pares);
+            } while (lote.size() == tamanoLote);
+
+            dedupeDao.finalizarEjecucion(idEjecucion, "COMPLETADA", registros, bloques, pares,
+                    truncados.size(), detalleTruncados(truncados), null);
+            ResultadoDeduplicacion resultado = new ResultadoDeduplicacion(idEjecucion, revisarDesde,
+                    registros, bloques, pares, truncados.size(), System.currentTimeMillis() - inicioMs);
+            log.info("✅ Detección de duplicados #{} completada: {} asegurados, {} bloques ({} truncados), {} pares en {} ms",
+                    idEjecucion, registros, bloques, truncados.size(), pares, resultado.duracionMs());
+            return resultado;
+        } catch (RuntimeException e) {
+            dedupeDao.finalizarEjecucion(idEjecucion, "FALLIDA", registros, bloques, pares,
+                    truncados.size(), detalleTruncados(truncados), e.getMessage());
+            throw e;
+        } finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    public List<Map<String, Object>> ultimasEjecuciones(int limite) {
+        return dedupeDao.ultimasEjecuciones(limite);
+    }
+
+    /** Primeras MAX_DETALLE_TRUNCADOS claves de sub-bloques truncados, ordenadas (null si no hubo) */
+    private static String detalleTruncados(Set<String> truncados) {
+        if (truncados.isEmpty()) {
+            return null;
+        }
+        return String.join(", ", new TreeSet<>(truncados).stream().limit(MAX_DETALLE_TRUNCADOS).toList());
+    }
+
+    /**
+     * Claves, comparación por bloque y escritura de los pares de un lote
+     * @return [bloques revisados, pares escritos]
+     */
+    private int[] procesarLote(List<AseguradoCambiado> lote, Set<String> truncados) {
+        List<Registro> vigentes = new ArrayList<>();
+        List<String> noVigentes = new ArrayList<>();
+        for (AseguradoCambiado a : lote) {
+            if (a.vigente()) {
+                vigentes.add(ComparadorAsegurados.registro(a.pkAsegurado(), a.docPaciente(), a.paciente(),
+                        a.fecNacimiento()));
+            } else {
+                noVigentes.add(a.pkAsegurado());
+            }
+        }
+        if (!noVigentes.isEmpty()) {
+            dedupeDao.quitarNoVigentes(noVigentes);
+        }
+        if (vigentes.isEmpty()) {
+            return new int[] {0, 0};
+        }
+        // Las claves del lote se guardan antes de comparar: así se detectan también los pares
+        // entre asegurados del mismo lote
+        dedupeDao.guardarClaves(vigentes);
+
+        Map<Bloque, List<Registro>> porBloque = new LinkedHashMap<>();
+        for (Registro r : vigentes) {
+            agregar(porBloque, TipoBloque.DNI, r.dni(), r);
+            agregar(porBloque, TipoBloque.FONETICA, r.claveFonetica(), r);
+            agregar(porBloque, TipoBloque.NACIMIENTO, r.claveNacimiento(), r);
+        }
+
+        List<Callable<List<Par>>> tareas = new ArrayList<>();
+        porBloque.forEach((bloque, registros) -> tareas.add(() -> compararBloque(bloque, registros, truncados)));
+
+        Map<String, Par> paresLote = new LinkedHashMap<>();
+        try {
+            for (Future<List<Par>> futuro : executor.getThreadPoolExecutor().invokeAll(tareas)) {
+                for (Par par : futuro.get()) {
+                    paresLote.merge(par.pkAseguradoA() + "|" + par.pkAseguradoB(), par,
+                            DeduplicacionAseguradosService::unir);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Detección de duplicados interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error comparando un bloque de asegurados: "
+                    + e.getCause().getMessage(), e.getCause());
+        }
+
+        int escritos = paresLote.isEmpty() ? 0 : dedupeDao.guardarPares(new ArrayList<>(paresLote.values()));
+        return new int[] {porBloque.size(), escritos};
+    }
+
+    private static void agregar(Map<Bloque, List<Registro>> porBloque, TipoBloque tipo, String clave, Registro r) {
+        if (clave != null) {
+            porBloque.computeIfAbsent(new Bloque(tipo, clave), b -> new ArrayList<>()).add(r);
+        }
+    }
+
+    /**
+     * Compara los asegurados cambiados del bloque con sus miembros. Si el bloque supera topeBloque,
+     * cada cambiado se compara solo con su sub-bloque (misma segunda clave)
+     */
+    private List<Par> compararBloque(Bloque bloque, List<Registro> cambiados, Set<String> truncados) {
+        List<Registro> miembros = dedupeDao.miembrosBloque(bloque.tipo(), bloque.clave(), null, topeBloque + 1);
+        if (miembros.size() <= topeBloque) {
+            return comparar(bloque, cambiados, miembros);
+        }
+
+        Map<String, List<Registro>> porSegundaClave = new LinkedHashMap<>();
+        for (Registro r : cambiados) {
+            porSegundaClave.computeIfAbsent(AseguradoDedupeDao.segundaClave(bloque.tipo(), r),
+                    k -> new ArrayList<>()).add(r);
+        }
+        List<Par> pares = new ArrayList<>();
+        porSegundaClave.forEach((segundaClave, grupo) -> {
+            List<Registro> subBloque = dedupeDao.miembrosBloque(bloque.tipo(), bloque.clave(), grupo.get(0),
+                    topeBloque + 1);
+            if (subBloque.size() > topeBloque) {
+                if (truncados.add(bloque.tipo() + ":" + bloque.clave() + "/" + segundaClave)) {
+                    log.warn("⚠️ Bloque {} '{}' / '{}' supera {} asegurados aun dividido; se compara solo con los primeros",
+                            bloque.tipo(), bloque.clave(), segundaClave, topeBloque);
+                }
+                subBloque = subBloque.subList(0, topeBloque);
+            }
+            pares.addAll(comparar(bloque, grupo, subBloque));
+        });
+        return pares;
+    }
+
+    private List<Par> comparar(Bloque bloque, List<Registro> cambiados, List<Registro> miembros) {
+        List<Par> pares = new ArrayList<>();
+        for (Registro r : cambiados) {
+            for (Registro m : miembros) {
+                if (r.pkAsegurado().equals(m.pkAsegurado())) {
+                    continue;
+                }
+                double puntaje = ComparadorAsegurados.puntaje(r, m);
+                if (puntaje >= umbral) {
+                    boolean ordenado = r.pkAsegurado().compareTo(m.pkAsegurado()) < 0;
+                    pares.add(new Par(
+                            ordenado ? r.pkAsegurado() : m.pkAsegurado(),
+                            ordenado ? m.pkAsegurado() : r.pkAsegurado(),
+                            Math.round(puntaje * 10000) / 10000.0,
+                            bloque.tipo().name()));
+                }
+            }
+        }
+        return pares;
+    }
+
+    /** Mismo par encontrado en varios bloques: un solo registro con todos los bloques */
+    private static Par unir(Par a, Par b) {
+        TreeSet<String> bloques = new TreeSet<>(List.of(a.bloques().split(",")));
+        bloques.addAll(List.of(b.bloques().split(",")));
+        return new Par(a.pkAseguradoA(), a.pkAseguradoB(), Math.max(a.puntaje(), b.puntaje()),
+                String.join(",", bloques));
+    }
+}
@@ -21,7 +21,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -39,6 +38,10 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class EnfermeriaPacientesService {
 
+    private static final String ROL_ENFERMERIA = "ENFERMERIA";
+    private static final int TOP_IPRESS = 10;
+    private static final int ULTIMOS_MESES = 6;
+
     private final AtencionClinicaRepository atencionRepository;
     private final AseguradoRepository aseguradoRepository;
     private final UsuarioRepository usuarioRepository;
@@ -47,6 +50,7 @@ public class EnfermeriaPacientesService {
     private final PersonalCntRepository personalCntRepository;
     private final AtencionDiagnosticoCie10Repository diagnosticoCie10Repository;
     private final DimCie10Repository dimCie10Repository;
+    private final EnfermeriaEstadisticasDao estadisticasDao;
 
     /**
      * Obtener todos los pacientes atendidos por la enfermera logueada
@@ -59,33 +63,38 @@ public class EnfermeriaPacientesService {
 
         log.info("Obteniendo pacientes atendidos por enfermera id_pers: {}", idPersonalEnfermera);
 
-        // Obtener todas las atenciones creadas por esta enfermera
-        List<AtencionClinica> atenciones = atencionRepository.findByIdPersonalCreador(idPersonalEnfermera);
+        // ✅ v2.6.0: Paginación en SQL (última atención por paciente con DISTINCT ON);
+        // antes se cargaban todas las atenciones de la enfermera y se paginaba en memoria
+        long totalPacientes = estadisticasDao.contarPacientesPorCreador(idPersonalEnfermera);
+        if (pageable.getOffset() >= totalPacientes) {
+            return new PageImpl<>(List.of(), pageable, totalPacientes);
+        }
 
-        // Agrupar por paciente (pk_asegurado)
-        Map<String, List<AtencionClinica>> atencionesPorPaciente = atenciones.stream()
-                .collect(Collectors.groupingBy(AtencionClinica::getPkAsegurado));
+        List<EnfermeriaEstadisticasDao.UltimaAtencionPaciente> ultimas = estadisticasDao.pacientesPorCreador(
+                idPersonalEnfermera, pageable.getPageSize(), pageable.getOffset());
 
-        // Construir lista de DTOs
-        List<EnfermeriaPacienteDTO> pacientes = new ArrayList<>();
+        // Asegurados de la página en una sola consulta
+        Map<String, Asegurado> asegurados = aseguradoRepository.findAllById(
+                        ultimas.stream().map(EnfermeriaEstadisticasDao.UltimaAtencionPaciente::pkAsegurado).toList())
+                .stream()
+                .collect(Collectors.toMap(Asegurado::getPkAsegurado, a -> a));
 
-        for (Map.Entry<String, List<AtencionClinica>> entry : atencionesPorPaciente.entrySet()) {
-            String pkAsegurado = entry.getKey();
-            List<AtencionClinica> atencionesDelPaciente = entry.getValue();
+        List<EnfermeriaPacienteDTO> pacientes = new ArrayList<>();
 
-            // Ordenar por fecha DESC para obtener la última
-            atencionesDelPaciente.sort(Comparator.comparing(AtencionClinica::getFechaAtencion).reversed());
-            AtencionClinica ultimaAtencion = atencionesDelPaciente.get(0);
+        for (EnfermeriaEstadisticasDao.UltimaAtencionPaciente ultimaAtencion : ultimas) {
+            String pkAsegurado = ultimaAtencion.pkAsegurado();
 
             // Buscar datos del asegurado
-            Asegurado asegurado = aseguradoRepository.findById(pkAsegurado)
-                    .orElseThrow(() -> new ResourceNotFoundException("Asegurado no encontrado: " + pkAsegurado));
+            Asegurado asegurado = asegurados.get(pkAsegurado);
+            if (asegurado == null) {
+                throw new ResourceNotFoundException("Asegurado no encontrado: " + pkAsegurado);
+            }
 
             // Obtener diagnóstico principal
-            String diagnosticoPrincipal = obtenerDiagnosticoPrincipal(ultimaAtencion.getIdAtencion());
+            String diagnosticoPrincipal = obtenerDiagnosticoPrincipal(ultimaAtencion.idAtencion());
 
             // Obtener nombres mediante repositories
-            String nombreTipoAtencion = obtenerNombreTipoAtencion(ultimaAtencion.getIdTipoAtencion());
+            String nombreTipoAtencion = obtenerNombreTipoAtencion(ultimaAtencion.idTipoAtencion());
             String nombreIpress = obtenerNombreIpress(asegurado);
 
             // Calcular edad
@@ -102,28 +111,19 @@ public class EnfermeriaPacientesService {
                     .edad(edad)
                     .sexo(asegurado.getSexo())
                     .telefono(telefono)
-                    .ultimaAtencionId(ultimaAtencion.getIdAtencion())
-                    .ultimaFechaAtencion(ultimaAtencion.getFechaAtencion().toLocalDateTime())
+                    .ultimaAtencionId(ultimaAtencion.idAtencion())
+                    .ultimaFechaAtencion(ultimaAtencion.fechaAtencion().toLocalDateTime())
                     .ultimaTipoAtencion(nombreTipoAtencion)
                     .ultimaDiagnosticoPrincipal(diagnosticoPrincipal)
-                    .totalAtenciones((long) atencionesDelPaciente.size())
-                    .requiereTelemonitoreo(ultimaAtencion.getRequiereTelemonitoreo())
+                    .totalAtenciones(ultimaAtencion.totalAtenciones())
+                    .requiereTelemonitoreo(ultimaAtencion.requiereTelemonitoreo())
                     .ipress(nombreIpress)
                     .build();
 
             pacientes.add(dto);
         }
 
-        // Ordenar por fecha de última atención DESC
-        pacientes.sort(Comparator.comparing(EnfermeriaPacienteDTO::getUltimaFechaAtencion).reversed());
-
-        // Aplicar paginación manual
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), pacientes.size());
-
-        List<EnfermeriaPacienteDTO> paginatedList = pacientes.subList(start, end);
-
-        return new PageImpl<>(paginatedList, pageable, pacientes.size());
+        return new PageImpl<>(pacientes, pageable, totalPacientes);
     }
 
     /**
@@ -201,74 +201,43 @@ public class EnfermeriaPacientesService {
     public EnfermeriaEstadisticasDTO obtenerEstadisticasGenerales() {
         log.info("📊 Obteniendo estadísticas generales del módulo de Enfermería");
 
-        // 1. Obtener IDs de todas las enfermeras
+        // 1. Obtener IDs de todas las enfermeras (cacheado por rol)
         List<Long> idsEnfermeras = obtenerIdsTodasEnfermeras();
         Long totalEnfermeras = (long) idsEnfermeras.size();
 
-        // 2. Obtener todas las atenciones de enfermería (creadas por enfermeras)
-        List<AtencionClinica> todasAtenciones = atencionRepository.findAll().stream()
-                .filter(a -> idsEnfermeras.contains(a.getIdPersonalCreador()))
-                .toList();
-
-        // 3. Total de pacientes únicos atendidos
-        Long totalPacientes = todasAtenciones.stream()
-                .map(AtencionClinica::getPkAsegurado)
-                .distinct()
-                .count();
-
-        // 4. Total de atenciones
-        Long totalAtenciones = (long) todasAtenciones.size();
-
-        // 5. Pacientes con telemonitoreo
-        Long pacientesConTelemonitoreo = todasAtenciones.stream()
-                .filter(AtencionClinica::getRequiereTelemonitoreo)
-                .map(AtencionClinica::getPkAsegurado)
-                .distinct()
-                .count();
-
-        // 6. Distribución por IPRESS (top 10)
-        Map<Long, List<AtencionClinica>> porIpress = todasAtenciones.stream()
-                .collect(Collectors.groupingBy(AtencionClinica::getIdIpress));
-
-        List<EnfermeriaEstadisticasDTO.EstadisticaPorIpress> distribucionIpress = porIpress.entrySet().stream()
-                .map(entry -> {
-                    Long idIpress = entry.getKey();
-                    List<AtencionClinica> atenciones = entry.getValue();
-                    String nombreIpress = obtenerNombreIpress(idIpress);
-
-                    return EnfermeriaEstadisticasDTO.EstadisticaPorIpress.builder()
-                            .codigoIpress(String.valueOf(idIpress))
-                            .nombreIpress(nombreIpress)
-                            .totalAtenciones((long) atenciones.size())
-                            .pacientesUnicos((long) atenciones.stream()
-                                    .map(AtencionClinica::getPkAsegurado)
-                                    .distinct()
-                                    .count())
-                            .build();
-                })
-                .sorted((a, b) -> b.getTotalAtenciones().compareTo(a.getTotalAtenciones()))
-                .limit(10)
-                .toList();
-
-        // 7. Distribución por mes (últimos 6 meses)
-        Map<String, List<AtencionClinica>> porMes = todasAtenciones.stream()
-                .collect(Collectors.groupingBy(a ->
-                    a.getFechaAtencion().getYear() + "-" +
-                    String.format("%02d", a.getFechaAtencion().getMonthValue())
-                ));
-
-        List<EnfermeriaEstadisticasDTO.EstadisticaPorMes> atencionesUltimos6Meses = porMes.entrySet().stream()
-                .map(entry -> EnfermeriaEstadisticasDTO.EstadisticaPorMes.builder()
-                        .mes(entry.getKey())
-                        .totalAtenciones((long) entry.getValue().size())
-                        .pacientesUnicos((long) entry.getValue().stream()
-                                .map(AtencionClinica::getPkAsegurado)
-                                .distinct()
-                                .count())
-                        .build())
-                .sorted((a, b) -> b.getMes().compareTo(a.getMes()))
-                .limit(6)
-                .toList();
+        // ✅ v2.6.0: Agregados en SQL sobre las atenciones creadas por enfermeras
+        // (antes atencionRepository.findAll() y filtrado en memoria)
+        EnfermeriaEstadisticasDao.Totales totales = idsEnfermeras.isEmpty()
+                ? EnfermeriaEstadisticasDao.Totales.VACIO
+                : estadisticasDao.totales(idsEnfermeras);
+
+        // 2-4. Total de atenciones, pacientes únicos y pacientes con telemonitoreo
+        Long totalAtenciones = totales.totalAtenciones();
+        Long totalPacientes = totales.pacientes();
+        Long pacientesConTelemonitoreo = totales.pacientesTelemonitoreo();
+
+        // 5. Distribución por IPRESS (top 10)
+        List<EnfermeriaEstadisticasDTO.EstadisticaPorIpress> distribucionIpress = idsEnfermeras.isEmpty()
+                ? List.of()
+                : estadisticasDao.porIpress(idsEnfermeras, TOP_IPRESS).stream()
+                        .map(c -> EnfermeriaEstadisticasDTO.EstadisticaPorIpress.builder()
+                                .codigoIpress(String.valueOf(c.idIpress()))
+                                .nombreIpress(c.descIpress())
+                                .totalAtenciones(c.totalAtenciones())
+                                .pacientesUnicos(c.pacientes())
+                                .build())
+                        .toList();
+
+        // 6. Distribución por mes (últimos 6 meses con atenciones)
+        List<EnfermeriaEstadisticasDTO.EstadisticaPorMes> atencionesUltimos6Meses = idsEnfermeras.isEmpty()
+                ? List.of()
+                : estadisticasDao.porMes(idsEnfermeras, ULTIMOS_MESES).stream()
+                        .map(c -> EnfermeriaEstadisticasDTO.EstadisticaPorMes.builder()
+                                .mes(c.mes())
+                                .totalAtenciones(c.totalAtenciones())
+                                .pacientesUnicos(c.pacientes())
+                                .build())
+                        .toList();
 
         log.info("✅ Estadísticas: {} enfermeras, {} pacientes, {} atenciones",
                 totalEnfermeras, totalPacientes, totalAtenciones);
@@ -479,15 +448,9 @@ public class EnfermeriaPacientesService {
 
     /**
      * Obtener IDs de personal de todas las enfermeras activas
+     * ✅ v2.6.0: Una consulta por rol, cacheada en personal-ids-por-rol
      */
     private List<Long> obtenerIdsTodasEnfermeras() {
-        return usuarioRepository.findAll().stream()
-                .filter(Usuario::isActive)
-                .filter(usuario -> usuario.getRoles() != null &&
-                        usuario.getRoles().stream()
-                                .anyMatch(rol -> "ENFERMERIA".equals(rol.getDescRol())))
-                .filter(usuario -> usuario.getPersonalCnt() != null)
-                .map(usuario -> usuario.getPersonalCnt().getIdPers())
-                .toList();
+        return usuarioRepository.findIdsPersonalActivoPorRol(ROL_ENFERMERIA);
     }
 }
@@ -0,0 +1,243 @@
+package com.styp.cenate.service.auditlog;
+
+import com.styp.cenate.repository.AuditLogCheckpointDao;
+import com.styp.cenate.repository.AuditLogCheckpointDao.Checkpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 🔐 Verificación incremental de integridad de audit_logs (v2.6.0)
+ *
+ * Los registros se agrupan en bloques de {@code cenate.audit.integridad.tamano-bloque}
+ * ids consecutivos. Al sellar un bloque se guarda en audit_log_checkpoints
+ * SHA-256(digest del bloque anterior + registros del bloque), así que alterar, borrar
+ * o insertar un registro ya sellado cambia el digest de su bloque, y reescribir un
+ * checkpoint rompe el encadenamiento con el siguiente.
+ *
+ * Cada ejecución:
+ * 1. Sella los bloques nuevos (solo lee los registros escritos desde el último
+ *    checkpoint) y, de paso, compara hash_integridad de cada registro nuevo.
+ * 2. Recalcula una muestra aleatoria de {@code bloques-muestra} bloques ya sellados
+ *    y su encadenamiento.
+ *
+ * No se sellan registros de los últimos {@code margen-minutos} para no cerrar un bloque
+ * con INSERTs pendientes de confirmar. El digest de la cabeza se escribe en el log en
+ * cada ejecución como referencia externa.
+ */
+@Service
+@Slf4j
+public class AuditLogIntegrityService {
+
+    static final String DIGEST_INICIAL = "0".repeat(64);
+
+    private final AuditLogCheckpointDao checkpointDao;
+    private final int tamanoBloque;
+    private final int maxBloquesPorEjecucion;
+    private final int bloquesMuestra;
+    private final long margenMinutos;
+
+    public AuditLogIntegrityService(AuditLogCheckpointDao checkpointDao,
+                                    @Value("${cenate.audit.integridad.tamano-bloque:1000}") int tamanoBloque,
+                                    @Value("${cenate.audit.integridad.max-bloques-por-ejecucion:1000}") int maxBloquesPorEjecucion,
+                                    @Value("${cenate.audit.integridad.bloques-muestra:5}") int bloquesMuestra,
+                                    @Value("${cenate.audit.integridad.margen-minutos:10}") long margenMinutos) {
+        this.checkpointDao = checkpointDao;
+        this.tamanoBloque = tamanoBloque;
+        this.maxBloquesPorEjecucion = maxBloquesPorEjecucion;
+        this.bloquesMuestra = bloquesMuestra;
+        this.margenMinutos = margenMinutos;
+    }
+
+    /** Registro cuyo hash_integridad no coincide con su contenido */
+    public record RegistroAlterado(
+            long id,
+            String usuario,
+            String ipAddress,
+            String action,
+            String modulo,
+            String hashAlmacenado,
+            String hashCalculado) {
+    }
+
+    /** Bloque sellado que ya no coincide con su checkpoint ({@code motivo}: CONTENIDO o ENCADENAMIENTO) */
+    public record BloqueAlterado(
+            long idDesde,
+            long idHasta,
+            int registrosSellados,
+            int registrosActuales,
+            String digestSellado,
+            String digestCalculado,
+            String motivo) {
+    }
+
+    public record ResultadoVerificacion(
+            int bloquesSellados,
+            long registrosSellados,
+            int bloquesVerificados,
+            List<RegistroAlterado> registrosAlterados,
+            List<BloqueAlterado> bloquesAlterados) {
+    }
+
+    private record DigestBloque(int totalRegistros, String digest) {
+    }
+
+    public ResultadoVerificacion verificar() {
+        long inicio = System.currentTimeMillis();
+        List<RegistroAlterado> registrosAlterados = new ArrayList<>();
+        List<BloqueAlterado> bloquesAlterados = new ArrayList<>();
+
+        // 1️⃣ Sellar bloques nuevos
+        Optional<Checkpoint> ultimo = checkpointDao.ultimo();
+        String digestAnterior = ultimo.map(Checkpoint::digest).orElse(DIGEST_INICIAL);
+        Long desde = ultimo.map(c -> c.idHasta() + 1).orElseGet(checkpointDao::primerId);
+        long sellable = checkpointDao.idSellable(LocalDateTime.now().minusMinutes(margenMinutos));
+
+        int bloquesSellados = 0;
+        long registrosSellados = 0;
+        while (desde != null && bloquesSellados < maxBloquesPorEjecucion && desde + tamanoBloque - 1 <= sellable) {
+            long hasta = desde + tamanoBloque - 1;
+            DigestBloque bloque = calcularDigest(desde, hasta, digestAnterior, registrosAlterados);
+            checkpointDao.insertar(desde, hasta, bloque.totalRegistros(), digestAnterior, bloque.digest());
+            digestAnterior = bloque.digest();
+            registrosSellados += bloque.totalRegistros();
+            bloquesSellados++;
+            desde = hasta + 1;
+        }
+
+        // 2️⃣ Muestra de bloques ya sellados
+        List<Checkpoint> muestra = checkpointDao.muestra(bloquesMuestra);
+        for (Checkpoint checkpoint : muestra) {
+            verificarBloque(checkpoint).ifPresentOrElse(
+                    bloquesAlterados::add,
+                    () -> checkpointDao.marcarVerificado(checkpoint.idCheckpoint()));
+        }
+
+        log.info("🔐 Integridad audit_logs: {} bloques sellados ({} registros), {} verificados, "
+                        + "{} registros y {} bloques alterados en {}ms. Cabeza: id {} digest {}",
+                bloquesSellados, registrosSellados, muestra.size(), registrosAlterados.size(),
+                bloquesAlterados.size(), System.currentTimeMillis() - inicio,
+                desde != null ? desde - 1 : 0, digestAnterior);
+
+        return new ResultadoVerificacion(bloquesSellados, registrosSellados, muestra.size(),
+                registrosAlterados, bloquesAlterados);
+    }
+
+    private Optional<BloqueAlterado> verificarBloque(Checkpoint checkpoint) {
+        DigestBloque actual = calcularDigest(checkpoint.idDesde(), checkpoint.idHasta(),
+                checkpoint.digestAnterior(), null);
+        if (actual.totalRegistros() != checkpoint.totalRegistros() || !actual.digest().equals(checkpoint.digest())) {
+            return Optional.of(alterado(checkpoint, actual, "CONTENIDO"));
+        }
+        String digestPrevio = checkpointDao.anterior(checkpoint.idDesde())
+                .map(Checkpoint::digest)
+                .orElse(DIGEST_INICIAL);
+        if (!digestPrevio.equals(checkpoint.digestAnterior())) {
+            return Optional.of(alterado(checkpoint, actual, "ENCADENAMIENTO"));
+        }
+        return Optional.empty();
+    }
+
+    private BloqueAlterado alterado(Checkpoint checkpoint, DigestBloque actual, String motivo) {
+        log.warn("🚨 Bloque de audit_logs alterado ({}): ids {}-{}", motivo, checkpoint.idDesde(), checkpoint.idHasta());
+        return new BloqueAlterado(checkpoint.idDesde(), checkpoint.idHasta(), checkpoint.totalRegistros(),
+                actual.totalRegistros(), checkpoint.digest(), actual.digest(), motivo);
+    }
+
+    /**
+     * Digest encadenado de los registros con id en [desde, hasta]. Si {@code alterados}
+     * no es null, además compara el hash_integridad de cada registro.
+     */
+    private DigestBloque calcularDigest(long desde, long hasta, String digestAnterior,
+                                        List<RegistroAlterado> alterados) {
+        MessageDigest sha = sha256();
+        sha.update(digestAnterior.getBytes(StandardCharsets.UTF_8));
+        int[] total = {0};
+        checkpointDao.recorrerRegistros(desde, hasta, rs -> {
+            total[0]++;
+            long id = rs.getLong("id");
+            LocalDateTime fechaHora = rs.getTimestamp("fecha_hora").toLocalDateTime();
+            String hashAlmacenado = rs.getString("hash_integridad");
+
+            agregarCampo(sha, String.valueOf(id));
+            for (String columna : new String[]{"usuario", "action", "modulo", "detalle", "ip_address",
+                    "user_agent", "nivel", "estado"}) {
+                agregarCampo(sha, rs.getString(columna));
+            }
+            agregarCampo(sha, fechaHora.toString());
+            agregarCampo(sha, texto(rs, "duracion_ms"));
+            agregarCampo(sha, texto(rs, "id_afectado"));
+            agregarCampo(sha, rs.getString("datos_previos"));
+            agregarCampo(sha, rs.getString("datos_nuevos"));
+            agregarCampo(sha, hashAlmacenado);
+            sha.update((byte) '\n');
+
+            if (alterados != null && hashAlmacenado != null) {
+                String hashCalculado = calcularHashRegistro(id, rs.getString("usuario"), rs.getString("action"),
+                        rs.getString("modulo"), rs.getString("detalle"), rs.getString("ip_address"), fechaHora,
+                        rs.getString("nivel"), rs.getString("estado"));
+                if (!hashAlmacenado.equals(hashCalculado)) {
+                    log.warn("🚨 LOG MANIPULADO detectado: ID {}", id);
+                    alterados.add(new RegistroAlterado(id, rs.getString("usuario"), rs.getString("ip_address"),
+                            rs.getString("action"), rs.getString("modulo"), hashAlmacenado, hashCalculado));
+                }
+            }
+        });
+        return new DigestBloque(total[0], HexFormat.of().formatHex(sha.digest()));
+    }
+
+    /**
+     * Hash SHA-256 de un registro individual (hash_integridad)
+     * En producción, usar la función SQL calcular_hash_auditoria()
+     */
+    public static String calcularHashRegistro(Long id, String usuario, String action, String modulo, String detalle,
+                                              String ipAddress, LocalDateTime fechaHora, String nivel, String estado) {
+        String concatenated = String.join("|",
+                String.valueOf(id),
+                usuario != null ? usuario : "",
+                action != null ? action : "",
+                modulo != null ? modulo : "",
+                detalle != null ? detalle : "",
+                ipAddress != null ? ipAddress : "",
+                fechaHora != null ? fechaHora.toString() : "",
+                nivel != null ? nivel : "",
+                estado != null ? estado : ""
+        );
+        return HexFormat.of().formatHex(sha256().digest(concatenated.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Longitud + valor, para que ningún separador dentro de un campo cambie los límites */
+    private static void agregarCampo(MessageDigest sha, String valor) {
+        if (valor == null) {
+            sha.update("-1:".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        sha.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+        sha.update(bytes);
+    }
+
+    private static String texto(ResultSet rs, String columna) throws SQLException {
+        Object valor = rs.getObject(columna);
+        return valor != null ? valor.toString() : null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
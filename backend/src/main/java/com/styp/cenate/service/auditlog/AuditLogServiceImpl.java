@@ -4,13 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 
 import com.styp.cenate.model.AuditLog;
 import com.styp.cenate.repository.AuditLogRepository;
+import com.styp.cenate.service.security.AnomalyStreamDetector;
 import com.styp.cenate.util.RequestContextUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.annotation.Propagation;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -22,6 +21,8 @@ import java.util.*;
 public class AuditLogServiceImpl implements AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final AnomalyStreamDetector anomalyStreamDetector;
 
     // ============================================================
     // 🔍 CONSULTAS
@@ -70,8 +71,12 @@ public class AuditLogServiceImpl implements AuditLogService {
     // ============================================================
     // 🧾 REGISTROS GENÉRICOS
     // ============================================================
+    /**
+     * Arma el registro en el hilo actual (usuario, IP y User-Agent) y delega la
+     * persistencia a {@link AuditLogWriter}, que lo inserta por lotes en segundo plano.
+     * El evento también pasa por {@link AnomalyStreamDetector} (detección en línea).
+     */
     @Override
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void registrarEvento(String usuario, String action, String modulo, String detalle, String nivel, String estado) {
         AuditLog logEntity = new AuditLog();
         logEntity.setUsuario(usuario);
@@ -93,7 +98,8 @@ public class AuditLogServiceImpl implements AuditLogService {
             logEntity.setUserAgent("SYSTEM");
         }
 
-        auditLogRepository.save(logEntity);
+        auditLogWriter.encolar(logEntity);
+        anomalyStreamDetector.observar(logEntity);
         log.info("📝 [{}] [{}] {} desde {}", modulo, action, usuario, logEntity.getIpAddress());
     }
 
@@ -101,7 +107,6 @@ public class AuditLogServiceImpl implements AuditLogService {
     // 🔐 MÉTODOS USADOS EN AuthController
     // ============================================================
     @Override
-    @Transactional
     public void registrarLogin(String username, HttpServletRequest request) {
         RequestContextUtil.AuditContext context = RequestContextUtil.getAuditContext();
         RequestContextUtil.UserAgentInfo uaInfo = RequestContextUtil.parseUserAgent(context.getUserAgent());
@@ -113,7 +118,6 @@ public class AuditLogServiceImpl implements AuditLogService {
     }
 
     @Override
-    @Transactional
     public void registrarAccion(String action, String modulo, String detalle, String nivel, HttpServletRequest request) {
         RequestContextUtil.AuditContext context = RequestContextUtil.getAuditContext();
         registrarEvento(obtenerUsuarioRequest(request), action, modulo,
@@ -121,7 +125,6 @@ public class AuditLogServiceImpl implements AuditLogService {
     }
 
     @Override
-    @Transactional
     public void registrarError(String action, String modulo, String mensaje, HttpServletRequest request) {
         RequestContextUtil.AuditContext context = RequestContextUtil.getAuditContext();
         registrarEvento(obtenerUsuarioRequest(request), action, modulo,
@@ -157,7 +160,6 @@ public class AuditLogServiceImpl implements AuditLogService {
      * @param datosPrevios Datos previos (Map que se convertirá a JSON)
      * @param datosNuevos Datos nuevos (Map que se convertirá a JSON)
      */
-    @Transactional
     public void registrarEventoConDiff(
         String usuario,
         String action,
@@ -216,7 +218,8 @@ public class AuditLogServiceImpl implements AuditLogService {
             logEntity.setUserAgent("SYSTEM");
         }
 
-        auditLogRepository.save(logEntity);
+        auditLogWriter.encolar(logEntity);
+        anomalyStreamDetector.observar(logEntity);
         log.info("📝 [DIFF] [{}] [{}] {} - ID afectado: {}", modulo, action, usuario, idAfectado);
     }
 }
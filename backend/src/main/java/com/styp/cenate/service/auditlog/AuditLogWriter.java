@@ -0,0 +1,257 @@
+package com.styp.cenate.service.auditlog;
+
+import com.styp.cenate.model.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 📝 Escritor asíncrono de audit_logs por lotes.
+ * -----------------------------------------------
+ * {@link AuditLogServiceImpl} arma el registro en el hilo del request (usuario, IP y
+ * User-Agent vía {@code RequestContextUtil}) y lo encola aquí; un único hilo de fondo
+ * lo persiste con INSERT por lotes (JDBC batch) cuando se junta
+ * {@code cenate.audit.writer.lote} registros o pasa {@code cenate.audit.writer.intervalo-ms}.
+ *
+ * Contrapresión: si la cola está llena, el request espera hasta
+ * {@code cenate.audit.writer.espera-max-ms}; si sigue llena, el registro se escribe de
+ * forma síncrona (desborde) para no perder auditoría.
+ *
+ * Al apagar la aplicación se deja de encolar y se vacía la cola antes de cerrar el DataSource.
+ *
+ * Métricas: audit.writer.cola, audit.writer.encolados, audit.writer.escritos,
+ * audit.writer.desbordes, audit.writer.errores, audit.writer.lote (timer).
+ */
+@Slf4j
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    private static final String SQL_INSERT = """
+            INSERT INTO audit_logs (usuario, action, modulo, detalle, ip_address, user_agent, nivel, estado,
+                                    fecha_hora, duracion_ms, id_afectado, datos_previos, datos_nuevos, hash_integridad)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb), ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<AuditLog> cola;
+    private final int tamanoLote;
+    private final long intervaloMs;
+    private final long esperaMaxMs;
+
+    private final Counter encolados;
+    private final Counter escritos;
+    private final Counter desbordes;
+    private final Counter errores;
+    private final Timer tiempoLote;
+
+    private volatile boolean activo;
+    private Thread hilo;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${cenate.audit.writer.capacidad:10000}") int capacidad,
+                          @Value("${cenate.audit.writer.lote:200}") int tamanoLote,
+                          @Value("${cenate.audit.writer.intervalo-ms:500}") long intervaloMs,
+                          @Value("${cenate.audit.writer.espera-max-ms:50}") long esperaMaxMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.intervaloMs = intervaloMs;
+        this.esperaMaxMs = esperaMaxMs;
+
+        Gauge.builder("audit.writer.cola", cola, BlockingQueue::size)
+                .description("Registros de auditoría pendientes de escribir")
+                .register(meterRegistry);
+        this.encolados = Counter.builder("audit.writer.encolados")
+                .description("Registros de auditoría encolados")
+                .register(meterRegistry);
+        this.escritos = Counter.builder("audit.writer.escritos")
+                .description("Registros de auditoría persistidos")
+                .register(meterRegistry);
+        this.desbordes = Counter.builder("audit.writer.desbordes")
+                .description("Registros escritos en el hilo del request por cola llena")
+                .register(meterRegistry);
+        this.errores = Counter.builder("audit.writer.errores")
+                .description("Registros de auditoría que no se pudieron persistir")
+                .register(meterRegistry);
+        this.tiempoLote = Timer.builder("audit.writer.lote")
+                .description("Duración de cada INSERT por lotes de audit_logs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola un registro ya armado. Con la cola llena aplica contrapresión y, como
+     * último recurso, lo escribe en el hilo actual.
+     */
+    public void encolar(AuditLog registro) {
+        if (registro.getFechaHora() == null) {
+            registro.setFechaHora(LocalDateTime.now());
+        }
+        if (!activo) {
+            // Antes del arranque o durante el apagado: escritura directa
+            escribir(List.of(registro));
+            return;
+        }
+        try {
+            if (cola.offer(registro) || cola.offer(registro, esperaMaxMs, TimeUnit.MILLISECONDS)) {
+                encolados.increment();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        desbordes.increment();
+        log.warn("⚠️ Cola de auditoría llena ({} pendientes): escritura directa", cola.size());
+        escribir(List.of(registro));
+    }
+
+    // ============================================================
+    // 🔄 CICLO DE VIDA
+    // ============================================================
+    @Override
+    public synchronized void start() {
+        if (activo) {
+            return;
+        }
+        activo = true;
+        hilo = new Thread(this::procesar, "audit-log-writer");
+        hilo.setDaemon(true);
+        hilo.start();
+        log.info("📝 Escritor de auditoría iniciado (lote {}, intervalo {} ms, capacidad {})",
+                tamanoLote, intervaloMs, cola.remainingCapacity());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!activo) {
+            return;
+        }
+        activo = false;
+        hilo.interrupt();
+        try {
+            hilo.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lo que haya quedado (o llegado durante el apagado) se escribe aquí
+        vaciarCola();
+        log.info("📝 Escritor de auditoría detenido");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    /**
+     * Se detiene después de los beans web y antes que el DataSource.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2048;
+    }
+
+    // ============================================================
+    // 🧵 HILO DE ESCRITURA
+    // ============================================================
+    private void procesar() {
+        List<AuditLog> lote = new ArrayList<>(tamanoLote);
+        while (activo) {
+            try {
+                AuditLog primero = cola.poll(intervaloMs, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                // Completar el lote hasta el tamaño máximo o hasta que venza el intervalo
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+                while (lote.size() < tamanoLote) {
+                    cola.drainTo(lote, tamanoLote - lote.size());
+                    long restante = limite - System.nanoTime();
+                    if (lote.size() >= tamanoLote || restante <= 0) {
+                        break;
+                    }
+                    AuditLog siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+                escribir(lote);
+                lote.clear();
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                log.error("❌ Error inesperado en el escritor de auditoría: {}", e.getMessage(), e);
+            }
+        }
+        // Lote a medio armar al interrumpirse: no se descarta
+        if (!lote.isEmpty()) {
+            escribir(lote);
+        }
+    }
+
+    private void vaciarCola() {
+        List<AuditLog> lote = new ArrayList<>(tamanoLote);
+        while (cola.drainTo(lote, tamanoLote) > 0) {
+            escribir(lote);
+            lote.clear();
+        }
+    }
+
+    /**
+     * Inserta el lote; si falla, reintenta fila por fila para aislar el registro inválido.
+     */
+    private void escribir(List<AuditLog> lote) {
+        try {
+            tiempoLote.record(() -> jdbcTemplate.batchUpdate(SQL_INSERT, lote, lote.size(), this::asignarParametros));
+            escritos.increment(lote.size());
+        } catch (Exception e) {
+            if (lote.size() == 1) {
+                errores.increment();
+                log.error("❌ No se pudo registrar auditoría [{}] [{}] {}: {}",
+                        lote.get(0).getModulo(), lote.get(0).getAction(), lote.get(0).getUsuario(), e.getMessage());
+                return;
+            }
+            log.warn("⚠️ Falló INSERT por lotes de auditoría ({} registros), reintentando uno a uno: {}",
+                    lote.size(), e.getMessage());
+            for (AuditLog registro : lote) {
+                escribir(List.of(registro));
+            }
+        }
+    }
+
+    private void asignarParametros(PreparedStatement ps, AuditLog r) throws SQLException {
+        ps.setString(1, r.getUsuario());
+        ps.setString(2, r.getAction());
+        ps.setString(3, r.getModulo());
+        ps.setString(4, r.getDetalle());
+        ps.setString(5, r.getIpAddress());
+        ps.setString(6, r.getUserAgent());
+        ps.setString(7, r.getNivel() != null ? r.getNivel() : "INFO");
+        ps.setString(8, r.getEstado() != null ? r.getEstado() : "SUCCESS");
+        ps.setTimestamp(9, Timestamp.valueOf(r.getFechaHora()));
+        ps.setObject(10, r.getDuracionMs(), Types.BIGINT);
+        ps.setObject(11, r.getIdAfectado(), Types.BIGINT);
+        ps.setString(12, r.getDatosPrevios());
+        ps.setString(13, r.getDatosNuevos());
+        ps.setString(14, r.getHashIntegridad());
+    }
+}
@@ -12,8 +12,10 @@ import com.styp.cenate.model.Usuario;
 import com.styp.cenate.repository.UsuarioRepository;
 import com.styp.cenate.repository.bolsas.SolicitudBolsaRepository;
 import com.styp.cenate.security.service.JwtService;
+import com.styp.cenate.security.service.PrincipalCacheService;
 import com.styp.cenate.service.auditlog.AuditLogService;
 import com.styp.cenate.service.mbac.PermisosService;
+import com.styp.cenate.service.usuario.InvalidarPersonalPorRol;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -47,6 +49,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     private final com.styp.cenate.util.RequestContextUtil requestContextUtil;
     private final org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
     private final SolicitudBolsaRepository solicitudBolsaRepository;
+    private final PrincipalCacheService principalCacheService;
 
     // =========================================================
     // 🔐 LOGIN MBAC
@@ -254,6 +257,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     // =========================================================
     @Override
     @Transactional
+    @InvalidarPersonalPorRol
     public UsuarioResponse createUser(UsuarioCreateRequest request) {
         log.info("🧍 Creando nuevo usuario MBAC: {}", request.getUsername());
 
@@ -328,6 +332,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
         user.setPassUser(passwordEncoder.encode(newPassword));
         usuarioRepository.save(user);
+        principalCacheService.invalidar(username);
 
         try {
             auditLogService.registrarEvento(
@@ -0,0 +1,59 @@
+package com.styp.cenate.service.bolsas;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * ✅ v2.3.0: Importación Excel de bolsas en segundo plano
+ *
+ * El controller guarda el archivo en un temporal, crea el historial y responde de inmediato
+ * con el idHistorial; el frontend consulta el avance en
+ * GET /api/bolsas/solicitudes/importar/{idHistorial}/estado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportacionBolsaAsyncService {
+
+    private final SolicitudBolsaService solicitudBolsaService;
+    private final ProgresoImportacionService progresoImportacionService;
+
+    /**
+     * Ejecuta la importación y cierra el historial. El archivo temporal se elimina al terminar.
+     */
+    @Async
+    public void importar(Path archivo, String nombreArchivo, Long idBolsa, Long idServicio,
+                         String usuarioCarga, Long idHistorial) {
+        try {
+            Map<String, Object> resultado = solicitudBolsaService.importarDesdeArchivo(
+                archivo, nombreArchivo, idBolsa, idServicio, usuarioCarga, idHistorial);
+
+            String estado = resultado.containsKey("error")
+                ? ProgresoImportacionService.ESTADO_ERROR
+                : ProgresoImportacionService.ESTADO_PROCESADO;
+            progresoImportacionService.finalizar(idHistorial, estado,
+                (Integer) resultado.getOrDefault("filas_total", 0),
+                (Integer) resultado.getOrDefault("filas_ok", 0),
+                (Integer) resultado.getOrDefault("filas_error", 0));
+
+            log.info("✅ [IMPORTACIÓN {}] Finalizada en segundo plano - Estado: {}, OK: {}, Errores: {}",
+                idHistorial, estado, resultado.get("filas_ok"), resultado.get("filas_error"));
+        } catch (Exception e) {
+            log.error("❌ [IMPORTACIÓN {}] Error en importación en segundo plano: ", idHistorial, e);
+            progresoImportacionService.finalizar(idHistorial, ProgresoImportacionService.ESTADO_ERROR, 0, 0, 0);
+        } finally {
+            try {
+                Files.deleteIfExists(archivo);
+            } catch (IOException e) {
+                log.warn("⚠️ No se pudo eliminar archivo temporal {}: {}", archivo, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.styp.cenate.service.bolsas;
+
+import com.styp.cenate.config.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Invalida los cachés estadisticas-* de bolsas al terminar el método.
+ *
+ * Se usa en las escrituras de {@code SolicitudBolsaServiceImpl} (importación,
+ * cambio de estado, asignación, eliminación). Con el CacheManager transaccional
+ * de {@link CacheConfig} el evict se aplica tras el commit.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@CacheEvict(cacheNames = {
+        CacheConfig.ESTADISTICAS_GENERALES,
+        CacheConfig.ESTADISTICAS_POR_ESTADO,
+        CacheConfig.ESTADISTICAS_POR_IPRESS,
+        CacheConfig.ESTADISTICAS_POR_IPRESS_ATENCION,
+        CacheConfig.ESTADISTICAS_POR_TIPO_CITA
+}, allEntries = true)
+public @interface InvalidarEstadisticasBolsas {
+}
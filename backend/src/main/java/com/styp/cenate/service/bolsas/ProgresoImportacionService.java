@@ -0,0 +1,60 @@
+package com.styp.cenate.service.bolsas;
+
+import com.styp.cenate.repository.bolsas.HistorialCargaBolsasRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+/**
+ * ✅ v2.3.0: Avance de importaciones Excel de bolsas en dim_historial_carga_bolsas
+ *
+ * ARQUITECTURA:
+ * - Transacciones INDEPENDIENTES (@Transactional(REQUIRES_NEW)): el avance es visible
+ *   para el polling del frontend aunque la importación siga abierta
+ * - Un fallo al publicar el avance NO afecta la importación
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProgresoImportacionService {
+
+    public static final String ESTADO_PROCESANDO = "PROCESANDO";
+    public static final String ESTADO_PROCESADO = "PROCESADO";
+    public static final String ESTADO_ERROR = "ERROR";
+
+    private final HistorialCargaBolsasRepository historialRepository;
+
+    /**
+     * Publica el avance al cerrar cada lote
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void actualizarAvance(Long idHistorial, int totalFilas, int filasOk, int filasError) {
+        if (idHistorial == null) {
+            return;
+        }
+        try {
+            historialRepository.actualizarAvance(idHistorial, totalFilas, filasOk, filasError, OffsetDateTime.now());
+        } catch (Exception e) {
+            log.warn("⚠️ [IMPORTACIÓN {}] No se pudo publicar avance: {}", idHistorial, e.getMessage());
+        }
+    }
+
+    /**
+     * Marca la carga como terminada (PROCESADO / ERROR) con los totales finales
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void finalizar(Long idHistorial, String estado, int totalFilas, int filasOk, int filasError) {
+        if (idHistorial == null) {
+            return;
+        }
+        try {
+            historialRepository.finalizarCarga(idHistorial, estado, totalFilas, filasOk, filasError, OffsetDateTime.now());
+        } catch (Exception e) {
+            log.error("❌ [IMPORTACIÓN {}] No se pudo finalizar historial como {}: {}", idHistorial, estado, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.styp.cenate.service.bolsas;
+
+import com.styp.cenate.repository.bolsas.SolicitudBolsaExportDao;
+import com.styp.cenate.repository.bolsas.SolicitudBolsaExportDao.FilaExportacion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 📤 Exportación de solicitudes de bolsa en streaming (v2.6.0)
+ *
+ * Los controladores resuelven primero qué ids se exportan (para responder 204/400 antes
+ * de empezar) y luego escriben el archivo directamente en la respuesta con
+ * StreamingResponseBody. Las filas se leen en lotes de {@value #TAMANO_LOTE} ids con una
+ * sola consulta por lote, así el heap usado no depende de la cantidad exportada.
+ *
+ * El CSV se envía a medida que se escribe cada lote. El EXCEL usa SXSSF: solo mantiene
+ * {@value #FILAS_EN_MEMORIA} filas en memoria y el resto va a un archivo temporal hasta
+ * que se escribe el .xlsx al final.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SolicitudBolsaExportService {
+
+    private static final int TAMANO_LOTE = 500;
+    private static final int FILAS_EN_MEMORIA = 200;
+
+    private static final String[] COLUMNAS_ASIGNADOS = {
+        "FECHA ASIGNACIÓN", "DNI PACIENTE", "NOMBRE PACIENTE", "EDAD", "GÉNERO",
+        "ESPECIALIDAD", "ESPECIALISTA", "FECHA Y HORA CITA", "IPRESS", "TIPO CITA",
+        "TELÉFONO 1", "TELÉFONO 2", "ESTADO", "FECHA CAMBIO ESTADO", "USUARIO CAMBIO ESTADO"
+    };
+
+    private static final String[] COLUMNAS_GENERAL = {
+        "DNI", "NOMBRE", "EDAD", "SEXO", "TELÉFONO 1", "TELÉFONO 2", "ESPECIALIDAD", "IPRESS",
+        "RED", "MACRORREGIÓN", "TIPO BOLSA", "ESTADO", "FECHA SOLICITUD"
+    };
+
+    private final SolicitudBolsaExportDao exportDao;
+
+    // ============================================================
+    // 🔢 IDS A EXPORTAR
+    // ============================================================
+
+    /**
+     * Ids existentes de "Mi Bandeja" ordenados por fecha de asignación (más reciente primero)
+     */
+    public List<Long> idsParaExcelAsignados(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return exportDao.idsPorFechaAsignacion(new ArrayList<>(new LinkedHashSet<>(ids)));
+    }
+
+    /**
+     * Ids existentes en el orden pedido (sin repetidos)
+     */
+    public List<Long> idsParaCSV(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> unicos = new ArrayList<>(new LinkedHashSet<>(ids));
+        Set<Long> existentes = new HashSet<>(exportDao.idsExistentes(unicos));
+        return unicos.stream().filter(existentes::contains).toList();
+    }
+
+    // ============================================================
+    // 📊 EXCEL "MI BANDEJA"
+    // ============================================================
+
+    /**
+     * Escribe el EXCEL de solicitudes asignadas (mismas columnas que la tabla de GestionAsegurado)
+     */
+    public void escribirExcelAsignados(List<Long> ids, OutputStream out) throws IOException {
+        long inicio = System.currentTimeMillis();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(FILAS_EN_MEMORIA);
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Pacientes Asignados");
+            sheet.trackAllColumnsForAutoSizing();
+
+            CellStyle headerStyle = workbook.createCellStyle();
+            headerStyle.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            Font headerFont = workbook.createFont();
+            headerFont.setColor(IndexedColors.WHITE.getIndex());
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            headerStyle.setAlignment(HorizontalAlignment.CENTER);
+
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < COLUMNAS_ASIGNADOS.length; i++) {
+                var cell = headerRow.createCell(i);
+                cell.setCellValue(COLUMNAS_ASIGNADOS[i]);
+                cell.setCellStyle(headerStyle);
+            }
+
+            int[] rowNum = {1};
+            recorrerEnLotes(ids, fila -> {
+                Row excelRow = sheet.createRow(rowNum[0]++);
+                String[] valores = valoresAsignados(fila);
+                for (int col = 0; col < valores.length; col++) {
+                    excelRow.createCell(col).setCellValue(valores[col]);
+                }
+            });
+
+            // Ancho según todas las filas (SXSSF lleva la cuenta aunque ya estén en disco)
+            for (int i = 0; i < COLUMNAS_ASIGNADOS.length; i++) {
+                sheet.autoSizeColumn(i);
+            }
+
+            workbook.write(out);
+            log.info("✅ EXCEL generado exitosamente con {} registros en {}ms",
+                rowNum[0] - 1, System.currentTimeMillis() - inicio);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    // ============================================================
+    // 📄 CSV
+    // ============================================================
+
+    /**
+     * CSV general de solicitudes seleccionadas (sin restricción de gestora)
+     */
+    public void escribirCSV(List<Long> ids, OutputStream out) throws IOException {
+        escribirCSV(ids, out, COLUMNAS_GENERAL, fila -> new String[]{
+            fila.pacienteDni(),
+            fila.pacienteNombre(),
+            texto(fila.pacienteEdad()),
+            fila.pacienteSexo(),
+            fila.pacienteTelefono(),
+            fila.pacienteTelefonoAlterno(),
+            fila.especialidad(),
+            fila.descIpress(),
+            fila.descRed(),
+            fila.descMacroregion(),
+            fila.descTipoBolsa(),
+            fila.descEstadoCita(),
+            texto(fila.fechaSolicitud())
+        });
+    }
+
+    private void escribirCSV(List<Long> ids, OutputStream out, String[] columnas,
+                             Function<FilaExportacion, String[]> valores) throws IOException {
+        long inicio = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", columnas));
+        writer.write("\n");
+
+        int[] total = {0};
+        try {
+            recorrerEnLotes(ids, fila -> {
+                try {
+                    String[] campos = valores.apply(fila);
+                    for (int i = 0; i < campos.length; i++) {
+                        if (i > 0) {
+                            writer.write(",");
+                        }
+                        writer.write(escaparCSV(campos[i]));
+                    }
+                    writer.write("\n");
+                    total[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, () -> {
+                try {
+                    writer.flush();   // cada lote sale al cliente sin esperar al siguiente
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("✅ CSV generado exitosamente con {} registros en {}ms", total[0], System.currentTimeMillis() - inicio);
+    }
+
+    // ============================================================
+    // 🛠️ AUXILIARES
+    // ============================================================
+
+    private void recorrerEnLotes(List<Long> ids, Consumer<FilaExportacion> consumidor) {
+        recorrerEnLotes(ids, consumidor, () -> { });
+    }
+
+    /**
+     * Lee las filas de {@code ids} en lotes y las entrega en el orden de {@code ids}
+     */
+    private void recorrerEnLotes(List<Long> ids, Consumer<FilaExportacion> consumidor, Runnable finDeLote) {
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE) {
+            List<Long> lote = ids.subList(desde, Math.min(desde + TAMANO_LOTE, ids.size()));
+            Map<Long, FilaExportacion> porId = exportDao.filas(lote).stream()
+                .collect(Collectors.toMap(FilaExportacion::idSolicitud, Function.identity(), (a, b) -> a));
+            for (Long id : lote) {
+                FilaExportacion fila = porId.get(id);
+                if (fila != null) {
+                    consumidor.accept(fila);
+                }
+            }
+            finDeLote.run();
+        }
+    }
+
+    /**
+     * Columnas de "Mi Bandeja" (fecha y hora de la cita en una sola columna)
+     */
+    private String[] valoresAsignados(FilaExportacion fila) {
+        String fechaHoraCita = "";
+        if (fila.fechaAtencion() != null && fila.horaAtencion() != null) {
+            fechaHoraCita = fila.fechaAtencion() + " " + fila.horaAtencion();
+        } else if (fila.fechaAtencion() != null) {
+            fechaHoraCita = fila.fechaAtencion().toString();
+        }
+        return new String[]{
+            texto(fila.fechaAsignacion()),
+            fila.pacienteDni(),
+            fila.pacienteNombre(),
+            texto(fila.pacienteEdad()),
+            fila.pacienteSexo(),
+            fila.especialidad(),
+            fila.especialistaNombre(),
+            fechaHoraCita,
+            fila.descIpress(),
+            fila.tipoCita(),
+            fila.pacienteTelefono(),
+            fila.pacienteTelefonoAlterno(),
+            fila.descEstadoCita(),
+            texto(fila.fechaCambioEstado()),
+            fila.nombreUsuarioCambioEstado()
+        };
+    }
+
+    /** Fechas con offset en la zona del servidor (igual que las entidades JPA) */
+    private static String texto(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor instanceof OffsetDateTime fecha) {
+            return fecha.atZoneSameInstant(ZoneId.systemDefault()).toOffsetDateTime().toString();
+        }
+        return valor.toString();
+    }
+
+    /**
+     * Escapa caracteres especiales en campos CSV
+     */
+    private static String escaparCSV(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return "";
+        }
+        // Si contiene coma, comillas o saltos de línea, envolver en comillas y escapar comillas internas
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+}
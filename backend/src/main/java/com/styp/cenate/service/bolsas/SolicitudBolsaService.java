@@ -4,6 +4,11 @@ import com.styp.cenate.dto.bolsas.BolsaXGestoraDTO;
 import com.styp.cenate.dto.bolsas.SolicitudBolsaDTO;
 import com.styp.cenate.dto.bolsas.CrearSolicitudAdicionalRequest;
 import com.styp.cenate.dto.bolsas.CargaMasivaRequest;
+import com.styp.cenate.dto.bolsas.ResultadoOperacionMasivaDTO;
+import com.styp.cenate.dto.bolsas.FiltroBandejaBolsa;
+import com.styp.cenate.dto.bolsas.BusquedaFacetadaBolsaDTO;
+import com.styp.cenate.dto.PaginaCursorDTO;
+import com.styp.cenate.enumd.ModoConteo;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -40,6 +45,23 @@ public interface SolicitudBolsaService {
         Long idHistorial
     );
 
+    /**
+     * ✅ v2.3.0: Importa solicitudes desde un .xlsx en disco leyéndolo en streaming (SAX).
+     * Publica el avance por lotes en dim_historial_carga_bolsas (idHistorial).
+     *
+     * @param archivo ruta del .xlsx (el llamador es responsable de eliminarlo)
+     * @param nombreArchivo nombre original (validación de extensión y auditoría)
+     * @return estadísticas de importación (mismo formato que importarDesdeExcel)
+     */
+    Map<String, Object> importarDesdeArchivo(
+        java.nio.file.Path archivo,
+        String nombreArchivo,
+        Long idBolsa,
+        Long idServicio,
+        String usuarioCarga,
+        Long idHistorial
+    );
+
     /**
      * Obtiene todas las solicitudes activas
      */
@@ -91,6 +113,26 @@ public interface SolicitudBolsaService {
             String estrategia,
             org.springframework.data.domain.Pageable pageable);
 
+    /**
+     * ✅ v2.6.0 - Bandeja con paginación por cursor (mismos filtros que listarConFiltros)
+     * @param filtro filtros normalizados (todos null = bandeja completa)
+     * @param after cursor devuelto en la página anterior (null = primera página)
+     * @param size tamaño de página
+     * @param conteo cómo calcular el total (EXACTO, ESTIMADO o LIMITADO)
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    PaginaCursorDTO<SolicitudBolsaDTO> listarConCursor(FiltroBandejaBolsa filtro, String after, int size,
+                                                       ModoConteo conteo);
+
+    /**
+     * ✅ v2.6.0 - Búsqueda facetada: página, total, KPI por estado y facetas del mismo filtro
+     * en una sola consulta (reemplaza listarConFiltros + KPI con filtros + facetas por separado)
+     * @param filtro filtros normalizados (todos null = bandeja completa)
+     * @param page número de página (desde 0)
+     * @param size tamaño de página
+     */
+    BusquedaFacetadaBolsaDTO buscarFacetado(FiltroBandejaBolsa filtro, int page, int size);
+
     /**
      * Obtiene una solicitud por su ID
      */
@@ -105,9 +147,9 @@ public interface SolicitudBolsaService {
      * Asigna una gestora a múltiples solicitudes en una sola operación (bulk)
      * @param ids       lista de IDs de solicitudes a asignar
      * @param idGestora ID del usuario gestora
-     * @return cantidad de registros actualizados
+     * @return resultado por ID (actualizados y omitidos)
      */
-    int asignarGestoraMasivo(List<Long> ids, Long idGestora);
+    ResultadoOperacionMasivaDTO asignarGestoraMasivo(List<Long> ids, Long idGestora);
 
     /**
      * Elimina la asignación de gestora (deja en null)
@@ -128,33 +170,33 @@ public interface SolicitudBolsaService {
     /**
      * Elimina lógicamente múltiples solicitudes (soft delete en lote)
      * @param ids lista de IDs de solicitudes a eliminar
-     * @return cantidad de solicitudes eliminadas
+     * @return resultado por ID (eliminados y omitidos)
      */
-    int eliminarMultiples(List<Long> ids);
+    ResultadoOperacionMasivaDTO eliminarMultiples(List<Long> ids);
 
     /**
      * Marca múltiples solicitudes como RECHAZADO en una sola operación (bulk)
      * @param ids lista de IDs de solicitudes a rechazar
-     * @return cantidad de registros actualizados
+     * @return resultado por ID (actualizados y omitidos)
      */
-    int rechazarMasivo(List<Long> ids);
+    ResultadoOperacionMasivaDTO rechazarMasivo(List<Long> ids);
 
     /**
      * Marca múltiples solicitudes como RECHAZADO guardando el motivo de anulación (v1.69.0)
      * @param ids    lista de IDs de solicitudes a anular
      * @param motivo motivo de la anulación
-     * @return cantidad de registros actualizados
+     * @return resultado por ID (actualizados y omitidos)
      */
-    int rechazarMasivoConMotivo(List<Long> ids, String motivo);
+    ResultadoOperacionMasivaDTO rechazarMasivoConMotivo(List<Long> ids, String motivo);
 
     /**
      * Devuelve múltiples solicitudes al estado PENDIENTE_CITA guardando el motivo de devolución (v1.81.5)
      * Limpia médico asignado, fecha/hora cita y condición médica.
      * @param ids    lista de IDs de solicitudes a devolver
      * @param motivo motivo de la devolución
-     * @return cantidad de registros actualizados
+     * @return resultado por ID (actualizados y omitidos)
      */
-    int devolverAPendientes(List<Long> ids, String motivo);
+    ResultadoOperacionMasivaDTO devolverAPendientes(List<Long> ids, String motivo);
 
     /**
      * Obtiene asegurados nuevos detectados (que no existen en tabla asegurados)
@@ -249,35 +291,6 @@ public interface SolicitudBolsaService {
      */
     List<String> obtenerEspecialidadesUnicas();
 
-    /**
-     * Exporta solicitudes asignadas a la gestora actual a formato EXCEL
-     * Usado en la descarga desde "Mi Bandeja" (GestionAsegurado)
-     * Incluye TODAS las columnas de la tabla
-     *
-     * @param ids lista de IDs de solicitudes a exportar
-     * @return datos EXCEL (.xlsx) en bytes
-     */
-    byte[] exportarExcelAsignados(List<Long> ids);
-
-    /**
-     * Exporta solicitudes asignadas a la gestora actual a formato CSV
-     * Usado en la descarga desde "Mi Bandeja" (GestionAsegurado)
-     *
-     * @param ids lista de IDs de solicitudes a exportar
-     * @return datos CSV en bytes
-     */
-    byte[] exportarCSVAsignados(List<Long> ids);
-
-    /**
-     * Exporta solicitudes seleccionadas a formato CSV
-     * Usado en la descarga desde el universo general de solicitudes
-     * Puede exportar cualquier solicitud (sin restricción de gestora)
-     *
-     * @param ids lista de IDs de solicitudes a exportar
-     * @return datos CSV en bytes
-     */
-    byte[] exportarCSV(List<Long> ids);
-
     /**
      * Crear solicitud adicional desde importación manual (v1.46.0)
      * Genera número de solicitud único y crea registro en dim_solicitud_bolsa
@@ -297,7 +310,10 @@ public interface SolicitudBolsaService {
      * Buscar solicitudes por DNI de paciente (v1.46.0)
      * Valida que el paciente no esté duplicado antes de importar
      *
-     * @param dni documento de identidad del paciente
+     * ✅ v2.6.0: Si el texto no tiene dígitos se busca por nombre del paciente (solicitudes
+     * activas, sin tildes, términos en cualquier orden, las más parecidas primero)
+     *
+     * @param dni documento de identidad del paciente (o su nombre)
      * @return lista de solicitudes encontradas (vacía si no existe)
      */
     List<SolicitudBolsaDTO> buscarPorDni(String dni);
@@ -393,7 +409,7 @@ public interface SolicitudBolsaService {
      * Solo aplica a solicitudes con activo = true.
      *
      * @param request datos de reprogramación: lista de IDs, nueva fecha y gestora opcional
-     * @return mapa con status, cantidad de registros actualizados y fecha aplicada
+     * @return mapa con status, cantidad de registros actualizados, IDs omitidos y fecha aplicada
      */
     Map<String, Object> reprogramarMasivo(com.styp.cenate.dto.bolsas.ReprogramarMasivoRequest request);
 
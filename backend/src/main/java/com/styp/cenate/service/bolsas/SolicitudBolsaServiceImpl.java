@@ -4,6 +4,9 @@ import com.styp.cenate.dto.bolsas.SolicitudBolsaDTO;
 import com.styp.cenate.dto.bolsas.SolicitudBolsaExcelRowDTO;
 import com.styp.cenate.dto.bolsas.ReporteDuplicadosDTO;
 import com.styp.cenate.dto.bolsas.CrearSolicitudAdicionalRequest;
+import com.styp.cenate.dto.bolsas.ResultadoOperacionMasivaDTO;
+import com.styp.cenate.dto.bolsas.FiltroBandejaBolsa;
+import com.styp.cenate.dto.bolsas.BusquedaFacetadaBolsaDTO;
 import com.styp.cenate.mapper.SolicitudBolsaMapper;
 import com.styp.cenate.model.bolsas.SolicitudBolsa;
 import com.styp.cenate.model.bolsas.DimSolicitudBolsasGeneral;
@@ -27,18 +30,30 @@ import com.styp.cenate.repository.UsuarioRepository;
 import com.styp.cenate.repository.PersonalCntRepository;
 import com.styp.cenate.repository.PacienteEstrategiaRepository;
 import com.styp.cenate.repository.bolsas.HistorialCambioSolicitudRepository;
+import com.styp.cenate.repository.bolsas.SolicitudBolsaOperacionMasivaDao;
+import com.styp.cenate.repository.bolsas.SolicitudBolsaBandejaDao;
+import com.styp.cenate.repository.ConteoPaginadoDao;
+import com.styp.cenate.repository.BusquedaPacienteDao;
+import com.styp.cenate.dto.PaginaCursorDTO;
+import com.styp.cenate.enumd.ModoConteo;
 import com.styp.cenate.exception.ResourceNotFoundException;
 import com.styp.cenate.exception.ValidationException;
 import com.styp.cenate.service.ApplicationErrorLogService;
+import com.styp.cenate.service.ipress.IpressCatalogoService;
+import com.styp.cenate.util.ExcelStreamingReader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -46,6 +61,8 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
@@ -75,6 +92,34 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
     private static final String PHONE_PATTERN = "^[0-9+()\\-\\s]*$";
     private static final String PHONE_VALIDATION_ERROR = "Formato de teléfono inválido. Solo se permiten números, +, (), - y espacios";
 
+    /** Tamaño de lote para las consultas IN de enriquecimiento por DNI */
+    private static final int LOTE_DNIS_ENRIQUECIMIENTO = 1000;
+
+    /** Máximo de solicitudes devueltas por buscarPorDni cuando el texto es un nombre */
+    private static final int LIMITE_BUSQUEDA_POR_NOMBRE = 50;
+
+    // ============================================================================
+    // IMPORTACIÓN EXCEL EN STREAMING (v2.3.0)
+    // ============================================================================
+    /** Columnas leídas por fila del Excel de bolsas */
+    private static final int COLUMNAS_LECTURA_EXCEL = 15;
+    /** Filas por lote: consulta de asegurados, inserción batch y publicación de avance */
+    private static final int TAMANO_LOTE_IMPORTACION = 500;
+    /** Máximo de filas detalladas por lista del resultado (los totales cuentan todas; el detalle completo queda en la auditoría) */
+    private static final int MAX_DETALLE_RESULTADO = 500;
+    private static final String SQL_ASEGURADOS_ENRIQUECIMIENTO = """
+            SELECT doc_paciente, sexo, fecnacimpaciente
+            FROM asegurados
+            WHERE doc_paciente = ANY(?)
+            """;
+    private static final String SQL_INSERT_SOLICITUD_BOLSAS_GENERAL = """
+            INSERT INTO dim_solicitud_bolsas_general (
+                id_carga, id_bolsa, id_servicio, fecha_preferida_no_atendida, tipo_documento, dni,
+                asegurado, sexo, fecha_nacimiento, telefono_principal, telefono_alterno, correo,
+                cod_ipress_adscripcion, ipress_atencion, tipo_cita, fecha_registro)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+            """;
+
     private final SolicitudBolsaRepository solicitudRepository;
     private final DimEstadosGestionCitasRepository dimEstadosGestionCitasRepository;
     private final AuditErrorImportacionService auditErrorService;
@@ -89,12 +134,19 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
     private final ApplicationErrorLogService errorLogService;
     private final DimSolicitudBolsasGeneralRepository dimSolicitudBolsasGeneralRepository;
     private final HistorialCambioSolicitudRepository historialCambioRepository;
+    private final SolicitudBolsaOperacionMasivaDao operacionMasivaDao; // ✅ v2.6.0: Operaciones masivas set-based
+    private final SolicitudBolsaBandejaDao bandejaDao; // ✅ v2.6.0: Bandeja con WHERE solo de filtros activos
+    private final BusquedaPacienteDao busquedaPacienteDao; // ✅ v2.6.0: Búsqueda por nombre de paciente (trigram)
+    private final IpressCatalogoService ipressCatalogoService;
+    private final ProgresoImportacionService progresoImportacionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate; // ✅ v2.6.0: Una transacción por fila en la importación
 
     @PersistenceContext
     private EntityManager entityManager;
 
     @Override
-    @Transactional
+    @InvalidarEstadisticasBolsas
     public Map<String, Object> importarDesdeExcel(
             MultipartFile file,
             Long idBolsa,
@@ -102,521 +154,815 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             String usuarioCarga,
             Long idHistorial) {
 
-        Map<String, Object> resultado = new HashMap<>();
-        List<Map<String, Object>> errores = new ArrayList<>();
-        List<Map<String, Object>> duplicados = new ArrayList<>();  // ✅ NUEVO: Lista separada de duplicados
-        List<Map<String, Object>> otros_errores = new ArrayList<>(); // ✅ NUEVO: Lista de otros errores
-        int filasOk = 0;
-        int filasError = 0;
+        log.info("📁 [SolicitudBolsaServiceImpl] Archivo recibido: {} | ContentType: {}", file.getOriginalFilename(), file.getContentType());
 
-        // ✅ v2.2.0: KEEP_FIRST - Trackear DNI procesados para saltar duplicados
-        Set<String> dniProcesados = new HashSet<>();
-        List<Map<String, Object>> dniDuplicadosSaltados = new ArrayList<>();
+        // El lector en streaming trabaja sobre un archivo en disco (OPCPackage no carga el zip en memoria)
+        java.nio.file.Path temporal = null;
+        try {
+            temporal = java.nio.file.Files.createTempFile("bolsa-import-", ".xlsx");
+            try (java.io.InputStream in = file.getInputStream()) {
+                java.nio.file.Files.copy(in, temporal, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            }
+            return importarDesdeArchivo(temporal, file.getOriginalFilename(), idBolsa, idServicio, usuarioCarga, idHistorial);
+        } catch (IOException e) {
+            log.error("Error al leer archivo Excel: ", e);
+            Map<String, Object> resultado = new HashMap<>();
+            resultado.put("error", "Error al procesar archivo Excel: " + e.getMessage());
+            return resultado;
+        } finally {
+            eliminarArchivoTemporal(temporal);
+        }
+    }
+
+    /**
+     * ✅ v2.3.0: Importación en streaming (SAX) con memoria acotada
+     *
+     * - Lee el Excel fila por fila con {@link ExcelStreamingReader} (sin XSSFWorkbook)
+     * - Valida la cabecera, deduplica DNIs (KEEP_FIRST) y arma el reporte de duplicados en la misma pasada
+     * - Acumula TAMANO_LOTE_IMPORTACION filas y las procesa juntas (ver procesarLoteImportacion):
+     *   una consulta de asegurados por lote, una transacción por fila, inserción en lote de
+     *   dim_solicitud_bolsas_general y avance en dim_historial_carga_bolsas
+     *
+     * ✅ v2.6.0: Sin transacción envolvente. Hibernate marca la transacción como rollback-only ante
+     * cualquier violación de constraint, así que con una sola transacción una fila mala revertía
+     * la importación completa; ahora cada fila confirma o revierte por separado.
+     * Las listas de detalle del resultado se acotan a MAX_DETALLE_RESULTADO (los contadores son exactos).
+     */
+    @Override
+    @InvalidarEstadisticasBolsas
+    public Map<String, Object> importarDesdeArchivo(
+            java.nio.file.Path archivo,
+            String nombreArchivo,
+            Long idBolsa,
+            Long idServicio,
+            String usuarioCarga,
+            Long idHistorial) {
+
+        Map<String, Object> resultado = new HashMap<>();
+        ContextoImportacion ctx = new ContextoImportacion(nombreArchivo, idBolsa, idServicio, usuarioCarga, idHistorial);
 
         try {
             // Validar tipo de archivo
-            log.info("📁 [SolicitudBolsaServiceImpl] Archivo recibido: {} | ContentType: {}", file.getOriginalFilename(), file.getContentType());
-            boolean esValido = esArchivoExcelValido(file);
+            boolean esValido = esNombreArchivoExcelValido(nombreArchivo);
             log.info("📁 [SolicitudBolsaServiceImpl] Validación: {}", esValido);
 
             if (!esValido) {
-                String errorMsg = "VALIDATOR_V1_6_0: Solo se permiten archivos .xlsx | File: " + file.getOriginalFilename() + " | ContentType: " + file.getContentType();
+                String errorMsg = "VALIDATOR_V1_6_0: Solo se permiten archivos .xlsx | File: " + nombreArchivo;
                 log.error(errorMsg);
                 throw new IllegalArgumentException(errorMsg);
             }
 
-            XSSFWorkbook workbook = new XSSFWorkbook(file.getInputStream());
-            XSSFSheet sheet = workbook.getSheetAt(0);
+            // Servicio: una sola consulta por importación
+            ctx.servicio = dimServicioEssiRepository.findById(idServicio).orElse(null);
+
+            ExcelStreamingReader.leerPrimeraHoja(archivo.toFile(), COLUMNAS_LECTURA_EXCEL, (indiceFila, valores) -> {
+                if (!ctx.cabeceraValidada) {
+                    // La cabecera debe ser la fila 0; si no existe se valida vacía (y se rechaza)
+                    validarCabeceraImportacion(indiceFila == 0 ? valores : new String[0]);
+                    ctx.cabeceraValidada = true;
+                    if (indiceFila == 0) {
+                        return;
+                    }
+                }
+
+                // Reporte de duplicados (columna DNI sin normalizar, igual que analizarDuplicadosEnExcel)
+                registrarDniReporte(ctx, valores[2], indiceFila);
+                ctx.filasLeidas++;
+
+                ctx.loteFilas.add(new FilaLeida(indiceFila, valores));
+                if (ctx.loteFilas.size() == TAMANO_LOTE_IMPORTACION) {
+                    procesarLoteImportacion(ctx);
+                }
+            });
+
+            if (!ctx.cabeceraValidada) {
+                validarCabeceraImportacion(new String[0]);
+            }
+            procesarLoteImportacion(ctx);
+
+            ReporteDuplicadosDTO reporteDuplicados = construirReporteDuplicados(
+                ctx.filasDniRepetidos, ctx.dnisRepetidos.size(), ctx.filasUnicas, ctx.filasDuplicadas, ctx.filasLeidas);
+            log.info("📊 [v2.2.0] Análisis de duplicados: {} mensaje",
+                reporteDuplicados.getMensajeResumen());
 
             // ============================================================================
-            // VALIDACIÓN OBLIGATORIA: Excel DEBE tener EXACTAMENTE 11 columnas
+            // ✅ v2.2.0: Agregar reporte de deduplicación KEEP_FIRST
             // ============================================================================
-            Row headerRow = sheet.getRow(0);
-            int columnasEnHeader = 0;
+            Map<String, Object> reporteDeduplicacion = new HashMap<>();
+            reporteDeduplicacion.put("estrategia", "KEEP_FIRST");
+            reporteDeduplicacion.put("dniDuplicadosSaltados", ctx.dniDuplicadosSaltados.total);
+            reporteDeduplicacion.put("dniDuplicadosDetalles", ctx.dniDuplicadosSaltados.items);
 
-            if (headerRow != null) {
-                // Contar celdas NO VACÍAS en el header
-                for (int col = 0; col < 15; col++) {
-                    try {
-                        Cell cell = headerRow.getCell(col);
-                        if (cell != null) {
-                            String valor = null;
-                            switch (cell.getCellType()) {
-                                case STRING:
-                                    valor = cell.getStringCellValue();
-                                    break;
-                                case NUMERIC:
-                                    valor = String.valueOf((long) cell.getNumericCellValue());
-                                    break;
-                                default:
-                                    break;
-                            }
-                            if (valor != null && !valor.trim().isEmpty()) {
-                                columnasEnHeader++;
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Ignorar errores de lectura, contar solo celdas válidas
+            // ============================================================================
+            // ✅ CORRECCIÓN v1.19.0: Preparar resultado CON SEPARACIÓN DE DUPLICADOS
+            // ============================================================================
+            resultado.put("filas_total", ctx.filasOk + ctx.filasError);
+            resultado.put("filas_ok", ctx.filasOk);
+            resultado.put("filas_error", ctx.filasError);
+            resultado.put("filas_duplicadas", ctx.duplicados.total);
+            resultado.put("filas_otros_errores", ctx.otrosErrores.total);
+            resultado.put("filas_deduplicadas_saltadas", ctx.dniDuplicadosSaltados.total);  // ✅ v2.2.0
+            resultado.put("filas_error_registro_general", ctx.erroresGeneral.total);  // ✅ v2.6.0
+
+            // Incluir ambas listas por separado (✅ v2.6.0: hasta MAX_DETALLE_RESULTADO filas cada una)
+            resultado.put("duplicados", ctx.duplicados.items);
+            resultado.put("otros_errores", ctx.otrosErrores.items);
+            resultado.put("errores", ctx.errores.items); // Mantener para compatibilidad (lista combinada)
+            resultado.put("errores_registro_general", ctx.erroresGeneral.items);  // ✅ v2.6.0
+            resultado.put("detalle_limite", MAX_DETALLE_RESULTADO);  // ✅ v2.6.0
+            resultado.put("reporte_deduplicacion", reporteDeduplicacion);  // ✅ v2.2.0
+            resultado.put("reporte_analisis_duplicados", reporteDuplicados);  // ✅ v2.2.0
+
+            resultado.put("mensaje", String.format(
+                "Importación completada: %d OK, %d saltados (KEEP_FIRST), %d duplicados, %d otros errores",
+                ctx.filasOk, ctx.dniDuplicadosSaltados.total, ctx.duplicados.total, ctx.otrosErrores.total
+            ));
+
+        } catch (IOException | org.apache.poi.openxml4j.exceptions.OpenXML4JException e) {
+            log.error("Error al leer archivo Excel: ", e);
+            resultado.put("error", "Error al procesar archivo Excel: " + e.getMessage());
+            return resultado;
+        } catch (Exception e) {
+            log.error("Error inesperado en importación: ", e);
+            resultado.put("error", "Error inesperado: " + e.getMessage());
+            return resultado;
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Valida la cabecera del Excel: mínimo 10 columnas con texto (se esperan 11)
+     */
+    private void validarCabeceraImportacion(String[] cabecera) {
+        int columnasEnHeader = 0;
+        for (String valor : cabecera) {
+            if (valor != null && !valor.trim().isEmpty()) {
+                columnasEnHeader++;
+            }
+        }
+        log.info("📊 [VALIDACIÓN ESTRUCTURA] Columnas encontradas: {}", columnasEnHeader);
+
+        // VALIDACIÓN: Debe tener mínimo 10 columnas
+        if (columnasEnHeader < 10) {
+            String errorMsg = String.format(
+                "❌ ARCHIVO INCORRECTO\n\n" +
+                "Tu Excel tiene %d columnas pero debe tener 11.\n\n" +
+                "LAS 11 COLUMNAS DEBEN SER (EN ESTE ORDEN):\n" +
+                "1. Fecha\n" +
+                "2. Tipo Documento\n" +
+                "3. DNI\n" +
+                "4. Nombres\n" +
+                "5. Sexo\n" +
+                "6. Fecha Nacimiento\n" +
+                "7. Teléfono Principal\n" +
+                "8. Teléfono Alterno\n" +
+                "9. Correo\n" +
+                "10. IPRESS\n" +
+                "11. Tipo Cita\n\n" +
+                "Por favor:\n" +
+                "• Descarga la plantilla oficial\n" +
+                "• Verifica que tenga exactamente 11 columnas\n" +
+                "• Intenta de nuevo",
+                columnasEnHeader
+            );
+
+            log.error("❌ [VALIDACIÓN FALLIDA] Columnas encontradas: {}, Mínimo requerido: 10", columnasEnHeader);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        if (columnasEnHeader < 11) {
+            log.warn("⚠️ [VALIDACIÓN ADVERTENCIA] Excel tiene {} columnas, se esperan 11. " +
+                     "Si hay errores, revisa que el Excel tenga exactamente 11 columnas sin espacios ocultos.", columnasEnHeader);
+        } else {
+            log.info("✅ [VALIDACIÓN OK] Estructura correcta: 11 columnas detectadas");
+        }
+    }
+
+    /**
+     * Registra el DNI crudo de la fila para el reporte de duplicados: la primera fila de cada DNI
+     * y, para los DNIs repetidos, sus filas (hasta MAX_DETALLE_RESULTADO DNIs y filas por DNI)
+     */
+    private static void registrarDniReporte(ContextoImportacion ctx, String dniCrudo, int indiceFila) {
+        if (dniCrudo.isEmpty()) {
+            return;
+        }
+        Integer primeraFila = ctx.primeraFilaPorDni.putIfAbsent(dniCrudo, indiceFila);
+        if (primeraFila == null) {
+            ctx.filasUnicas++;
+            return;
+        }
+        ctx.filasDuplicadas++;
+        List<Integer> filas = ctx.filasDniRepetidos.get(dniCrudo);
+        if (ctx.dnisRepetidos.add(dniCrudo) && ctx.filasDniRepetidos.size() < MAX_DETALLE_RESULTADO) {
+            filas = new ArrayList<>();
+            filas.add(primeraFila);
+            ctx.filasDniRepetidos.put(dniCrudo, filas);
+        }
+        if (filas != null && filas.size() < MAX_DETALLE_RESULTADO) {
+            filas.add(indiceFila);
+        }
+    }
+
+    /**
+     * Procesa las filas acumuladas del lote:
+     * 1) extrae los campos y resuelve con un solo SELECT los asegurados de las filas sin SEXO o FECHA_NACIMIENTO;
+     * 2) procesa cada fila en su propia transacción;
+     * 3) cierra el lote (dim_solicitud_bolsas_general y avance).
+     */
+    private void procesarLoteImportacion(ContextoImportacion ctx) {
+        List<Map<String, String>> camposPorFila = new ArrayList<>(ctx.loteFilas.size());
+        Set<String> dnisPorEnriquecer = new HashSet<>();
+        for (FilaLeida fila : ctx.loteFilas) {
+            Map<String, String> campos = null;
+            if (!esFilaCabecera(fila.valores())) {
+                try {
+                    campos = extraerCamposInteligentemente(fila.valores(), fila.numero());
+                    campos.put("dni", normalizarDNI(campos.get("dni")));
+                    if (isBlank(campos.get("sexo")) || isBlank(campos.get("fechaNacimiento"))) {
+                        dnisPorEnriquecer.add(campos.get("dni"));
                     }
+                } catch (RuntimeException e) {
+                    campos = null; // Se vuelve a intentar y se reporta al procesar la fila
                 }
-                log.info("📊 [VALIDACIÓN ESTRUCTURA] Columnas encontradas: {}", columnasEnHeader);
             }
+            camposPorFila.add(campos);
+        }
+        Map<String, DatosAsegurado> asegurados = buscarAseguradosParaEnriquecer(dnisPorEnriquecer);
 
-            // VALIDACIÓN: Debe tener mínimo 10 columnas
-            if (columnasEnHeader < 10) {
-                String errorMsg = String.format(
-                    "❌ ARCHIVO INCORRECTO\n\n" +
-                    "Tu Excel tiene %d columnas pero debe tener 11.\n\n" +
-                    "LAS 11 COLUMNAS DEBEN SER (EN ESTE ORDEN):\n" +
-                    "1. Fecha\n" +
-                    "2. Tipo Documento\n" +
-                    "3. DNI\n" +
-                    "4. Nombres\n" +
-                    "5. Sexo\n" +
-                    "6. Fecha Nacimiento\n" +
-                    "7. Teléfono Principal\n" +
-                    "8. Teléfono Alterno\n" +
-                    "9. Correo\n" +
-                    "10. IPRESS\n" +
-                    "11. Tipo Cita\n\n" +
-                    "Por favor:\n" +
-                    "• Descarga la plantilla oficial\n" +
-                    "• Verifica que tenga exactamente 11 columnas\n" +
-                    "• Intenta de nuevo",
-                    columnasEnHeader
-                );
+        for (int i = 0; i < ctx.loteFilas.size(); i++) {
+            procesarFilaEnTransaccion(ctx, ctx.loteFilas.get(i), camposPorFila.get(i), asegurados);
+        }
+        ctx.loteFilas.clear();
+        cerrarLoteImportacion(ctx);
+    }
 
-                log.error("❌ [VALIDACIÓN FALLIDA] Columnas encontradas: {}, Mínimo requerido: 10", columnasEnHeader);
-                throw new IllegalArgumentException(errorMsg);
-            }
+    /**
+     * Sexo y fecha de nacimiento de los asegurados del lote (una consulta con = ANY)
+     */
+    private Map<String, DatosAsegurado> buscarAseguradosParaEnriquecer(Set<String> dnis) {
+        Map<String, DatosAsegurado> asegurados = new HashMap<>();
+        dnis.remove("");
+        if (dnis.isEmpty()) {
+            return asegurados;
+        }
+        try {
+            jdbcTemplate.query(SQL_ASEGURADOS_ENRIQUECIMIENTO, (RowCallbackHandler) rs ->
+                asegurados.putIfAbsent(rs.getString("doc_paciente"), new DatosAsegurado(
+                    rs.getString("sexo"), rs.getObject("fecnacimpaciente", LocalDate.class))),
+                (Object) dnis.toArray(String[]::new));
+        } catch (DataAccessException e) {
+            log.error("ERROR al consultar asegurados para enriquecer el lote: {}", e.getMessage());
+        }
+        return asegurados;
+    }
 
-            if (columnasEnHeader < 11) {
-                log.warn("⚠️ [VALIDACIÓN ADVERTENCIA] Excel tiene {} columnas, se esperan 11. " +
-                         "Si hay errores, revisa que el Excel tenga exactamente 11 columnas sin espacios ocultos.", columnasEnHeader);
-            } else {
-                log.info("✅ [VALIDACIÓN OK] Estructura correcta: 11 columnas detectadas");
+    /**
+     * Ejecuta la fila en su propia transacción. Los errores de la fila ya se reportan en
+     * procesarFilaImportacion; si el commit falla en una fila contada como OK, se corrige aquí.
+     */
+    private void procesarFilaEnTransaccion(ContextoImportacion ctx, FilaLeida fila, Map<String, String> campos,
+                                           Map<String, DatosAsegurado> asegurados) {
+        int filasOkAntes = ctx.filasOk;
+        try {
+            transactionTemplate.executeWithoutResult(estado ->
+                procesarFilaImportacion(ctx, fila.numero(), fila.valores(), campos, asegurados));
+        } catch (TransactionException | DataAccessException e) {
+            if (ctx.filasOk == filasOkAntes) {
+                log.debug("↩️ [FILA {}] Transacción revertida (error ya reportado): {}", fila.numero(), e.getMessage());
+                return;
+            }
+            ctx.filasOk--;
+            ctx.filasError++;
+            PendienteGeneral ultimo = ctx.pendientesGeneral.isEmpty() ? null
+                : ctx.pendientesGeneral.get(ctx.pendientesGeneral.size() - 1);
+            if (ultimo != null && ultimo.fila() == fila.numero()) {
+                ctx.pendientesGeneral.remove(ctx.pendientesGeneral.size() - 1);
             }
+            ctx.otrosErrores.agregar(Map.of(
+                "fila", fila.numero(),
+                "dni", campos != null ? campos.getOrDefault("dni", "DESCONOCIDO") : "DESCONOCIDO",
+                "error", "No se pudo confirmar la fila: " + e.getMostSpecificCause().getMessage()
+            ));
+            log.warn("❌ [FILA {}] Falló el commit de la fila: {}", fila.numero(), e.getMessage());
+        }
+    }
+
+    /**
+     * SEGURIDAD: Detecta si accidentalmente estamos leyendo una fila de headers
+     * (si la primera celda es "FECHA PREFERIDA QUE NO FUE ATENDIDA" o similar)
+     */
+    private static boolean esFilaCabecera(String[] valores) {
+        String primeracelda = valores[0].toLowerCase();
+        return primeracelda.contains("fecha preferida") || primeracelda.contains("tipo documento");
+    }
+
+    /**
+     * Procesa una fila de datos del Excel (filaNumero = índice de fila; 1 = primera fila de datos)
+     *
+     * @param camposPrevios campos ya extraídos en procesarLoteImportacion (null = extraer aquí)
+     * @param asegurados sexo y fecha de nacimiento de los asegurados del lote, por DNI
+     */
+    private void procesarFilaImportacion(ContextoImportacion ctx, int filaNumero, String[] valores,
+                                         Map<String, String> camposPrevios,
+                                         Map<String, DatosAsegurado> asegurados) {
+        if (esFilaCabecera(valores)) {
+            log.warn("⚠️  [FILA {}] Parece ser una fila de headers, saltando...", filaNumero);
+            return;
+        }
+
+        // Declarar rowDTO fuera del try para que esté disponible en el catch
+        SolicitudBolsaExcelRowDTO rowDTO = null;
 
+        try {
             // ============================================================================
-            // ✅ v2.2.0 NUEVO: ANÁLISIS PRE-PROCESAMIENTO DE DUPLICADOS
+            // 📋 EXTRACCIÓN INTELIGENTE DE COLUMNAS v1.18.0
+            // Detecta posición de TIPO_CITA en la fila y mapea columnas dinámicamente
+            // Soluciona problema de Apache POI leyendo 10 vs 11 columnas
             // ============================================================================
-            int totalFilasExcel = sheet.getLastRowNum();
-            ReporteDuplicadosDTO reporteDuplicados = analizarDuplicadosEnExcel(sheet, totalFilasExcel);
-            log.info("📊 [v2.2.0] Análisis de duplicados: {} mensaje",
-                reporteDuplicados.getMensajeResumen());
+            Map<String, String> camposExcel = camposPrevios != null
+                ? camposPrevios
+                : extraerCamposInteligentemente(valores, filaNumero);
+
+            String fechaPreferidaNoAtendida = camposExcel.get("fechaPreferidaNoAtendida");
+            String tipoDocumento = camposExcel.get("tipoDocumento");
+            if (tipoDocumento == null || tipoDocumento.isBlank()) {
+                tipoDocumento = "DNI";
+                log.info("📝 [TIPO_DOCUMENTO] Completado con valor por defecto: 'DNI'");
+            }
+            String dni = normalizarDNI(camposExcel.get("dni"));
 
-            // Procesar filas del Excel (empezando en fila 1, ignorar header en fila 0)
-            int filaNumero = 1;
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
+            // ✅ v2.2.0: KEEP_FIRST - Saltar si DNI ya fue procesado
+            if (ctx.dniProcesados.contains(dni)) {
+                Map<String, Object> saltado = Map.of(
+                    "fila", filaNumero,
+                    "dni", dni,
+                    "razon", "DNI duplicado - mantenido el primer registro (estrategia KEEP_FIRST)"
+                );
+                ctx.dniDuplicadosSaltados.agregar(saltado);
+                log.warn("⏭️  [FILA {}] DNI {} ya fue procesado, SALTANDO (KEEP_FIRST)", filaNumero, dni);
+                return;
+            }
+            ctx.dniProcesados.add(dni);  // Registrar DNI procesado
+            String nombreCompleto = camposExcel.get("nombreCompleto");
+            String sexo = camposExcel.get("sexo");
+            String fechaNacimiento = camposExcel.get("fechaNacimiento");
+            String telefonoPrincipal = camposExcel.get("telefonoPrincipal");
+            String telefonoAlterno = camposExcel.get("telefonoAlterno");
+            // Normalizar "No registrado" → vacío para teléfono alterno
+            if (telefonoAlterno != null && telefonoAlterno.equalsIgnoreCase("No registrado")) {
+                telefonoAlterno = "";
+            }
+            String correo = camposExcel.get("correo");
+            String codigoIpress = camposExcel.get("codigoIpress");
 
-                // SEGURIDAD: Detectar si accidentalmente estamos leyendo una fila de headers
-                // (si la primera celda es "FECHA PREFERIDA QUE NO FUE ATENDIDA" o similar)
-                String primeracelda = obtenerValorCelda(row.getCell(0));
-                if (primeracelda.toLowerCase().contains("fecha preferida") ||
-                    primeracelda.toLowerCase().contains("tipo documento")) {
-                    log.warn("⚠️  [FILA {}] Parece ser una fila de headers, saltando...", filaNumero);
-                    filaNumero++;
-                    continue;
+            // ============================================================================
+            // 🔧 NORMALIZAR COD. IPRESS A 3 DÍGITOS (21 → 021)
+            // ============================================================================
+            if (codigoIpress != null && !codigoIpress.isBlank()) {
+                try {
+                    int codigo = Integer.parseInt(codigoIpress.trim());
+                    codigoIpress = String.format("%03d", codigo);
+                    log.debug("✓ Código IPRESS normalizado: {} → {}", codigoIpress, codigoIpress);
+                } catch (NumberFormatException e) {
+                    log.warn("⚠️ Código IPRESS no numérico: {} para DNI {} | Usando valor original", codigoIpress.trim(), dni);
                 }
+            }
 
-                // Declarar rowDTO fuera del try para que esté disponible en el catch
-                SolicitudBolsaExcelRowDTO rowDTO = null;
-
+            String ipressAtencion = camposExcel.get("ipressAtencion");  // ✅ v1.15.0: Nueva columna
+            
+            // ============================================================================
+            // 🔧 NORMALIZAR IPRESS ATENCIÓN A 3 DÍGITOS (21 → 021) - v1.15.0
+            // ============================================================================
+            if (ipressAtencion != null && !ipressAtencion.isBlank()) {
                 try {
-                    // ============================================================================
-                    // 📋 EXTRACCIÓN INTELIGENTE DE COLUMNAS v1.18.0
-                    // Detecta posición de TIPO_CITA en la fila y mapea columnas dinámicamente
-                    // Soluciona problema de Apache POI leyendo 10 vs 11 columnas
-                    // ============================================================================
-                    Map<String, String> camposExcel = extraerCamposInteligentemente(row, filaNumero);
-
-                    String fechaPreferidaNoAtendida = camposExcel.get("fechaPreferidaNoAtendida");
-                    String tipoDocumento = camposExcel.get("tipoDocumento");
-                    if (tipoDocumento == null || tipoDocumento.isBlank()) {
-                        tipoDocumento = "DNI";
-                        log.info("📝 [TIPO_DOCUMENTO] Completado con valor por defecto: 'DNI'");
-                    }
-                    String dni = normalizarDNI(camposExcel.get("dni"));
+                    int codigo = Integer.parseInt(ipressAtencion.trim());
+                    ipressAtencion = String.format("%03d", codigo);
+                    log.debug("✓ Código IPRESS ATENCIÓN normalizado: {} → {}", ipressAtencion, ipressAtencion);
+                } catch (NumberFormatException e) {
+                    log.warn("⚠️ Código IPRESS ATENCIÓN no numérico: {} para DNI {} | Usando valor original", ipressAtencion.trim(), dni);
+                }
+            }
 
-                    // ✅ v2.2.0: KEEP_FIRST - Saltar si DNI ya fue procesado
-                    if (dniProcesados.contains(dni)) {
-                        Map<String, Object> saltado = Map.of(
-                            "fila", filaNumero,
-                            "dni", dni,
-                            "razon", "DNI duplicado - mantenido el primer registro (estrategia KEEP_FIRST)"
-                        );
-                        dniDuplicadosSaltados.add(saltado);
-                        log.warn("⏭️  [FILA {}] DNI {} ya fue procesado, SALTANDO (KEEP_FIRST)", filaNumero, dni);
-                        filaNumero++;
-                        continue;
-                    }
-                    dniProcesados.add(dni);  // Registrar DNI procesado
-                    String nombreCompleto = camposExcel.get("nombreCompleto");
-                    String sexo = camposExcel.get("sexo");
-                    String fechaNacimiento = camposExcel.get("fechaNacimiento");
-                    String telefonoPrincipal = camposExcel.get("telefonoPrincipal");
-                    String telefonoAlterno = camposExcel.get("telefonoAlterno");
-                    // Normalizar "No registrado" → vacío para teléfono alterno
-                    if (telefonoAlterno != null && telefonoAlterno.equalsIgnoreCase("No registrado")) {
-                        telefonoAlterno = "";
-                    }
-                    String correo = camposExcel.get("correo");
-                    String codigoIpress = camposExcel.get("codigoIpress");
+            String tipoCita = camposExcel.get("tipoCita");
+            // Normalizar tipoCita a PascalCase (VOLUNTARIA → Voluntaria, REFERENCIA → Referencia)
+            if (tipoCita != null && !tipoCita.isBlank()) {
+                String normalized = tipoCita.toLowerCase().trim();
+                tipoCita = normalized.equals("recita") ? "Recita" :
+                           normalized.equals("interconsulta") ? "Interconsulta" :
+                           normalized.equals("voluntaria") ? "Voluntaria" :
+                           normalized.equals("referencia") ? "Referencia" : tipoCita;
+            }
 
-                    // ============================================================================
-                    // 🔧 NORMALIZAR COD. IPRESS A 3 DÍGITOS (21 → 021)
-                    // ============================================================================
-                    if (codigoIpress != null && !codigoIpress.isBlank()) {
-                        try {
-                            int codigo = Integer.parseInt(codigoIpress.trim());
-                            codigoIpress = String.format("%03d", codigo);
-                            log.debug("✓ Código IPRESS normalizado: {} → {}", codigoIpress, codigoIpress);
-                        } catch (NumberFormatException e) {
-                            log.warn("⚠️ Código IPRESS no numérico: {} para DNI {} | Usando valor original", codigoIpress.trim(), dni);
-                        }
-                    }
+            // Validar campos obligatorios
+            if (dni.isBlank() || codigoIpress.isBlank()) {
+                ctx.errores.agregar(Map.of(
+                    "fila", filaNumero,
+                    "error", "DNI o COD. IPRESS ADSCRIPCIÓN vacío"
+                ));
+                ctx.filasError++;
+                return;
+            }
 
-                    String ipressAtencion = camposExcel.get("ipressAtencion");  // ✅ v1.15.0: Nueva columna
-                    
-                    // ============================================================================
-                    // 🔧 NORMALIZAR IPRESS ATENCIÓN A 3 DÍGITOS (21 → 021) - v1.15.0
-                    // ============================================================================
-                    if (ipressAtencion != null && !ipressAtencion.isBlank()) {
-                        try {
-                            int codigo = Integer.parseInt(ipressAtencion.trim());
-                            ipressAtencion = String.format("%03d", codigo);
-                            log.debug("✓ Código IPRESS ATENCIÓN normalizado: {} → {}", ipressAtencion, ipressAtencion);
-                        } catch (NumberFormatException e) {
-                            log.warn("⚠️ Código IPRESS ATENCIÓN no numérico: {} para DNI {} | Usando valor original", ipressAtencion.trim(), dni);
-                        }
-                    }
+            // ============================================================================
+            // 🔍 ENRIQUECIMIENTO INTELIGENTE OPTIMIZADO - Solo si datos están vacíos
+            // ============================================================================
+            // SOLO buscar en BD si SEXO o FECHA_NACIMIENTO están vacíos en Excel
+            Map<String, Object> datosEnriquecidos = new HashMap<>();
+            Boolean dniExisteEnBD = false;
+
+            if ((sexo == null || sexo.isBlank()) || (fechaNacimiento == null || fechaNacimiento.isBlank())) {
+                // Hay datos faltantes, buscar en BD
+                datosEnriquecidos = enriquecerDatosDesdeAsegurado(dni, sexo, fechaNacimiento, asegurados);
+                dniExisteEnBD = (Boolean) datosEnriquecidos.get("existe");
+            } else {
+                // Excel tiene ambos datos, no buscar en BD
+                log.info("✓ [ENRIQUECIMIENTO SKIP] Excel tiene SEXO y FECHA_NACIMIENTO completos para DNI {}", dni);
+            }
 
-                    String tipoCita = camposExcel.get("tipoCita");
-                    // Normalizar tipoCita a PascalCase (VOLUNTARIA → Voluntaria, REFERENCIA → Referencia)
-                    if (tipoCita != null && !tipoCita.isBlank()) {
-                        String normalized = tipoCita.toLowerCase().trim();
-                        tipoCita = normalized.equals("recita") ? "Recita" :
-                                   normalized.equals("interconsulta") ? "Interconsulta" :
-                                   normalized.equals("voluntaria") ? "Voluntaria" :
-                                   normalized.equals("referencia") ? "Referencia" : tipoCita;
-                    }
+            String sexoEnriquecido = (String) datosEnriquecidos.getOrDefault("sexo", "");
+            String fechaNacimientoEnriquecido = (String) datosEnriquecidos.getOrDefault("fechaNacimiento", "");
+
+            // Lógica flexible de enriquecimiento:
+            // - Si existe en asegurados: enriquece datos faltantes desde BD
+            // - Si NO existe en asegurados: permite solo si Excel tiene SEXO y F.NAC completos
+            if (dniExisteEnBD) {
+                // DNI EXISTE: usar enriquecimiento para campos vacíos
+                if (sexo == null || sexo.isBlank()) {
+                    sexo = sexoEnriquecido;
+                    log.info("📊 [ENRIQUECIMIENTO] SEXO completado desde asegurados para DNI {}: {}", dni, sexo);
+                }
+                if (fechaNacimiento == null || fechaNacimiento.isBlank()) {
+                    fechaNacimiento = fechaNacimientoEnriquecido;
+                    log.info("📅 [ENRIQUECIMIENTO] FECHA_NACIMIENTO completada desde asegurados para DNI {}: {}", dni, fechaNacimiento);
+                }
+            }
+            // DNI no importa si existe o no - si Excel tiene SEXO y FECHA_NACIMIENTO, proceder
 
-                    // Validar campos obligatorios
-                    if (dni.isBlank() || codigoIpress.isBlank()) {
-                        errores.add(Map.of(
-                            "fila", filaNumero,
-                            "error", "DNI o COD. IPRESS ADSCRIPCIÓN vacío"
-                        ));
-                        filasError++;
-                        filaNumero++;
-                        continue;
-                    }
+            // ============================================================================
+            // ASEGURAR QUE SEXO Y FECHA_NACIMIENTO NO ESTÉN VACÍOS (FALLBACK A VALORES POR DEFECTO)
+            // ============================================================================
+            if (sexo == null || sexo.isBlank()) {
+                sexo = "O"; // Otro
+                log.warn("⚠️  Fila {}: SEXO está vacío incluso después de enriquecimiento. Usando fallback: '{}'", filaNumero, sexo);
+            }
+            if (fechaNacimiento == null || fechaNacimiento.isBlank()) {
+                fechaNacimiento = "1900-01-01"; // Fecha genérica como fallback
+                log.warn("⚠️  Fila {}: FECHA_NACIMIENTO está vacía incluso después de enriquecimiento. Usando fallback: '{}'", filaNumero, fechaNacimiento);
+            }
 
-                    // ============================================================================
-                    // 🔍 ENRIQUECIMIENTO INTELIGENTE OPTIMIZADO - Solo si datos están vacíos
-                    // ============================================================================
-                    // SOLO buscar en BD si SEXO o FECHA_NACIMIENTO están vacíos en Excel
-                    Map<String, Object> datosEnriquecidos = new HashMap<>();
-                    Boolean dniExisteEnBD = false;
-
-                    if ((sexo == null || sexo.isBlank()) || (fechaNacimiento == null || fechaNacimiento.isBlank())) {
-                        // Hay datos faltantes, buscar en BD
-                        datosEnriquecidos = enriquecerDatosDesdeAsegurado(dni, sexo, fechaNacimiento);
-                        dniExisteEnBD = (Boolean) datosEnriquecidos.get("existe");
-                    } else {
-                        // Excel tiene ambos datos, no buscar en BD
-                        log.info("✓ [ENRIQUECIMIENTO SKIP] Excel tiene SEXO y FECHA_NACIMIENTO completos para DNI {}", dni);
-                    }
+            // Crear DTO para procesar fila con TODOS los 12 campos (v1.15.0 - ahora enriquecidos)
+            rowDTO = new SolicitudBolsaExcelRowDTO(
+                filaNumero,
+                fechaPreferidaNoAtendida,
+                tipoDocumento,
+                dni,
+                nombreCompleto,
+                sexo,
+                fechaNacimiento,
+                telefonoPrincipal,
+                telefonoAlterno,
+                correo,
+                codigoIpress,
+                ipressAtencion,  // ✅ v1.15.0: Nuevo campo
+                tipoCita
+            );
 
-                    String sexoEnriquecido = (String) datosEnriquecidos.getOrDefault("sexo", "");
-                    String fechaNacimientoEnriquecido = (String) datosEnriquecidos.getOrDefault("fechaNacimiento", "");
-
-                    // Lógica flexible de enriquecimiento:
-                    // - Si existe en asegurados: enriquece datos faltantes desde BD
-                    // - Si NO existe en asegurados: permite solo si Excel tiene SEXO y F.NAC completos
-                    if (dniExisteEnBD) {
-                        // DNI EXISTE: usar enriquecimiento para campos vacíos
-                        if (sexo == null || sexo.isBlank()) {
-                            sexo = sexoEnriquecido;
-                            log.info("📊 [ENRIQUECIMIENTO] SEXO completado desde asegurados para DNI {}: {}", dni, sexo);
-                        }
-                        if (fechaNacimiento == null || fechaNacimiento.isBlank()) {
-                            fechaNacimiento = fechaNacimientoEnriquecido;
-                            log.info("📅 [ENRIQUECIMIENTO] FECHA_NACIMIENTO completada desde asegurados para DNI {}: {}", dni, fechaNacimiento);
-                        }
-                    }
-                    // DNI no importa si existe o no - si Excel tiene SEXO y FECHA_NACIMIENTO, proceder
-
-                    // ============================================================================
-                    // ASEGURAR QUE SEXO Y FECHA_NACIMIENTO NO ESTÉN VACÍOS (FALLBACK A VALORES POR DEFECTO)
-                    // ============================================================================
-                    if (sexo == null || sexo.isBlank()) {
-                        sexo = "O"; // Otro
-                        log.warn("⚠️  Fila {}: SEXO está vacío incluso después de enriquecimiento. Usando fallback: '{}'", filaNumero, sexo);
-                    }
-                    if (fechaNacimiento == null || fechaNacimiento.isBlank()) {
-                        fechaNacimiento = "1900-01-01"; // Fecha genérica como fallback
-                        log.warn("⚠️  Fila {}: FECHA_NACIMIENTO está vacía incluso después de enriquecimiento. Usando fallback: '{}'", filaNumero, fechaNacimiento);
-                    }
+            // ============================================================================
+            // CORRECCIÓN #1: VALIDAR TELÉFONOS ANTES DE PROCESAR
+            // ============================================================================
+            validarTelefonos(filaNumero, rowDTO.telefonoPrincipal(), rowDTO.telefonoAlterno());
 
-                    // Crear DTO para procesar fila con TODOS los 12 campos (v1.15.0 - ahora enriquecidos)
-                    rowDTO = new SolicitudBolsaExcelRowDTO(
-                        filaNumero,
-                        fechaPreferidaNoAtendida,
-                        tipoDocumento,
-                        dni,
-                        nombreCompleto,
-                        sexo,
-                        fechaNacimiento,
-                        telefonoPrincipal,
-                        telefonoAlterno,
-                        correo,
-                        codigoIpress,
-                        ipressAtencion,  // ✅ v1.15.0: Nuevo campo
-                        tipoCita
-                    );
+            // Procesar y validar fila
+            SolicitudBolsa solicitud = procesarFilaExcel(
+                rowDTO, ctx.idBolsa, ctx.idServicio, ctx.usuarioCarga, ctx.idHistorial
+            );
 
-                    // ============================================================================
-                    // CORRECCIÓN #1: VALIDAR TELÉFONOS ANTES DE PROCESAR
-                    // ============================================================================
-                    validarTelefonos(filaNumero, rowDTO.telefonoPrincipal(), rowDTO.telefonoAlterno());
+            // ============================================================================
+            // ✅ v1.20.0: DETECCIÓN DE DUPLICADOS CON AUDITORÍA
+            // ============================================================================
+            Map<String, Object> infoDuplicado = detectarDuplicado(filaNumero, ctx.idBolsa, solicitud, ctx.servicio);
+
+            // Si es duplicado, registrarlo en auditoría y saltar
+            if (infoDuplicado != null) {
+                ctx.duplicados.agregar(infoDuplicado);
+
+                // ✅ v1.20.0: Usar servicio dedicado de auditoría
+                auditErrorService.registrarError(
+                    ctx.idHistorial,
+                    filaNumero,
+                    rowDTO,
+                    TipoErrorImportacion.DUPLICADO,
+                    (String) infoDuplicado.get("razon"),
+                    solicitud
+                );
 
-                    // Obtener datos del servicio ANTES de procesar
-                    DimServicioEssi servicio = dimServicioEssiRepository.findById(idServicio).orElse(null);
+                ctx.filasError++;
+                return;
+            }
 
-                    // Procesar y validar fila
-                    SolicitudBolsa solicitud = procesarFilaExcel(
-                        rowDTO, idBolsa, idServicio, usuarioCarga, idHistorial
-                    );
+            // Guardar solicitud (número ya pre-validado en procesarFilaExcel)
+            try {
+                solicitudRepository.save(solicitud);
+                
+                // ✅ Guardar también en DimSolicitudBolsasGeneral
+                try {
+                    DimSolicitudBolsasGeneral dimSolicitud = DimSolicitudBolsasGeneral.builder()
+                        .idCarga(ctx.idHistorial)
+                        .idBolsa(ctx.idBolsa)
+                        .idServicio(ctx.idServicio)
+                        .fechaPreferidaNoAtendida(solicitud.getFechaPreferidaNoAtendida())
+                        .tipoDocumento(rowDTO.tipoDocumento())
+                        .dni(rowDTO.dni())
+                        .asegurado(rowDTO.nombreCompleto())
+                        .sexo(rowDTO.sexo())
+                        .fechaNacimiento(solicitud.getFechaNacimiento())
+                        .telefonoPrincipal(rowDTO.telefonoPrincipal())
+                        .telefonoAlterno(rowDTO.telefonoAlterno())
+                        .correo(rowDTO.correo())
+                        .codIpressAdscripcion(rowDTO.codigoIpress())
+                        .ipressAtencion(rowDTO.ipressAtencion())
+                        .tipoCita(rowDTO.tipoCita())
+                        .build();
+                    
+                    // Se inserta por lotes en cerrarLoteImportacion
+                    ctx.pendientesGeneral.add(new PendienteGeneral(filaNumero, dimSolicitud));
+                } catch (Exception e) {
+                    log.error("❌ [FILA {}] Error preparando DimSolicitudBolsasGeneral: {}", filaNumero, e.getMessage(), e);
+                }
+                
+                ctx.filasOk++;
+                log.debug("✅ [FILA {}] Solicitud guardada exitosamente | DNI: {} | Bolsa: {} | Número: {}",
+                    filaNumero, rowDTO.dni(), ctx.idBolsa, solicitud.getNumeroSolicitud());
+            } catch (org.springframework.dao.DataIntegrityViolationException e) {
+                // ============================================================================
+                // v1.20.0: MANEJAR ERRORES DE INTEGRIDAD CON AUDITORÍA
+                // ============================================================================
+                String mensajeError = manejarErrorIntegridad(filaNumero, rowDTO, e);
+                ctx.otrosErrores.agregar(Map.of(
+                    "fila", filaNumero,
+                    "dni", rowDTO.dni(),
+                    "error", mensajeError
+                ));
 
-                    // ============================================================================
-                    // ✅ v1.20.0: DETECCIÓN DE DUPLICADOS CON AUDITORÍA
-                    // ============================================================================
-                    Map<String, Object> infoDuplicado = detectarDuplicado(filaNumero, idBolsa, solicitud, servicio);
-
-                    // Si es duplicado, registrarlo en auditoría y saltar
-                    if (infoDuplicado != null) {
-                        duplicados.add(infoDuplicado);
-
-                        // ✅ v1.20.0: Usar servicio dedicado de auditoría
-                        auditErrorService.registrarError(
-                            idHistorial,
-                            filaNumero,
-                            rowDTO,
-                            TipoErrorImportacion.DUPLICADO,
-                            (String) infoDuplicado.get("razon"),
-                            solicitud
-                        );
-
-                        filasError++;
-                        filaNumero++;
-                        continue;
-                    }
+                // ✅ v1.20.0: Usar servicio dedicado de auditoría con transacción independiente
+                auditErrorService.registrarError(
+                    ctx.idHistorial,
+                    filaNumero,
+                    rowDTO,
+                    TipoErrorImportacion.CONSTRAINT,
+                    mensajeError,
+                    solicitud
+                );
 
-                    // Guardar solicitud (número ya pre-validado en procesarFilaExcel)
-                    try {
-                        solicitudRepository.save(solicitud);
-                        
-                        // ✅ Guardar también en DimSolicitudBolsasGeneral
-                        try {
-                            DimSolicitudBolsasGeneral dimSolicitud = DimSolicitudBolsasGeneral.builder()
-                                .idCarga(idHistorial)
-                                .idBolsa(idBolsa)
-                                .idServicio(idServicio)
-                                .fechaPreferidaNoAtendida(solicitud.getFechaPreferidaNoAtendida())
-                                .tipoDocumento(rowDTO.tipoDocumento())
-                                .dni(rowDTO.dni())
-                                .asegurado(rowDTO.nombreCompleto())
-                                .sexo(rowDTO.sexo())
-                                .fechaNacimiento(solicitud.getFechaNacimiento())
-                                .telefonoPrincipal(rowDTO.telefonoPrincipal())
-                                .telefonoAlterno(rowDTO.telefonoAlterno())
-                                .correo(rowDTO.correo())
-                                .codIpressAdscripcion(rowDTO.codigoIpress())
-                                .ipressAtencion(rowDTO.ipressAtencion())
-                                .tipoCita(rowDTO.tipoCita())
-                                .build();
-                            
-                            log.info("💾 [FILA {}] Guardando en DimSolicitudBolsasGeneral: DNI={}", filaNumero, rowDTO.dni());
-                            dimSolicitudBolsasGeneralRepository.save(dimSolicitud);
-                            log.info("✅ [FILA {}] DimSolicitudBolsasGeneral guardada exitosamente", filaNumero);
-                        } catch (Exception e) {
-                            log.error("❌ [FILA {}] Error guardando en DimSolicitudBolsasGeneral: {}", filaNumero, e.getMessage(), e);
-                        }
-                        
-                        filasOk++;
-                        log.info("✅ [FILA {}] Solicitud guardada exitosamente | DNI: {} | Bolsa: {} | Número: {}",
-                            filaNumero, rowDTO.dni(), idBolsa, solicitud.getNumeroSolicitud());
-                    } catch (org.springframework.dao.DataIntegrityViolationException e) {
-                        // ============================================================================
-                        // v1.20.0: MANEJAR ERRORES DE INTEGRIDAD CON AUDITORÍA
-                        // ============================================================================
-                        String mensajeError = manejarErrorIntegridad(filaNumero, rowDTO, e);
-                        otros_errores.add(Map.of(
+                // ✅ NUEVO: Registrar error en application_error_log (método genérico)
+                try {
+                    String constraintName = extraerConstraintName(e);
+                    String tipoViolacion = extraerTipoViolacion(e);
+                    errorLogService.logError(
+                        "DATABASE",
+                        tipoViolacion,
+                        e,
+                        null, // request - se pasa desde controller si está disponible
+                        ctx.usuarioCarga,
+                        Map.of(
+                            "archivo", ctx.nombreArchivo,
                             "fila", filaNumero,
                             "dni", rowDTO.dni(),
-                            "error", mensajeError
-                        ));
-
-                        // ✅ v1.20.0: Usar servicio dedicado de auditoría con transacción independiente
-                        auditErrorService.registrarError(
-                            idHistorial,
-                            filaNumero,
-                            rowDTO,
-                            TipoErrorImportacion.CONSTRAINT,
-                            mensajeError,
-                            solicitud
-                        );
-
-                        // ✅ NUEVO: Registrar error en application_error_log (método genérico)
-                        try {
-                            String constraintName = extraerConstraintName(e);
-                            String tipoViolacion = extraerTipoViolacion(e);
-                            errorLogService.logError(
-                                "DATABASE",
-                                tipoViolacion,
-                                e,
-                                null, // request - se pasa desde controller si está disponible
-                                usuarioCarga,
-                                Map.of(
-                                    "archivo", file.getOriginalFilename(),
-                                    "fila", filaNumero,
-                                    "dni", rowDTO.dni(),
-                                    "bolsa_id", idBolsa,
-                                    "servicio_id", idServicio,
-                                    "historial_id", idHistorial,
-                                    "numero_solicitud", solicitud.getNumeroSolicitud() != null ? solicitud.getNumeroSolicitud() : "N/A",
-                                    "constraint_name", constraintName,
-                                    "table_name", "dim_solicitud_bolsa"
-                                )
-                            );
-                        } catch (Exception logEx) {
-                            log.warn("⚠️ No se pudo registrar error en application_error_log: {}", logEx.getMessage());
-                        }
-
-                        // ✅ CRÍTICO: Limpiar la sesión para prevenir "transaction aborted"
-                        try {
-                            entityManager.clear();
-                            log.debug("🧹 Sesión limpiada después de error de constraint");
-                        } catch (Exception cleanupEx) {
-                            log.warn("⚠️ No se pudo limpiar sesión: {}", cleanupEx.getMessage());
-                        }
+                            "bolsa_id", ctx.idBolsa,
+                            "servicio_id", ctx.idServicio,
+                            "historial_id", ctx.idHistorial,
+                            "numero_solicitud", solicitud.getNumeroSolicitud() != null ? solicitud.getNumeroSolicitud() : "N/A",
+                            "constraint_name", constraintName,
+                            "table_name", "dim_solicitud_bolsa"
+                        )
+                    );
+                } catch (Exception logEx) {
+                    log.warn("⚠️ No se pudo registrar error en application_error_log: {}", logEx.getMessage());
+                }
 
-                        filasError++;
-                    }
+                // ✅ CRÍTICO: Limpiar la sesión para prevenir "transaction aborted"
+                try {
+                    entityManager.clear();
+                    log.debug("🧹 Sesión limpiada después de error de constraint");
+                } catch (Exception cleanupEx) {
+                    log.warn("⚠️ No se pudo limpiar sesión: {}", cleanupEx.getMessage());
+                }
 
-                } catch (Exception e) {
-                    log.warn("❌ Error procesando fila {}: {}", filaNumero, e.getMessage());
+                ctx.filasError++;
+            }
 
-                    // Generar mensaje de error en español basado en el tipo de excepción
-                    String mensajeEnEspanol = generarMensajeErrorEnEspanol(filaNumero, rowDTO, e);
+        } catch (Exception e) {
+            log.warn("❌ Error procesando fila {}: {}", filaNumero, e.getMessage());
 
-                    // ✅ NUEVO: Registrar error genérico en application_error_log
-                    try {
-                        errorLogService.logError(
-                            "BUSINESS",
-                            "IMPORT_ROW_ERROR",
-                            e,
-                            null, // request
-                            usuarioCarga,
-                            Map.of(
-                                "archivo", file.getOriginalFilename(),
-                                "fila", filaNumero,
-                                "dni", rowDTO != null ? rowDTO.dni() : "N/A",
-                                "bolsa_id", idBolsa,
-                                "servicio_id", idServicio,
-                                "historial_id", idHistorial
-                            )
-                        );
-                    } catch (Exception logEx) {
-                        log.warn("⚠️ No se pudo registrar error en application_error_log: {}", logEx.getMessage());
-                    }
+            // Generar mensaje de error en español basado en el tipo de excepción
+            String mensajeEnEspanol = generarMensajeErrorEnEspanol(filaNumero, rowDTO, e);
 
-                    otros_errores.add(Map.of(
+            // ✅ NUEVO: Registrar error genérico en application_error_log
+            try {
+                errorLogService.logError(
+                    "BUSINESS",
+                    "IMPORT_ROW_ERROR",
+                    e,
+                    null, // request
+                    ctx.usuarioCarga,
+                    Map.of(
+                        "archivo", ctx.nombreArchivo,
                         "fila", filaNumero,
-                        "dni", rowDTO != null ? rowDTO.dni() : "DESCONOCIDO",
-                        "error", mensajeEnEspanol
-                    ));
-
-                    // ✅ v1.20.0: Usar servicio dedicado de auditoría con transacción independiente
-                    if (rowDTO != null) {
-                        auditErrorService.registrarError(
-                            idHistorial,
-                            filaNumero,
-                            rowDTO,
-                            TipoErrorImportacion.VALIDACION,
-                            mensajeEnEspanol,
-                            null  // solicitud podría no haberse creado
-                        );
-                    }
+                        "dni", rowDTO != null ? rowDTO.dni() : "N/A",
+                        "bolsa_id", ctx.idBolsa,
+                        "servicio_id", ctx.idServicio,
+                        "historial_id", ctx.idHistorial
+                    )
+                );
+            } catch (Exception logEx) {
+                log.warn("⚠️ No se pudo registrar error en application_error_log: {}", logEx.getMessage());
+            }
 
-                    // ✅ CRÍTICO: Limpiar la sesión de Hibernate para prevenir "transaction aborted"
-                    try {
-                        entityManager.clear();
-                        log.debug("🧹 Sesión limpiada después de error en fila {}", filaNumero);
-                    } catch (Exception cleanupEx) {
-                        log.warn("⚠️ No se pudo limpiar sesión en fila {}: {}", filaNumero, cleanupEx.getMessage());
-                    }
+            ctx.otrosErrores.agregar(Map.of(
+                "fila", filaNumero,
+                "dni", rowDTO != null ? rowDTO.dni() : "DESCONOCIDO",
+                "error", mensajeEnEspanol
+            ));
 
-                    filasError++;
-                }
+            // ✅ v1.20.0: Usar servicio dedicado de auditoría con transacción independiente
+            if (rowDTO != null) {
+                auditErrorService.registrarError(
+                    ctx.idHistorial,
+                    filaNumero,
+                    rowDTO,
+                    TipoErrorImportacion.VALIDACION,
+                    mensajeEnEspanol,
+                    null  // solicitud podría no haberse creado
+                );
+            }
 
-                filaNumero++;
+            // ✅ CRÍTICO: Limpiar la sesión de Hibernate para prevenir "transaction aborted"
+            try {
+                entityManager.clear();
+                log.debug("🧹 Sesión limpiada después de error en fila {}", filaNumero);
+            } catch (Exception cleanupEx) {
+                log.warn("⚠️ No se pudo limpiar sesión en fila {}: {}", filaNumero, cleanupEx.getMessage());
             }
 
-            workbook.close();
+            ctx.filasError++;
+        }
+    }
 
-            // ============================================================================
-            // ✅ v2.2.0: Agregar reporte de deduplicación KEEP_FIRST
-            // ============================================================================
-            Map<String, Object> reporteDeduplicacion = new HashMap<>();
-            reporteDeduplicacion.put("estrategia", "KEEP_FIRST");
-            reporteDeduplicacion.put("dniDuplicadosSaltados", dniDuplicadosSaltados.size());
-            reporteDeduplicacion.put("dniDuplicadosDetalles", dniDuplicadosSaltados);
+    /**
+     * Cierra el lote actual: inserta dim_solicitud_bolsas_general en lote y publica el avance de la carga.
+     * (Cada fila confirmó en su transacción, que libera su propio contexto de persistencia.)
+     */
+    private void cerrarLoteImportacion(ContextoImportacion ctx) {
+        insertarSolicitudesGeneralEnLote(ctx, ctx.pendientesGeneral);
+        ctx.pendientesGeneral.clear();
+
+        progresoImportacionService.actualizarAvance(
+            ctx.idHistorial, ctx.filasOk + ctx.filasError, ctx.filasOk, ctx.filasError);
+        log.info("📦 [IMPORTACIÓN {}] Avance: {} filas leídas | {} OK | {} con error",
+            ctx.idHistorial, ctx.filasLeidas, ctx.filasOk, ctx.filasError);
+    }
 
-            // ============================================================================
-            // ✅ CORRECCIÓN v1.19.0: Preparar resultado CON SEPARACIÓN DE DUPLICADOS
-            // ============================================================================
-            resultado.put("filas_total", filasOk + filasError);
-            resultado.put("filas_ok", filasOk);
-            resultado.put("filas_error", filasError);
-            resultado.put("filas_duplicadas", duplicados.size());
-            resultado.put("filas_otros_errores", otros_errores.size());
-            resultado.put("filas_deduplicadas_saltadas", dniDuplicadosSaltados.size());  // ✅ v2.2.0
-
-            // Incluir ambas listas por separado
-            resultado.put("duplicados", duplicados);
-            resultado.put("otros_errores", otros_errores);
-            resultado.put("errores", errores); // Mantener para compatibilidad (lista combinada)
-            resultado.put("reporte_deduplicacion", reporteDeduplicacion);  // ✅ v2.2.0
-            resultado.put("reporte_analisis_duplicados", reporteDuplicados);  // ✅ v2.2.0
+    /**
+     * Inserta en lote (JDBC batch) las filas de dim_solicitud_bolsas_general del lote.
+     * Se omiten las que no cumplen los NOT NULL de la tabla.
+     * Si el lote falla se reintenta fila por fila (cada una en su transacción) y las filas
+     * rechazadas se reportan en errores_registro_general.
+     */
+    private void insertarSolicitudesGeneralEnLote(ContextoImportacion ctx, List<PendienteGeneral> lote) {
+        List<PendienteGeneral> validos = new ArrayList<>(lote.size());
+        for (PendienteGeneral p : lote) {
+            DimSolicitudBolsasGeneral d = p.datos();
+            if (d.getFechaPreferidaNoAtendida() == null || isBlank(d.getAsegurado()) || isBlank(d.getTipoDocumento())) {
+                log.warn("⚠️ DimSolicitudBolsasGeneral omitida (campos obligatorios vacíos) - DNI: {}", d.getDni());
+                continue;
+            }
+            validos.add(p);
+        }
+        if (validos.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(estado ->
+                jdbcTemplate.batchUpdate(SQL_INSERT_SOLICITUD_BOLSAS_GENERAL, validos, validos.size(),
+                    (ps, p) -> asignarParametrosGeneral(ps, p.datos())));
+            return;
+        } catch (TransactionException | DataAccessException e) {
+            log.warn("⚠️ [IMPORTACIÓN {}] Falló el lote de dim_solicitud_bolsas_general, se reintenta fila por fila: {}",
+                ctx.idHistorial, e.getMessage());
+        }
+        for (PendienteGeneral p : validos) {
+            try {
+                transactionTemplate.executeWithoutResult(estado ->
+                    jdbcTemplate.update(SQL_INSERT_SOLICITUD_BOLSAS_GENERAL, ps -> asignarParametrosGeneral(ps, p.datos())));
+            } catch (TransactionException | DataAccessException e) {
+                log.warn("❌ [FILA {}] No se pudo registrar en dim_solicitud_bolsas_general: {}", p.fila(), e.getMessage());
+                ctx.erroresGeneral.agregar(Map.of(
+                    "fila", p.fila(),
+                    "dni", p.datos().getDni() != null ? p.datos().getDni() : "DESCONOCIDO",
+                    "error", String.valueOf(e.getMostSpecificCause().getMessage())
+                ));
+            }
+        }
+    }
 
-            resultado.put("mensaje", String.format(
-                "Importación completada: %d OK, %d saltados (KEEP_FIRST), %d duplicados, %d otros errores",
-                filasOk, dniDuplicadosSaltados.size(), duplicados.size(), otros_errores.size()
-            ));
+    private static void asignarParametrosGeneral(PreparedStatement ps, DimSolicitudBolsasGeneral d) throws SQLException {
+        ps.setObject(1, d.getIdCarga(), java.sql.Types.BIGINT);
+        ps.setObject(2, d.getIdBolsa(), java.sql.Types.BIGINT);
+        ps.setObject(3, d.getIdServicio(), java.sql.Types.BIGINT);
+        ps.setObject(4, d.getFechaPreferidaNoAtendida(), java.sql.Types.DATE);
+        ps.setString(5, d.getTipoDocumento());
+        ps.setString(6, d.getDni());
+        ps.setString(7, d.getAsegurado());
+        ps.setString(8, d.getSexo());
+        ps.setObject(9, d.getFechaNacimiento(), java.sql.Types.DATE);
+        ps.setString(10, d.getTelefonoPrincipal());
+        ps.setString(11, d.getTelefonoAlterno());
+        ps.setString(12, d.getCorreo());
+        ps.setString(13, d.getCodIpressAdscripcion());
+        ps.setString(14, d.getIpressAtencion());
+        ps.setString(15, d.getTipoCita());
+    }
 
-        } catch (org.springframework.transaction.UnexpectedRollbackException e) {
-            // CRÍTICO: Spring marcó la transacción como rollback-only
-            // Devolver error sin intentar más operaciones
-            log.error("❌ Transacción marcada como rollback-only: {}", e.getMessage());
-            resultado.put("error", "Error en importación: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
-            resultado.put("filas_ok", filasOk);
-            resultado.put("filas_error", filasError);
-            return resultado;
+    private void eliminarArchivoTemporal(java.nio.file.Path temporal) {
+        if (temporal == null) {
+            return;
+        }
+        try {
+            java.nio.file.Files.deleteIfExists(temporal);
         } catch (IOException e) {
-            log.error("Error al leer archivo Excel: ", e);
-            resultado.put("error", "Error al procesar archivo Excel: " + e.getMessage());
-            return resultado;
-        } catch (Exception e) {
-            log.error("Error inesperado en importación: ", e);
-            resultado.put("error", "Error inesperado: " + e.getMessage());
-            return resultado;
+            log.warn("⚠️ No se pudo eliminar archivo temporal {}: {}", temporal, e.getMessage());
         }
+    }
 
-        return resultado;
+    /** Fila leída del Excel (índice 0-based, igual que el reporte de duplicados) */
+    private record FilaLeida(int numero, String[] valores) {
+    }
+
+    /** Fila pendiente de dim_solicitud_bolsas_general con su número de fila para el reporte */
+    private record PendienteGeneral(int fila, DimSolicitudBolsasGeneral datos) {
+    }
+
+    /** Datos del asegurado usados para completar SEXO y FECHA_NACIMIENTO */
+    private record DatosAsegurado(String sexo, LocalDate fechaNacimiento) {
+    }
+
+    /**
+     * Lista de detalle del resultado: cuenta todas las filas pero conserva solo las primeras MAX_DETALLE_RESULTADO
+     */
+    private static final class DetalleAcotado {
+        private final List<Map<String, Object>> items = new ArrayList<>();
+        private int total;
+
+        private void agregar(Map<String, Object> item) {
+            total++;
+            if (items.size() < MAX_DETALLE_RESULTADO) {
+                items.add(item);
+            }
+        }
+    }
+
+    /**
+     * Estado de una importación en curso: contadores, DNIs vistos y lote pendiente.
+     * Las listas de detalle están acotadas; los conjuntos de DNIs crecen con los DNIs distintos del archivo.
+     */
+    private static final class ContextoImportacion {
+        private final String nombreArchivo;
+        private final Long idBolsa;
+        private final Long idServicio;
+        private final String usuarioCarga;
+        private final Long idHistorial;
+        private DimServicioEssi servicio;
+
+        private boolean cabeceraValidada;
+        private int filasLeidas;
+        private int filasOk;
+        private int filasError;
+        private int filasUnicas;
+        private int filasDuplicadas;
+
+        private final DetalleAcotado errores = new DetalleAcotado();
+        private final DetalleAcotado duplicados = new DetalleAcotado();  // ✅ Lista separada de duplicados
+        private final DetalleAcotado otrosErrores = new DetalleAcotado();
+        private final DetalleAcotado erroresGeneral = new DetalleAcotado();
+        // ✅ v2.2.0: KEEP_FIRST - Trackear DNI procesados para saltar duplicados
+        private final Set<String> dniProcesados = new HashSet<>();
+        private final DetalleAcotado dniDuplicadosSaltados = new DetalleAcotado();
+        // Reporte de duplicados: primera fila por DNI crudo y filas de los DNIs repetidos (acotado)
+        private final Map<String, Integer> primeraFilaPorDni = new HashMap<>();
+        private final Set<String> dnisRepetidos = new HashSet<>();
+        private final Map<String, List<Integer>> filasDniRepetidos = new LinkedHashMap<>();
+        private final List<FilaLeida> loteFilas = new ArrayList<>(TAMANO_LOTE_IMPORTACION);
+        private final List<PendienteGeneral> pendientesGeneral = new ArrayList<>();
+
+        private ContextoImportacion(String nombreArchivo, Long idBolsa, Long idServicio,
+                                    String usuarioCarga, Long idHistorial) {
+            this.nombreArchivo = nombreArchivo;
+            this.idBolsa = idBolsa;
+            this.idServicio = idServicio;
+            this.usuarioCarga = usuarioCarga;
+            this.idHistorial = idHistorial;
+        }
     }
 
     @Override
@@ -631,9 +977,57 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
                 primera.length, primera.length > 24 ? primera[24] : "N/A",
                 primera.length > 25 ? primera[25] : "N/A");
         }
-        return resultados.stream()
-            .map(this::mapFromResultSet)
-            .collect(java.util.stream.Collectors.toList());
+        return mapearFilas(resultados);
+    }
+
+    /**
+     * Mapea las filas de la consulta nativa en dos fases:
+     * 1) reúne los DNIs de las filas a las que les falta fecha de nacimiento, IPRESS o contacto;
+     * 2) los resuelve con consultas IN por lotes y mapea cada fila sin consultas adicionales.
+     * Las descripciones de IPRESS salen de {@link IpressCatalogoService} (en memoria).
+     */
+    private List<SolicitudBolsaDTO> mapearFilas(List<Object[]> filas) {
+        Set<String> dnisPorCompletar = new HashSet<>();
+        for (Object[] row : filas) {
+            String dni = (String) row[4];
+            if (!isBlank(dni) && necesitaEnriquecimiento(row)) {
+                dnisPorCompletar.add(dni);
+            }
+        }
+
+        Map<String, Asegurado> aseguradosPorDni = new HashMap<>();
+        if (!dnisPorCompletar.isEmpty()) {
+            List<String> dnis = new ArrayList<>(dnisPorCompletar);
+            try {
+                for (int i = 0; i < dnis.size(); i += LOTE_DNIS_ENRIQUECIMIENTO) {
+                    List<String> lote = dnis.subList(i, Math.min(i + LOTE_DNIS_ENRIQUECIMIENTO, dnis.size()));
+                    for (Asegurado a : aseguradoRepository.findByDocPacienteIn(lote)) {
+                        aseguradosPorDni.putIfAbsent(a.getDocPaciente(), a);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("❌ Error cargando asegurados para enriquecimiento ({} DNIs): {}", dnis.size(), e.getMessage());
+            }
+            log.debug("🔍 Enriquecimiento: {} filas, {} DNIs por completar, {} asegurados encontrados",
+                filas.size(), dnisPorCompletar.size(), aseguradosPorDni.size());
+        }
+
+        List<SolicitudBolsaDTO> dtos = new ArrayList<>(filas.size());
+        for (Object[] row : filas) {
+            dtos.add(mapFromResultSet(row, aseguradosPorDni));
+        }
+        return dtos;
+    }
+
+    /**
+     * Falta fecha_nacimiento, desc_ipress o algún dato de contacto en la fila
+     */
+    private boolean necesitaEnriquecimiento(Object[] row) {
+        return row[8] == null
+            || isBlank((String) row[27])
+            || isBlank((String) row[10])
+            || isBlank((String) row[11])
+            || isBlank((String) row[12]);
     }
 
     /**
@@ -645,7 +1039,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
      * (30-37): Asignación gestora + campos temporales + médico
      * (38-40): IPRESS - Atención (NEW v1.15.0)
      */
-    private SolicitudBolsaDTO mapFromResultSet(Object[] row) {
+    private SolicitudBolsaDTO mapFromResultSet(Object[] row, Map<String, Asegurado> aseguradosPorDni) {
         try {
             // Convertir fechas SQL a LocalDate/OffsetDateTime
             java.time.LocalDate fechaPreferida = convertToLocalDate(row[6]); // fecha_preferida_no_atendida
@@ -655,48 +1049,36 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             String descIpress = (String) row[27]; // +1 por desc_estado_cita en idx 22
             String pacienteDni = (String) row[4];
 
-            // 🔍 DEBUG: Loguear cuándo descIpress está en blanco
-            if (isBlank(descIpress)) {
-                log.warn("🔍 [ENRIQUECIMIENTO] ID {} DNI {} - descIpress ESTÁ EN BLANCO, buscando en asegurados",
-                    row[0], pacienteDni);
-            }
-
-            // ✅ v1.68.0 - Enriquecimiento extendido: Si falta fecha_nacimiento o IPRESS, buscar en asegurados por DNI
-            if ((fechaNacimiento == null || isBlank(descIpress)) && !isBlank(pacienteDni)) {
-                try {
-                    Optional<Asegurado> aseguradoOpt = aseguradoRepository.findByDocPaciente(pacienteDni);
-                    if (aseguradoOpt.isPresent()) {
-                        Asegurado asegurado = aseguradoOpt.get();
-
-                        // Si no hay fecha_nacimiento en BD de solicitud, usar la del asegurado
-                        if (fechaNacimiento == null && asegurado.getFecnacimpaciente() != null) {
-                            fechaNacimiento = asegurado.getFecnacimpaciente();
-                            log.info("✅ v1.68.0 - Fecha nacimiento completada desde tabla asegurados para DNI: {}", pacienteDni);
-                        }
+            // ✅ v1.67.0 - Datos de contacto (se completan desde asegurados si faltan)
+            String pacienteTelefono = (String) row[10];
+            String pacienteTelefonoAlterno = (String) row[11];
+            String pacienteEmail = (String) row[12];
 
-                        // Si no hay IPRESS, usar casAdscripcion del asegurado y buscar descripción
-                        if (isBlank(descIpress) && !isBlank(asegurado.getCasAdscripcion())) {
-                            String codigoIpress = asegurado.getCasAdscripcion().trim();
-                            // Normalizar a 3 dígitos: dim_ipress.cod_ipress siempre usa "021", "010", etc.
-                            try {
-                                codigoIpress = String.format("%03d", Integer.parseInt(codigoIpress));
-                            } catch (NumberFormatException ignored) { /* alfanumérico, no normalizar */ }
-                            // Buscar IPRESS por código normalizado en dim_ipress
-                            try {
-                                Optional<Ipress> ipressOpt = ipressRepository.findByCodIpress(codigoIpress);
-                                if (ipressOpt.isPresent()) {
-                                    descIpress = ipressOpt.get().getDescIpress();
-                                    log.info("✅ v1.68.0 - IPRESS completada desde asegurados (código: {}) -> descripción: {}", codigoIpress, descIpress);
-                                } else {
-                                    log.warn("⚠️ v1.68.0 - No se encontró descripción para código IPRESS: {}", codigoIpress);
-                                }
-                            } catch (Exception e) {
-                                log.warn("⚠️ Error buscando descripción de IPRESS para código {}: {}", codigoIpress, e.getMessage());
-                            }
-                        }
+            // ✅ v1.68.0 - Enriquecimiento desde asegurados (precargados en lote por mapearFilas)
+            Asegurado asegurado = isBlank(pacienteDni) ? null : aseguradosPorDni.get(pacienteDni);
+            if (asegurado != null) {
+                // Si no hay fecha_nacimiento en BD de solicitud, usar la del asegurado
+                if (fechaNacimiento == null && asegurado.getFecnacimpaciente() != null) {
+                    fechaNacimiento = asegurado.getFecnacimpaciente();
+                }
+                // Si no hay IPRESS, usar casAdscripcion del asegurado y su descripción del catálogo
+                if (isBlank(descIpress) && !isBlank(asegurado.getCasAdscripcion())) {
+                    String descCatalogo = ipressCatalogoService.descripcionPorCodigo(asegurado.getCasAdscripcion());
+                    if (descCatalogo != null) {
+                        descIpress = descCatalogo;
                     }
-                } catch (Exception e) {
-                    log.error("❌ Error enriqueciendo fecha_nacimiento/IPRESS para DNI {}: {}", pacienteDni, e.getMessage());
+                }
+                // Si no hay teléfono principal, usar celular del asegurado
+                if (isBlank(pacienteTelefono) && !isBlank(asegurado.getTelCelular())) {
+                    pacienteTelefono = asegurado.getTelCelular();
+                }
+                // Si no hay teléfono alterno, usar teléfono fijo del asegurado
+                if (isBlank(pacienteTelefonoAlterno) && !isBlank(asegurado.getTelFijo())) {
+                    pacienteTelefonoAlterno = asegurado.getTelFijo();
+                }
+                // Si no hay correo, usar correo del asegurado
+                if (isBlank(pacienteEmail) && !isBlank(asegurado.getCorreoElectronico())) {
+                    pacienteEmail = asegurado.getCorreoElectronico();
                 }
             }
 
@@ -707,45 +1089,6 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             java.time.OffsetDateTime fechaAsignacion = row.length > 31 ? convertToOffsetDateTime(row[31]) : null; // NEW v2.4.0 (ajustado +1 a 31)
             java.time.OffsetDateTime fechaCambioEstado = row.length > 32 ? convertToOffsetDateTime(row[32]) : null; // NEW v3.3.1 (ajustado +1 a 32)
 
-            // ✅ v1.67.0 - Extraer datos de contacto y enriquecerlos desde tabla de asegurados si es necesario
-            String pacienteTelefono = (String) row[10];
-            String pacienteTelefonoAlterno = (String) row[11];
-            String pacienteEmail = (String) row[12];
-            // pacienteDni ya fue extraído línea 551
-
-            // Si falta teléfono o correo, buscar en tabla de asegurados por DNI
-            boolean necesitaEnriquecimiento = (isBlank(pacienteTelefono) || isBlank(pacienteTelefonoAlterno) || isBlank(pacienteEmail)) && !isBlank(pacienteDni);
-            if (necesitaEnriquecimiento) {
-                log.info("🔍 v1.67.0 - Necesita enriquecimiento DNI: {} | Tel: [{}] | Email: [{}]", pacienteDni, pacienteTelefono, pacienteEmail);
-                try {
-                    Optional<Asegurado> aseguradoOpt = aseguradoRepository.findByDocPaciente(pacienteDni);
-                    if (aseguradoOpt.isPresent()) {
-                        Asegurado asegurado = aseguradoOpt.get();
-                        log.info("✅ v1.67.0 - Enriqueciendo contacto para DNI {} desde tabla de asegurados", pacienteDni);
-
-                        // Si no hay teléfono principal, usar celular del asegurado
-                        if (isBlank(pacienteTelefono) && !isBlank(asegurado.getTelCelular())) {
-                            log.debug("  📱 Teléfono principal: {} → {}", pacienteTelefono, asegurado.getTelCelular());
-                            pacienteTelefono = asegurado.getTelCelular();
-                        }
-                        // Si no hay teléfono alterno, usar teléfono fijo del asegurado
-                        if (isBlank(pacienteTelefonoAlterno) && !isBlank(asegurado.getTelFijo())) {
-                            log.debug("  ☎️  Teléfono alterno: {} → {}", pacienteTelefonoAlterno, asegurado.getTelFijo());
-                            pacienteTelefonoAlterno = asegurado.getTelFijo();
-                        }
-                        // Si no hay correo, usar correo del asegurado
-                        if (isBlank(pacienteEmail) && !isBlank(asegurado.getCorreoElectronico())) {
-                            log.debug("  📧 Correo: {} → {}", pacienteEmail, asegurado.getCorreoElectronico());
-                            pacienteEmail = asegurado.getCorreoElectronico();
-                        }
-                    } else {
-                        log.debug("⚠️ DNI {} no encontrado en tabla de asegurados", pacienteDni);
-                    }
-                } catch (Exception e) {
-                    log.error("❌ Error enriqueciendo contacto para DNI {}: {}", pacienteDni, e.getMessage());
-                }
-            }
-
             // ✅ Extraer detalles de cita agendada (NEW v3.4.0 - índices correctos: 35, 36, 37)
             java.time.LocalDate fechaAtencion = row.length > 35 ? convertToLocalDate(row[35]) : null;
             java.time.LocalTime horaAtencion = null;
@@ -950,6 +1293,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public void asignarGestora(Long idSolicitud, Long idGestora) {
         log.info("🔄 Asignando gestora {} a solicitud {}", idGestora, idSolicitud);
 
@@ -1007,7 +1351,8 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
-    public int asignarGestoraMasivo(List<Long> ids, Long idGestora) {
+    @InvalidarEstadisticasBolsas
+    public ResultadoOperacionMasivaDTO asignarGestoraMasivo(List<Long> ids, Long idGestora) {
         log.info("🔄 [BULK] Asignando gestora {} a {} solicitudes", idGestora, ids.size());
 
         if (ids == null || ids.isEmpty()) {
@@ -1035,16 +1380,18 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             );
         }
 
-        int actualizados = solicitudRepository.asignarGestoraMasivo(ids, idGestora, java.time.OffsetDateTime.now());
+        ResultadoOperacionMasivaDTO resultado = ResultadoOperacionMasivaDTO.de(ids,
+            operacionMasivaDao.asignarGestora(ids, idGestora, java.time.OffsetDateTime.now()));
 
         log.info("✅ [BULK] {} de {} solicitudes asignadas a gestora {} ({})",
-            actualizados, ids.size(), idGestora, gestora.getNameUser());
+            resultado.getActualizados(), resultado.getSolicitados(), idGestora, gestora.getNameUser());
 
-        return actualizados;
+        return resultado;
     }
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public void eliminarAsignacionGestora(Long idSolicitud) {
         log.info("🗑️ Eliminando asignación de gestora en solicitud {}", idSolicitud);
 
@@ -1070,6 +1417,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public void cambiarEstado(Long idSolicitud, Long nuevoEstadoId) {
         SolicitudBolsa solicitud = solicitudRepository.findById(idSolicitud)
             .orElseThrow(() -> new RuntimeException("Solicitud no encontrada"));
@@ -1102,6 +1450,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public void eliminar(Long idSolicitud) {
         SolicitudBolsa solicitud = solicitudRepository.findById(idSolicitud)
             .orElseThrow(() -> new RuntimeException("Solicitud no encontrada"));
@@ -1114,64 +1463,34 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
-    public int eliminarMultiples(List<Long> ids) {
+    @InvalidarEstadisticasBolsas
+    public ResultadoOperacionMasivaDTO eliminarMultiples(List<Long> ids) {
         if (ids == null || ids.isEmpty()) {
             log.warn("⚠️ Lista vacía de IDs para eliminar");
-            return 0;
+            return ResultadoOperacionMasivaDTO.de(List.of(), List.of());
         }
 
         log.info("🗑️ Iniciando eliminación de {} solicitudes", ids.size());
 
-        int totalBorrados = 0;
-        List<String> erroresDetallados = new ArrayList<>();
-
-        for (Long id : ids) {
-            try {
-                log.debug("   Procesando solicitud ID: {}", id);
-                Optional<SolicitudBolsa> solicitud = solicitudRepository.findById(id);
-
-                if (solicitud.isPresent()) {
-                    SolicitudBolsa sol = solicitud.get();
-                    log.debug("   Solicitud encontrada: numero={}, paciente={}", sol.getNumeroSolicitud(), sol.getPacienteNombre());
-
-                    // Realizar el soft delete
-                    sol.setActivo(false);
-                    solicitudRepository.save(sol);
-
-                    totalBorrados++;
-                    log.debug("   ✓ Solicitud {} marcada como inactiva (soft delete)", id);
-                } else {
-                    String msg = "Solicitud " + id + " no encontrada";
-                    log.warn("   ⚠️ {}", msg);
-                    erroresDetallados.add(msg);
-                }
-            } catch (Exception e) {
-                String msg = "Error eliminando solicitud " + id + ": " + e.getMessage();
-                log.error("   ❌ {}", msg, e);
-                erroresDetallados.add(msg);
-                // Continuar con las siguientes incluso si esta falla
-            }
-        }
+        // ✅ v2.6.0: Soft delete en un solo UPDATE (antes findById + save por cada ID)
+        ResultadoOperacionMasivaDTO resultado = ResultadoOperacionMasivaDTO.de(ids, operacionMasivaDao.desactivar(ids));
 
         log.info("✅ Eliminación completada: {} de {} solicitudes eliminadas exitosamente",
-            totalBorrados, ids.size());
-
-        if (!erroresDetallados.isEmpty()) {
-            log.warn("⚠️ Se encontraron {} errores durante la eliminación:", erroresDetallados.size());
-            for (String error : erroresDetallados) {
-                log.warn("   - {}", error);
-            }
+            resultado.getActualizados(), resultado.getSolicitados());
+        if (!resultado.getIdsOmitidos().isEmpty()) {
+            log.warn("⚠️ Solicitudes no encontradas: {}", resultado.getIdsOmitidos());
         }
 
-        return totalBorrados;
+        return resultado;
     }
 
     @Override
     @Transactional
-    public int rechazarMasivo(List<Long> ids) {
+    @InvalidarEstadisticasBolsas
+    public ResultadoOperacionMasivaDTO rechazarMasivo(List<Long> ids) {
         if (ids == null || ids.isEmpty()) {
             log.warn("⚠️ Lista vacía de IDs para rechazar");
-            return 0;
+            return ResultadoOperacionMasivaDTO.de(List.of(), List.of());
         }
 
         log.info("❌ Iniciando rechazo masivo de {} solicitudes", ids.size());
@@ -1180,18 +1499,20 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             dimEstadosGestionCitasRepository.findByCodigoEstado("RECHAZADO")
                 .orElseThrow(() -> new RuntimeException("Estado RECHAZADO no encontrado en BD"));
 
-        int actualizados = solicitudRepository.cambiarEstadoMasivo(ids, estado.getIdEstado());
+        ResultadoOperacionMasivaDTO resultado = ResultadoOperacionMasivaDTO.de(ids,
+            operacionMasivaDao.cambiarEstado(ids, estado.getIdEstado()));
 
-        log.info("✅ {} solicitudes marcadas como RECHAZADO", actualizados);
-        return actualizados;
+        log.info("✅ {} solicitudes marcadas como RECHAZADO", resultado.getActualizados());
+        return resultado;
     }
 
     @Override
     @Transactional
-    public int rechazarMasivoConMotivo(List<Long> ids, String motivo) {
+    @InvalidarEstadisticasBolsas
+    public ResultadoOperacionMasivaDTO rechazarMasivoConMotivo(List<Long> ids, String motivo) {
         if (ids == null || ids.isEmpty()) {
             log.warn("⚠️ Lista vacía de IDs para anular");
-            return 0;
+            return ResultadoOperacionMasivaDTO.de(List.of(), List.of());
         }
 
         log.info("❌ Anulando {} solicitudes con motivo: {}", ids.size(), motivo);
@@ -1212,18 +1533,20 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             dimEstadosGestionCitasRepository.findByCodigoEstado("RECHAZADO")
                 .orElseThrow(() -> new RuntimeException("Estado RECHAZADO no encontrado en BD"));
 
-        int actualizados = solicitudRepository.cambiarEstadoMasivoConMotivo(ids, estado.getIdEstado(), motivo, idUsuarioActual);
+        ResultadoOperacionMasivaDTO resultado = ResultadoOperacionMasivaDTO.de(ids,
+            operacionMasivaDao.anular(ids, estado.getIdEstado(), motivo, idUsuarioActual));
 
-        log.info("✅ {} solicitudes anuladas con motivo registrado por usuario ID={}", actualizados, idUsuarioActual);
-        return actualizados;
+        log.info("✅ {} solicitudes anuladas con motivo registrado por usuario ID={}", resultado.getActualizados(), idUsuarioActual);
+        return resultado;
     }
 
     @Override
     @Transactional
-    public int devolverAPendientes(List<Long> ids, String motivo) {
+    @InvalidarEstadisticasBolsas
+    public ResultadoOperacionMasivaDTO devolverAPendientes(List<Long> ids, String motivo) {
         if (ids == null || ids.isEmpty()) {
             log.warn("⚠️ Lista vacía de IDs para devolver a pendientes");
-            return 0;
+            return ResultadoOperacionMasivaDTO.de(List.of(), List.of());
         }
 
         log.info("↩️ Devolviendo {} solicitudes a PENDIENTE con motivo: {}", ids.size(), motivo);
@@ -1245,51 +1568,13 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             log.warn("⚠️ No se pudo obtener usuario para historial de devolución: {}", e.getMessage());
         }
 
-        // Guardar historial ANTES de limpiar los campos (preservar datos anteriores)
-        List<SolicitudBolsa> solicitudes = solicitudRepository.findAllById(ids);
-        List<com.styp.cenate.model.bolsas.HistorialCambioSolicitud> registros = new ArrayList<>();
-        for (SolicitudBolsa s : solicitudes) {
-            if (!Boolean.TRUE.equals(s.getActivo())) continue;
-
-            String estadoAnteriorDesc = null;
-            if (s.getEstadoGestionCitas() != null) {
-                estadoAnteriorDesc = s.getEstadoGestionCitas().getDescripcionEstado();
-            }
+        // ✅ v2.6.0: Historial (datos anteriores) + limpieza de campos y estado PENDIENTE_CITA
+        // en una sola sentencia; antes se guardaba el historial fila por fila
+        ResultadoOperacionMasivaDTO resultado = ResultadoOperacionMasivaDTO.de(ids,
+            operacionMasivaDao.devolverAPendientes(ids, motivo, usuarioActualId, usuarioActualNombre));
 
-            String medicoAnteriorNombre = null;
-            if (s.getIdPersonal() != null) {
-                try {
-                    medicoAnteriorNombre = personalCntRepository.findById(s.getIdPersonal())
-                            .map(PersonalCnt::getNombreCompleto)
-                            .orElse("Personal #" + s.getIdPersonal());
-                } catch (Exception e) {
-                    medicoAnteriorNombre = "Personal #" + s.getIdPersonal();
-                }
-            }
-
-            registros.add(com.styp.cenate.model.bolsas.HistorialCambioSolicitud.builder()
-                    .idSolicitud(s.getIdSolicitud())
-                    .tipoCambio("DEVOLUCION_A_PENDIENTE")
-                    .motivo(motivo)
-                    .estadoAnteriorId(s.getEstadoGestionCitasId())
-                    .estadoAnteriorDesc(estadoAnteriorDesc)
-                    .medicoAnteriorId(s.getIdPersonal())
-                    .medicoAnteriorNombre(medicoAnteriorNombre)
-                    .fechaCitaAnterior(s.getFechaAtencion())
-                    .horaCitaAnterior(s.getHoraAtencion())
-                    .usuarioId(usuarioActualId)
-                    .usuarioNombre(usuarioActualNombre)
-                    .fechaCambio(java.time.OffsetDateTime.now())
-                    .build());
-        }
-        historialCambioRepository.saveAll(registros);
-        log.info("📋 {} registros de historial guardados para trazabilidad", registros.size());
-
-        // Limpiar campos y cambiar estado a PENDIENTE_CITA
-        int actualizados = solicitudRepository.devolverAPendientesMasivo(ids, motivo);
-
-        log.info("✅ {} solicitudes devueltas a PENDIENTE_CITA", actualizados);
-        return actualizados;
+        log.info("✅ {} solicitudes devueltas a PENDIENTE_CITA (historial registrado)", resultado.getActualizados());
+        return resultado;
     }
 
     @Override
@@ -1534,9 +1819,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
     /**
      * Valida que el archivo sea un Excel válido (.xlsx)
      */
-    private boolean esArchivoExcelValido(MultipartFile file) {
-        String filename = file.getOriginalFilename();
-
+    private boolean esNombreArchivoExcelValido(String filename) {
         // Validar SOLO la extensión del archivo
         // Muchos clientes envían contentType incorrecto para .xlsx
         if (filename == null) {
@@ -1560,19 +1843,13 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
      * Resultado: POI lee 10 columnas físicas, COD_IPRESS aparece en posición 8,
      * TIPO_CITA aparece en posición 9 en lugar de 10
      *
-     * @param row Fila de Excel a procesar
+     * @param valores Celdas de la fila (15 posiciones, "" si está vacía)
      * @param filaNumero Número de fila (para logs)
      * @return Map con 11 campos extraídos
      */
-    private Map<String, String> extraerCamposInteligentemente(Row row, int filaNumero) {
+    private Map<String, String> extraerCamposInteligentemente(String[] valores, int filaNumero) {
         Map<String, String> campos = new HashMap<>();
 
-        // Leer todas las celdas disponibles
-        String[] valores = new String[15];
-        for (int i = 0; i < 15; i++) {
-            valores[i] = obtenerValorCelda(row.getCell(i));
-        }
-
         // Detectar TIPO_CITA para identificar posición real (puede estar en posición 10, 11 o 12)
         int tipoCitaPos = -1;
         for (int i = 9; i <= 12; i++) {
@@ -2177,34 +2454,35 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
      * @param dni DNI del paciente a buscar
      * @param sexoExcel sexo del Excel (puede ser null/blank)
      * @param fechaNacimientoExcel fecha de nacimiento del Excel (puede ser null/blank)
+     * @param asegurados asegurados del lote ya consultados (✅ v2.6.0: sin consulta por fila)
      * @return Map con: sexo, fechaNacimiento, existe (boolean)
      */
-    private Map<String, Object> enriquecerDatosDesdeAsegurado(String dni, String sexoExcel, String fechaNacimientoExcel) {
+    private Map<String, Object> enriquecerDatosDesdeAsegurado(String dni, String sexoExcel, String fechaNacimientoExcel,
+                                                             Map<String, DatosAsegurado> asegurados) {
         Map<String, Object> resultado = new HashMap<>();
         resultado.put("sexo", sexoExcel != null && !sexoExcel.isBlank() ? sexoExcel : "");
         resultado.put("fechaNacimiento", fechaNacimientoExcel != null && !fechaNacimientoExcel.isBlank() ? fechaNacimientoExcel : "");
         resultado.put("existe", false);
 
         try {
-            // Buscar asegurado en BD
-            java.util.Optional<Asegurado> aseguradoOpt = aseguradoRepository.findByDocPaciente(dni);
+            // Buscar asegurado entre los consultados para el lote
+            DatosAsegurado asegurado = asegurados.get(dni);
 
-            if (aseguradoOpt.isPresent()) {
-                Asegurado asegurado = aseguradoOpt.get();
+            if (asegurado != null) {
                 resultado.put("existe", true);
 
                 // Si SEXO esta vacio en Excel, usar de BD
-                if ((sexoExcel == null || sexoExcel.isBlank()) && asegurado.getSexo() != null) {
-                    resultado.put("sexo", asegurado.getSexo());
-                    log.info("📊 [ENRIQUECIMIENTO] SEXO completado desde asegurados para DNI {}: {}", dni, asegurado.getSexo());
+                if ((sexoExcel == null || sexoExcel.isBlank()) && asegurado.sexo() != null) {
+                    resultado.put("sexo", asegurado.sexo());
+                    log.info("📊 [ENRIQUECIMIENTO] SEXO completado desde asegurados para DNI {}: {}", dni, asegurado.sexo());
                 }
 
                 // Si FECHA_NACIMIENTO esta vacia en Excel, usar de BD
-                if ((fechaNacimientoExcel == null || fechaNacimientoExcel.isBlank()) && asegurado.getFecnacimpaciente() != null) {
+                if ((fechaNacimientoExcel == null || fechaNacimientoExcel.isBlank()) && asegurado.fechaNacimiento() != null) {
                     // Convertir java.time.LocalDate a String (YYYY-MM-DD)
-                    resultado.put("fechaNacimiento", asegurado.getFecnacimpaciente().toString());
+                    resultado.put("fechaNacimiento", asegurado.fechaNacimiento().toString());
                     log.info("📅 [ENRIQUECIMIENTO] FECHA_NACIMIENTO completada desde asegurados para DNI {}: {}",
-                        dni, asegurado.getFecnacimpaciente());
+                        dni, asegurado.fechaNacimiento());
                 }
 
                 log.info("✓ [ENRIQUECIMIENTO EXITOSO] DNI {} existe en asegurados | Sexo: {} | F.Nac: {}",
@@ -2589,6 +2867,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public SolicitudBolsaDTO cambiarTipoBolsa(Long idSolicitud, Long idBolsaNueva) {
         log.info("🔄 [cambiarTipoBolsa] Iniciando cambio de bolsa para solicitud {} → Nueva bolsa: {}",
             idSolicitud, idBolsaNueva);
@@ -2772,6 +3051,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public void actualizarIpressAtencion(Long idSolicitud, Long idIpressAtencion) {
         log.info("🏥 Actualizando IPRESS Atención de solicitud {} → idIpress: {}", idSolicitud, idIpressAtencion);
 
@@ -2846,6 +3126,22 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             }
         }
 
+        return construirReporteDuplicados(dniPorFila, dniPorFila.values().stream().filter(l -> l.size() > 1).count(),
+            filasUnicas, filasDuplicadas, totalFilas - 1);
+    }
+
+    /**
+     * Construye el reporte KEEP_FIRST a partir de las filas registradas por DNI.
+     * Usado por la importación en streaming (una sola pasada) y por analizarDuplicadosEnExcel.
+     *
+     * @param dniPorFila filas por DNI; el detalle solo incluye los DNIs con más de una fila
+     * @param dnisDuplicados DNIs repetidos en total (la importación solo detalla los primeros)
+     * @param totalFilasDatos filas de datos (sin header)
+     */
+    private ReporteDuplicadosDTO construirReporteDuplicados(Map<String, List<Integer>> dniPorFila,
+                                                           long dnisDuplicados,
+                                                           int filasUnicas, int filasDuplicadas,
+                                                           int totalFilasDatos) {
         // Construir detalles de duplicados
         List<Map<String, Object>> duplicadosDetalle = new ArrayList<>();
         for (Map.Entry<String, List<Integer>> entry : dniPorFila.entrySet()) {
@@ -2861,7 +3157,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
         }
 
         // Generar reporte
-        Double tasaDuplicidad = totalFilas > 0 ? (filasDuplicadas * 100.0) / totalFilas : 0;
+        Double tasaDuplicidad = totalFilasDatos > 0 ? (filasDuplicadas * 100.0) / totalFilasDatos : 0;
         Boolean hayDuplicados = filasDuplicadas > 0;
 
         String mensajeResumen;
@@ -2870,8 +3166,8 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
                 "⚠️  Se detectaron %d DNI duplicados en %d filas. " +
                 "Se mantienen %d registros únicos (%.1f%% duplicidad). " +
                 "Se descartarán %d filas en la importación.",
-                dniPorFila.values().stream().filter(l -> l.size() > 1).count(),
-                totalFilas - 1,
+                dnisDuplicados,
+                totalFilasDatos,
                 filasUnicas,
                 tasaDuplicidad,
                 filasDuplicadas
@@ -2881,7 +3177,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
         }
 
         ReporteDuplicadosDTO reporte = ReporteDuplicadosDTO.builder()
-            .totalFilas(totalFilas - 1)  // Excluir header
+            .totalFilas(totalFilasDatos)  // Excluye header
             .filasUnicas(filasUnicas)
             .filasDuplicadas(filasDuplicadas)
             .tasaDuplicidad(tasaDuplicidad)
@@ -3465,9 +3761,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             long total = solicitudRepository.countActivosNative();  // Usa índice para mejor performance
 
             // Mapear a DTOs
-            List<SolicitudBolsaDTO> dtos = resultados.stream()
-                .map(this::mapFromResultSet)
-                .collect(Collectors.toList());
+            List<SolicitudBolsaDTO> dtos = mapearFilas(resultados);
 
             log.info("✅ Página obtenida: {}/{} ({}  registros)",
                 pageable.getPageNumber(), (total / pageable.getPageSize()), dtos.size());
@@ -3518,63 +3812,23 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
             log.info("🔍 Listando solicitudes con filtros - Bolsa: {}, Macro: {}, Red: {}, IPRESS: {}, Especialidad: {}, Estado: {}, IPRESSAtencion: {}, TipoCita: {}, Asignación: {}, Búsqueda: {}, FechaInicio: {}, FechaFin: {}, EstadoBolsa: {}, Categoria: {}",
                 bolsaNombre, macrorregion, red, ipress, especialidad, estadoCodigo, ipressAtencion, tipoCita, asignacion, busqueda, fechaInicio, fechaFin, estadoBolsa, categoriaEspecialidad);
 
-            // Convertir "todas"/"todos" a null para ignorar ese filtro
-            String bolsaNombreFinal = (bolsaNombre == null || "todas".equals(bolsaNombre) || bolsaNombre.trim().isEmpty()) ? null : bolsaNombre.trim();
-            String macrorFinal = (macrorregion == null || "todas".equals(macrorregion) || macrorregion.trim().isEmpty()) ? null : macrorregion.trim();
-            String redFinal = (red == null || "todas".equals(red) || red.trim().isEmpty()) ? null : red.trim();
-            String ipressFinal = (ipress == null || "todas".equals(ipress) || ipress.trim().isEmpty()) ? null : ipress.trim();
-            String especialidadFinal = (especialidad == null || "todas".equals(especialidad) || especialidad.trim().isEmpty()) ? null : especialidad.trim();
-            String estadoCod = (estadoCodigo == null || "todos".equals(estadoCodigo) || estadoCodigo.trim().isEmpty()) ? null : estadoCodigo.trim();
-            String ipressAtencionFinal = (ipressAtencion == null || ipressAtencion.trim().isEmpty()) ? null : ipressAtencion.trim();
-            String tipoCitaFinal = (tipoCita == null || "todas".equals(tipoCita) || tipoCita.trim().isEmpty()) ? null : tipoCita.trim();
-            String asignacionFinal = (asignacion == null || "todos".equals(asignacion) || asignacion.trim().isEmpty()) ? null : asignacion.trim();
-            String busquedaFinal = (busqueda == null || busqueda.trim().isEmpty()) ? null : busqueda.trim();
-            String fechaInicioFinal = (fechaInicio == null || fechaInicio.trim().isEmpty()) ? null : fechaInicio.trim();
-            String fechaFinFinal = (fechaFin == null || fechaFin.trim().isEmpty()) ? null : fechaFin.trim();
-            String condicionMedicaFinal = (condicionMedica == null || condicionMedica.trim().isEmpty()) ? null : condicionMedica.trim();
-            String estadoBolsaFinal = (estadoBolsa == null || "todos".equals(estadoBolsa) || estadoBolsa.trim().isEmpty()) ? null : estadoBolsa.trim();
-            String categoriaEspecialidadFinal = (categoriaEspecialidad == null || categoriaEspecialidad.trim().isEmpty()) ? null : categoriaEspecialidad.trim();
-            String estrategiaFinal = (estrategia == null || "todos".equals(estrategia) || estrategia.trim().isEmpty()) ? null : estrategia.trim().toUpperCase();
-
-            // Llamar al repository con filtros
-            List<Object[]> resultados = solicitudRepository.findAllWithFiltersAndPagination(
-                    bolsaNombreFinal, macrorFinal, redFinal, ipressFinal, especialidadFinal,
-                    estadoCod, ipressAtencionFinal, tipoCitaFinal, asignacionFinal, busquedaFinal, fechaInicioFinal, fechaFinFinal, condicionMedicaFinal, gestoraId, estadoBolsaFinal, categoriaEspecialidadFinal, estrategiaFinal, pageable);
-
-            long total = solicitudRepository.countWithFilters(
-                    bolsaNombreFinal, macrorFinal, redFinal, ipressFinal, especialidadFinal,
-                    estadoCod, ipressAtencionFinal, tipoCitaFinal, asignacionFinal, busquedaFinal, fechaInicioFinal, fechaFinFinal, condicionMedicaFinal, gestoraId, estadoBolsaFinal, categoriaEspecialidadFinal, estrategiaFinal);
+            // ✅ v2.6.0: "todas"/"todos"/blancos = filtro inactivo; el SQL solo incluye los filtros activos
+            FiltroBandejaBolsa filtro = FiltroBandejaBolsa.de(
+                    bolsaNombre, macrorregion, red, ipress, especialidad,
+                    estadoCodigo, ipressAtencion, tipoCita, asignacion, busqueda, fechaInicio, fechaFin,
+                    condicionMedica, gestoraId, estadoBolsa, categoriaEspecialidad, estrategia);
+
+            List<Object[]> resultados = bandejaDao.listar(filtro, pageable.getPageSize(), pageable.getOffset());
+            long total = bandejaDao.contar(filtro);
 
             // Mapear a DTOs
-            List<SolicitudBolsaDTO> dtos = resultados.stream()
-                    .map(this::mapFromResultSet)
-                    .collect(Collectors.toList());
+            List<SolicitudBolsaDTO> dtos = mapearFilas(resultados);
 
             log.info("✅ Búsqueda con filtros completada: {} registros en página (Total: {})",
                     dtos.size(), total);
 
             // 🏷️ ENRIQUECER CON FLAGS DE ESTRATEGIAS (CENACRON, MARATON, etc.)
-            try {
-                List<String> dnis = dtos.stream()
-                    .map(SolicitudBolsaDTO::getPacienteDni)
-                    .filter(d -> d != null && !d.isBlank())
-                    .distinct()
-                    .collect(Collectors.toList());
-                if (!dnis.isEmpty()) {
-                    Set<String> setCenacron = new HashSet<>(
-                        pacienteEstrategiaRepository.findDnisPertenecentesAEstrategia(dnis, "CENACRON"));
-                    Set<String> setMaraton = new HashSet<>(
-                        pacienteEstrategiaRepository.findDnisPertenecentesAEstrategia(dnis, "MARATON"));
-                    log.info("   🏷️ CENACRON: {} | MARATON: {} de {} DNIs",
-                        setCenacron.size(), setMaraton.size(), dnis.size());
-                    dtos.forEach(dto -> {
-                        dto.setEsCenacron(setCenacron.contains(dto.getPacienteDni()));
-                        dto.setEsMaraton(setMaraton.contains(dto.getPacienteDni()));
-                    });
-                }
-            } catch (Exception exEst) {
-                log.warn("⚠️ No se pudo enriquecer estrategias en listarConFiltros: {}", exEst.getMessage());
-            }
+            marcarEstrategias(dtos);
 
             return new org.springframework.data.domain.PageImpl<>(dtos, pageable, total);
 
@@ -3585,332 +3839,115 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
     }
 
     /**
-     * 🔎 Obtiene todas las especialidades únicas pobladas
-     * v1.42.0: Para llenar dinámicamente el filtro de especialidades
-     * @return lista de especialidades ordenadas alfabéticamente
+     * ✅ v2.6.0 - Bandeja con paginación por cursor (keyset)
+     * La página siguiente se pide con el cursor de la anterior (after), sin OFFSET: la página N
+     * cuesta lo mismo que la primera. El total se calcula según {@code conteo}
+     * (ESTIMADO/LIMITADO evitan un COUNT(*) completo en cada página).
      */
     @Override
-    public List<String> obtenerEspecialidadesUnicas() {
-        log.info("🔍 Obteniendo especialidades únicas de la base de datos...");
-        try {
-            List<String> especialidades = solicitudRepository.obtenerEspecialidadesUnicas();
-            log.info("✅ Especialidades únicas obtenidas: {}", especialidades.size());
-            return especialidades != null ? especialidades : List.of();
-        } catch (Exception e) {
-            log.error("❌ Error obteniendo especialidades únicas: ", e);
-            return List.of(); // Retornar lista vacía en caso de error
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<SolicitudBolsaDTO> listarConCursor(FiltroBandejaBolsa filtro, String after,
+                                                              int size, ModoConteo conteo) {
+        SolicitudBolsaBandejaDao.Cursor desde = (after == null || after.isBlank())
+            ? null : SolicitudBolsaBandejaDao.Cursor.decodificar(after);
+
+        // Una fila extra indica si hay página siguiente
+        List<Object[]> filas = bandejaDao.listarDesde(filtro, desde, size + 1);
+        boolean hayMas = filas.size() > size;
+        if (hayMas) {
+            filas = filas.subList(0, size);
         }
+        String siguiente = hayMas ? SolicitudBolsaBandejaDao.Cursor.de(filas.get(filas.size() - 1)).codificar() : null;
+        ConteoPaginadoDao.Total total = bandejaDao.contar(filtro, conteo);
+
+        List<SolicitudBolsaDTO> dtos = mapearFilas(filas);
+        marcarEstrategias(dtos);
+
+        log.info("✅ Bandeja por cursor: {} registros (total {} {}), siguiente: {}",
+            dtos.size(), total.valor(), total.modo(), siguiente != null);
+
+        return PaginaCursorDTO.<SolicitudBolsaDTO>builder()
+            .contenido(dtos)
+            .tamano(size)
+            .siguiente(siguiente)
+            .total(total.valor())
+            .modoConteo(total.modo())
+            .totalEsMinimo(total.esMinimo())
+            .build();
     }
 
     /**
-     * Exporta solicitudes asignadas a la gestora actual a formato EXCEL
-     * Incluye TODAS las columnas de la tabla GestionAsegurado
-     * Usado en la descarga desde "Mi Bandeja"
-     *
-     * @param ids lista de IDs de solicitudes a exportar
-     * @return datos EXCEL (.xlsx) en bytes
+     * ✅ v2.6.0 - Búsqueda facetada de la bandeja
+     * El filtro se evalúa una sola vez en la base de datos; página, total, KPI por estado y
+     * facetas salen de la misma consulta en lugar de cuatro consultas con el mismo WHERE.
      */
     @Override
     @Transactional(readOnly = true)
-    public byte[] exportarExcelAsignados(List<Long> ids) {
-        try {
-            log.info("📊 Exportando {} solicitudes asignadas a EXCEL", ids.size());
-
-            if (ids.isEmpty()) {
-                log.warn("⚠️ No hay solicitudes para exportar");
-                return new byte[0];
-            }
-
-            // Usar query SQL nativa que trae TODOS los datos con JOINs
-            String sql = """
-                SELECT 
-                    sb.fecha_asignacion,
-                    sb.paciente_dni,
-                    sb.paciente_nombre,
-                    EXTRACT(YEAR FROM AGE(sb.fecha_nacimiento)) as paciente_edad,
-                    sb.paciente_sexo,
-                    sb.especialidad,
-                    per.nom_pers as especialista_nombre,
-                    sb.fecha_atencion,
-                    sb.hora_atencion,
-                    ir.desc_ipress as desc_ipress,
-                    sb.tipo_cita,
-                    sb.paciente_telefono,
-                    sb.paciente_telefono_alterno,
-                    dec.desc_estado_cita as desc_estado_cita,
-                    sb.fecha_cambio_estado,
-                    u.name_user as nombre_usuario_cambio_estado
-                FROM dim_solicitud_bolsa sb
-                LEFT JOIN dim_personal_cnt per ON sb.id_personal = per.id_pers
-                LEFT JOIN dim_ipress ir ON sb.id_ipress = ir.id_ipress
-                LEFT JOIN dim_estados_gestion_citas dec ON sb.estado_gestion_citas_id = dec.id_estado_cita
-                LEFT JOIN dim_usuarios u ON sb.usuario_cambio_estado_id = u.id_user
-                WHERE sb.id_solicitud IN (:ids)
-                ORDER BY sb.fecha_asignacion DESC
-                """;
-
-            var query = entityManager.createNativeQuery(sql);
-            query.setParameter("ids", ids);
-            List<Object[]> resultados = query.getResultList();
-
-            if (resultados.isEmpty()) {
-                log.warn("⚠️ No hay solicitudes para exportar");
-                return new byte[0];
-            }
-
-            // Crear workbook Excel con Apache POI
-            try (var workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook()) {
-                var sheet = workbook.createSheet("Pacientes Asignados");
-                
-                // Estilos
-                var headerStyle = workbook.createCellStyle();
-                headerStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.DARK_BLUE.getIndex());
-                headerStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                var headerFont = workbook.createFont();
-                headerFont.setColor(org.apache.poi.ss.usermodel.IndexedColors.WHITE.getIndex());
-                headerFont.setBold(true);
-                headerStyle.setFont(headerFont);
-                headerStyle.setAlignment(org.apache.poi.ss.usermodel.HorizontalAlignment.CENTER);
-                
-                // Encabezados
-                String[] headers = {
-                    "FECHA ASIGNACIÓN", "DNI PACIENTE", "NOMBRE PACIENTE", "EDAD", "GÉNERO",
-                    "ESPECIALIDAD", "ESPECIALISTA", "FECHA Y HORA CITA", "IPRESS", "TIPO CITA",
-                    "TELÉFONO 1", "TELÉFONO 2", "ESTADO", "FECHA CAMBIO ESTADO", "USUARIO CAMBIO ESTADO"
-                };
-                
-                // Crear fila de encabezado
-                var headerRow = sheet.createRow(0);
-                for (int i = 0; i < headers.length; i++) {
-                    var cell = headerRow.createCell(i);
-                    cell.setCellValue(headers[i]);
-                    cell.setCellStyle(headerStyle);
-                }
-                
-                // Llenar datos desde resultados SQL
-                int rowNum = 1;
-                for (Object[] row : resultados) {
-                    var excelRow = sheet.createRow(rowNum++);
-                    
-                    int col = 0;
-                    // 0: fecha_asignacion
-                    excelRow.createCell(col++).setCellValue(row[0] != null ? row[0].toString() : "");
-                    
-                    // 1: paciente_dni
-                    excelRow.createCell(col++).setCellValue(row[1] != null ? row[1].toString() : "");
-                    
-                    // 2: paciente_nombre
-                    excelRow.createCell(col++).setCellValue(row[2] != null ? row[2].toString() : "");
-                    
-                    // 3: paciente_edad
-                    excelRow.createCell(col++).setCellValue(row[3] != null ? row[3].toString() : "");
-                    
-                    // 4: paciente_sexo
-                    excelRow.createCell(col++).setCellValue(row[4] != null ? row[4].toString() : "");
-                    
-                    // 5: especialidad
-                    excelRow.createCell(col++).setCellValue(row[5] != null ? row[5].toString() : "");
-                    
-                    // 6: especialista_nombre
-                    excelRow.createCell(col++).setCellValue(row[6] != null ? row[6].toString() : "");
-                    
-                    // 7-8: fecha_atencion + hora_atencion
-                    String fechaHora = "";
-                    if (row[7] != null && row[8] != null) {
-                        fechaHora = row[7].toString() + " " + row[8].toString();
-                    } else if (row[7] != null) {
-                        fechaHora = row[7].toString();
-                    }
-                    excelRow.createCell(col++).setCellValue(fechaHora);
-                    
-                    // 9: desc_ipress
-                    excelRow.createCell(col++).setCellValue(row[9] != null ? row[9].toString() : "");
-                    
-                    // 10: tipo_cita
-                    excelRow.createCell(col++).setCellValue(row[10] != null ? row[10].toString() : "");
-                    
-                    // 11: paciente_telefono
-                    excelRow.createCell(col++).setCellValue(row[11] != null ? row[11].toString() : "");
-                    
-                    // 12: paciente_telefono_alterno
-                    excelRow.createCell(col++).setCellValue(row[12] != null ? row[12].toString() : "");
-                    
-                    // 13: desc_estado_cita
-                    excelRow.createCell(col++).setCellValue(row[13] != null ? row[13].toString() : "");
-                    
-                    // 14: fecha_cambio_estado
-                    excelRow.createCell(col++).setCellValue(row[14] != null ? row[14].toString() : "");
-                    
-                    // 15: nombre_usuario_cambio_estado
-                    excelRow.createCell(col++).setCellValue(row[15] != null ? row[15].toString() : "");
-                }
-                
-                // Ajustar ancho de columnas
-                for (int i = 0; i < headers.length; i++) {
-                    sheet.autoSizeColumn(i);
-                }
-                
-                // Convertir a bytes
-                var outputStream = new java.io.ByteArrayOutputStream();
-                workbook.write(outputStream);
-                log.info("✅ EXCEL generado exitosamente con {} registros", resultados.size());
-                return outputStream.toByteArray();
-            }
-
-        } catch (Exception e) {
-            log.error("❌ Error exportando solicitudes asignadas a EXCEL: ", e);
-            return new byte[0];
-        }
+    public BusquedaFacetadaBolsaDTO buscarFacetado(FiltroBandejaBolsa filtro, int page, int size) {
+        SolicitudBolsaBandejaDao.Facetado resultado = bandejaDao.buscarFacetado(filtro, size, (long) page * size);
+
+        List<SolicitudBolsaDTO> dtos = mapearFilas(resultado.filas());
+        marcarEstrategias(dtos);
+
+        Map<String, Long> conteoPorEstado = new LinkedHashMap<>();
+        resultado.conteoPorEstado().forEach(c -> conteoPorEstado.put(c.estado(), c.cantidad()));
+
+        log.info("✅ Búsqueda facetada: {} registros en página (Total: {}, facetas: {})",
+            dtos.size(), resultado.total(), resultado.facetas().keySet());
+
+        return BusquedaFacetadaBolsaDTO.builder()
+            .contenido(dtos)
+            .pagina(page)
+            .tamano(size)
+            .total(resultado.total())
+            .totalPaginas((int) ((resultado.total() + size - 1) / size))
+            .conteoPorEstado(conteoPorEstado)
+            .facetas(resultado.facetas())
+            .build();
     }
 
     /**
-     * Exporta solicitudes asignadas a la gestora actual a formato CSV
-     * Usado en la descarga desde "Mi Bandeja" (GestionAsegurado)
-     *
-     * @param ids lista de IDs de solicitudes a exportar
-     * @return datos CSV en bytes
+     * 🏷️ Flags de estrategias (CENACRON, MARATON) de los DNIs de la página
      */
-    @Override
-    public byte[] exportarCSVAsignados(List<Long> ids) {
+    private void marcarEstrategias(List<SolicitudBolsaDTO> dtos) {
         try {
-            log.info("📄 Exportando {} solicitudes asignadas a CSV", ids.size());
-
-            // Obtener las solicitudes por IDs especificados
-            List<SolicitudBolsaDTO> solicitudes = ids.stream()
-                .map(id -> obtenerPorId(id).orElse(null))
-                .filter(s -> s != null)
-                .toList();
-
-            if (solicitudes.isEmpty()) {
-                log.warn("⚠️ No hay solicitudes para exportar");
-                return new byte[0];
-            }
-
-            // Construir CSV manualmente con TODAS LAS COLUMNAS de la tabla
-            StringBuilder csv = new StringBuilder();
-
-            // Encabezados (coincidiendo con las columnas de la tabla en GestionAsegurado)
-            csv.append("FECHA ASIGNACIÓN,DNI PACIENTE,NOMBRE PACIENTE,EDAD,GÉNERO,ESPECIALIDAD,ESPECIALISTA,");
-            csv.append("FECHA Y HORA CITA,IPRESS,TIPO CITA,TELÉFONO 1,TELÉFONO 2,ESTADO,");
-            csv.append("FECHA CAMBIO ESTADO,USUARIO CAMBIO ESTADO\n");
-
-            // Datos - con formato compatible
-            for (SolicitudBolsaDTO solicitud : solicitudes) {
-                // Fecha Asignación
-                String fechaAsignacion = solicitud.getFechaAsignacion() != null 
-                    ? solicitud.getFechaAsignacion().toString() 
-                    : "";
-                csv.append(escaparCSV(fechaAsignacion)).append(",");
-                
-                // DNI Paciente
-                csv.append(escaparCSV(solicitud.getPacienteDni())).append(",");
-                
-                // Nombre Paciente
-                csv.append(escaparCSV(solicitud.getPacienteNombre())).append(",");
-                
-                // Edad
-                csv.append(escaparCSV(String.valueOf(solicitud.getPacienteEdad() != null ? solicitud.getPacienteEdad() : ""))).append(",");
-                
-                // Género
-                csv.append(escaparCSV(solicitud.getPacienteSexo())).append(",");
-                
-                // Especialidad
-                csv.append(escaparCSV(solicitud.getEspecialidad())).append(",");
-                
-                // Especialista (ID del personal/médico asignado)
-                String especialista = solicitud.getIdPersonal() != null ? String.valueOf(solicitud.getIdPersonal()) : "";
-                csv.append(escaparCSV(especialista)).append(",");
-                
-                // Fecha y Hora de Cita
-                String fechaHoraCita = solicitud.getFechaAtencion() != null && solicitud.getHoraAtencion() != null
-                    ? solicitud.getFechaAtencion() + " " + solicitud.getHoraAtencion()
-                    : "";
-                csv.append(escaparCSV(fechaHoraCita)).append(",");
-                
-                // IPRESS
-                csv.append(escaparCSV(solicitud.getDescIpress())).append(",");
-                
-                // Tipo de Cita
-                csv.append(escaparCSV(solicitud.getTipoCita())).append(",");
-                
-                // Teléfono 1
-                csv.append(escaparCSV(solicitud.getPacienteTelefono())).append(",");
-                
-                // Teléfono 2
-                csv.append(escaparCSV(solicitud.getPacienteTelefonoAlterno())).append(",");
-                
-                // Estado
-                csv.append(escaparCSV(solicitud.getDescEstadoCita())).append(",");
-                
-                // Fecha Cambio Estado
-                String fechaCambioEstado = solicitud.getFechaCambioEstado() != null 
-                    ? solicitud.getFechaCambioEstado().toString() 
-                    : "";
-                csv.append(escaparCSV(fechaCambioEstado)).append(",");
-                
-                // Usuario Cambio Estado
-                csv.append(escaparCSV(solicitud.getNombreUsuarioCambioEstado() != null ? solicitud.getNombreUsuarioCambioEstado() : "")).append("\n");
+            List<String> dnis = dtos.stream()
+                .map(SolicitudBolsaDTO::getPacienteDni)
+                .filter(d -> d != null && !d.isBlank())
+                .distinct()
+                .collect(Collectors.toList());
+            if (!dnis.isEmpty()) {
+                Set<String> setCenacron = new HashSet<>(
+                    pacienteEstrategiaRepository.findDnisPertenecentesAEstrategia(dnis, "CENACRON"));
+                Set<String> setMaraton = new HashSet<>(
+                    pacienteEstrategiaRepository.findDnisPertenecentesAEstrategia(dnis, "MARATON"));
+                log.info("   🏷️ CENACRON: {} | MARATON: {} de {} DNIs",
+                    setCenacron.size(), setMaraton.size(), dnis.size());
+                dtos.forEach(dto -> {
+                    dto.setEsCenacron(setCenacron.contains(dto.getPacienteDni()));
+                    dto.setEsMaraton(setMaraton.contains(dto.getPacienteDni()));
+                });
             }
-
-            log.info("✅ CSV generado exitosamente con {} registros (todas las columnas)", solicitudes.size());
-            return csv.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            log.error("❌ Error exportando solicitudes asignadas a CSV: ", e);
-            return new byte[0];
+        } catch (Exception exEst) {
+            log.warn("⚠️ No se pudo enriquecer estrategias en la bandeja: {}", exEst.getMessage());
         }
     }
 
     /**
-     * Exporta solicitudes seleccionadas a formato CSV
-     * Versión general que permite exportar cualquier solicitud sin restricción de gestora
-     *
-     * @param ids lista de IDs de solicitudes a exportar
-     * @return datos CSV en bytes
+     * 🔎 Obtiene todas las especialidades únicas pobladas
+     * v1.42.0: Para llenar dinámicamente el filtro de especialidades
+     * @return lista de especialidades ordenadas alfabéticamente
      */
     @Override
-    public byte[] exportarCSV(List<Long> ids) {
+    public List<String> obtenerEspecialidadesUnicas() {
+        log.info("🔍 Obteniendo especialidades únicas de la base de datos...");
         try {
-            log.info("📄 Exportando {} solicitudes seleccionadas a CSV", ids.size());
-
-            // Obtener las solicitudes por IDs especificados
-            List<SolicitudBolsaDTO> solicitudes = ids.stream()
-                .map(id -> obtenerPorId(id).orElse(null))
-                .filter(s -> s != null)
-                .toList();
-
-            if (solicitudes.isEmpty()) {
-                log.warn("⚠️ No hay solicitudes para exportar");
-                return new byte[0];
-            }
-
-            // Construir CSV manualmente con los campos deseados
-            StringBuilder csv = new StringBuilder();
-
-            // Encabezados
-            csv.append("DNI,NOMBRE,EDAD,SEXO,TELÉFONO 1,TELÉFONO 2,ESPECIALIDAD,IPRESS,RED,MACRORREGIÓN,TIPO BOLSA,ESTADO,FECHA SOLICITUD\n");
-
-            // Datos
-            for (SolicitudBolsaDTO solicitud : solicitudes) {
-                csv.append(escaparCSV(solicitud.getPacienteDni())).append(",");
-                csv.append(escaparCSV(solicitud.getPacienteNombre())).append(",");
-                csv.append(escaparCSV(String.valueOf(solicitud.getPacienteEdad()))).append(",");
-                csv.append(escaparCSV(solicitud.getPacienteSexo())).append(",");
-                csv.append(escaparCSV(solicitud.getPacienteTelefono())).append(",");
-                csv.append(escaparCSV(solicitud.getPacienteTelefonoAlterno())).append(",");
-                csv.append(escaparCSV(solicitud.getEspecialidad())).append(",");
-                csv.append(escaparCSV(solicitud.getDescIpress())).append(",");
-                csv.append(escaparCSV(solicitud.getDescRed())).append(",");
-                csv.append(escaparCSV(solicitud.getDescMacroregion())).append(",");
-                csv.append(escaparCSV(solicitud.getDescTipoBolsa())).append(",");
-                csv.append(escaparCSV(solicitud.getDescEstadoCita())).append(",");
-                csv.append(escaparCSV(String.valueOf(solicitud.getFechaSolicitud()))).append("\n");
-            }
-
-            log.info("✅ CSV generado exitosamente con {} registros", solicitudes.size());
-            return csv.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            List<String> especialidades = solicitudRepository.obtenerEspecialidadesUnicas();
+            log.info("✅ Especialidades únicas obtenidas: {}", especialidades.size());
+            return especialidades != null ? especialidades : List.of();
         } catch (Exception e) {
-            log.error("❌ Error exportando solicitudes a CSV: ", e);
-            return new byte[0];
+            log.error("❌ Error obteniendo especialidades únicas: ", e);
+            return List.of(); // Retornar lista vacía en caso de error
         }
     }
 
@@ -3940,22 +3977,6 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
         return usuario.getNameUser();
     }
 
-    /**
-     * Escapa caracteres especiales en campos CSV
-     * @param valor valor a escapar
-     * @return valor escapado
-     */
-    private String escaparCSV(String valor) {
-        if (valor == null || valor.isEmpty()) {
-            return "";
-        }
-        // Si contiene coma, comillas o saltos de línea, envolver en comillas y escapar comillas internas
-        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n")) {
-            return "\"" + valor.replace("\"", "\"\"") + "\"";
-        }
-        return valor;
-    }
-
     // ============================================================================
     // ➕ IMPORTACIÓN DE PACIENTES ADICIONALES (v1.46.0)
     // ============================================================================
@@ -3993,6 +4014,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public SolicitudBolsaDTO crearSolicitudAdicional(CrearSolicitudAdicionalRequest request, String username) {
         log.info("📝 Creando solicitud adicional para DNI: {}", request.getPacienteDni());
         log.info("🔍 [v1.46.5] ESPECIALIDAD RECIBIDA: '{}' (null={})", request.getEspecialidad(), request.getEspecialidad() == null);
@@ -4141,6 +4163,19 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
     @Override
     @Transactional(readOnly = true)
     public List<SolicitudBolsaDTO> buscarPorDni(String dni) {
+        // ✅ v2.6.0: Texto sin dígitos = nombre del paciente (sin tildes, términos en cualquier orden)
+        if (dni != null && !dni.isBlank() && dni.chars().noneMatch(Character::isDigit)) {
+            log.info("🔍 Buscando solicitudes por nombre de paciente: {}", dni);
+            List<Long> ids = busquedaPacienteDao.buscarIdsSolicitudes(dni, true, LIMITE_BUSQUEDA_POR_NOMBRE);
+            Map<Long, SolicitudBolsa> porId = solicitudRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(SolicitudBolsa::getIdSolicitud, s -> s));
+            return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .map(SolicitudBolsaMapper::toDTO)
+                .collect(Collectors.toList());
+        }
+
         log.info("🔍 Buscando solicitudes para DNI: {}", dni);
 
         List<SolicitudBolsa> solicitudes = solicitudRepository
@@ -4283,6 +4318,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public Map<String, Object> nuevaCitaDesdeAnulacion(Long idSolicitudAnulada, String motivo, String usuarioNombre,
             String especialidadOverride, Long idPersonalOverride,
             java.time.LocalDate fechaAtencionOverride, java.time.LocalTime horaAtencionOverride) {
@@ -4605,6 +4641,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
     // ============================================================================
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public Map<String, Object> cargaMasivaPacientes(com.styp.cenate.dto.bolsas.CargaMasivaRequest request) {
         if (request.getPacientes() == null || request.getPacientes().isEmpty()) {
             return Map.of("total", 0, "insertados", 0, "duplicados", 0, "errores", 0, "detalleErrores", List.of());
@@ -4795,6 +4832,7 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
 
     @Override
     @Transactional
+    @InvalidarEstadisticasBolsas
     public Map<String, Object> reprogramarMasivo(com.styp.cenate.dto.bolsas.ReprogramarMasivoRequest request) {
         List<Long> ids = request.getIds();
         java.time.LocalDate fechaCita = request.getFechaCita();
@@ -4810,19 +4848,20 @@ public class SolicitudBolsaServiceImpl implements SolicitudBolsaService {
         log.info("📅 [REPROGRAMAR MASIVO] {} solicitudes → fechaCita={} gestoraId={}",
             ids.size(), fechaCita, gestoraId);
 
-        int actualizados;
+        // gestoraId null conserva la gestora actual
+        ResultadoOperacionMasivaDTO resultado = ResultadoOperacionMasivaDTO.de(ids,
+            operacionMasivaDao.reprogramar(ids, fechaCita, gestoraId));
         if (gestoraId != null) {
-            actualizados = solicitudRepository.reprogramarMasivoConGestora(ids, fechaCita, gestoraId);
             log.info("✅ [REPROGRAMAR MASIVO] {} registros actualizados (fecha + gestora {})",
-                actualizados, gestoraId);
+                resultado.getActualizados(), gestoraId);
         } else {
-            actualizados = solicitudRepository.reprogramarMasivoSinGestora(ids, fechaCita);
-            log.info("✅ [REPROGRAMAR MASIVO] {} registros actualizados (solo fecha)", actualizados);
+            log.info("✅ [REPROGRAMAR MASIVO] {} registros actualizados (solo fecha)", resultado.getActualizados());
         }
 
         Map<String, Object> respuesta = new HashMap<>();
         respuesta.put("status", "ok");
-        respuesta.put("actualizados", actualizados);
+        respuesta.put("actualizados", resultado.getActualizados());
+        respuesta.put("idsOmitidos", resultado.getIdsOmitidos());
         respuesta.put("fechaCita", fechaCita.toString());
         return respuesta;
     }
@@ -1,6 +1,9 @@
 package com.styp.cenate.service.bolsas.impl;
 
+import com.styp.cenate.config.CacheConfig;
+import com.styp.cenate.dto.bolsas.FiltroBandejaBolsa;
 import com.styp.cenate.dto.bolsas.estadisticas.*;
+import com.styp.cenate.repository.bolsas.SolicitudBolsaBandejaDao;
 import com.styp.cenate.repository.bolsas.SolicitudBolsaRepository;
 import com.styp.cenate.service.bolsas.SolicitudBolsaEstadisticasService;
 import lombok.extern.slf4j.Slf4j;
@@ -24,9 +27,12 @@ import java.util.stream.Collectors;
 public class SolicitudBolsaEstadisticasServiceImpl implements SolicitudBolsaEstadisticasService {
 
     private final SolicitudBolsaRepository solicitudRepository;
+    private final SolicitudBolsaBandejaDao bandejaDao;
 
-    public SolicitudBolsaEstadisticasServiceImpl(SolicitudBolsaRepository solicitudRepository) {
+    public SolicitudBolsaEstadisticasServiceImpl(SolicitudBolsaRepository solicitudRepository,
+                                                 SolicitudBolsaBandejaDao bandejaDao) {
         this.solicitudRepository = solicitudRepository;
+        this.bandejaDao = bandejaDao;
     }
 
     // ========================================================================
@@ -34,7 +40,7 @@ public class SolicitudBolsaEstadisticasServiceImpl implements SolicitudBolsaEsta
     // ========================================================================
 
     @Override
-    @Cacheable(value = "estadisticas-generales")
+    @Cacheable(cacheNames = CacheConfig.ESTADISTICAS_GENERALES, sync = true)
     public EstadisticasGeneralesDTO obtenerEstadisticasGenerales() {
         log.info("📊 Calculando estadísticas generales...");
 
@@ -75,7 +81,7 @@ public class SolicitudBolsaEstadisticasServiceImpl implements SolicitudBolsaEsta
     // ========================================================================
 
     @Override
-    @Cacheable(value = "estadisticas-por-estado")
+    @Cacheable(cacheNames = CacheConfig.ESTADISTICAS_POR_ESTADO, sync = true)
     public List<EstadisticasPorEstadoDTO> obtenerEstadisticasPorEstado() {
         log.info("📊 Obteniendo estadísticas por estado...");
 
@@ -135,23 +141,20 @@ public class SolicitudBolsaEstadisticasServiceImpl implements SolicitudBolsaEsta
             String fechaInicio, String fechaFin, Long gestoraId, String estadoBolsa,
             String categoriaEspecialidad, String estrategia) {
 
-        List<Map<String, Object>> rows = solicitudRepository.estadisticasKpiConFiltros(
+        // ✅ v2.6.0: mismo filtro (y WHERE) que el listado de la bandeja
+        FiltroBandejaBolsa filtro = FiltroBandejaBolsa.de(
                 bolsaNombre, macrorregion, red, ipress, especialidad, estadoCodigo,
                 ipressAtencion, tipoCita, asignacion, busqueda,
-                fechaInicio, fechaFin, gestoraId, estadoBolsa, categoriaEspecialidad, estrategia);
-
-        return rows.stream()
-                .map(row -> {
-                    String estado   = (String) row.get("estado");
-                    Long cantidad   = ((Number) row.get("cantidad")).longValue();
-                    return EstadisticasPorEstadoDTO.builder()
-                            .estado(estado)
-                            .cantidad(cantidad)
-                            .porcentaje(BigDecimal.ZERO)
-                            .color(getColorPorEstado(estado))
-                            .emoji(getEmojiPorEstado(estado))
-                            .build();
-                })
+                fechaInicio, fechaFin, null, gestoraId, estadoBolsa, categoriaEspecialidad, estrategia);
+
+        return bandejaDao.conteoPorEstado(filtro).stream()
+                .map(conteo -> EstadisticasPorEstadoDTO.builder()
+                        .estado(conteo.estado())
+                        .cantidad(conteo.cantidad())
+                        .porcentaje(BigDecimal.ZERO)
+                        .color(getColorPorEstado(conteo.estado()))
+                        .emoji(getEmojiPorEstado(conteo.estado()))
+                        .build())
                 .collect(Collectors.toList());
     }
 
@@ -269,7 +272,7 @@ public class SolicitudBolsaEstadisticasServiceImpl implements SolicitudBolsaEsta
     // ========================================================================
 
     @Override
-    @Cacheable(value = "estadisticas-por-ipress")
+    @Cacheable(cacheNames = CacheConfig.ESTADISTICAS_POR_IPRESS, sync = true)
     public List<EstadisticasPorIpressDTO> obtenerEstadisticasPorIpress() {
         log.info("📊 Obteniendo estadísticas por IPRESS...");
 
@@ -281,7 +284,7 @@ public class SolicitudBolsaEstadisticasServiceImpl implements SolicitudBolsaEsta
     }
 
     @Override
-    @Cacheable(value = "estadisticas-por-ipress-atencion")
+    @Cacheable(cacheNames = CacheConfig.ESTADISTICAS_POR_IPRESS_ATENCION, sync = true)
     public List<EstadisticasPorIpressDTO> obtenerEstadisticasPorIpressAtencion() {
         log.info("📊 Obteniendo estadísticas por IPRESS Atención...");
 
@@ -335,7 +338,7 @@ public class SolicitudBolsaEstadisticasServiceImpl implements SolicitudBolsaEsta
     // ========================================================================
 
     @Override
-    @Cacheable(value = "estadisticas-por-tipo-cita")
+    @Cacheable(cacheNames = CacheConfig.ESTADISTICAS_POR_TIPO_CITA, sync = true)
     public List<EstadisticasPorTipoCitaDTO> obtenerEstadisticasPorTipoCita() {
         log.info("📊 Obteniendo estadísticas por tipo de cita...");
 
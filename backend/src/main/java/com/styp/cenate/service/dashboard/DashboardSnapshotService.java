@@ -0,0 +1,222 @@
+package com.styp.cenate.service.dashboard;
+
+import com.styp.cenate.repository.DashboardEstadisticasDao;
+import com.styp.cenate.repository.DashboardEstadisticasDao.ActividadAuditoria;
+import com.styp.cenate.repository.DashboardEstadisticasDao.ConteoModulo;
+import com.styp.cenate.repository.DashboardEstadisticasDao.DistribucionPersonal;
+import com.styp.cenate.repository.DashboardEstadisticasDao.IndicadoresCatalogo;
+import com.styp.cenate.repository.DashboardEstadisticasDao.PersonalExternoRed;
+import com.styp.cenate.repository.DashboardEstadisticasDao.UsuarioActividad;
+import com.styp.cenate.repository.IpressRepository;
+import com.styp.cenate.repository.UsuarioRepository;
+import com.styp.cenate.repository.mbac.PermisoModularRepository;
+import com.styp.cenate.repository.segu.RolRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 📊 Snapshot de estadísticas del dashboard administrativo (v2.6.0)
+ *
+ * Todos los endpoints de {@code DashboardController} leen de un único snapshot en memoria
+ * que se recalcula cuando tiene más de {@code cenate.dashboard.snapshot.vigencia-segundos}.
+ * Un solo request recalcula a la vez; mientras tanto los demás reciben el snapshot
+ * anterior (solo esperan en el arranque, cuando aún no hay ninguno).
+ *
+ * Al recalcular, los conteos independientes se lanzan en paralelo en el pool acotado
+ * {@code dashboardSnapshotExecutor} ({@code cenate.dashboard.snapshot.hilos}) para no
+ * acaparar conexiones de Hikari.
+ *
+ * El total de audit_logs y su desglose por módulo no se recuentan: se suman los
+ * registros con id mayor al último visto. Como un INSERT puede confirmarse con un id
+ * menor al ya visto (y los registros pueden purgarse), cada
+ * {@code cenate.dashboard.snapshot.reconciliacion-minutos} se recuenta la tabla completa.
+ */
+@Service
+@Slf4j
+public class DashboardSnapshotService {
+
+    private static final int TOP_USUARIOS = 5;
+
+    private final UsuarioRepository usuarioRepository;
+    private final RolRepository rolRepository;
+    private final IpressRepository ipressRepository;
+    private final PermisoModularRepository permisoModularRepository;
+    private final DashboardEstadisticasDao estadisticasDao;
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Duration vigencia;
+    private final Duration intervaloReconciliacion;
+
+    private final ReentrantLock lockRefresco = new ReentrantLock();
+    private volatile DashboardSnapshot snapshot;
+
+    // Contadores incrementales de audit_logs (solo se modifican con lockRefresco)
+    private long ultimoIdAuditoria;
+    private Map<String, Long> auditoriaPorModulo = Map.of();
+    private LocalDateTime ultimaReconciliacion;
+
+    public DashboardSnapshotService(UsuarioRepository usuarioRepository,
+                                    RolRepository rolRepository,
+                                    IpressRepository ipressRepository,
+                                    PermisoModularRepository permisoModularRepository,
+                                    DashboardEstadisticasDao estadisticasDao,
+                                    @Qualifier("dashboardSnapshotExecutor") ThreadPoolTaskExecutor executor,
+                                    @Value("${cenate.dashboard.snapshot.vigencia-segundos:30}") long vigenciaSegundos,
+                                    @Value("${cenate.dashboard.snapshot.reconciliacion-minutos:60}") long reconciliacionMinutos) {
+        this.usuarioRepository = usuarioRepository;
+        this.rolRepository = rolRepository;
+        this.ipressRepository = ipressRepository;
+        this.permisoModularRepository = permisoModularRepository;
+        this.estadisticasDao = estadisticasDao;
+        this.executor = executor;
+        this.vigencia = Duration.ofSeconds(vigenciaSegundos);
+        this.intervaloReconciliacion = Duration.ofMinutes(reconciliacionMinutos);
+    }
+
+    /**
+     * Estadísticas del dashboard en un instante ({@code generadoEn})
+     */
+    public record DashboardSnapshot(
+            LocalDateTime generadoEn,
+            long totalUsuarios,
+            long usuariosActivos,
+            long usuariosInactivos,
+            long totalRoles,
+            long totalIpress,
+            long totalPermisos,
+            IndicadoresCatalogo indicadores,
+            long totalLogs,
+            Map<String, Long> logsPorModulo,
+            ActividadAuditoria actividad,
+            List<UsuarioActividad> topUsuarios,
+            DistribucionPersonal distribucionPersonal,
+            List<PersonalExternoRed> personalExternoPorRed) {
+    }
+
+    /**
+     * Snapshot vigente; si venció lo recalcula este hilo, salvo que otro ya lo esté haciendo:
+     * entonces se devuelve el anterior (si falla el recálculo y hay uno anterior, también)
+     */
+    public DashboardSnapshot obtenerSnapshot() {
+        DashboardSnapshot actual = snapshot;
+        if (vigente(actual)) {
+            return actual;
+        }
+        if (actual == null) {
+            lockRefresco.lock();
+        } else if (!lockRefresco.tryLock()) {
+            return actual;
+        }
+        try {
+            actual = snapshot;
+            if (vigente(actual)) {
+                return actual;
+            }
+            try {
+                snapshot = construir();
+                return snapshot;
+            } catch (RuntimeException e) {
+                if (actual == null) {
+                    throw e;
+                }
+                log.warn("⚠️ No se pudo recalcular el snapshot del dashboard, se usa el de {}: {}",
+                        actual.generadoEn(), e.getMessage());
+                return actual;
+            }
+        } finally {
+            lockRefresco.unlock();
+        }
+    }
+
+    private boolean vigente(DashboardSnapshot s) {
+        return s != null && s.generadoEn().plus(vigencia).isAfter(LocalDateTime.now());
+    }
+
+    private DashboardSnapshot construir() {
+        long inicio = System.currentTimeMillis();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        CompletableFuture<Long> totalUsuarios = enParalelo(usuarioRepository::count);
+        CompletableFuture<Long> usuariosActivos = enParalelo(() -> usuarioRepository.countByStatUser("A"));
+        CompletableFuture<Long> usuariosInactivos = enParalelo(() -> usuarioRepository.countByStatUser("I"));
+        CompletableFuture<Long> totalRoles = enParalelo(rolRepository::count);
+        CompletableFuture<Long> totalIpress = enParalelo(ipressRepository::count);
+        CompletableFuture<Long> totalPermisos = enParalelo(permisoModularRepository::count);
+        CompletableFuture<IndicadoresCatalogo> indicadores = enParalelo(estadisticasDao::indicadoresCatalogo)
+                .exceptionally(e -> {
+                    log.warn("⚠️ Error al obtener indicadores adicionales: {}", e.getMessage());
+                    return IndicadoresCatalogo.VACIO;
+                });
+        CompletableFuture<ActividadAuditoria> actividad = enParalelo(() -> estadisticasDao.actividadAuditoria(ahora));
+        CompletableFuture<List<UsuarioActividad>> topUsuarios =
+                enParalelo(() -> estadisticasDao.topUsuarios(ahora.minusDays(7), TOP_USUARIOS));
+        CompletableFuture<DistribucionPersonal> distribucion = enParalelo(estadisticasDao::distribucionPersonal);
+        CompletableFuture<List<PersonalExternoRed>> porRed = enParalelo(estadisticasDao::personalExternoPorRed);
+
+        // Mientras tanto, en este hilo: contadores incrementales de auditoría
+        actualizarContadoresAuditoria(ahora);
+
+        try {
+            DashboardSnapshot nuevo = new DashboardSnapshot(
+                    ahora,
+                    totalUsuarios.join(),
+                    usuariosActivos.join(),
+                    usuariosInactivos.join(),
+                    totalRoles.join(),
+                    totalIpress.join(),
+                    totalPermisos.join(),
+                    indicadores.join(),
+                    auditoriaPorModulo.values().stream().mapToLong(Long::longValue).sum(),
+                    auditoriaPorModulo,
+                    actividad.join(),
+                    topUsuarios.join(),
+                    distribucion.join(),
+                    porRed.join());
+            log.debug("📊 Snapshot del dashboard recalculado en {}ms", System.currentTimeMillis() - inicio);
+            return nuevo;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+    }
+
+    private <T> CompletableFuture<T> enParalelo(Supplier<T> consulta) {
+        return CompletableFuture.supplyAsync(consulta, executor);
+    }
+
+    /**
+     * Suma los audit_logs nuevos desde el último id visto, o recuenta todo si toca reconciliar
+     */
+    private void actualizarContadoresAuditoria(LocalDateTime ahora) {
+        boolean reconciliar = ultimaReconciliacion == null
+                || ultimaReconciliacion.plus(intervaloReconciliacion).isBefore(ahora);
+        long desde = reconciliar ? 0 : ultimoIdAuditoria;
+
+        Map<String, Long> porModulo = new HashMap<>(reconciliar ? Map.of() : auditoriaPorModulo);
+        long maxId = desde;
+        for (ConteoModulo conteo : estadisticasDao.auditoriaPorModuloDesde(desde)) {
+            porModulo.merge(conteo.modulo(), conteo.total(), Long::sum);
+            maxId = Math.max(maxId, conteo.maxId());
+        }
+
+        auditoriaPorModulo = Collections.unmodifiableMap(porModulo);
+        ultimoIdAuditoria = maxId;
+        if (reconciliar) {
+            ultimaReconciliacion = ahora;
+            log.info("📊 Contadores de auditoría del dashboard reconciliados (último id {})", maxId);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.styp.cenate.service.ipress;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.styp.cenate.repository.IpressRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🏥 Catálogo en memoria código IPRESS → descripción.
+ *
+ * dim_ipress es pequeño y casi estático; se carga completo con una sola consulta
+ * y se recarga al expirar o cuando {@code IpressServiceImpl} modifica una IPRESS.
+ * Lo usan los listados de bolsas para completar desc_ipress sin consultar por fila.
+ */
+@Slf4j
+@Service
+public class IpressCatalogoService {
+
+    private static final String CLAVE = "catalogo";
+
+    private final IpressRepository ipressRepository;
+    private final LoadingCache<String, Map<String, String>> cache;
+
+    public IpressCatalogoService(IpressRepository ipressRepository,
+                                 @Value("${cenate.ipress.catalogo.ttl-minutos:30}") long ttlMinutos) {
+        this.ipressRepository = ipressRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .maximumSize(1)
+                .build(k -> cargar());
+    }
+
+    /**
+     * Descripción de la IPRESS para un código de adscripción.
+     * Los códigos numéricos se normalizan a 3 dígitos ("21" → "021"), igual que dim_ipress.cod_ipress.
+     *
+     * @return descripción o null si el código no existe
+     */
+    public String descripcionPorCodigo(String codigo) {
+        if (codigo == null || codigo.isBlank()) {
+            return null;
+        }
+        return cache.get(CLAVE).get(normalizarCodigo(codigo));
+    }
+
+    /**
+     * Fuerza la recarga en el siguiente acceso (alta, edición o baja de IPRESS).
+     */
+    public void invalidar() {
+        cache.invalidateAll();
+    }
+
+    public static String normalizarCodigo(String codigo) {
+        String valor = codigo.trim();
+        try {
+            return String.format("%03d", Integer.parseInt(valor));
+        } catch (NumberFormatException ignored) {
+            return valor; // alfanumérico, no normalizar
+        }
+    }
+
+    private Map<String, String> cargar() {
+        List<Object[]> filas = ipressRepository.findCatalogoCodigoDescripcion();
+        Map<String, String> catalogo = new HashMap<>(filas.size() * 2);
+        for (Object[] fila : filas) {
+            if (fila[0] != null) {
+                catalogo.putIfAbsent(((String) fila[0]).trim(), (String) fila[1]);
+            }
+        }
+        log.info("🏥 Catálogo IPRESS cargado en memoria: {} códigos", catalogo.size());
+        return Map.copyOf(catalogo);
+    }
+}
@@ -32,6 +32,7 @@ import com.styp.cenate.repository.RedRepository;
 import com.styp.cenate.repository.UsuarioRepository;
 import com.styp.cenate.repository.ipress.IpressServicioConfigWriteRepository;
 import com.styp.cenate.service.auditlog.AuditLogService;
+import com.styp.cenate.service.ipress.IpressCatalogoService;
 import com.styp.cenate.service.ipress.IpressService;
 
 import lombok.Data;
@@ -57,6 +58,7 @@ public class IpressServiceImpl implements IpressService {
     private final AuditLogService auditLogService;
     
     private final IpressServicioConfigWriteRepository repoConfigIpress;
+    private final IpressCatalogoService ipressCatalogoService;
 
     @Override
     public List<IpressResponse> getAllIpress() {
@@ -141,6 +143,7 @@ public class IpressServiceImpl implements IpressService {
 
         // Guardar
         Ipress saved = ipressRepository.save(ipress);
+        ipressCatalogoService.invalidar();
         log.info("IPRESS creada con ID: {}", saved.getIdIpress());
 
         return convertToResponse(saved);
@@ -187,6 +190,7 @@ public class IpressServiceImpl implements IpressService {
 
         // Guardar cambios
         Ipress updated = ipressRepository.save(ipress);
+        ipressCatalogoService.invalidar();
         log.info("IPRESS actualizada con éxito: {}", updated.getIdIpress());
 
         return convertToResponse(updated);
@@ -206,6 +210,7 @@ public class IpressServiceImpl implements IpressService {
 
         // Eliminar
         ipressRepository.delete(ipress);
+        ipressCatalogoService.invalidar();
         log.info("IPRESS eliminada con éxito: {}", id);
     }
 
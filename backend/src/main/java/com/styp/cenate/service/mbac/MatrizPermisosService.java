@@ -0,0 +1,25 @@
+// ============================================================================
+// 🧮 MatrizPermisosService.java – Matriz MBAC precompilada por usuario
+// ----------------------------------------------------------------------------
+// Mantiene en caché la matriz ruta × acción de cada usuario para que las
+// verificaciones MBAC (aspecto, evaluador, /check) no consulten la BD.
+// Debe invalidarse cuando cambian permisos de usuario, rol, módulo o página.
+// ============================================================================
+package com.styp.cenate.service.mbac;
+
+import com.styp.cenate.security.mbac.MatrizPermisos;
+
+public interface MatrizPermisosService {
+
+    /** Matriz del usuario por username (null si el usuario no existe) */
+    MatrizPermisos obtenerPorUsername(String username);
+
+    /** Matriz del usuario por ID (null si el usuario no existe) */
+    MatrizPermisos obtenerPorIdUsuario(Long idUser);
+
+    /** Invalida la matriz de un usuario (cambio de permisos directos o de roles) */
+    void invalidarUsuario(Long idUser);
+
+    /** Invalida todas las matrices (cambio de permisos de rol, módulos o páginas) */
+    void invalidarTodo();
+}
@@ -0,0 +1,186 @@
+// ========================================================================
+// 🧮 MatrizPermisosServiceImpl.java – Matriz MBAC en memoria (CENATE 2025)
+// ------------------------------------------------------------------------
+// Construye por usuario la matriz ruta × acción a partir de la vista
+// vw_permisos_usuario_activos y de segu_permisos_usuario_pagina, y la
+// mantiene en caché (Caffeine) hasta que se invalide o expire.
+// ========================================================================
+
+package com.styp.cenate.service.mbac.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.styp.cenate.model.Usuario;
+import com.styp.cenate.model.view.PermisoActivoView;
+import com.styp.cenate.repository.UsuarioRepository;
+import com.styp.cenate.repository.view.PermisoActivoViewRepository;
+import com.styp.cenate.security.mbac.MatrizPermisos;
+import com.styp.cenate.service.mbac.MatrizPermisosService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+@Slf4j
+@Service
+public class MatrizPermisosServiceImpl implements MatrizPermisosService {
+
+    private static final String SQL_PERMISOS_DIRECTOS = """
+            SELECT dpm.ruta_pagina, spp.puede_ver, spp.puede_crear, spp.puede_editar,
+                   spp.puede_eliminar, spp.puede_exportar, spp.puede_aprobar
+            FROM segu_permisos_usuario_pagina spp
+            JOIN dim_paginas_modulo dpm ON spp.id_pagina = dpm.id_pagina
+            WHERE spp.id_usuario = ? AND spp.activo = true
+            """;
+
+    private final UsuarioRepository usuarioRepository;
+    private final PermisoActivoViewRepository permisoActivoViewRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** idUser → matriz */
+    private final Cache<Long, MatrizPermisos> matrices;
+    /** username → idUser (evita findByNameUser en cada verificación) */
+    private final Cache<String, Long> idsPorUsername;
+
+    public MatrizPermisosServiceImpl(UsuarioRepository usuarioRepository,
+                                     PermisoActivoViewRepository permisoActivoViewRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${cenate.mbac.matriz.ttl-minutos:10}") long ttlMinutos,
+                                     @Value("${cenate.mbac.matriz.max-usuarios:5000}") long maxUsuarios) {
+        this.usuarioRepository = usuarioRepository;
+        this.permisoActivoViewRepository = permisoActivoViewRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.matrices = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .maximumSize(maxUsuarios)
+                .recordStats()
+                .build();
+        this.idsPorUsername = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .maximumSize(maxUsuarios)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, matrices, "mbac-matriz-permisos");
+    }
+
+    @Override
+    public MatrizPermisos obtenerPorUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        Long idUser = idsPorUsername.get(username, u -> usuarioRepository.findByNameUser(u)
+                .map(Usuario::getIdUser)
+                .orElse(null));
+        if (idUser == null) {
+            return null;
+        }
+        return obtener(idUser, username);
+    }
+
+    @Override
+    public MatrizPermisos obtenerPorIdUsuario(Long idUser) {
+        if (idUser == null) {
+            return null;
+        }
+        return obtener(idUser, null);
+    }
+
+    @Override
+    public void invalidarUsuario(Long idUser) {
+        if (idUser == null) {
+            return;
+        }
+        ejecutarAhoraYTrasCommit(() -> {
+            matrices.invalidate(idUser);
+            idsPorUsername.asMap().values().removeIf(idUser::equals);
+        });
+        log.debug("🧮 Matriz MBAC invalidada para usuario ID {}", idUser);
+    }
+
+    @Override
+    public void invalidarTodo() {
+        ejecutarAhoraYTrasCommit(() -> {
+            matrices.invalidateAll();
+            idsPorUsername.invalidateAll();
+        });
+        log.info("🧮 Matrices MBAC invalidadas (cambio de permisos de rol/módulo/página)");
+    }
+
+    /**
+     * Invalida de inmediato y, si hay transacción activa, otra vez tras el commit
+     * para que ninguna verificación concurrente recargue el estado anterior.
+     */
+    private void ejecutarAhoraYTrasCommit(Runnable invalidacion) {
+        invalidacion.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidacion.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Matriz desde caché o recién construida. Si fallan los permisos directos, la matriz
+     * parcial (solo permisos por rol) se usa en esta verificación pero no se cachea.
+     */
+    private MatrizPermisos obtener(Long idUser, String username) {
+        try {
+            return matrices.get(idUser, id -> construir(id, username));
+        } catch (MatrizIncompletaException e) {
+            return e.parcial;
+        }
+    }
+
+    private MatrizPermisos construir(Long idUser, String username) {
+        MatrizPermisos.Builder builder = MatrizPermisos.builder(idUser, username);
+
+        // 1. Permisos por rol (vista consolidada)
+        List<PermisoActivoView> permisosRol = permisoActivoViewRepository.findByIdUser(idUser);
+        for (PermisoActivoView p : permisosRol) {
+            builder.agregar(p.getRutaPagina(), p.getPuedeVer(), p.getPuedeCrear(), p.getPuedeEditar(),
+                    p.getPuedeEliminar(), p.getPuedeExportar(), p.getPuedeAprobar());
+        }
+
+        // 2. Permisos directos de usuario
+        try {
+            jdbcTemplate.query(SQL_PERMISOS_DIRECTOS, rs -> {
+                builder.agregar(rs.getString("ruta_pagina"),
+                        (Boolean) rs.getObject("puede_ver"),
+                        (Boolean) rs.getObject("puede_crear"),
+                        (Boolean) rs.getObject("puede_editar"),
+                        (Boolean) rs.getObject("puede_eliminar"),
+                        (Boolean) rs.getObject("puede_exportar"),
+                        (Boolean) rs.getObject("puede_aprobar"));
+            }, idUser);
+        } catch (Exception e) {
+            log.warn("⚠️ Error consultando permisos directos de usuario {}: {}", idUser, e.getMessage());
+            // Al lanzar desde el loader, Caffeine no guarda la matriz incompleta
+            throw new MatrizIncompletaException(builder.build());
+        }
+
+        MatrizPermisos matriz = builder.build();
+        log.debug("🧮 Matriz MBAC construida para usuario {}: {} rutas", idUser, matriz.totalRutas());
+        return matriz;
+    }
+
+    /** Matriz sin permisos directos: se devuelve al llamador sin pasar por la caché */
+    private static final class MatrizIncompletaException extends RuntimeException {
+
+        private final transient MatrizPermisos parcial;
+
+        private MatrizIncompletaException(MatrizPermisos parcial) {
+            super(null, null, false, false);
+            this.parcial = parcial;
+        }
+    }
+}
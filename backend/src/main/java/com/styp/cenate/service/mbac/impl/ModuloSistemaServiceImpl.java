@@ -25,6 +25,7 @@ import com.styp.cenate.repository.mbac.PermisoModularRepository;
 import com.styp.cenate.repository.segu.PermisoRolModuloRepository;
 import com.styp.cenate.repository.segu.PermisoRolPaginaRepository;
 import com.styp.cenate.repository.segu.RolRepository;
+import com.styp.cenate.service.mbac.MatrizPermisosService;
 import com.styp.cenate.service.mbac.ModuloSistemaService;
 
 import lombok.Data;
@@ -51,6 +52,7 @@ public class ModuloSistemaServiceImpl implements ModuloSistemaService {
 	private final PermisoRolModuloRepository permisoRolModuloRepository;
 	private final PermisoRolPaginaRepository permisoRolPaginaRepository;
 	private final PermisoModularRepository permisoModularRepository;
+	private final MatrizPermisosService matrizPermisosService;
 
 	@Override
 	public List<ModuloSistemaDTO> listado() {
@@ -74,6 +76,7 @@ public class ModuloSistemaServiceImpl implements ModuloSistemaService {
 		entity.setActivo(dto.isActivo());
 		entity.setOrden(dto.getOrden());
 		entity = moduloRepo.save(entity);
+		matrizPermisosService.invalidarTodo();
 		return ModuloSistemaMapper.toDTO(entity);
 	}
 
@@ -86,6 +89,7 @@ public class ModuloSistemaServiceImpl implements ModuloSistemaService {
 	@Override
 	public void eliminar(Integer id) {
 		moduloRepo.deleteById(id);
+		matrizPermisosService.invalidarTodo();
 	}
 
 	// ========================================
@@ -126,6 +130,7 @@ public class ModuloSistemaServiceImpl implements ModuloSistemaService {
 				.orElseThrow(() -> new RuntimeException("Página no encontrada"));
 		mapearDTOAPagina(dto, entity);
 		entity = paginaRepo.save(entity);
+		matrizPermisosService.invalidarTodo();
 		return convertirPaginaADTO(entity);
 	}
 
@@ -144,6 +149,7 @@ public class ModuloSistemaServiceImpl implements ModuloSistemaService {
 
 		// Finalmente eliminar la página
 		paginaRepo.deleteById(id);
+		matrizPermisosService.invalidarTodo();
 		log.info("✅ Página ID: {} eliminada correctamente", id);
 	}
 
@@ -186,6 +192,7 @@ public class ModuloSistemaServiceImpl implements ModuloSistemaService {
 		mapearDTOAPermisoRM(dto, entity);
 
 		entity = permisoRolModuloRepository.save(entity);
+		matrizPermisosService.invalidarTodo();
 		return convertirPermisoRMADTO(entity);
 	}
 
@@ -196,12 +203,14 @@ public class ModuloSistemaServiceImpl implements ModuloSistemaService {
 
 		mapearDTOAPermisoRM(dto, entity);
 		entity = permisoRolModuloRepository.save(entity);
+		matrizPermisosService.invalidarTodo();
 		return convertirPermisoRMADTO(entity);
 	}
 
 	@Override
 	public void eliminarPermisoRolModulo(Integer id) {
 		permisoRolModuloRepository.deleteById(id);
+		matrizPermisosService.invalidarTodo();
 	}
 
 	// ========================================
@@ -250,12 +259,14 @@ public class ModuloSistemaServiceImpl implements ModuloSistemaService {
 		int actualizados = permisoModularRepository.propagarActualizarPermisosRol(idRol);
 		int insertados   = permisoModularRepository.propagarInsertarPermisosRol(idRol);
 		log.info("✅ Propagación rol {}: {} actualizados, {} insertados", idRol, actualizados, insertados);
+		matrizPermisosService.invalidarTodo();
 		return java.util.Map.of("actualizados", actualizados, "insertados", insertados);
 	}
 
 	@Override
 	public void eliminarPermisoRolPagina(Integer id) {
 		permisoRolPaginaRepository.deleteById(id);
+		matrizPermisosService.invalidarTodo();
 
 	}
 
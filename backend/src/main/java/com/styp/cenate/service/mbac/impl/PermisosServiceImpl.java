@@ -22,10 +22,10 @@ import com.styp.cenate.repository.segu.PermisoRolPaginaRepository;
 import com.styp.cenate.repository.segu.RolRepository;
 import com.styp.cenate.repository.view.ModuloViewRepository;
 import com.styp.cenate.repository.view.PermisoActivoViewRepository;
+import com.styp.cenate.security.mbac.MatrizPermisos;
+import com.styp.cenate.service.mbac.MatrizPermisosService;
 import com.styp.cenate.service.mbac.PermisosService;
-import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.persistence.Query;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -47,7 +47,7 @@ public class PermisosServiceImpl implements PermisosService {
     private final RolRepository rolRepository;
     private final PermisoRolPaginaRepository permisoRolPaginaRepository;
     private final PaginaRepository paginaRepository;
-    private final EntityManager entityManager;
+    private final MatrizPermisosService matrizPermisosService;
 
     // ===========================================================
     // 🔹 1. Obtener permisos activos (vista consolidada)
@@ -135,6 +135,7 @@ public class PermisosServiceImpl implements PermisosService {
                 .build();
 
         permiso = permisoModularRepository.save(permiso);
+        matrizPermisosService.invalidarUsuario(permiso.getIdUser());
 
         return PermisoUsuarioResponseDTO.builder()
                 .idPermiso(permiso.getIdPermiso().longValue())
@@ -166,6 +167,7 @@ public class PermisosServiceImpl implements PermisosService {
         permiso.setPuedeAprobar(request.getAprobar());
 
         permisoModularRepository.save(permiso);
+        matrizPermisosService.invalidarUsuario(permiso.getIdUser());
 
         return PermisoUsuarioResponseDTO.builder()
                 .idPermiso(permiso.getIdPermiso().longValue())
@@ -224,6 +226,7 @@ public class PermisosServiceImpl implements PermisosService {
         }
 
         permiso = permisoModularRepository.save(permiso);
+        matrizPermisosService.invalidarUsuario(permiso.getIdUser());
 
         return PermisoUsuarioResponseDTO.builder()
                 .idPermiso(permiso.getIdPermiso().longValue())
@@ -249,6 +252,7 @@ public class PermisosServiceImpl implements PermisosService {
         // Esto asegura que al cambiar de rol, los permisos del rol anterior se eliminen
         log.info("🗑️ Eliminando permisos anteriores del usuario {}", idUser);
         permisoModularRepository.deleteByIdUser(idUser);
+        matrizPermisosService.invalidarUsuario(idUser);
 
         // 2. Crear los nuevos permisos
         return permisos.stream()
@@ -265,9 +269,10 @@ public class PermisosServiceImpl implements PermisosService {
     @Override
     public void eliminarPermiso(Integer idPermiso) {
         log.warn("🗑️ Eliminando permiso MBAC ID {}", idPermiso);
-        if (!permisoModularRepository.existsById(idPermiso))
-            throw new EntityNotFoundException("❌ El permiso no existe");
+        var permiso = permisoModularRepository.findById(idPermiso)
+                .orElseThrow(() -> new EntityNotFoundException("❌ El permiso no existe"));
         permisoModularRepository.deleteById(idPermiso);
+        matrizPermisosService.invalidarUsuario(permiso.getIdUser());
     }
 
     // ===========================================================
@@ -351,57 +356,12 @@ public class PermisosServiceImpl implements PermisosService {
     // ===========================================================
     @Override
     public boolean tienePermiso(Long idUser, String rutaPagina, String accion) {
-        // ✅ PRIMERO: Consultar permisos basados en ROL (vía vista)
-        var permisos = obtenerPermisosPorUsuario(idUser);
-        boolean tienePermisoRol = permisos.stream()
-                .filter(p -> rutaPagina.equalsIgnoreCase(p.getRutaPagina()))
-                .anyMatch(p -> switch (accion.toLowerCase()) {
-                    case "ver" -> Boolean.TRUE.equals(p.getVer());
-                    case "crear" -> Boolean.TRUE.equals(p.getCrear());
-                    case "editar", "actualizar", "asignar" -> Boolean.TRUE.equals(p.getEditar());
-                    case "eliminar" -> Boolean.TRUE.equals(p.getEliminar());
-                    case "exportar" -> Boolean.TRUE.equals(p.getExportar());
-                    case "aprobar" -> Boolean.TRUE.equals(p.getAprobar());
-                    default -> false;
-                });
-
-        // ✅ SEGUNDO: Si no tiene permiso por ROL, consultar permisos DIRECTOS de usuario (tabla segu_permisos_usuario_pagina)
-        if (!tienePermisoRol) {
-            log.debug("🔍 Consultando permisos directos de usuario {} para página: {}, acción: {}", idUser, rutaPagina, accion);
-            try {
-                // Consulta SQL nativa a segu_permisos_usuario_pagina
-                String sql = "SELECT COALESCE((" +
-                    "CASE " +
-                    "  WHEN :accion = 'ver' THEN spp.puede_ver " +
-                    "  WHEN :accion = 'crear' THEN spp.puede_crear " +
-                    "  WHEN :accion IN ('editar', 'actualizar', 'asignar') THEN spp.puede_editar " +
-                    "  WHEN :accion = 'eliminar' THEN spp.puede_eliminar " +
-                    "  WHEN :accion = 'exportar' THEN spp.puede_exportar " +
-                    "  WHEN :accion = 'aprobar' THEN spp.puede_aprobar " +
-                    "  ELSE false " +
-                    "END), false) FROM segu_permisos_usuario_pagina spp " +
-                    "JOIN dim_paginas_modulo dpm ON spp.id_pagina = dpm.id_pagina " +
-                    "WHERE spp.id_usuario = :idUsuario " +
-                    "AND LOWER(dpm.ruta_pagina) = LOWER(:rutaPagina) " +
-                    "AND spp.activo = true " +
-                    "LIMIT 1";
-
-                Query query = entityManager.createNativeQuery(sql, Boolean.class);
-                query.setParameter("idUsuario", idUser);
-                query.setParameter("rutaPagina", rutaPagina);
-                query.setParameter("accion", accion.toLowerCase());
-
-                Boolean tienePermisoDirecto = (Boolean) query.getSingleResult();
-                if (tienePermisoDirecto != null && tienePermisoDirecto) {
-                    log.info("✅ Permiso DIRECTO concedido al usuario {} para {}: {}", idUser, rutaPagina, accion);
-                    return true;
-                }
-            } catch (Exception e) {
-                log.warn("⚠️ Error consultando permisos directos: {}", e.getMessage());
-            }
-        }
-
-        return tienePermisoRol;
+        // ✅ Matriz precompilada: permisos por ROL (vista) + permisos DIRECTOS
+        // (segu_permisos_usuario_pagina), combinados y cacheados por usuario
+        MatrizPermisos matriz = matrizPermisosService.obtenerPorIdUsuario(idUser);
+        boolean permitido = matriz != null && matriz.permite(rutaPagina, accion);
+        log.debug("🔍 Permiso usuario {} para {}: {} → {}", idUser, rutaPagina, accion, permitido);
+        return permitido;
     }
 
     // ===========================================================
@@ -21,6 +21,10 @@ import com.styp.cenate.repository.UsuarioRepository;
 import com.styp.cenate.model.bolsas.SolicitudBolsa;
 import com.styp.cenate.model.Asegurado;
 import com.styp.cenate.model.Ipress;
+import com.styp.cenate.dto.PaginaCursorDTO;
+import com.styp.cenate.enumd.ModoConteo;
+import com.styp.cenate.util.CursorPaginacion;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import jakarta.persistence.EntityManager;
@@ -76,6 +80,9 @@ public class TicketMesaAyudaService {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Value("${app.paginacion.tope-conteo:1000}")
+    private int topeConteo;
+
     // ========== GENERAR NÚMERO DE TICKET ==========
 
     /**
@@ -340,6 +347,143 @@ public class TicketMesaAyudaService {
             Long idMotivo,
             Pageable pageable) {
 
+        log.debug("Búsqueda paginada: estados={}, prioridad={}, dni={}, ticket={}, idMedico={}, asignado={}, page={}, size={}",
+            estados, prioridad, dniPaciente, numeroTicket, idMedico, nombreAsignado,
+            pageable.getPageNumber(), pageable.getPageSize());
+
+        // Construir query dinámicamente
+        Map<String, Object> params = new HashMap<>();
+        String filtros = filtrosTickets(estados, prioridad, dniPaciente, numeroTicket, idMedico, nombreAsignado,
+            fechaDesde, fechaHasta, fechaAtencionDesde, fechaAtencionHasta, idMotivo, params);
+
+        // Ejecutar count query
+        var countQuery = entityManager.createQuery(
+            "SELECT COUNT(t) FROM TicketMesaAyuda t WHERE t.deletedAt IS NULL" + filtros, Long.class);
+        params.forEach(countQuery::setParameter);
+        long total = countQuery.getSingleResult();
+
+        // Ejecutar data query con paginación
+        var dataQuery = entityManager.createQuery(
+            "SELECT t FROM TicketMesaAyuda t WHERE t.deletedAt IS NULL" + filtros + " ORDER BY t.fechaCreacion DESC",
+            TicketMesaAyuda.class);
+        params.forEach(dataQuery::setParameter);
+        dataQuery.setFirstResult((int) pageable.getOffset());
+        dataQuery.setMaxResults(pageable.getPageSize());
+
+        List<TicketMesaAyuda> resultados = dataQuery.getResultList();
+        List<TicketMesaAyudaResponseDTO> dtos = resultados.stream()
+            .map(this::toResponseDTO)
+            .collect(Collectors.toList());
+
+        return new org.springframework.data.domain.PageImpl<>(dtos, pageable, total);
+    }
+
+    /**
+     * ✅ v2.6.0: Búsqueda de tickets con paginación por cursor (mismos filtros que buscarConFiltros)
+     * Orden: fechaCreacion DESC, id DESC. La página siguiente se pide "después" de la última
+     * fila (after) en vez de con OFFSET.
+     *
+     * La consulta es JPQL y no puede pasar por EXPLAIN: ESTIMADO se resuelve como LIMITADO
+     * (lee a lo más tope + 1 ids).
+     *
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<TicketMesaAyudaResponseDTO> buscarConFiltrosCursor(
+            String estados,
+            String prioridad,
+            String dniPaciente,
+            String numeroTicket,
+            Long idMedico,
+            String nombreAsignado,
+            LocalDate fechaDesde,
+            LocalDate fechaHasta,
+            LocalDate fechaAtencionDesde,
+            LocalDate fechaAtencionHasta,
+            Long idMotivo,
+            String after,
+            int size,
+            ModoConteo conteo) {
+
+        Map<String, Object> params = new HashMap<>();
+        String filtros = filtrosTickets(estados, prioridad, dniPaciente, numeroTicket, idMedico, nombreAsignado,
+            fechaDesde, fechaHasta, fechaAtencionDesde, fechaAtencionHasta, idMotivo, params);
+
+        // Total (sin el cursor)
+        long total;
+        boolean totalEsMinimo = false;
+        ModoConteo modo = conteo == ModoConteo.EXACTO ? ModoConteo.EXACTO : ModoConteo.LIMITADO;
+        if (modo == ModoConteo.EXACTO) {
+            var countQuery = entityManager.createQuery(
+                "SELECT COUNT(t) FROM TicketMesaAyuda t WHERE t.deletedAt IS NULL" + filtros, Long.class);
+            params.forEach(countQuery::setParameter);
+            total = countQuery.getSingleResult();
+        } else {
+            var idsQuery = entityManager.createQuery(
+                "SELECT t.id FROM TicketMesaAyuda t WHERE t.deletedAt IS NULL" + filtros, Long.class);
+            params.forEach(idsQuery::setParameter);
+            idsQuery.setMaxResults(topeConteo + 1);
+            total = idsQuery.getResultList().size();
+            if (total > topeConteo) {
+                total = topeConteo;
+                totalEsMinimo = true;
+            }
+        }
+
+        // Página después del cursor (una fila extra indica si hay siguiente)
+        String despues = "";
+        if (after != null && !after.isBlank()) {
+            String[] partes = CursorPaginacion.decodificar(after, 2);
+            try {
+                params.put("cursorFecha", LocalDateTime.parse(partes[0]));
+                params.put("cursorId", Long.parseLong(partes[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido", e);
+            }
+            despues = " AND (t.fechaCreacion < :cursorFecha OR (t.fechaCreacion = :cursorFecha AND t.id < :cursorId))";
+        }
+        var dataQuery = entityManager.createQuery(
+            "SELECT t FROM TicketMesaAyuda t WHERE t.deletedAt IS NULL" + filtros + despues
+                + " ORDER BY t.fechaCreacion DESC, t.id DESC",
+            TicketMesaAyuda.class);
+        params.forEach(dataQuery::setParameter);
+        dataQuery.setMaxResults(size + 1);
+
+        List<TicketMesaAyuda> resultados = dataQuery.getResultList();
+        boolean hayMas = resultados.size() > size;
+        if (hayMas) {
+            resultados = resultados.subList(0, size);
+        }
+        TicketMesaAyuda ultimo = hayMas ? resultados.get(resultados.size() - 1) : null;
+
+        return PaginaCursorDTO.<TicketMesaAyudaResponseDTO>builder()
+            .contenido(resultados.stream().map(this::toResponseDTO).collect(Collectors.toList()))
+            .tamano(size)
+            .siguiente(ultimo != null ? CursorPaginacion.codificar(ultimo.getFechaCreacion(), ultimo.getId()) : null)
+            .total(total)
+            .modoConteo(modo)
+            .totalEsMinimo(totalEsMinimo)
+            .build();
+    }
+
+    /**
+     * Condiciones JPQL (" AND ...") de los filtros no vacíos de la búsqueda de tickets;
+     * los valores se agregan a {@code params}
+     */
+    private String filtrosTickets(
+            String estados,
+            String prioridad,
+            String dniPaciente,
+            String numeroTicket,
+            Long idMedico,
+            String nombreAsignado,
+            LocalDate fechaDesde,
+            LocalDate fechaHasta,
+            LocalDate fechaAtencionDesde,
+            LocalDate fechaAtencionHasta,
+            Long idMotivo,
+            Map<String, Object> params) {
+
         // Normalizar parámetros
         List<String> estadosList = (estados != null && !estados.isBlank())
             ? Arrays.asList(estados.split(",")) : null;
@@ -348,91 +492,53 @@ public class TicketMesaAyudaService {
         String ticketParam = (numeroTicket != null && !numeroTicket.isBlank()) ? numeroTicket : null;
         String asignadoParam = (nombreAsignado != null && !nombreAsignado.isBlank()) ? nombreAsignado : null;
 
-        log.debug("Búsqueda paginada: estados={}, prioridad={}, dni={}, ticket={}, idMedico={}, asignado={}, page={}, size={}",
-            estadosList, prioridadParam, dniParam, ticketParam, idMedico, asignadoParam,
-            pageable.getPageNumber(), pageable.getPageSize());
-
-        // Construir query dinámicamente
-        StringBuilder jpql = new StringBuilder("SELECT t FROM TicketMesaAyuda t WHERE t.deletedAt IS NULL");
-        StringBuilder countJpql = new StringBuilder("SELECT COUNT(t) FROM TicketMesaAyuda t WHERE t.deletedAt IS NULL");
-
-        Map<String, Object> params = new HashMap<>();
+        StringBuilder jpql = new StringBuilder();
 
         if (estadosList != null && !estadosList.isEmpty()) {
             jpql.append(" AND t.estado IN :estados");
-            countJpql.append(" AND t.estado IN :estados");
             params.put("estados", estadosList);
         }
         if (prioridadParam != null) {
             jpql.append(" AND t.prioridad = :prioridad");
-            countJpql.append(" AND t.prioridad = :prioridad");
             params.put("prioridad", prioridadParam);
         }
         if (dniParam != null) {
             jpql.append(" AND t.dniPaciente LIKE :dniPaciente");
-            countJpql.append(" AND t.dniPaciente LIKE :dniPaciente");
             params.put("dniPaciente", "%" + dniParam + "%");
         }
         if (ticketParam != null) {
             jpql.append(" AND t.numeroTicket LIKE :numeroTicket");
-            countJpql.append(" AND t.numeroTicket LIKE :numeroTicket");
             params.put("numeroTicket", "%" + ticketParam + "%");
         }
         if (idMedico != null) {
             jpql.append(" AND t.idMedico = :idMedico");
-            countJpql.append(" AND t.idMedico = :idMedico");
             params.put("idMedico", idMedico);
         }
         if (asignadoParam != null) {
             jpql.append(" AND t.nombrePersonalAsignado = :nombreAsignado");
-            countJpql.append(" AND t.nombrePersonalAsignado = :nombreAsignado");
             params.put("nombreAsignado", asignadoParam);
         }
         if (fechaDesde != null) {
             jpql.append(" AND t.fechaCreacion >= :fechaDesde");
-            countJpql.append(" AND t.fechaCreacion >= :fechaDesde");
             params.put("fechaDesde", fechaDesde.atStartOfDay());
         }
         if (fechaHasta != null) {
             jpql.append(" AND t.fechaCreacion < :fechaHasta");
-            countJpql.append(" AND t.fechaCreacion < :fechaHasta");
             params.put("fechaHasta", fechaHasta.plusDays(1).atStartOfDay());
         }
         if (fechaAtencionDesde != null) {
             jpql.append(" AND t.fechaAtencion >= :fechaAtencionDesde");
-            countJpql.append(" AND t.fechaAtencion >= :fechaAtencionDesde");
             params.put("fechaAtencionDesde", fechaAtencionDesde.atStartOfDay());
         }
         if (fechaAtencionHasta != null) {
             jpql.append(" AND t.fechaAtencion < :fechaAtencionHasta");
-            countJpql.append(" AND t.fechaAtencion < :fechaAtencionHasta");
             params.put("fechaAtencionHasta", fechaAtencionHasta.plusDays(1).atStartOfDay());
         }
         if (idMotivo != null) {
             jpql.append(" AND t.idMotivo = :idMotivo");
-            countJpql.append(" AND t.idMotivo = :idMotivo");
             params.put("idMotivo", idMotivo);
         }
-
-        jpql.append(" ORDER BY t.fechaCreacion DESC");
-
-        // Ejecutar count query
-        var countQuery = entityManager.createQuery(countJpql.toString(), Long.class);
-        params.forEach(countQuery::setParameter);
-        long total = countQuery.getSingleResult();
-
-        // Ejecutar data query con paginación
-        var dataQuery = entityManager.createQuery(jpql.toString(), TicketMesaAyuda.class);
-        params.forEach(dataQuery::setParameter);
-        dataQuery.setFirstResult((int) pageable.getOffset());
-        dataQuery.setMaxResults(pageable.getPageSize());
-
-        List<TicketMesaAyuda> resultados = dataQuery.getResultList();
-        List<TicketMesaAyudaResponseDTO> dtos = resultados.stream()
-            .map(this::toResponseDTO)
-            .collect(Collectors.toList());
-
-        return new org.springframework.data.domain.PageImpl<>(dtos, pageable, total);
+        return jpql.toString();
     }
 
     /**
@@ -6,6 +6,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import com.styp.cenate.model.Rol;
 import com.styp.cenate.repository.segu.RolRepository;
+import com.styp.cenate.security.service.PrincipalCacheService;
+import com.styp.cenate.service.mbac.MatrizPermisosService;
 import com.styp.cenate.service.rol.RolService;
 
 import java.util.List;
@@ -18,6 +20,8 @@ import java.util.stream.Collectors;
 public class RolServiceImpl implements RolService {
 
     private final RolRepository rolRepository;
+    private final MatrizPermisosService matrizPermisosService;
+    private final PrincipalCacheService principalCacheService;
 
     @Override
     public List<Rol> getAll() {
@@ -72,7 +76,11 @@ public class RolServiceImpl implements RolService {
             existente.setNivelJerarquia(calcularNivelJerarquia(rolActualizado.getDescRol()));
         }
 
-        return rolRepository.save(existente);
+        Rol guardado = rolRepository.save(existente);
+        // Nombre/estado del rol cambian authorities y permisos de todos sus usuarios
+        matrizPermisosService.invalidarTodo();
+        principalCacheService.invalidarTodo();
+        return guardado;
     }
 
     @Override
@@ -84,6 +92,8 @@ public class RolServiceImpl implements RolService {
         }
 
         rolRepository.deleteById(id);
+        matrizPermisosService.invalidarTodo();
+        principalCacheService.invalidarTodo();
     }
 
     // ===========================================================
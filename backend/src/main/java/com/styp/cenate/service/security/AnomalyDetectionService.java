@@ -106,4 +106,12 @@ public interface AnomalyDetectionService {
      * @return Cantidad de logs manipulados detectados
      */
     int verificarIntegridadLogs();
+
+    /**
+     * Registra una alerta de seguridad (se ignora si ya existe una del mismo tipo
+     * para el usuario en los últimos 15 minutos).
+     * Usado por {@link AnomalyStreamDetector} para las detecciones en línea.
+     */
+    void registrarAlerta(String alertType, String severity, String usuario,
+                         String ipAddress, String descripcion, Map<String, Object> detalles);
 }
@@ -7,6 +7,7 @@ import com.styp.cenate.model.SecurityAlert;
 import com.styp.cenate.repository.ActiveSessionRepository;
 import com.styp.cenate.repository.AuditLogRepository;
 import com.styp.cenate.repository.SecurityAlertRepository;
+import com.styp.cenate.service.auditlog.AuditLogIntegrityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -34,6 +35,7 @@ public class AnomalyDetectionServiceImpl implements AnomalyDetectionService {
     private final SecurityAlertRepository securityAlertRepository;
     private final ActiveSessionRepository activeSessionRepository;
     private final ObjectMapper objectMapper;
+    private final AuditLogIntegrityService auditLogIntegrityService;
 
     // ============================================================
     // CONFIGURACIÓN DE UMBRALES
@@ -387,41 +389,55 @@ public class AnomalyDetectionServiceImpl implements AnomalyDetectionService {
     public int verificarIntegridadLogs() {
         log.info("🔐 Verificando integridad de logs de auditoría...");
 
-        // Obtener logs recientes con hash (últimas 24 horas)
-        LocalDateTime hace24h = LocalDateTime.now().minusHours(24);
-        List<AuditLog> logsRecientes = auditLogRepository.findByFechaHoraBetween(
-                hace24h, LocalDateTime.now());
-
-        int logsManipulados = 0;
-
-        for (AuditLog auditLog : logsRecientes) {
-            if (auditLog.getHashIntegridad() != null) {
-                String hashCalculado = calcularHash(auditLog);
-
-                if (!auditLog.getHashIntegridad().equals(hashCalculado)) {
-                    log.warn("🚨 LOG MANIPULADO detectado: ID {}", auditLog.getId());
-
-                    crearAlerta(
-                            SecurityAlert.AlertType.TAMPERED_LOG,
-                            SecurityAlert.Severity.CRITICAL,
-                            auditLog.getUsuario(),
-                            auditLog.getIpAddress(),
-                            String.format("Detectado log manipulado (ID: %d, Acción: %s)",
-                                    auditLog.getId(), auditLog.getAction()),
-                            Map.of(
-                                    "log_id", auditLog.getId(),
-                                    "hash_almacenado", auditLog.getHashIntegridad(),
-                                    "hash_calculado", hashCalculado,
-                                    "accion", auditLog.getAction(),
-                                    "modulo", auditLog.getModulo()
-                            )
-                    );
-
-                    logsManipulados++;
-                }
-            }
+        // ✅ v2.6.0: Solo se recalculan los registros nuevos (bloques sellados con digest
+        // encadenado) y una muestra de bloques antiguos
+        AuditLogIntegrityService.ResultadoVerificacion resultado = auditLogIntegrityService.verificar();
+
+        for (AuditLogIntegrityService.RegistroAlterado auditLog : resultado.registrosAlterados()) {
+            crearAlerta(
+                    SecurityAlert.AlertType.TAMPERED_LOG,
+                    SecurityAlert.Severity.CRITICAL,
+                    auditLog.usuario(),
+                    auditLog.ipAddress(),
+                    String.format("Detectado log manipulado (ID: %d, Acción: %s)",
+                            auditLog.id(), auditLog.action()),
+                    Map.of(
+                            "log_id", auditLog.id(),
+                            "hash_almacenado", auditLog.hashAlmacenado(),
+                            "hash_calculado", auditLog.hashCalculado(),
+                            "accion", auditLog.action(),
+                            "modulo", auditLog.modulo()
+                    )
+            );
         }
 
+        List<AuditLogIntegrityService.BloqueAlterado> bloques = resultado.bloquesAlterados();
+        if (!bloques.isEmpty()) {
+            crearAlerta(
+                    SecurityAlert.AlertType.TAMPERED_LOG,
+                    SecurityAlert.Severity.CRITICAL,
+                    "SYSTEM",
+                    null,
+                    String.format("Detectados %d bloques de auditoría alterados (ids %d-%d%s)",
+                            bloques.size(), bloques.get(0).idDesde(), bloques.get(0).idHasta(),
+                            bloques.size() > 1 ? ", ..." : ""),
+                    Map.of(
+                            "bloques", bloques.stream()
+                                    .map(b -> Map.of(
+                                            "id_desde", b.idDesde(),
+                                            "id_hasta", b.idHasta(),
+                                            "motivo", b.motivo(),
+                                            "registros_sellados", b.registrosSellados(),
+                                            "registros_actuales", b.registrosActuales(),
+                                            "digest_sellado", b.digestSellado(),
+                                            "digest_calculado", b.digestCalculado()))
+                                    .collect(Collectors.toList())
+                    )
+            );
+        }
+
+        int logsManipulados = resultado.registrosAlterados().size() + bloques.size();
+
         if (logsManipulados > 0) {
             log.warn("⚠️ Se detectaron {} logs manipulados", logsManipulados);
         } else {
@@ -431,6 +447,16 @@ public class AnomalyDetectionServiceImpl implements AnomalyDetectionService {
         return logsManipulados;
     }
 
+    // ============================================================
+    // ALERTAS DESDE EL DETECTOR EN LÍNEA
+    // ============================================================
+    @Override
+    @Transactional
+    public void registrarAlerta(String alertType, String severity, String usuario,
+                                String ipAddress, String descripcion, Map<String, Object> detalles) {
+        crearAlerta(alertType, severity, usuario, ipAddress, descripcion, detalles);
+    }
+
     // ============================================================
     // MÉTODOS AUXILIARES
     // ============================================================
@@ -470,39 +496,4 @@ public class AnomalyDetectionServiceImpl implements AnomalyDetectionService {
             log.error("❌ Error al crear alerta: {}", e.getMessage(), e);
         }
     }
-
-    /**
-     * Calcula hash SHA-256 de un log (simplificado)
-     * En producción, usar la función SQL calcular_hash_auditoria()
-     */
-    private String calcularHash(AuditLog auditLog) {
-        try {
-            String concatenated = String.join("|",
-                    String.valueOf(auditLog.getId()),
-                    auditLog.getUsuario() != null ? auditLog.getUsuario() : "",
-                    auditLog.getAction() != null ? auditLog.getAction() : "",
-                    auditLog.getModulo() != null ? auditLog.getModulo() : "",
-                    auditLog.getDetalle() != null ? auditLog.getDetalle() : "",
-                    auditLog.getIpAddress() != null ? auditLog.getIpAddress() : "",
-                    auditLog.getFechaHora() != null ? auditLog.getFechaHora().toString() : "",
-                    auditLog.getNivel() != null ? auditLog.getNivel() : "",
-                    auditLog.getEstado() != null ? auditLog.getEstado() : ""
-            );
-
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(concatenated.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-
-            return hexString.toString();
-        } catch (Exception e) {
-            log.error("❌ Error al calcular hash: {}", e.getMessage());
-            return "";
-        }
-    }
 }
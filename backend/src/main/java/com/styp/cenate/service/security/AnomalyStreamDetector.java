@@ -0,0 +1,321 @@
+package com.styp.cenate.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.styp.cenate.model.AuditLog;
+import com.styp.cenate.model.SecurityAlert;
+import com.styp.cenate.repository.AuditLogRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 🔍 Detector de anomalías en línea sobre los eventos de auditoría (v2.6.0)
+ *
+ * {@code AuditLogServiceImpl} le pasa cada evento al registrarlo. Por usuario y por IP
+ * se mantienen contadores de ventana deslizante (cubetas de 1 minuto) y, al superar un
+ * umbral, la alerta se crea en un hilo aparte mediante
+ * {@link AnomalyDetectionService#registrarAlerta}, que descarta duplicados de 15 minutos.
+ *
+ * Umbrales iguales a los de {@link AnomalyDetectionServiceImpl}; el análisis cada 30
+ * minutos de {@code AnomalyDetectionJob} queda como respaldo (reinicios, eventos
+ * descartados). Además se detecta fuerza bruta por IP contra varios usuarios.
+ *
+ * Memoria acotada: el estado por usuario/IP vive en Caffeine con
+ * {@code cenate.security.anomalias.max-claves} entradas y expira tras 1 hora sin eventos;
+ * las IPs conocidas por usuario (para ubicación inusual) se cargan de audit_logs la
+ * primera vez y se limitan a {@value #MAX_IPS_CONOCIDAS} por usuario.
+ */
+@Slf4j
+@Component
+public class AnomalyStreamDetector {
+
+    private static final int BRUTE_FORCE_IP_THRESHOLD = 20;       // Fallidos desde una IP en 15 min
+    private static final int MAX_IPS_CONOCIDAS = 50;
+    private static final Duration SUPRESION_ALERTA = Duration.ofMinutes(15);
+
+    private static final Set<String> ACCIONES_PERMISOS =
+            Set.of("ASSIGN_ROLE", "REMOVE_ROLE", "ASSIGN_PERMISSION", "REMOVE_PERMISSION");
+
+    /** Reglas de ventana: qué eventos cuentan, ventana, umbral y alerta que generan */
+    private enum Regla {
+        BRUTE_FORCE_USUARIO(15, 5, SecurityAlert.AlertType.BRUTE_FORCE, SecurityAlert.Severity.HIGH),
+        BRUTE_FORCE_IP(15, BRUTE_FORCE_IP_THRESHOLD, SecurityAlert.AlertType.BRUTE_FORCE, SecurityAlert.Severity.HIGH),
+        ACTIVIDAD_INUSUAL(10, 50, SecurityAlert.AlertType.UNUSUAL_ACTIVITY, SecurityAlert.Severity.MEDIUM),
+        EXPORTACION_MASIVA(60, 10, SecurityAlert.AlertType.MASS_EXPORT, SecurityAlert.Severity.HIGH),
+        CAMBIO_PERMISOS(30, 5, SecurityAlert.AlertType.PERMISSION_CHANGE, SecurityAlert.Severity.HIGH);
+
+        final int minutos;
+        final int umbral;
+        final String alertType;
+        final String severity;
+
+        Regla(int minutos, int umbral, String alertType, String severity) {
+            this.minutos = minutos;
+            this.umbral = umbral;
+            this.alertType = alertType;
+            this.severity = severity;
+        }
+    }
+
+    private final AnomalyDetectionService anomalyDetectionService;
+    private final AuditLogRepository auditLogRepository;
+    private final boolean habilitado;
+
+    private final Cache<String, EstadoClave> porUsuario;
+    private final Cache<String, EstadoClave> porIp;
+    private final Cache<String, Set<String>> ipsConocidas;
+    private final ThreadPoolExecutor alertas;
+
+    public AnomalyStreamDetector(AnomalyDetectionService anomalyDetectionService,
+                                 AuditLogRepository auditLogRepository,
+                                 @Value("${cenate.security.anomalias.streaming:true}") boolean habilitado,
+                                 @Value("${cenate.security.anomalias.max-claves:50000}") long maxClaves,
+                                 @Value("${cenate.security.anomalias.cola-alertas:1000}") int colaAlertas) {
+        this.anomalyDetectionService = anomalyDetectionService;
+        this.auditLogRepository = auditLogRepository;
+        this.habilitado = habilitado;
+        this.porUsuario = Caffeine.newBuilder().maximumSize(maxClaves).expireAfterAccess(Duration.ofHours(1)).build();
+        this.porIp = Caffeine.newBuilder().maximumSize(maxClaves).expireAfterAccess(Duration.ofHours(1)).build();
+        this.ipsConocidas = Caffeine.newBuilder().maximumSize(maxClaves).expireAfterAccess(Duration.ofDays(1)).build();
+        // Un hilo y cola acotada: con la cola llena se descarta (el job de respaldo lo cubre)
+        this.alertas = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaAlertas), tarea -> {
+                    Thread hilo = new Thread(tarea, "anomaly-stream-alertas");
+                    hilo.setDaemon(true);
+                    return hilo;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Procesa un evento de auditoría. Solo actualiza contadores en memoria; nunca
+     * consulta la BD ni lanza excepciones en el hilo que llama.
+     */
+    public void observar(AuditLog evento) {
+        if (!habilitado || evento == null || evento.getUsuario() == null || evento.getAction() == null) {
+            return;
+        }
+        try {
+            LocalDateTime fecha = evento.getFechaHora() != null ? evento.getFechaHora() : LocalDateTime.now();
+            long minuto = fecha.atZone(ZoneId.systemDefault()).toEpochSecond() / 60;
+            String usuario = evento.getUsuario();
+            String ip = ipValida(evento.getIpAddress());
+            String action = evento.getAction();
+
+            EstadoClave estadoUsuario = porUsuario.get(usuario, k -> new EstadoClave());
+            evaluar(estadoUsuario, Regla.ACTIVIDAD_INUSUAL, minuto, usuario, ip);
+
+            if ("LOGIN_FAILED".equals(action)) {
+                evaluar(estadoUsuario, Regla.BRUTE_FORCE_USUARIO, minuto, usuario, ip);
+                if (ip != null) {
+                    evaluar(porIp.get(ip, k -> new EstadoClave()), Regla.BRUTE_FORCE_IP, minuto, usuario, ip);
+                }
+            } else if (ACCIONES_PERMISOS.contains(action)) {
+                evaluar(estadoUsuario, Regla.CAMBIO_PERMISOS, minuto, usuario, ip);
+            } else if (action.contains("EXPORT")) {
+                evaluar(estadoUsuario, Regla.EXPORTACION_MASIVA, minuto, usuario, ip);
+            } else if ("LOGIN".equals(action) && ip != null) {
+                enviar(() -> verificarUbicacion(usuario, ip));
+            }
+        } catch (Exception e) {
+            log.debug("No se pudo analizar evento de auditoría en línea: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        alertas.shutdownNow();
+    }
+
+    // ============================================================
+    // REGLAS
+    // ============================================================
+
+    private void evaluar(EstadoClave estado, Regla regla, long minuto, String usuario, String ip) {
+        long total;
+        synchronized (estado) {
+            total = estado.ventana(regla).sumar(minuto);
+            if (total < regla.umbral || !estado.debeAlertar(regla, minuto)) {
+                return;
+            }
+        }
+        log.warn("🚨 [STREAM] {} para usuario: {} (IP: {}, {} eventos en {} min)",
+                regla, usuario, ip, total, regla.minutos);
+        enviar(() -> anomalyDetectionService.registrarAlerta(
+                regla.alertType,
+                regla.severity,
+                usuario,
+                ip,
+                descripcion(regla, total, ip),
+                Map.of(
+                        "regla", regla.name(),
+                        "eventos", total,
+                        "periodo_minutos", regla.minutos,
+                        "umbral", regla.umbral,
+                        "origen", "STREAMING",
+                        "timestamp", LocalDateTime.now().toString()
+                )));
+    }
+
+    private String descripcion(Regla regla, long total, String ip) {
+        return switch (regla) {
+            case BRUTE_FORCE_USUARIO -> String.format("Detectados %d intentos fallidos de login en %d minutos",
+                    total, regla.minutos);
+            case BRUTE_FORCE_IP -> String.format("Detectados %d intentos fallidos de login desde la IP %s en %d minutos",
+                    total, ip, regla.minutos);
+            case ACTIVIDAD_INUSUAL -> String.format("Detectadas %d acciones en %d minutos (patrón inusual)",
+                    total, regla.minutos);
+            case EXPORTACION_MASIVA -> String.format("Detectadas %d exportaciones en %d minutos",
+                    total, regla.minutos);
+            case CAMBIO_PERMISOS -> String.format("Detectados %d cambios de permisos en %d minutos",
+                    total, regla.minutos);
+        };
+    }
+
+    /**
+     * Ubicación inusual: login desde una IP que el usuario no usó en los últimos 30 días
+     * (se ejecuta en el hilo de alertas porque la primera vez consulta audit_logs)
+     */
+    private void verificarUbicacion(String usuario, String ip) {
+        Set<String> conocidas = ipsConocidas.get(usuario, this::cargarIpsConocidas);
+        boolean nueva;
+        List<String> copia;
+        synchronized (conocidas) {
+            nueva = !conocidas.isEmpty() && !conocidas.contains(ip);
+            copia = new ArrayList<>(conocidas);
+            conocidas.remove(ip);
+            conocidas.add(ip);
+            if (conocidas.size() > MAX_IPS_CONOCIDAS) {
+                conocidas.remove(conocidas.iterator().next());
+            }
+        }
+        if (nueva) {
+            log.warn("🚨 [STREAM] UBICACIÓN INUSUAL para usuario: {} (IP nueva: {})", usuario, ip);
+            anomalyDetectionService.registrarAlerta(
+                    SecurityAlert.AlertType.UNUSUAL_LOCATION,
+                    SecurityAlert.Severity.MEDIUM,
+                    usuario,
+                    ip,
+                    String.format("Acceso desde IP nunca vista: %s (IPs conocidas: %d)", ip, copia.size()),
+                    Map.of(
+                            "ip_nueva", ip,
+                            "ips_conocidas_total", copia.size(),
+                            "ips_conocidas", copia,
+                            "origen", "STREAMING"
+                    ));
+        }
+    }
+
+    private Set<String> cargarIpsConocidas(String usuario) {
+        return auditLogRepository.findByUsuarioAndActionAndFechaHoraAfter(
+                        usuario, "LOGIN", LocalDateTime.now().minusDays(30)).stream()
+                .map(AuditLog::getIpAddress)
+                .map(this::ipValida)
+                .filter(Objects::nonNull)
+                .limit(MAX_IPS_CONOCIDAS)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private String ipValida(String ip) {
+        return ip == null || ip.isBlank() || "INTERNAL".equals(ip) ? null : ip;
+    }
+
+    private void enviar(Runnable tarea) {
+        try {
+            alertas.execute(() -> {
+                try {
+                    tarea.run();
+                } catch (Exception e) {
+                    log.error("❌ [STREAM] Error al procesar alerta: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ [STREAM] Cola de alertas llena ({}), se descarta; lo cubrirá el análisis programado",
+                    alertas.getQueue().size());
+        }
+    }
+
+    // ============================================================
+    // ESTADO POR USUARIO / IP
+    // ============================================================
+
+    /** Ventanas y última alerta por regla de una clave (usuario o IP); se sincroniza sobre sí mismo */
+    private static final class EstadoClave {
+        private final Map<Regla, VentanaDeslizante> ventanas = new EnumMap<>(Regla.class);
+        private final Map<Regla, Long> ultimaAlerta = new EnumMap<>(Regla.class);
+
+        VentanaDeslizante ventana(Regla regla) {
+            return ventanas.computeIfAbsent(regla, r -> new VentanaDeslizante(r.minutos));
+        }
+
+        /** Evita reencolar la misma alerta en cada evento mientras se mantiene sobre el umbral */
+        boolean debeAlertar(Regla regla, long minuto) {
+            Long anterior = ultimaAlerta.get(regla);
+            if (anterior != null && minuto - anterior < SUPRESION_ALERTA.toMinutes()) {
+                return false;
+            }
+            ultimaAlerta.put(regla, minuto);
+            return true;
+        }
+    }
+
+    /**
+     * Conteo en los últimos {@code n} minutos con una cubeta por minuto (la cubeta
+     * actual cuenta completa, así que la ventana efectiva está entre n-1 y n minutos)
+     */
+    static final class VentanaDeslizante {
+        private final long[] minutoCubeta;
+        private final int[] conteo;
+
+        VentanaDeslizante(int minutos) {
+            this.minutoCubeta = new long[minutos];
+            this.conteo = new int[minutos];
+            Arrays.fill(minutoCubeta, Long.MIN_VALUE);
+        }
+
+        /** Suma un evento en {@code minuto} (minutos desde epoch) y devuelve el total de la ventana */
+        long sumar(long minuto) {
+            int n = conteo.length;
+            int pos = (int) Math.floorMod(minuto, (long) n);
+            if (minutoCubeta[pos] > minuto) {
+                return total(minuto);   // evento atrasado más que la ventana: no se cuenta
+            }
+            if (minutoCubeta[pos] != minuto) {
+                minutoCubeta[pos] = minuto;
+                conteo[pos] = 0;
+            }
+            conteo[pos]++;
+            return total(minuto);
+        }
+
+        private long total(long minuto) {
+            int n = conteo.length;
+            long total = 0;
+            for (int i = 0; i < n; i++) {
+                long edad = minuto - minutoCubeta[i];
+                if (edad >= 0 && edad < n) {
+                    total += conteo[i];
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.styp.cenate.model.PasswordResetToken;
 import com.styp.cenate.model.Usuario;
 import com.styp.cenate.repository.PasswordResetTokenRepository;
 import com.styp.cenate.repository.UsuarioRepository;
+import com.styp.cenate.security.service.PrincipalCacheService;
 import com.styp.cenate.service.email.EmailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +31,7 @@ public class PasswordTokenService {
     private final PasswordResetTokenRepository tokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final PrincipalCacheService principalCacheService;
 
     @Value("${app.frontend.url:http://localhost:3000}")
     private String frontendUrl;
@@ -310,6 +312,7 @@ public class PasswordTokenService {
 
         // ⚠️ IMPORTANTE: Usar saveAndFlush para asegurar persistencia inmediata
         usuarioRepository.saveAndFlush(usuario);
+        principalCacheService.invalidar(usuario.getNameUser());
         log.info("✅ Contraseña GUARDADA EN BD para usuario: {}", usuario.getNameUser());
         log.info("✅ RequiereCambioPassword actualizado a: {}", usuario.getRequiereCambioPassword());
 
@@ -356,7 +359,7 @@ public class PasswordTokenService {
     /**
      * Limpia tokens expirados (se ejecuta automáticamente cada hora)
      */
-    @Scheduled(fixedRate = 3600000) // Cada hora
+    @Scheduled(cron = "${cenate.jobs.password-tokens-limpieza.cron:-}") // v2.6.0: apagado por defecto
     @Transactional
     public void limpiarTokensExpirados() {
         int eliminados = tokenRepository.eliminarTokensExpiradosOUsados(LocalDateTime.now());
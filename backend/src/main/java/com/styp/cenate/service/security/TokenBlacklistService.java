@@ -2,9 +2,13 @@ package com.styp.cenate.service.security;
 
 import com.styp.cenate.model.TokenBlacklist;
 import com.styp.cenate.repository.TokenBlacklistRepository;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,18 +16,118 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * SEC-003: Servicio para gestionar tokens JWT invalidados.
  * Permite invalidar tokens en logout y verificar si un token
  * esta en la blacklist.
+ *
+ * La verificacion en cada request se resuelve contra un conjunto en memoria
+ * (hash -> expiracion) precargado desde BD al iniciar y actualizado en
+ * {@link #invalidateToken}. Solo se consulta PostgreSQL si el conjunto aun
+ * no esta cargado o si supero el limite configurado.
+ *
+ * Las invalidaciones de otras instancias y la depuracion de expirados se
+ * aplican en {@link #sincronizarDesdeBd}, que la propia verificacion dispara
+ * como maximo una vez por intervalo (no depende de @Scheduled) y que corre en
+ * tokenBlacklistExecutor, fuera del request.
+ *
+ * Una recarga completa arma un conjunto nuevo y lo publica de una vez: mientras
+ * tanto se sigue verificando contra el anterior, y las invalidaciones que llegan
+ * durante la recarga se registran en ambos para no perderse con el reemplazo.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class TokenBlacklistService {
 
     private final TokenBlacklistRepository repository;
+    private final ThreadPoolTaskExecutor executor;
+
+    /** Tokens invalidados y vigentes: hash SHA-256 -> fecha de expiracion. Se reemplaza al recargar. */
+    private volatile Map<String, LocalDateTime> revocados = new ConcurrentHashMap<>();
+
+    /** Conjunto que arma la recarga en curso (null si no hay recarga). */
+    private Map<String, LocalDateTime> recargaEnCurso;
+
+    /** Protege el registro de invalidaciones frente al reemplazo del conjunto. */
+    private final Object bloqueo = new Object();
+
+    /** Una sola recarga a la vez (limpieza programada y sincronizacion pueden coincidir). */
+    private final Object bloqueoRecarga = new Object();
+
+    /**
+     * true cuando {@link #revocados} contiene todos los tokens vigentes de la BD.
+     * Mientras sea false, los tokens que no esten en memoria se verifican en BD.
+     */
+    private volatile boolean memoriaCompleta = false;
+
+    /** Marca de la ultima sincronizacion con BD (tokens invalidados en otras instancias). */
+    private volatile LocalDateTime ultimaSincronizacion;
+
+    /** Momento (System.nanoTime) a partir del cual toca sincronizar con BD. */
+    private volatile long proximaSincronizacionNanos = System.nanoTime();
+
+    /** Solo un hilo sincroniza; los demas siguen con la memoria actual. */
+    private final AtomicBoolean sincronizando = new AtomicBoolean(false);
+
+    @Value("${cenate.security.token-blacklist.max-memoria:100000}")
+    private int maxTokensEnMemoria;
+
+    @Value("${cenate.security.token-blacklist.sincronizacion-segundos:60}")
+    private long segundosSincronizacion;
+
+    public TokenBlacklistService(TokenBlacklistRepository repository,
+                                 @Qualifier("tokenBlacklistExecutor") ThreadPoolTaskExecutor executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    /**
+     * Precarga en memoria los tokens invalidados que aun no expiran.
+     * Arma un conjunto nuevo y lo publica al terminar; las verificaciones
+     * siguen usando el conjunto anterior mientras tanto.
+     */
+    @PostConstruct
+    public void cargarEnMemoria() {
+        synchronized (bloqueoRecarga) {
+            Map<String, LocalDateTime> nuevos = new ConcurrentHashMap<>();
+            synchronized (bloqueo) {
+                recargaEnCurso = nuevos;
+            }
+            try {
+                LocalDateTime ahora = LocalDateTime.now();
+                List<TokenBlacklist> vigentes = repository.findByFechaExpiracionAfter(ahora);
+                boolean completa = true;
+                for (TokenBlacklist t : vigentes) {
+                    if (nuevos.size() >= maxTokensEnMemoria) {
+                        completa = false;
+                        break;
+                    }
+                    nuevos.putIfAbsent(t.getTokenHash(), t.getFechaExpiracion());
+                }
+                synchronized (bloqueo) {
+                    revocados = nuevos;
+                    recargaEnCurso = null;
+                    memoriaCompleta = completa;
+                }
+                ultimaSincronizacion = ahora;
+                log.info("Blacklist JWT cargada en memoria: {} tokens vigentes (completa={})",
+                        nuevos.size(), completa);
+            } catch (Exception e) {
+                synchronized (bloqueo) {
+                    recargaEnCurso = null;
+                    memoriaCompleta = false;
+                }
+                log.error("No se pudo precargar la blacklist JWT, se usara verificacion en BD: {}", e.getMessage());
+            }
+        }
+    }
 
     /**
      * Invalida un token agregandolo a la blacklist.
@@ -46,8 +150,10 @@ public class TokenBlacklistService {
                     .motivo(motivo)
                     .build();
             repository.save(blacklist);
+            registrarEnMemoria(hash, expiration);
             log.info("Token invalidado para usuario: {} - Motivo: {}", username, motivo);
         } else {
+            registrarEnMemoria(hash, expiration);
             log.debug("Token ya estaba en blacklist para: {}", username);
         }
     }
@@ -59,7 +165,35 @@ public class TokenBlacklistService {
      * @return true si el token esta invalidado
      */
     public boolean isBlacklisted(String token) {
-        return repository.existsByTokenHash(hashToken(token));
+        sincronizarSiCorresponde();
+        String hash = hashToken(token);
+        if (revocados.containsKey(hash)) {
+            return true;
+        }
+        if (memoriaCompleta) {
+            return false;
+        }
+        return repository.existsByTokenHash(hash);
+    }
+
+    private void registrarEnMemoria(String hash, LocalDateTime expiration) {
+        LocalDateTime vence = expiration != null ? expiration : LocalDateTime.now().plusDays(1);
+        synchronized (bloqueo) {
+            if (recargaEnCurso != null) {
+                // La recarga pudo leer la BD antes de esta invalidacion: se agrega tambien al conjunto nuevo
+                recargaEnCurso.put(hash, vence);
+            }
+            Map<String, LocalDateTime> actuales = revocados;
+            if (actuales.size() >= maxTokensEnMemoria && !actuales.containsKey(hash)) {
+                // Sin espacio: se pasa a modo BD para no perder revocaciones
+                if (memoriaCompleta) {
+                    log.warn("Blacklist JWT en memoria alcanzo el limite ({}), se verificara en BD", maxTokensEnMemoria);
+                }
+                memoriaCompleta = false;
+                return;
+            }
+            actuales.put(hash, vence);
+        }
     }
 
     /**
@@ -70,15 +204,7 @@ public class TokenBlacklistService {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
+            return HexFormat.of().formatHex(hash);
         } catch (NoSuchAlgorithmException e) {
             log.error("Error generando hash de token: {}", e.getMessage());
             throw new RuntimeException("Error hashing token", e);
@@ -90,13 +216,74 @@ public class TokenBlacklistService {
      * Los tokens expirados ya no son validos de todas formas,
      * pero mantenerlos ocupa espacio en BD.
      */
-    @Scheduled(fixedRate = 3600000) // Cada hora
+    @Scheduled(cron = "${cenate.jobs.token-blacklist-limpieza.cron:-}") // v2.6.0: apagado por defecto
     @Transactional
     public void cleanupExpiredTokens() {
-        int deleted = repository.deleteExpiredTokens(LocalDateTime.now());
+        LocalDateTime ahora = LocalDateTime.now();
+        int deleted = repository.deleteExpiredTokens(ahora);
         if (deleted > 0) {
             log.info("Limpiados {} tokens expirados del blacklist", deleted);
         }
+        revocados.values().removeIf(exp -> exp.isBefore(ahora));
+        if (!memoriaCompleta) {
+            // Tras depurar puede volver a caber todo en memoria
+            cargarEnMemoria();
+        }
+    }
+
+    /**
+     * Encola {@link #sincronizarDesdeBd} en tokenBlacklistExecutor si vencio el intervalo.
+     * Ningun request espera la sincronizacion: todos responden con la memoria actual.
+     */
+    private void sincronizarSiCorresponde() {
+        if (System.nanoTime() - proximaSincronizacionNanos < 0 || !sincronizando.compareAndSet(false, true)) {
+            return;
+        }
+        // Se reprograma antes de leer: si la BD falla no se reintenta en cada request
+        proximaSincronizacionNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundosSincronizacion);
+        try {
+            executor.execute(() -> {
+                try {
+                    sincronizarDesdeBd();
+                } finally {
+                    sincronizando.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            sincronizando.set(false);
+            log.warn("Sincronizacion de blacklist JWT rechazada, se reintentara en el siguiente intervalo");
+        }
+    }
+
+    /**
+     * Incorpora tokens invalidados por otras instancias del backend
+     * (comparten la misma BD pero no la memoria) y descarta de memoria
+     * los tokens ya expirados.
+     */
+    public void sincronizarDesdeBd() {
+        LocalDateTime desde = ultimaSincronizacion;
+        if (desde == null) {
+            cargarEnMemoria();
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        try {
+            revocados.values().removeIf(exp -> exp.isBefore(ahora));
+            if (!memoriaCompleta && repository.countByFechaExpiracionAfter(ahora) <= maxTokensEnMemoria) {
+                // Tras expirar tokens vuelve a caber todo en memoria
+                cargarEnMemoria();
+                return;
+            }
+            // Margen de 5s por transacciones confirmadas tras la ultima lectura
+            for (TokenBlacklist t : repository.findByCreatedAtAfter(desde.minusSeconds(5))) {
+                if (t.getFechaExpiracion().isAfter(ahora)) {
+                    registrarEnMemoria(t.getTokenHash(), t.getFechaExpiracion());
+                }
+            }
+            ultimaSincronizacion = ahora;
+        } catch (Exception e) {
+            log.warn("Error sincronizando blacklist JWT desde BD: {}", e.getMessage());
+        }
     }
 
     /**
@@ -105,4 +292,11 @@ public class TokenBlacklistService {
     public long getBlacklistSize() {
         return repository.count();
     }
+
+    /**
+     * Cantidad de tokens vigentes en memoria (para monitoreo)
+     */
+    public int getBlacklistEnMemoria() {
+        return revocados.size();
+    }
 }
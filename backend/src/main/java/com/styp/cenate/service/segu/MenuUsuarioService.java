@@ -2,6 +2,7 @@ package com.styp.cenate.service.segu;
 
 import java.util.List;
 
+import com.styp.cenate.dto.mbac.MatrizPermisosDTO;
 import com.styp.cenate.dto.segu.MenuUsuarioDTO;
 import com.styp.cenate.dto.segu.PaginaMenuDTO;
 
@@ -17,4 +18,10 @@ public interface MenuUsuarioService {
 	 */
 	List<MenuUsuarioDTO> obtenerMenuDesdePermisosModulares(Long idUser);
 
+	/**
+	 * Obtiene en una sola llamada la matriz MBAC completa (ruta → acciones)
+	 * del usuario, la misma estructura cacheada que usa MBACPermissionAspect.
+	 */
+	MatrizPermisosDTO obtenerMatrizPermisos(String username);
+
 }
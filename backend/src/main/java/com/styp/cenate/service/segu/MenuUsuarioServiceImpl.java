@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.styp.cenate.dto.mbac.MatrizPermisosDTO;
 import com.styp.cenate.dto.segu.MenuUsuarioDTO;
 import com.styp.cenate.dto.segu.MenuUsuarioProjection;
 import com.styp.cenate.dto.segu.PaginaMenuDTO;
@@ -25,6 +26,8 @@ import com.styp.cenate.repository.segu.MenuUsuarioRepository;
 import com.styp.cenate.repository.segu.PaginaRepository;
 import com.styp.cenate.repository.segu.PermisoRolPaginaRepository;
 import com.styp.cenate.model.segu.SeguPermisosRolPagina;
+import com.styp.cenate.security.mbac.MatrizPermisos;
+import com.styp.cenate.service.mbac.MatrizPermisosService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +41,7 @@ public class MenuUsuarioServiceImpl implements MenuUsuarioService {
 	private final PaginaRepository paginaRepository;
 	private final UsuarioRepository usuarioRepository;
 	private final PermisoRolPaginaRepository permisoRolPaginaRepository;
+	private final MatrizPermisosService matrizPermisosService;
 	private final ObjectMapper mapper;
 
 	public MenuUsuarioServiceImpl(
@@ -47,6 +51,7 @@ public class MenuUsuarioServiceImpl implements MenuUsuarioService {
 			PaginaRepository paginaRepository,
 			UsuarioRepository usuarioRepository,
 			PermisoRolPaginaRepository permisoRolPaginaRepository,
+			MatrizPermisosService matrizPermisosService,
 			ObjectMapper mapper) {
 		this.repositorioMenu = repositorioMenu;
 		this.permisoModularRepository = permisoModularRepository;
@@ -54,9 +59,23 @@ public class MenuUsuarioServiceImpl implements MenuUsuarioService {
 		this.paginaRepository = paginaRepository;
 		this.usuarioRepository = usuarioRepository;
 		this.permisoRolPaginaRepository = permisoRolPaginaRepository;
+		this.matrizPermisosService = matrizPermisosService;
 		this.mapper = mapper;
 	}
 
+	@Override
+	public MatrizPermisosDTO obtenerMatrizPermisos(String username) {
+		MatrizPermisos matriz = matrizPermisosService.obtenerPorUsername(username);
+		if (matriz == null) {
+			throw new jakarta.persistence.EntityNotFoundException("Usuario no encontrado: " + username);
+		}
+		return MatrizPermisosDTO.builder()
+				.idUser(matriz.getIdUser())
+				.username(username)
+				.permisos(matriz.comoMapa())
+				.build();
+	}
+
 	@Override
 	public List<MenuUsuarioDTO> obtenerMenuUsuario(Long idUser) {
 
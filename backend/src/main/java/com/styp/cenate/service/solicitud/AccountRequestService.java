@@ -11,6 +11,8 @@ import com.styp.cenate.repository.PersonalCntRepository;
 import com.styp.cenate.repository.DimOrigenPersonalRepository;
 import com.styp.cenate.repository.TipoDocumentoRepository;
 import com.styp.cenate.repository.UsuarioRepository;
+import com.styp.cenate.security.service.PrincipalCacheService;
+import com.styp.cenate.service.usuario.InvalidarPersonalPorRol;
 import com.styp.cenate.service.usuario.UsuarioService;
 import com.styp.cenate.model.PersonalCnt;
 import com.styp.cenate.model.DimOrigenPersonal;
@@ -53,6 +55,7 @@ public class AccountRequestService {
 	private final PermisosService permisosService;
 	private final PasswordTokenService passwordTokenService;
 	private final AuditLogService auditLogService;
+	private final PrincipalCacheService principalCacheService;
 
 	// ================================================================
 	// MÉTODO HELPER PARA AUDITORÍA
@@ -751,6 +754,7 @@ public class AccountRequestService {
 	 * y la solicitud original.
 	 */
 	@Transactional
+	@InvalidarPersonalPorRol
 	public void eliminarUsuarioPendienteActivacion(Long idUsuario) {
 		log.info("🗑️ Eliminando usuario pendiente de activación ID: {}", idUsuario);
 
@@ -783,6 +787,7 @@ public class AccountRequestService {
 		// 2. Eliminar roles del usuario
 		int rolesEliminados = jdbcTemplate.update("DELETE FROM rel_user_roles WHERE id_user = ?", idUsuario);
 		log.info("   🎭 Roles eliminados: {}", rolesEliminados);
+		principalCacheService.invalidar(numDocumento);
 
 		// 3. Desvincular personal INTERNO del usuario (ANTES de eliminar usuario)
 		if (idPersonalCnt != null) {
@@ -852,6 +857,7 @@ public class AccountRequestService {
 	 * datos relacionados con el DNI en todas las tablas.
 	 */
 	@Transactional
+	@InvalidarPersonalPorRol
 	public Map<String, Object> limpiarDatosHuerfanos(String numDocumento) {
 		log.info("🧹 Limpiando datos huérfanos para documento: {}", numDocumento);
 
@@ -875,6 +881,7 @@ public class AccountRequestService {
 			// 1.2 Eliminar roles del usuario
 			int roles = jdbcTemplate.update("DELETE FROM rel_user_roles WHERE id_user = ?", idUsuario);
 			log.info("   🎭 Roles eliminados: {}", roles);
+			principalCacheService.invalidar(numDocumento);
 
 			// 1.3 Desvincular personal INTERNO del usuario (ANTES de eliminar usuario)
 			int cntDesvinculados = jdbcTemplate
@@ -2,14 +2,20 @@ package com.styp.cenate.service.storage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.*;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Random;
@@ -25,6 +31,8 @@ import java.util.Set;
  * - Protección contra path traversal
  * - Validación de magic bytes
  * - Configuración de permisos POSIX (640)
+ * - Almacén opcional direccionado por contenido: {basePath}/cas/ab/cd/{sha256}
+ *   (app.teleekgs.storage.content-addressed=true), un archivo por contenido distinto
  *
  * @author Styp Canto Rondón
  * @version 1.0.0
@@ -37,6 +45,36 @@ public class FileStorageService {
     @Value("${app.teleekgs.storage.base-path:/opt/cenate/teleekgs}")
     private String basePath;
 
+    /**
+     * v2.1.0: Guardar ECG por SHA256 (deduplicado) en lugar de YYYY/MM/DD/IPRESS_XXX/
+     */
+    @Value("${app.teleekgs.storage.content-addressed:false}")
+    private boolean almacenamientoPorContenido;
+
+    /**
+     * Resultado de {@link #guardarPorContenido(MultipartFile)}
+     *
+     * @param ruta Ruta completa del blob
+     * @param sha256 Hash SHA256 del contenido (calculado mientras se escribía)
+     * @param sizeBytes Tamaño en bytes
+     * @param reutilizado true si el contenido ya estaba almacenado y no se escribió de nuevo
+     */
+    public record ArchivoAlmacenado(String ruta, String sha256, long sizeBytes, boolean reutilizado) {
+    }
+
+    /**
+     * Resultado de {@link #recibirPorContenido(MultipartFile)}: contenido en un temporal, aún sin publicar
+     *
+     * @param temporal Archivo temporal con el contenido
+     * @param ruta Ruta final que tendrá el blob
+     */
+    public record ContenidoRecibido(Path temporal, String sha256, long sizeBytes, String ruta) {
+    }
+
+    public boolean isAlmacenamientoPorContenido() {
+        return almacenamientoPorContenido;
+    }
+
     /**
      * Guarda archivo en filesystem con estructura organizada
      *
@@ -138,6 +176,32 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Abre archivo como Resource sin leerlo a memoria (descarga en streaming)
+     *
+     * @param rutaCompleta Ruta completa al archivo
+     * @return FileSystemResource del archivo
+     * @throws IOException si no existe el archivo
+     * @throws SecurityException si hay intento de path traversal
+     */
+    public Resource obtenerRecurso(String rutaCompleta) throws IOException {
+
+        Path path = Paths.get(rutaCompleta);
+
+        // Validar path traversal
+        if (!path.normalize().startsWith(Paths.get(basePath).normalize())) {
+            log.error("❌ Intento de acceso no autorizado a: {}", rutaCompleta);
+            throw new SecurityException("Intento de acceso no autorizado");
+        }
+
+        if (!Files.isReadable(path)) {
+            log.error("❌ Archivo no encontrado: {}", rutaCompleta);
+            throw new IOException("Archivo no encontrado: " + rutaCompleta);
+        }
+
+        return new FileSystemResource(path);
+    }
+
     /**
      * Elimina archivo físicamente del filesystem
      *
@@ -208,6 +272,170 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Guarda archivo en el almacén direccionado por contenido
+     *
+     * Estructura: /opt/cenate/teleekgs/cas/ab/cd/{sha256}
+     *
+     * Equivale a {@link #recibirPorContenido} + {@link #confirmarPorContenido}; quien lleva
+     * referencias en BD debe usar los dos pasos y bloquear el blob entre ambos.
+     *
+     * @param file MultipartFile a guardar
+     * @return Blob almacenado (ruta, SHA256, tamaño, si fue reutilizado)
+     * @throws IOException si hay error al guardar
+     */
+    public ArchivoAlmacenado guardarPorContenido(MultipartFile file) throws IOException {
+        return confirmarPorContenido(recibirPorContenido(file));
+    }
+
+    /**
+     * Paso 1: escribe el contenido en un temporal y calcula su SHA256 en la misma pasada
+     *
+     * El temporal queda pendiente hasta {@link #confirmarPorContenido} o {@link #descartar}.
+     *
+     * @param file MultipartFile a guardar
+     * @return Contenido recibido (temporal, SHA256, tamaño y ruta final del blob)
+     * @throws IOException si hay error al escribir
+     */
+    public ContenidoRecibido recibirPorContenido(MultipartFile file) throws IOException {
+
+        validarArchivo(file);
+
+        Path directorioTemporal = Paths.get(basePath, "cas", "tmp");
+        Files.createDirectories(directorioTemporal);
+        Path temporal = Files.createTempFile(directorioTemporal, "upload-", ".part");
+
+        try {
+            MessageDigest digest = nuevoDigestSHA256();
+            long sizeBytes;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                sizeBytes = Files.copy(in, temporal, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String sha256 = aHexadecimal(digest.digest());
+            return new ContenidoRecibido(temporal, sha256, sizeBytes, rutaPorContenido(sha256).toString());
+
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            log.error("❌ Error recibiendo archivo por contenido", e);
+            throw new IOException("Error al guardar archivo: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Paso 2: reutiliza el blob si ya existe o mueve el temporal a su ruta final
+     *
+     * @param recibido Resultado de {@link #recibirPorContenido}
+     * @return Blob almacenado (ruta, SHA256, tamaño, si fue reutilizado)
+     * @throws IOException si hay error al mover el archivo
+     */
+    public ArchivoAlmacenado confirmarPorContenido(ContenidoRecibido recibido) throws IOException {
+
+        Path destino = Paths.get(recibido.ruta());
+        try {
+            if (Files.exists(destino)) {
+                log.info("♻️ Contenido ya almacenado, se reutiliza: {}", destino);
+                return new ArchivoAlmacenado(destino.toString(), recibido.sha256(), recibido.sizeBytes(), true);
+            }
+
+            Files.createDirectories(destino.getParent());
+            // Mismo filesystem: rename atómico; una carga concurrente del mismo contenido deja el mismo archivo
+            Files.move(recibido.temporal(), destino, StandardCopyOption.ATOMIC_MOVE);
+
+            try {
+                configurarPermisos(destino);
+            } catch (UnsupportedOperationException e) {
+                log.warn("⚠️ No se pudieron configurar permisos POSIX (probablemente Windows)");
+            }
+
+            log.info("✅ Archivo guardado por contenido en: {}", destino);
+            return new ArchivoAlmacenado(destino.toString(), recibido.sha256(), recibido.sizeBytes(), false);
+
+        } catch (IOException e) {
+            log.error("❌ Error guardando archivo por contenido", e);
+            throw new IOException("Error al guardar archivo: " + e.getMessage(), e);
+        } finally {
+            descartar(recibido);
+        }
+    }
+
+    /**
+     * Elimina el temporal de un contenido recibido (no hace nada si ya se movió)
+     */
+    public void descartar(ContenidoRecibido recibido) {
+        try {
+            Files.deleteIfExists(recibido.temporal());
+        } catch (IOException e) {
+            log.warn("⚠️ No se pudo eliminar el temporal {}: {}", recibido.temporal(), e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina el blob de un SHA256 del almacén por contenido (y sus miniaturas)
+     *
+     * @param sha256 Hash SHA256 (64 hex chars)
+     * @return true si fue eliminado, false si no existía
+     */
+    public boolean eliminarPorContenido(String sha256) {
+        eliminarMiniaturas(sha256);
+        return eliminarArchivo(rutaPorContenido(sha256).toString());
+    }
+
+    /**
+     * Ruta de la miniatura de un contenido, junto al blob: .../cas/ab/cd/{sha256}.w{ancho}.jpg
+     * (v2.3.0; también para imágenes en BYTEA, que no tienen archivo original)
+     *
+     * @param sha256 Hash SHA256 del original
+     * @param ancho Ancho de la miniatura en píxeles
+     */
+    public Path rutaMiniatura(String sha256, int ancho) {
+        return rutaPorContenido(sha256).resolveSibling(sha256 + ".w" + ancho + ".jpg");
+    }
+
+    /**
+     * Guarda una miniatura (escritura a temporal + rename atómico)
+     *
+     * @param sha256 Hash SHA256 del original
+     * @param ancho Ancho de la miniatura en píxeles
+     * @param contenido Bytes JPEG
+     * @throws IOException si hay error al guardar
+     */
+    public void guardarMiniatura(String sha256, int ancho, byte[] contenido) throws IOException {
+
+        Path destino = rutaMiniatura(sha256, ancho);
+        Files.createDirectories(destino.getParent());
+
+        Path temporal = Files.createTempFile(destino.getParent(), sha256 + ".w" + ancho, ".part");
+        try {
+            Files.write(temporal, contenido);
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("✅ Miniatura guardada: {} ({} bytes)", destino, contenido.length);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Elimina las miniaturas de un contenido
+     *
+     * @param sha256 Hash SHA256 del original
+     */
+    public void eliminarMiniaturas(String sha256) {
+
+        Path directorio = rutaPorContenido(sha256).getParent();
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> miniaturas = Files.newDirectoryStream(directorio, sha256 + ".w*.jpg")) {
+            for (Path miniatura : miniaturas) {
+                Files.deleteIfExists(miniatura);
+                log.debug("🗑️ Miniatura eliminada: {}", miniatura);
+            }
+        } catch (IOException e) {
+            log.error("❌ Error eliminando miniaturas de {}", sha256, e);
+        }
+    }
+
     /**
      * Calcula SHA256 de un archivo
      *
@@ -218,17 +446,12 @@ public class FileStorageService {
     public String calcularSHA256(MultipartFile file) throws IOException {
 
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(file.getBytes());
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
+            MessageDigest digest = nuevoDigestSHA256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
             }
 
-            String sha256 = hexString.toString();
+            String sha256 = aHexadecimal(digest.digest());
             log.debug("✅ SHA256 calculado: {}", sha256);
 
             return sha256;
@@ -249,18 +472,12 @@ public class FileStorageService {
     public boolean verificarIntegridad(String rutaCompleta, String sha256Esperado) {
 
         try {
-            byte[] contenido = Files.readAllBytes(Paths.get(rutaCompleta));
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(contenido);
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
+            MessageDigest digest = nuevoDigestSHA256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(Paths.get(rutaCompleta)), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
             }
 
-            String sha256Actual = hexString.toString();
+            String sha256Actual = aHexadecimal(digest.digest());
             boolean valido = sha256Actual.equals(sha256Esperado);
 
             if (!valido) {
@@ -343,6 +560,44 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Ruta del blob: {basePath}/cas/ab/cd/{sha256}
+     *
+     * @param sha256 Hash SHA256 (64 hex chars)
+     * @throws SecurityException si el hash no es hexadecimal válido
+     */
+    private Path rutaPorContenido(String sha256) {
+
+        if (sha256 == null || !sha256.matches("[0-9a-f]{64}")) {
+            throw new SecurityException("❌ SHA256 inválido: " + sha256);
+        }
+
+        return Paths.get(basePath, "cas", sha256.substring(0, 2), sha256.substring(2, 4), sha256);
+    }
+
+    private MessageDigest nuevoDigestSHA256() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Hash en hexadecimal en minúsculas (64 caracteres para SHA256)
+     */
+    private String aHexadecimal(byte[] hash) {
+
+        StringBuilder hexString = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) hexString.append('0');
+            hexString.append(hex);
+        }
+
+        return hexString.toString();
+    }
+
     /**
      * Obtiene extensión del archivo
      *
@@ -3,18 +3,19 @@ package com.styp.cenate.service.teleecg;
 import com.styp.cenate.dto.TeleECGAnalyticsDTO;
 import com.styp.cenate.dto.TeleECGAnalyticsDTO.ComparacionPeriodos;
 import com.styp.cenate.dto.TeleECGAnalyticsDTO.RechazoPorIpress;
-import com.styp.cenate.model.TeleECGImagen;
-import com.styp.cenate.repository.TeleECGImagenRepository;
+import com.styp.cenate.repository.TeleECGAnalyticsDao;
+import com.styp.cenate.repository.TeleECGAnalyticsDao.AgregadoDia;
+import com.styp.cenate.repository.TeleECGAnalyticsDao.AgregadoIpress;
+import com.styp.cenate.repository.TeleECGAnalyticsDao.FiltroAnalytics;
+import com.styp.cenate.repository.TeleECGAnalyticsDao.ResumenAnalytics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Servicio de Analytics para Dashboard Médico TeleECG (v1.72.0)
@@ -27,12 +28,14 @@ import java.util.stream.Collectors;
  * - Generar comparativas de período (↑↓%)
  *
  * Optimizaciones:
- * - Cálculos en Java (no en BD) para evitar queries complejas
- * - Uso de streams para transformaciones de datos
+ * - ✅ v2.4.0: Agregaciones en PostgreSQL ({@link TeleECGAnalyticsDao}): el costo depende
+ *   del número de grupos (IPRESS, días), no del número de imágenes del período
+ * - ✅ v2.5.0: Totales, TAT, distribuciones y comparativas se leen del resumen diario
+ *   (tele_ecg_resumen_diario): un período consulta a lo sumo unos cientos de filas
  * - Cache de resultados por período (future)
  *
  * @author Styp Canto Rondón
- * @version 1.0.0
+ * @version 1.1.0
  * @since 2026-02-11
  */
 @Service
@@ -41,7 +44,7 @@ import java.util.stream.Collectors;
 public class TeleECGAnalyticsService {
 
     @Autowired
-    private TeleECGImagenRepository repository;
+    private TeleECGAnalyticsDao analyticsDao;
 
     /**
      * Meta SLA en minutos (configurable)
@@ -55,6 +58,11 @@ public class TeleECGAnalyticsService {
      */
     private static final double UMBRAL_RECHAZO_ALERTA = 15.0;
 
+    /**
+     * Observaciones de ejemplo por IPRESS en rechazosPorIpress
+     */
+    private static final int MAX_MOTIVOS_POR_IPRESS = 3;
+
     /**
      * Calcula todas las métricas analíticas para el dashboard
      *
@@ -77,22 +85,17 @@ public class TeleECGAnalyticsService {
 
         long inicioCálculo = System.currentTimeMillis();
 
-        // 1. Obtener datos filtrados
+        // 1. Resumen del período (desde el resumen diario)
         // ✅ v1.100.3: Convertir idIpress a codigoIpress si es necesario
         String codigoIpress = null;
         // TODO: Si idIpress viene como parámetro, convertir a codigo_ipress
 
-        List<TeleECGImagen> imagenes = repository.buscarParaAnalytics(
-                fechaDesde.atStartOfDay(),
-                fechaHasta.atTime(23, 59, 59),
-                codigoIpress,
-                evaluacion,
-                esUrgente
-        );
+        FiltroAnalytics filtro = new FiltroAnalytics(fechaDesde, fechaHasta, codigoIpress, evaluacion, esUrgente, true);
+        ResumenAnalytics resumen = analyticsDao.resumen(filtro, SLA_META_MINUTOS);
 
-        log.debug("✅ Obtenidas {} imágenes para análisis", imagenes.size());
+        log.debug("✅ {} imágenes en el período de análisis", resumen.total());
 
-        if (imagenes.isEmpty()) {
+        if (resumen.total() == 0) {
             log.warn("⚠️ No hay imágenes en el período especificado");
             return TeleECGAnalyticsDTO.builder()
                     .fechaDesde(fechaDesde)
@@ -114,11 +117,7 @@ public class TeleECGAnalyticsService {
         }
 
         // 2. Calcular distribución de evaluaciones (PRIORIDAD 1)
-        Map<String, Long> distribucion = imagenes.stream()
-                .collect(Collectors.groupingBy(
-                        img -> img.getEvaluacion() != null ? img.getEvaluacion() : "SIN_EVALUAR",
-                        Collectors.counting()
-                ));
+        Map<String, Long> distribucion = new HashMap<>(analyticsDao.distribucionEvaluacion(filtro));
 
         // Asegurar que existen todas las claves
         distribucion.putIfAbsent("NORMAL", 0L);
@@ -126,87 +125,40 @@ public class TeleECGAnalyticsService {
         distribucion.putIfAbsent("SIN_EVALUAR", 0L);
 
         // Calcular porcentajes
-        long totalImágenes = imagenes.size();
-        Map<String, Double> porcentajes = distribucion.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        e -> (e.getValue() * 100.0) / totalImágenes
-                ));
+        long totalImágenes = resumen.total();
+        Map<String, Double> porcentajes = new HashMap<>();
+        distribucion.forEach((clave, cantidad) -> porcentajes.put(clave, (cantidad * 100.0) / totalImágenes));
 
         // 3. Calcular TAT y SLA (PRIORIDAD 2)
-        List<TeleECGImagen> conTimestamps = imagenes.stream()
-                .filter(img -> img.getFechaEvaluacion() != null && img.getFechaEnvio() != null)
-                .collect(Collectors.toList());
+        Double tatPromedio = resumen.tatPromedio();
+        Double slaPorcentaje = resumen.conTat() > 0 ? (resumen.dentroSla() * 100.0) / resumen.conTat() : 0.0;
 
-        Double tatPromedio = 0.0;
-        Double slaPorcentaje = 0.0;
+        // Agregados por IPRESS: TAT y rechazos salen del mismo GROUP BY
+        List<AgregadoIpress> porIpress = analyticsDao.agregadoPorIpress(filtro);
         Map<String, Double> tatPorIpress = new HashMap<>();
-
-        if (!conTimestamps.isEmpty()) {
-            tatPromedio = conTimestamps.stream()
-                    .mapToDouble(img -> calcularTatMinutos(img.getFechaEnvio(), img.getFechaEvaluacion()))
-                    .average()
-                    .orElse(0.0);
-
-            // Calcular SLA cumplimiento
-            long dentroSLA = conTimestamps.stream()
-                    .filter(img -> calcularTatMinutos(img.getFechaEnvio(), img.getFechaEvaluacion()) <= SLA_META_MINUTOS)
-                    .count();
-
-            slaPorcentaje = (dentroSLA * 100.0) / conTimestamps.size();
-
-            // TAT por IPRESS
-            tatPorIpress = conTimestamps.stream()
-                    .collect(Collectors.groupingBy(
-                            img -> img.getNombreIpress() != null ? img.getNombreIpress() : "SIN_IPRESS",
-                            Collectors.averagingDouble(img -> calcularTatMinutos(img.getFechaEnvio(), img.getFechaEvaluacion()))
-                    ));
+        for (AgregadoIpress ipress : porIpress) {
+            if (ipress.tatPromedio() != null) {
+                tatPorIpress.put(ipress.nombreIpress(), ipress.tatPromedio());
+            }
         }
 
         // 4. TAT urgentes vs no urgentes
-        Double tatUrgentes = 0.0;
-        Double tatNoUrgentes = 0.0;
-
-        List<TeleECGImagen> urgentes = conTimestamps.stream()
-                .filter(img -> Boolean.TRUE.equals(img.getEsUrgente()))
-                .collect(Collectors.toList());
-
-        List<TeleECGImagen> noUrgentes = conTimestamps.stream()
-                .filter(img -> !Boolean.TRUE.equals(img.getEsUrgente()))
-                .collect(Collectors.toList());
-
-        if (!urgentes.isEmpty()) {
-            tatUrgentes = urgentes.stream()
-                    .mapToDouble(img -> calcularTatMinutos(img.getFechaEnvio(), img.getFechaEvaluacion()))
-                    .average()
-                    .orElse(0.0);
-        }
-
-        if (!noUrgentes.isEmpty()) {
-            tatNoUrgentes = noUrgentes.stream()
-                    .mapToDouble(img -> calcularTatMinutos(img.getFechaEnvio(), img.getFechaEvaluacion()))
-                    .average()
-                    .orElse(0.0);
-        }
+        Double tatUrgentes = resumen.tatUrgentes();
+        Double tatNoUrgentes = resumen.tatNoUrgentes();
 
         // 5. Calcular tasa de rechazo (PRIORIDAD 3)
-        long rechazados = imagenes.stream()
-                .filter(img -> "OBSERVADA".equals(img.getEstado()))
-                .count();
-
-        Double tasaRechazo = (rechazados * 100.0) / totalImágenes;
+        Double tasaRechazo = (resumen.observadas() * 100.0) / totalImágenes;
 
         // Rechazos por IPRESS
-        Map<String, RechazoPorIpress> rechazosPorIpress = calcularRechazosPorIpress(imagenes);
+        Map<String, RechazoPorIpress> rechazosPorIpress = calcularRechazosPorIpress(porIpress, filtro);
 
         // 6. Volumen diario y TAT diario (PRIORIDAD 4)
-        Map<LocalDate, Long> volumenDiario = calcularVolumenDiario(imagenes);
-        Map<LocalDate, Double> tatDiario = calcularTatDiario(imagenes);
+        List<AgregadoDia> porDia = analyticsDao.agregadoPorDia(filtro);
+        Map<LocalDate, Long> volumenDiario = calcularVolumenDiario(porDia);
+        Map<LocalDate, Double> tatDiario = calcularTatDiario(porDia);
 
         // 7. Comparación de períodos
-        ComparacionPeriodos comparacion = calcularComparacionPeriodos(
-                fechaDesde, fechaHasta, idIpress, evaluacion, esUrgente
-        );
+        ComparacionPeriodos comparacion = calcularComparacionPeriodos(resumen, fechaDesde, fechaHasta, filtro);
 
         long duracionCálculo = System.currentTimeMillis() - inicioCálculo;
         log.info("✅ Analytics calculados en {}ms", duracionCálculo);
@@ -236,183 +188,87 @@ public class TeleECGAnalyticsService {
     }
 
     /**
-     * Calcula TAT en minutos entre dos instantes
+     * Calcula detalles de rechazo por IPRESS a partir del agregado por IPRESS
      */
-    private double calcularTatMinutos(LocalDateTime desde, LocalDateTime hasta) {
-        if (desde == null || hasta == null) return 0.0;
-        return ChronoUnit.MINUTES.between(desde, hasta);
-    }
-
-    /**
-     * Calcula detalles de rechazo por IPRESS
-     */
-    private Map<String, RechazoPorIpress> calcularRechazosPorIpress(List<TeleECGImagen> imagenes) {
-        return imagenes.stream()
-                .collect(Collectors.groupingBy(
-                        img -> img.getNombreIpress() != null ? img.getNombreIpress() : "SIN_IPRESS"
-                ))
-                .entrySet()
-                .stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> {
-                            List<TeleECGImagen> ipressImagens = entry.getValue();
-                            long rechazadas = ipressImagens.stream()
-                                    .filter(img -> "OBSERVADA".equals(img.getEstado()))
-                                    .count();
-
-                            double porcentajeRechazo = (rechazadas * 100.0) / ipressImagens.size();
-
-                            // Extraer motivos comunes de observaciones
-                            List<String> motivosComunes = extraerMotivosComunes(ipressImagens);
-
-                            return RechazoPorIpress.builder()
-                                    .nombreIpress(entry.getKey())
-                                    .totalEcgs((long) ipressImagens.size())
-                                    .rechazados(rechazadas)
-                                    .porcentajeRechazo(Math.round(porcentajeRechazo * 10.0) / 10.0)
-                                    .motivosComunes(motivosComunes)
-                                    .requiereCapacitacion(porcentajeRechazo > UMBRAL_RECHAZO_ALERTA)
-                                    .build();
-                        }
-                ));
-    }
-
-    /**
-     * Extrae los 3 motivos más comunes de rechazo
-     */
-    private List<String> extraerMotivosComunes(List<TeleECGImagen> imagenes) {
-        return imagenes.stream()
-                .filter(img -> "OBSERVADA".equals(img.getEstado()) && img.getObservaciones() != null)
-                .map(TeleECGImagen::getObservaciones)
-                .collect(Collectors.toList())
-                .stream()
-                .limit(3)
-                .collect(Collectors.toList());
+    private Map<String, RechazoPorIpress> calcularRechazosPorIpress(List<AgregadoIpress> porIpress, FiltroAnalytics filtro) {
+        Map<String, List<String>> motivosPorIpress = analyticsDao.motivosObservacionPorIpress(filtro, MAX_MOTIVOS_POR_IPRESS);
+
+        Map<String, RechazoPorIpress> rechazos = new HashMap<>();
+        for (AgregadoIpress ipress : porIpress) {
+            double porcentajeRechazo = (ipress.observadas() * 100.0) / ipress.total();
+
+            rechazos.put(ipress.nombreIpress(), RechazoPorIpress.builder()
+                    .nombreIpress(ipress.nombreIpress())
+                    .totalEcgs(ipress.total())
+                    .rechazados(ipress.observadas())
+                    .porcentajeRechazo(Math.round(porcentajeRechazo * 10.0) / 10.0)
+                    .motivosComunes(motivosPorIpress.getOrDefault(ipress.nombreIpress(), new ArrayList<>()))
+                    .requiereCapacitacion(porcentajeRechazo > UMBRAL_RECHAZO_ALERTA)
+                    .build());
+        }
+        return rechazos;
     }
 
     /**
-     * Calcula volumen diario (últimos 30 días)
+     * Volumen diario (ya ordenado por fecha en la consulta)
      */
-    private Map<LocalDate, Long> calcularVolumenDiario(List<TeleECGImagen> imagenes) {
-        return imagenes.stream()
-                .collect(Collectors.groupingBy(
-                        img -> img.getFechaEnvio().toLocalDate(),
-                        Collectors.counting()
-                ))
-                .entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByKey())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (a, b) -> a,
-                        LinkedHashMap::new
-                ));
+    private Map<LocalDate, Long> calcularVolumenDiario(List<AgregadoDia> porDia) {
+        Map<LocalDate, Long> volumen = new LinkedHashMap<>();
+        porDia.forEach(dia -> volumen.put(dia.fecha(), dia.total()));
+        return volumen;
     }
 
     /**
-     * Calcula TAT promedio por día (últimos 30 días)
+     * TAT promedio por día (solo días con ECGs evaluados)
      */
-    private Map<LocalDate, Double> calcularTatDiario(List<TeleECGImagen> imagenes) {
-        return imagenes.stream()
-                .filter(img -> img.getFechaEvaluacion() != null && img.getFechaEnvio() != null)
-                .collect(Collectors.groupingBy(
-                        img -> img.getFechaEnvio().toLocalDate(),
-                        Collectors.averagingDouble(img -> calcularTatMinutos(img.getFechaEnvio(), img.getFechaEvaluacion()))
-                ))
-                .entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByKey())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> Math.round(entry.getValue() * 10.0) / 10.0,
-                        (a, b) -> a,
-                        LinkedHashMap::new
-                ));
+    private Map<LocalDate, Double> calcularTatDiario(List<AgregadoDia> porDia) {
+        Map<LocalDate, Double> tat = new LinkedHashMap<>();
+        for (AgregadoDia dia : porDia) {
+            if (dia.tatPromedio() != null) {
+                tat.put(dia.fecha(), Math.round(dia.tatPromedio() * 10.0) / 10.0);
+            }
+        }
+        return tat;
     }
 
     /**
-     * Calcula comparación con período anterior (mismo rango de días)
+     * Calcula comparación con período anterior (mismo rango de días y mismos filtros)
      */
     private ComparacionPeriodos calcularComparacionPeriodos(
+            ResumenAnalytics actual,
             LocalDate fechaDesde,
             LocalDate fechaHasta,
-            Long idIpress,
-            String evaluacion,
-            Boolean esUrgente) {
+            FiltroAnalytics filtro) {
 
         long diasEnPeriodo = ChronoUnit.DAYS.between(fechaDesde, fechaHasta);
 
         LocalDate inicioPeriodoAnterior = fechaDesde.minusDays(diasEnPeriodo + 1);
         LocalDate finPeriodoAnterior = fechaDesde.minusDays(1);
 
-        // ✅ v1.100.3: Convertir idIpress a codigoIpress
-        String codigoIpress = null;
-        // TODO: Si idIpress viene como parámetro, convertir a codigo_ipress
+        ResumenAnalytics anterior = analyticsDao.resumen(
+                new FiltroAnalytics(inicioPeriodoAnterior, finPeriodoAnterior,
+                        filtro.codigoIpress(), filtro.evaluacion(), filtro.esUrgente(), filtro.soloVigentes()),
+                SLA_META_MINUTOS);
 
-        // Obtener datos período anterior
-        List<TeleECGImagen> imagenesAnteriores = repository.buscarParaAnalytics(
-                inicioPeriodoAnterior.atStartOfDay(),
-                finPeriodoAnterior.atTime(23, 59, 59),
-                codigoIpress,
-                evaluacion,
-                esUrgente
-        );
-
-        // Datos período actual
-        List<TeleECGImagen> imageneActuales = repository.buscarParaAnalytics(
-                fechaDesde.atStartOfDay(),
-                fechaHasta.atTime(23, 59, 59),
-                codigoIpress,
-                evaluacion,
-                esUrgente
-        );
-
-        long totalActual = imageneActuales.size();
-        long totalAnterior = imagenesAnteriores.size();
+        long totalActual = actual.total();
+        long totalAnterior = anterior.total();
 
         double cambioVolumen = calcularCambioPorc(totalActual, totalAnterior);
 
         // Cambio TAT
-        double tatActual = imageneActuales.stream()
-                .filter(img -> img.getFechaEvaluacion() != null && img.getFechaEnvio() != null)
-                .mapToDouble(img -> calcularTatMinutos(img.getFechaEnvio(), img.getFechaEvaluacion()))
-                .average()
-                .orElse(0.0);
-
-        double tatAnterior = imagenesAnteriores.stream()
-                .filter(img -> img.getFechaEvaluacion() != null && img.getFechaEnvio() != null)
-                .mapToDouble(img -> calcularTatMinutos(img.getFechaEnvio(), img.getFechaEvaluacion()))
-                .average()
-                .orElse(0.0);
+        double tatActual = actual.tatPromedio();
+        double tatAnterior = anterior.tatPromedio();
 
         double cambioTat = tatAnterior > 0 ? ((tatActual - tatAnterior) / tatAnterior) * 100 : 0;
 
         // Cambio Rechazo
-        long rechazosActual = imageneActuales.stream()
-                .filter(img -> "OBSERVADA".equals(img.getEstado()))
-                .count();
-
-        long rechazosAnterior = imagenesAnteriores.stream()
-                .filter(img -> "OBSERVADA".equals(img.getEstado()))
-                .count();
-
-        double tasaRechazoActual = totalActual > 0 ? (rechazosActual * 100.0) / totalActual : 0;
-        double tasaRechazoAnterior = totalAnterior > 0 ? (rechazosAnterior * 100.0) / totalAnterior : 0;
+        double tasaRechazoActual = totalActual > 0 ? (actual.observadas() * 100.0) / totalActual : 0;
+        double tasaRechazoAnterior = totalAnterior > 0 ? (anterior.observadas() * 100.0) / totalAnterior : 0;
 
         double cambioRechazo = tasaRechazoAnterior > 0 ? ((tasaRechazoActual - tasaRechazoAnterior) / tasaRechazoAnterior) * 100 : 0;
 
         // Cambio urgentes
-        long urgentesActual = imageneActuales.stream()
-                .filter(img -> Boolean.TRUE.equals(img.getEsUrgente()))
-                .count();
-
-        long urgentesAnterior = imagenesAnteriores.stream()
-                .filter(img -> Boolean.TRUE.equals(img.getEsUrgente()))
-                .count();
-
-        double cambioUrgentes = calcularCambioPorc(urgentesActual, urgentesAnterior);
+        double cambioUrgentes = calcularCambioPorc(actual.urgentes(), anterior.urgentes());
 
         return ComparacionPeriodos.builder()
                 .totalActual(totalActual)
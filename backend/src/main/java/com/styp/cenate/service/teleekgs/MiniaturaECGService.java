@@ -0,0 +1,104 @@
+package com.styp.cenate.service.teleekgs;
+
+import com.styp.cenate.repository.TeleECGImagenContenidoRepository;
+import com.styp.cenate.service.storage.FileStorageService;
+import com.styp.cenate.util.ImageThumbnailUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Miniaturas de imágenes ECG para listados (v2.3.0)
+ *
+ * Se generan en segundo plano al subir la imagen, en anchos fijos, y se guardan
+ * junto al blob por contenido ({@link FileStorageService#rutaMiniatura}). Como se
+ * identifican por SHA256 son inmutables: el endpoint las sirve con caché larga.
+ * Las imágenes anteriores a esta versión se generan la primera vez que se piden.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MiniaturaECGService {
+
+    /** Anchos disponibles en píxeles (listado, tarjeta, vista previa) */
+    public static final int[] ANCHOS = {160, 480, 1024};
+
+    public static final int ANCHO_LISTADO = 160;
+
+    private final FileStorageService fileStorageService;
+    private final TeleECGImagenContenidoRepository teleECGImagenContenidoRepository;
+
+    /**
+     * Genera todas las miniaturas en segundo plano (llamar tras el commit de la carga)
+     */
+    @Async
+    @Transactional(readOnly = true)
+    public void generarMiniaturasAsync(TeleECGService.ImagenECGDescarga imagen) {
+        try {
+            generar(imagen);
+        } catch (Exception e) {
+            // No crítico: se reintenta al pedir la miniatura
+            log.warn("⚠️ No se pudieron generar miniaturas de imagen {}: {}", imagen.idImagen(), e.getMessage());
+        }
+    }
+
+    /**
+     * Ruta de la miniatura del ancho disponible más cercano (≥ al pedido);
+     * si todavía no existe se genera en este momento.
+     */
+    @Transactional(readOnly = true)
+    public Path obtenerMiniatura(TeleECGService.ImagenECGDescarga imagen, int anchoSolicitado) throws IOException {
+        Path ruta = fileStorageService.rutaMiniatura(imagen.sha256(), normalizarAncho(anchoSolicitado));
+        if (!Files.exists(ruta)) {
+            generar(imagen);
+        }
+        return ruta;
+    }
+
+    public static int normalizarAncho(int anchoSolicitado) {
+        return Arrays.stream(ANCHOS)
+            .filter(ancho -> ancho >= anchoSolicitado)
+            .findFirst()
+            .orElse(ANCHOS[ANCHOS.length - 1]);
+    }
+
+    private void generar(TeleECGService.ImagenECGDescarga imagen) throws IOException {
+        long inicio = System.currentTimeMillis();
+
+        Map<Integer, byte[]> miniaturas;
+        try (InputStream original = abrirOriginal(imagen)) {
+            miniaturas = ImageThumbnailUtil.generarMiniaturas(original, ANCHOS);
+        }
+        if (miniaturas.isEmpty()) {
+            throw new IOException("Imagen no decodificable: " + imagen.idImagen());
+        }
+
+        for (Map.Entry<Integer, byte[]> miniatura : miniaturas.entrySet()) {
+            fileStorageService.guardarMiniatura(imagen.sha256(), miniatura.getKey(), miniatura.getValue());
+        }
+
+        log.info("🖼️ Miniaturas generadas para imagen {} ({} bytes original) en {}ms",
+            imagen.idImagen(), imagen.sizeBytes(), System.currentTimeMillis() - inicio);
+    }
+
+    private InputStream abrirOriginal(TeleECGService.ImagenECGDescarga imagen) throws IOException {
+        if ("DATABASE".equals(imagen.storageTipo())) {
+            byte[] contenido = teleECGImagenContenidoRepository.findContenido(imagen.idImagen());
+            if (contenido == null) {
+                throw new IOException("Imagen sin contenido en BD: " + imagen.idImagen());
+            }
+            return new ByteArrayInputStream(contenido);
+        }
+        return fileStorageService.obtenerRecurso(imagen.storageRuta()).getInputStream();
+    }
+}
@@ -0,0 +1,99 @@
+package com.styp.cenate.service.teleekgs;
+
+import com.styp.cenate.model.TeleECGImagen;
+import com.styp.cenate.repository.TeleECGResumenDiarioDao;
+import com.styp.cenate.repository.TeleECGResumenDiarioDao.AporteResumen;
+import com.styp.cenate.repository.TeleECGResumenDiarioDao.DeltaResumen;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Resumen diario de KPIs TeleECG (v2.5.0)
+ *
+ * Cada carga, evaluación, cambio de estado, archivado o eliminación de una imagen
+ * mueve su aporte entre filas de tele_ecg_resumen_diario dentro de la misma
+ * transacción; si la transacción se revierte, el resumen también.
+ *
+ * Los cambios hechos fuera de estos puntos (SQL directo, actualizaciones masivas)
+ * se corrigen con {@link #reconstruir}, que {@code TeleECGResumenDiarioJob} ejecuta
+ * cada noche sobre los últimos días.
+ */
+@Service
+@Slf4j
+public class TeleECGResumenDiarioService {
+
+    private final TeleECGResumenDiarioDao resumenDiarioDao;
+    private final TransactionTemplate transaccionPorDia;
+
+    public TeleECGResumenDiarioService(TeleECGResumenDiarioDao resumenDiarioDao,
+                                       PlatformTransactionManager transactionManager) {
+        this.resumenDiarioDao = resumenDiarioDao;
+        this.transaccionPorDia = new TransactionTemplate(transactionManager);
+        this.transaccionPorDia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Imagen nueva (llamar después de guardarla)
+     */
+    public void registrarAlta(TeleECGImagen imagen) {
+        AporteResumen aporte = AporteResumen.de(imagen);
+        if (aporte != null) {
+            resumenDiarioDao.aplicar(List.of(new DeltaResumen(aporte, 1)));
+        }
+    }
+
+    /**
+     * Imagen modificada: {@code antes} se toma con {@link AporteResumen#de} antes de cambiarla
+     * (null = la imagen no aportaba al resumen)
+     */
+    public void registrarCambio(AporteResumen antes, TeleECGImagen despues) {
+        AporteResumen actual = AporteResumen.de(despues);
+        if (Objects.equals(actual, antes)) {
+            return;
+        }
+        List<DeltaResumen> deltas = new ArrayList<>(2);
+        if (antes != null) {
+            deltas.add(new DeltaResumen(antes, -1));
+        }
+        if (actual != null) {
+            deltas.add(new DeltaResumen(actual, 1));
+        }
+        resumenDiarioDao.aplicar(deltas);
+    }
+
+    /**
+     * Imagen eliminada físicamente
+     */
+    public void registrarBaja(AporteResumen antes) {
+        if (antes != null) {
+            resumenDiarioDao.aplicar(List.of(new DeltaResumen(antes, -1)));
+        }
+    }
+
+    /**
+     * Recalcula desde tele_ecg_imagenes los días [desde, hasta], un día por transacción
+     * para que el bloqueo del resumen dure poco.
+     *
+     * @return filas de resumen generadas
+     */
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        long inicio = System.currentTimeMillis();
+        int filas = 0;
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            LocalDate fecha = dia;
+            Integer generadas = transaccionPorDia.execute(status -> resumenDiarioDao.reconstruir(fecha, fecha));
+            filas += generadas != null ? generadas : 0;
+        }
+        log.info("📅 Resumen diario TeleECG reconstruido {} → {}: {} filas en {}ms",
+                desde, hasta, filas, System.currentTimeMillis() - inicio);
+        return filas;
+    }
+}
@@ -3,8 +3,13 @@ package com.styp.cenate.service.teleekgs;
 import com.styp.cenate.dto.teleekgs.*;
 import com.styp.cenate.model.*;
 import com.styp.cenate.model.bolsas.SolicitudBolsa;
+import com.styp.cenate.repository.TeleECGAnalyticsDao;
 import com.styp.cenate.repository.TeleECGAuditoriaRepository;
+import com.styp.cenate.repository.TeleECGBlobRepository;
+import com.styp.cenate.repository.TeleECGContenidoDao;
+import com.styp.cenate.repository.TeleECGImagenContenidoRepository;
 import com.styp.cenate.repository.TeleECGImagenRepository;
+import com.styp.cenate.repository.TeleECGResumenDiarioDao.AporteResumen;
 import com.styp.cenate.repository.UsuarioRepository;
 import com.styp.cenate.repository.IpressRepository;
 import com.styp.cenate.repository.AseguradoRepository;
@@ -15,22 +20,28 @@ import com.styp.cenate.service.auditlog.AuditLogService;
 import com.styp.cenate.service.storage.FileStorageService;
 import com.styp.cenate.exception.ValidationException;
 import com.styp.cenate.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.core.io.Resource;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.*;
@@ -51,6 +62,27 @@ import java.util.stream.Collectors;
 @Transactional
 public class TeleECGService {
 
+    /** v2.1.0: Imagen guardada en el almacén direccionado por contenido (FileStorageService) */
+    private static final String STORAGE_TIPO_CAS = "FILESYSTEM_CAS";
+
+    /**
+     * v2.2.0: Metadatos para descargar una imagen en streaming
+     *
+     * @param sha256 Hash del contenido, usado como ETag
+     */
+    public record ImagenECGDescarga(Long idImagen, String storageTipo, String storageRuta, String sha256,
+                                    String mimeType, String nombreArchivo, Long sizeBytes) {
+    }
+
+    /**
+     * v2.2.0: idImagen → metadatos de descarga. Permite responder 304 (If-None-Match)
+     * sin consultar BD ni leer el archivo. Se invalida al eliminar o archivar la imagen.
+     */
+    private final Cache<Long, ImagenECGDescarga> metadatosDescarga = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(Duration.ofMinutes(30))
+        .build();
+
     @PostConstruct
     public void init() {
         log.info("✅ TeleECGService inicializado exitosamente");
@@ -62,6 +94,12 @@ public class TeleECGService {
     @Autowired
     private TeleECGAuditoriaRepository teleECGAuditoriaRepository;
 
+    @Autowired
+    private TeleECGAnalyticsDao teleECGAnalyticsDao;
+
+    @Autowired
+    private TeleECGResumenDiarioService resumenDiarioService;
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
@@ -80,6 +118,18 @@ public class TeleECGService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private TeleECGBlobRepository teleECGBlobRepository;
+
+    @Autowired
+    private TeleECGImagenContenidoRepository teleECGImagenContenidoRepository;
+
+    @Autowired
+    private TeleECGContenidoDao teleECGContenidoDao;
+
+    @Autowired
+    private MiniaturaECGService miniaturaECGService;
+
     @Autowired
     private TeleECGEstadoTransformer estadoTransformer;
 
@@ -158,25 +208,51 @@ public class TeleECGService {
         Ipress ipressOrigen = ipressRepository.findById(idIpressOrigen)
             .orElseThrow(() -> new RuntimeException("IPRESS no encontrada: " + idIpressOrigen));
 
-        // 2. Calcular SHA256
-        String sha256 = fileStorageService.calcularSHA256(dto.getArchivo());
-        log.info("✅ SHA256 calculado: {}", sha256);
+        String sha256;
+        byte[] contenidoImagen = null;
+        FileStorageService.ArchivoAlmacenado blob = null;
 
-        // 3. Detectar duplicados
-        Optional<TeleECGImagen> duplicado = teleECGImagenRepository
-            .findBySha256AndStatImagenEquals(sha256, "A");
+        if (fileStorageService.isAlmacenamientoPorContenido()) {
+            // 2-4. v2.1.0: Recibir por contenido (SHA256 calculado mientras se escribe el temporal)
+            FileStorageService.ContenidoRecibido recibido = fileStorageService.recibirPorContenido(dto.getArchivo());
+            sha256 = recibido.sha256();
+            try {
+                // Bloquear el blob antes de decidir si se reutiliza el archivo: el borrado de
+                // su última referencia (purgarBlob) ya terminó o espera a este commit
+                teleECGBlobRepository.reservar(sha256, recibido.ruta(), recibido.sizeBytes());
+                teleECGBlobRepository.bloquear(sha256);
+                blob = fileStorageService.confirmarPorContenido(recibido);
+            } finally {
+                fileStorageService.descartar(recibido);
+            }
+            log.info("✅ SHA256 calculado: {} (archivo reutilizado: {})", sha256, blob.reutilizado());
 
-        if (duplicado.isPresent()) {
-            throw new RuntimeException("Imagen duplicada detectada (ID: " + duplicado.get().getIdImagen() + ")");
-        }
+            // 3. Un reenvío del mismo ECG es una imagen más (con su paciente, IPRESS y metadatos)
+            //    que comparte el archivo: una referencia por imagen
+            teleECGBlobRepository.registrarReferencia(sha256, blob.ruta(), blob.sizeBytes());
+            if (!blob.reutilizado()) {
+                eliminarBlobSiRollback(sha256);
+            }
+        } else {
+            // 2. Calcular SHA256
+            sha256 = fileStorageService.calcularSHA256(dto.getArchivo());
+            log.info("✅ SHA256 calculado: {}", sha256);
 
-        // 4. v1.22.0: Leer contenido de imagen para almacenar en BD (BYTEA)
-        byte[] contenidoImagen;
-        try {
-            contenidoImagen = dto.getArchivo().getBytes();
-            log.info("✅ Imagen leída para BD: {} bytes", contenidoImagen.length);
-        } catch (IOException e) {
-            throw new RuntimeException("Error al leer contenido de imagen: " + e.getMessage(), e);
+            // 3. Detectar duplicados
+            Optional<TeleECGImagen> duplicado = teleECGImagenRepository
+                .findFirstBySha256AndStatImagenEquals(sha256, "A");
+
+            if (duplicado.isPresent()) {
+                throw new RuntimeException("Imagen duplicada detectada (ID: " + duplicado.get().getIdImagen() + ")");
+            }
+
+            // 4. v1.22.0: Leer contenido de imagen para almacenar en BD (BYTEA)
+            try {
+                contenidoImagen = dto.getArchivo().getBytes();
+                log.info("✅ Imagen leída para BD: {} bytes", contenidoImagen.length);
+            } catch (IOException e) {
+                throw new RuntimeException("Error al leer contenido de imagen: " + e.getMessage(), e);
+            }
         }
 
         // 5. Generar nombre de archivo único (para referencia)
@@ -200,9 +276,13 @@ public class TeleECGService {
 
         imagen.setNombresPaciente(nombreCompleto);  // Guardar nombre completo real
         imagen.setApellidosPaciente("");  // Dejar vacío - usamos nombre completo en nombresPaciente
-        imagen.setStorageTipo("DATABASE");  // v1.22.0: Almacenamiento en BD
-        imagen.setStorageRuta("bytea://" + nombreArchivo);  // Referencia simbólica
-        imagen.setContenidoImagen(contenidoImagen);  // v1.22.0: BYTEA content
+        if (blob != null) {
+            imagen.setStorageTipo(STORAGE_TIPO_CAS);  // v2.1.0: Blob compartido por SHA256
+            imagen.setStorageRuta(blob.ruta());
+        } else {
+            imagen.setStorageTipo("DATABASE");  // v1.22.0: Almacenamiento en BD
+            imagen.setStorageRuta("bytea://" + nombreArchivo);  // Referencia simbólica
+        }
         imagen.setNombreArchivo(nombreArchivo);
         imagen.setNombreOriginal(dto.getArchivo().getOriginalFilename());
         imagen.setExtension(extension);
@@ -222,8 +302,18 @@ public class TeleECGService {
         imagen.setFechaToma(dto.getFechaToma());  // v1.76.0: Guardar fecha de toma del EKG
 
         imagen = teleECGImagenRepository.save(imagen);
+        if (contenidoImagen != null) {
+            // v2.4.0: BYTEA en TeleECGImagenContenido (la fila ya existe: id IDENTITY)
+            teleECGImagenContenidoRepository.guardarContenido(imagen.getIdImagen(), contenidoImagen);
+        }
         log.info("✅ Imagen registrada en BD: ID={}", imagen.getIdImagen());
 
+        // v2.5.0: KPIs diarios (misma transacción)
+        resumenDiarioService.registrarAlta(imagen);
+
+        // 6.1. v2.3.0: Miniaturas para listados (en segundo plano, tras el commit)
+        programarMiniaturas(imagen);
+
         // 6.5. 🆕 v1.58.0: Crear bolsa automática en dim_solicitud_bolsa para CENATE
         try {
             crearBolsaTeleECG(imagen, aseguradoVerificacion.get(), ipressOrigen, idUsuarioEnvio);
@@ -311,12 +401,14 @@ public class TeleECGService {
         TeleECGImagen imagen = teleECGImagenRepository.findById(idImagen)
             .orElseThrow(() -> new RuntimeException("Imagen no encontrada"));
 
-        byte[] contenido;
-
         // v1.22.0: Verificar tipo de almacenamiento
-        if ("DATABASE".equals(imagen.getStorageTipo()) && imagen.getContenidoImagen() != null) {
+        // v2.4.0: Los bytes se leen aparte, solo aquí
+        byte[] contenido = "DATABASE".equals(imagen.getStorageTipo())
+            ? teleECGImagenContenidoRepository.findContenido(idImagen)
+            : null;
+
+        if (contenido != null) {
             // Leer desde BD (BYTEA)
-            contenido = imagen.getContenidoImagen();
             log.info("✅ Imagen leída desde BD: {} bytes", contenido.length);
         } else {
             // Legacy: Leer desde filesystem
@@ -330,6 +422,50 @@ public class TeleECGService {
         return contenido;
     }
 
+    /**
+     * v2.2.0: Metadatos de descarga (sin cargar contenido_imagen)
+     *
+     * @throws ResourceNotFoundException si la imagen no existe
+     */
+    @Transactional(readOnly = true)
+    public ImagenECGDescarga obtenerMetadatosDescarga(Long idImagen) {
+        return metadatosDescarga.get(idImagen, id -> {
+            List<Object[]> filas = teleECGImagenRepository.findMetadatosDescarga(id);
+            if (filas.isEmpty()) {
+                throw new ResourceNotFoundException("Imagen no encontrada: " + id);
+            }
+            Object[] f = filas.get(0);
+            return new ImagenECGDescarga(id, (String) f[0], (String) f[1], (String) f[2],
+                (String) f[3], (String) f[4], (Long) f[5]);
+        });
+    }
+
+    /**
+     * v2.2.0: Contenido de la imagen como Resource para escribirlo en streaming
+     *
+     * Filesystem: se abre el archivo sin leerlo a memoria (la respuesta lo copia por bloques
+     * y atiende Range con regiones del recurso).
+     * BYTEA: ✅ v2.6.0 el contenido se lee de BD por bloques al escribir la respuesta
+     * ({@link TeleECGContenidoDao}), sin cargar la imagen completa en memoria.
+     */
+    @Transactional(readOnly = true)
+    public Resource abrirContenidoImagen(ImagenECGDescarga imagen, Long idUsuario, String ipCliente)
+            throws IOException {
+
+        Resource recurso;
+        if ("DATABASE".equals(imagen.storageTipo())) {
+            recurso = teleECGContenidoDao.abrir(imagen.idImagen())
+                .orElseThrow(() -> new IOException("Imagen sin contenido en BD: " + imagen.idImagen()));
+        } else {
+            recurso = fileStorageService.obtenerRecurso(imagen.storageRuta());
+        }
+
+        registrarAuditoria(teleECGImagenRepository.getReferenceById(imagen.idImagen()),
+            idUsuario, "DESCARGADA", ipCliente, "EXITOSA");
+
+        return recurso;
+    }
+
     /**
      * Procesar imagen (v3.0.0 - ATENDER, OBSERVAR, o cambiar estado)
      *
@@ -350,6 +486,7 @@ public class TeleECGService {
             .orElseThrow(() -> new RuntimeException("Imagen no encontrada"));
 
         String estadoAnterior = imagen.getEstado();
+        AporteResumen aporteAnterior = AporteResumen.de(imagen);
 
         // Cambiar estado según acción (v3.0.0)
         switch (dto.getAccion()) {
@@ -400,6 +537,7 @@ public class TeleECGService {
         }
 
         imagen = teleECGImagenRepository.save(imagen);
+        resumenDiarioService.registrarCambio(aporteAnterior, imagen);
 
         log.info("✅ Imagen procesada: {} → {}", estadoAnterior, imagen.getEstado());
 
@@ -409,7 +547,7 @@ public class TeleECGService {
     /**
      * Limpiar imágenes vencidas (automático cada 2am)
      */
-    @Scheduled(cron = "0 0 2 * * ?")
+    @Scheduled(cron = "${cenate.jobs.teleecg-limpieza.cron:-}")  // v2.6.0: apagado por defecto
     @Transactional
     public void limpiarImagenesVencidas() {
         log.info("🗑️ Iniciando limpieza de imágenes vencidas (>30 días)");
@@ -423,11 +561,19 @@ public class TeleECGService {
 
         for (TeleECGImagen imagen : vencidas) {
             try {
-                // Archivar archivo (mover a /archive/)
-                String rutaArchive = fileStorageService.archivarArchivo(imagen.getStorageRuta());
-                imagen.setStorageRuta(rutaArchive);
+                AporteResumen aporteAnterior = AporteResumen.de(imagen);
+                if (STORAGE_TIPO_CAS.equals(imagen.getStorageTipo())) {
+                    // v2.1.0: Blob compartido: se elimina solo al vencer su última referencia
+                    liberarBlob(imagen.getSha256());
+                } else {
+                    // Archivar archivo (mover a /archive/)
+                    String rutaArchive = fileStorageService.archivarArchivo(imagen.getStorageRuta());
+                    imagen.setStorageRuta(rutaArchive);
+                }
                 imagen.setStatImagen("I");
                 teleECGImagenRepository.save(imagen);
+                resumenDiarioService.registrarCambio(aporteAnterior, imagen);
+                metadatosDescarga.invalidate(imagen.getIdImagen());
                 archivadas++;
 
                 log.debug("✅ Imagen archivada: ID={}, DNI={}", imagen.getIdImagen(), imagen.getNumDocPaciente());
@@ -452,27 +598,100 @@ public class TeleECGService {
     }
 
     /**
-     * Obtener estadísticas del módulo
+     * v2.1.0: Resta una referencia al blob; si era la última, el archivo se elimina tras el commit
      */
-    public TeleECGEstadisticasDTO obtenerEstadisticas() {
-        log.info("📊 Generando estadísticas TeleEKG");
+    private void liberarBlob(String sha256) {
+        teleECGBlobRepository.liberarReferencia(sha256);
+        Integer restantes = teleECGBlobRepository.bloquear(sha256);
+        if (restantes != null && restantes > 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    purgarBlob(sha256);
+                }
+            });
+        } else {
+            purgarBlob(sha256);
+        }
+    }
 
-        // ✅ FIX T-ECG-001 v1.21.5: Usar List<Object[]> para mejor mapeo de Hibernate
-        // Retorna: [[total, pendientes (ENVIADA), observadas (OBSERVADA), atendidas (ATENDIDA)]]
-        List<Object[]> resultados = teleECGImagenRepository.getEstadisticasCompletas();
+    /**
+     * v2.1.0: Elimina el archivo y la fila de un blob sin referencias, con la fila bloqueada
+     * (transacción propia). Una carga concurrente del mismo contenido bloquea la misma fila
+     * antes de reutilizar el archivo: o termina antes (referencias > 0, no se borra) o espera
+     * a este commit y vuelve a escribir el archivo.
+     */
+    private void purgarBlob(String sha256) {
+        try {
+            TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+            txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            txTemplate.executeWithoutResult(status -> {
+                // Fila provisional si no existe (p. ej. tras un rollback), solo para bloquearla
+                teleECGBlobRepository.reservar(sha256, "", 0);
+                Integer referencias = teleECGBlobRepository.bloquear(sha256);
+                if (referencias != null && referencias > 0) {
+                    return;
+                }
+                fileStorageService.eliminarPorContenido(sha256);
+                teleECGBlobRepository.eliminarSinReferencias(sha256);
+            });
+        } catch (Exception e) {
+            log.error("❌ Error eliminando blob sin referencias {}: {}", sha256, e.getMessage(), e);
+        }
+    }
 
-        Object[] estadisticasArr;
-        if (resultados == null || resultados.isEmpty()) {
-            log.warn("⚠️ Estadísticas vacías, retornando zeros");
-            estadisticasArr = new Object[]{0L, 0L, 0L, 0L};
+    /**
+     * v2.3.0: Encola la generación de miniaturas cuando la imagen ya es visible (tras el commit)
+     */
+    private void programarMiniaturas(TeleECGImagen imagen) {
+        ImagenECGDescarga descarga = new ImagenECGDescarga(imagen.getIdImagen(), imagen.getStorageTipo(),
+            imagen.getStorageRuta(), imagen.getSha256(), imagen.getMimeType(), imagen.getNombreArchivo(),
+            imagen.getSizeBytes());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    miniaturaECGService.generarMiniaturasAsync(descarga);
+                }
+            });
         } else {
-            estadisticasArr = resultados.get(0);  // Obtener el primer (único) resultado
+            miniaturaECGService.generarMiniaturasAsync(descarga);
         }
+    }
 
-        long totalImagenes = estadisticasArr[0] != null ? ((Number) estadisticasArr[0]).longValue() : 0;
-        long pendientes = estadisticasArr[1] != null ? ((Number) estadisticasArr[1]).longValue() : 0;
-        long observadas = estadisticasArr[2] != null ? ((Number) estadisticasArr[2]).longValue() : 0;
-        long atendidas = estadisticasArr[3] != null ? ((Number) estadisticasArr[3]).longValue() : 0;
+    /**
+     * v2.1.0: Si la carga se revierte, el blob recién escrito queda sin referencias: eliminarlo
+     */
+    private void eliminarBlobSiRollback(String sha256) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    purgarBlob(sha256);
+                }
+            }
+        });
+    }
+
+    /**
+     * Obtener estadísticas del módulo
+     */
+    public TeleECGEstadisticasDTO obtenerEstadisticas() {
+        log.info("📊 Generando estadísticas TeleEKG");
+
+        // ✅ v2.5.0: Conteos de imágenes activas y vigentes (vencimiento exacto por fecha_expiracion)
+        Map<String, Long> vigentesPorEstado = teleECGAnalyticsDao.conteoVigentesPorEstado();
+
+        long totalImagenes = vigentesPorEstado.values().stream().mapToLong(Long::longValue).sum();
+        long pendientes = vigentesPorEstado.getOrDefault("ENVIADA", 0L);
+        long observadas = vigentesPorEstado.getOrDefault("OBSERVADA", 0L);
+        long atendidas = vigentesPorEstado.getOrDefault("ATENDIDA", 0L);
 
         log.info("✅ Estadísticas calculadas: Total={}, Pendientes={}, Observadas={}, Atendidas={}",
             totalImagenes, pendientes, observadas, atendidas);
@@ -506,46 +725,16 @@ public class TeleECGService {
         log.info("📊 [v1.97.8] Generando estadísticas GLOBALES de pacientes - SIN filtro de estado");
 
         try {
-            // ✅ v1.97.8: Obtener TODAS las imágenes (sin filtro de estado para coincidir con tabla)
-            List<TeleECGImagen> todasLasImagenes = teleECGImagenRepository.findAll();
-
-            log.info("📋 [v1.97.8] Total de imágenes en BD: {}", todasLasImagenes.size());
-
-            // ✅ v1.97.8: NO filtrar por estado - contar TODAS las imágenes
-            // Esto hace que las estadísticas coincidan con lo que muestra la tabla
-            List<TeleECGImagen> imagenesActivas = todasLasImagenes;
-
-            log.info("📋 [v1.97.8] Imágenes a procesar: {} (SIN filtro de estado)", imagenesActivas.size());
-
-            // Contar PACIENTES únicos por estado
-            Set<String> pacientesUnicos = new HashSet<>();
-            Set<String> pacientesPendientes = new HashSet<>();
-            Set<String> pacientesObservados = new HashSet<>();
-            Set<String> pacientesAtendidos = new HashSet<>();
-
-            imagenesActivas.forEach(img -> {
-                String dni = img.getNumDocPaciente();
-                if (dni != null && !dni.trim().isEmpty()) {
-                    pacientesUnicos.add(dni);
-
-                    if ("ENVIADA".equalsIgnoreCase(img.getEstado())) {
-                        pacientesPendientes.add(dni);
-                    } else if ("OBSERVADA".equalsIgnoreCase(img.getEstado())) {
-                        pacientesObservados.add(dni);
-                    } else if ("ATENDIDA".equalsIgnoreCase(img.getEstado())) {
-                        pacientesAtendidos.add(dni);
-                    }
-                }
-            });
+            // ✅ v2.4.0: Conteo de DNIs únicos en PostgreSQL (COUNT DISTINCT ... FILTER) en vez de findAll()
+            // Se mantiene v1.97.8: TODAS las imágenes, sin filtro de estado, para coincidir con la tabla
+            TeleECGAnalyticsDao.ResumenPacientes resumen = teleECGAnalyticsDao.resumenPacientes();
 
-            int totalPacientes = pacientesUnicos.size();
-            int cantPendientes = pacientesPendientes.size();
-            int cantObservados = pacientesObservados.size();
-            int cantAtendidos = pacientesAtendidos.size();
-            int totalImagenes = imagenesActivas.size();
-            int imagenesEnviadas = (int) imagenesActivas.stream()
-                .filter(img -> "ENVIADA".equalsIgnoreCase(img.getEstado()))
-                .count();
+            int totalPacientes = (int) resumen.totalPacientes();
+            int cantPendientes = (int) resumen.pacientesPendientes();
+            int cantObservados = (int) resumen.pacientesObservados();
+            int cantAtendidos = (int) resumen.pacientesAtendidos();
+            int totalImagenes = (int) resumen.totalImagenes();
+            int imagenesEnviadas = (int) resumen.imagenesPendientes();
 
             log.info("✅ [v1.97.2] === ESTADÍSTICAS GLOBALES DE PACIENTES ===");
             log.info("   Total Pacientes: {}", totalPacientes);
@@ -613,8 +802,22 @@ public class TeleECGService {
             imagen.getSizeBytes() != null ? imagen.getSizeBytes() : 0
         );
 
+        // v2.1.0: Liberar referencia al blob (las imágenes inactivas ya la liberaron al vencer)
+        if (STORAGE_TIPO_CAS.equals(imagen.getStorageTipo()) && "A".equals(imagen.getStatImagen())) {
+            liberarBlob(imagen.getSha256());
+        }
+
+        // v2.3.0: Miniaturas de BYTEA (las del almacén por contenido se eliminan con su blob)
+        if (!STORAGE_TIPO_CAS.equals(imagen.getStorageTipo())
+                && !teleECGImagenRepository.existsBySha256AndIdImagenNot(imagen.getSha256(), idImagen)) {
+            fileStorageService.eliminarMiniaturas(imagen.getSha256());
+        }
+
         // Eliminar de la BD (cascading delete elimina auditoría relacionada)
+        AporteResumen aporteAnterior = AporteResumen.de(imagen);
         teleECGImagenRepository.deleteById(idImagen);
+        resumenDiarioService.registrarBaja(aporteAnterior);
+        metadatosDescarga.invalidate(idImagen);
 
         // Registrar en log de auditoría general del sistema (no vinculado a imagen)
         try {
@@ -661,6 +864,7 @@ public class TeleECGService {
         }
 
         TeleECGImagen imagen = imagenOpt.get();
+        AporteResumen aporteAnterior = AporteResumen.de(imagen);
 
         // Actualizar campos
         imagen.setEvaluacion(evaluacion);
@@ -677,6 +881,7 @@ public class TeleECGService {
 
         // Guardar
         TeleECGImagen imagenGuardada = teleECGImagenRepository.save(imagen);
+        resumenDiarioService.registrarCambio(aporteAnterior, imagenGuardada);
 
         log.info("✅ [EVALUAR OK] ID: {} - GUARDADO", idImagen);
 
@@ -856,6 +1061,8 @@ public class TeleECGService {
         dto.setSizeBytes(imagen.getSizeBytes());
         dto.setTamanoFormato(TeleECGImagenDTO.formatoTamanio(imagen.getSizeBytes()));
         dto.setSha256(imagen.getSha256());
+        // v2.3.0: Listados muestran la miniatura (KBs) en lugar de la imagen completa
+        dto.setThumbnailUrl("/api/teleekgs/" + imagen.getIdImagen() + "/miniatura?ancho=" + MiniaturaECGService.ANCHO_LISTADO);
         dto.setStorageTipo(imagen.getStorageTipo());
         dto.setStorageRuta(imagen.getStorageRuta());
         dto.setStorageBucket(imagen.getStorageBucket());
@@ -1339,62 +1546,24 @@ public class TeleECGService {
             LocalDate desde = LocalDate.parse(fechaDesde);
             LocalDate hasta = LocalDate.parse(fechaHasta);
 
-            // Obtener todas las imágenes
-            List<TeleECGImagen> imagenes = teleECGImagenRepository.findAll();
-
-            // Filtrar por fecha
-            List<TeleECGImagen> filtradas = imagenes.stream()
-                    .filter(img -> img.getFechaEnvio() != null &&
-                            img.getFechaEnvio().toLocalDate().compareTo(desde) >= 0 &&
-                            img.getFechaEnvio().toLocalDate().compareTo(hasta) <= 0)
-                    .collect(Collectors.toList());
-
-            // Filtrar por IPRESS si se proporciona
-            if (idIpress != null) {
-                filtradas = filtradas.stream()
-                        .filter(img -> img.getCodigoIpress() != null &&
-                                img.getCodigoIpress().equals(idIpress.toString()))
-                        .collect(Collectors.toList());
-            }
-
-            // Filtrar por evaluación si se proporciona
-            if (evaluacion != null && !evaluacion.isEmpty()) {
-                filtradas = filtradas.stream()
-                        .filter(img -> evaluacion.equals(img.getEvaluacion()))
-                        .collect(Collectors.toList());
-            }
-
-            // Filtrar por urgencia si se proporciona
-            if (esUrgente != null) {
-                filtradas = filtradas.stream()
-                        .filter(img -> esUrgente.equals(img.getEsUrgente()))
-                        .collect(Collectors.toList());
-            }
+            // ✅ v2.5.0: Se lee del resumen diario (tele_ecg_resumen_diario), sin recorrer imágenes
+            TeleECGAnalyticsDao.ResumenAnalytics resumen = teleECGAnalyticsDao.resumen(
+                    new TeleECGAnalyticsDao.FiltroAnalytics(desde, hasta,
+                            idIpress != null ? idIpress.toString() : null, evaluacion, esUrgente, false),
+                    90); // SLA: asumimos 90 minutos como objetivo
 
             // Calcular KPIs
-            int totalEcgs = filtradas.size();
-            int ecgsNormales = (int) filtradas.stream().filter(i -> "NORMAL".equals(i.getEvaluacion())).count();
-            int ecgsAnormales = (int) filtradas.stream().filter(i -> "ANORMAL".equals(i.getEvaluacion())).count();
+            int totalEcgs = (int) resumen.total();
+            int ecgsNormales = (int) resumen.normales();
+            int ecgsAnormales = (int) resumen.anormales();
             int ecgsSinEvaluar = totalEcgs - ecgsNormales - ecgsAnormales;
 
-            double tatPromedioMinutos = filtradas.stream()
-                    .filter(img -> img.getFechaEnvio() != null && img.getFechaEvaluacion() != null)
-                    .mapToLong(img -> java.time.temporal.ChronoUnit.MINUTES.between(
-                            img.getFechaEnvio(),
-                            img.getFechaEvaluacion()))
-                    .average()
-                    .orElse(0);
+            double tatPromedioMinutos = resumen.tatPromedio();
 
             double tasaRechazoPorcentaje = totalEcgs > 0 ?
-                    ((double) filtradas.stream().filter(i -> "RECHAZADA".equals(i.getEstado())).count() / totalEcgs) * 100 : 0;
+                    ((double) resumen.rechazadas() / totalEcgs) * 100 : 0;
 
-            // SLA: asumimos 90 minutos como objetivo
-            double slaCumplimientoPorcentaje = filtradas.stream()
-                    .filter(img -> img.getFechaEnvio() != null && img.getFechaEvaluacion() != null)
-                    .filter(img -> java.time.temporal.ChronoUnit.MINUTES.between(
-                            img.getFechaEnvio(),
-                            img.getFechaEvaluacion()) <= 90)
-                    .count() * 100.0 / Math.max(1, filtradas.size());
+            double slaCumplimientoPorcentaje = resumen.dentroSla() * 100.0 / Math.max(1, totalEcgs);
 
             // Distribuciones
             // ⚠️ Nota: TeleECGImagen no tiene campo de género, por eso se deja vacío
@@ -1404,12 +1573,9 @@ public class TeleECGService {
             distribucionGenero.put("Otro", 0);
 
             Map<String, Integer> distribucionEstado = new HashMap<>();
-            distribucionEstado.put("ENVIADA", (int) filtradas.stream()
-                    .filter(i -> "ENVIADA".equals(i.getEstado())).count());
-            distribucionEstado.put("OBSERVADA", (int) filtradas.stream()
-                    .filter(i -> "OBSERVADA".equals(i.getEstado())).count());
-            distribucionEstado.put("ATENDIDA", (int) filtradas.stream()
-                    .filter(i -> "ATENDIDA".equals(i.getEstado())).count());
+            distribucionEstado.put("ENVIADA", (int) resumen.enviadas());
+            distribucionEstado.put("OBSERVADA", (int) resumen.observadas());
+            distribucionEstado.put("ATENDIDA", (int) resumen.atendidas());
 
             Map<String, Integer> distribucionEvaluacion = new HashMap<>();
             distribucionEvaluacion.put("NORMAL", ecgsNormales);
@@ -1420,22 +1586,15 @@ public class TeleECGService {
             LocalDate desdeAnterior = desde.minusDays(30);
             LocalDate hastaAnterior = desde.minusDays(1);
 
-            List<TeleECGImagen> imagenesAnterior = imagenes.stream()
-                    .filter(img -> img.getFechaEnvio() != null &&
-                            img.getFechaEnvio().toLocalDate().compareTo(desdeAnterior) >= 0 &&
-                            img.getFechaEnvio().toLocalDate().compareTo(hastaAnterior) <= 0)
-                    .collect(Collectors.toList());
-
-            double cambioVolumen = imagenesAnterior.isEmpty() ? 0 :
-                    ((totalEcgs - imagenesAnterior.size()) * 100.0 / imagenesAnterior.size());
-
-            double tatAnterior = imagenesAnterior.stream()
-                    .filter(img -> img.getFechaEnvio() != null && img.getFechaEvaluacion() != null)
-                    .mapToLong(img -> java.time.temporal.ChronoUnit.MINUTES.between(
-                            img.getFechaEnvio(),
-                            img.getFechaEvaluacion()))
-                    .average()
-                    .orElse(0);
+            // Sin filtros de IPRESS/evaluación/urgencia, como el cálculo original
+            TeleECGAnalyticsDao.ResumenAnalytics resumenAnterior = teleECGAnalyticsDao.resumen(
+                    new TeleECGAnalyticsDao.FiltroAnalytics(desdeAnterior, hastaAnterior, null, null, null, false),
+                    90);
+
+            double cambioVolumen = resumenAnterior.total() == 0 ? 0 :
+                    ((totalEcgs - resumenAnterior.total()) * 100.0 / resumenAnterior.total());
+
+            double tatAnterior = resumenAnterior.tatPromedio();
 
             double cambioTat = tatAnterior > 0 ? ((tatAnterior - tatPromedioMinutos) * 100.0 / tatAnterior) : 0;
 
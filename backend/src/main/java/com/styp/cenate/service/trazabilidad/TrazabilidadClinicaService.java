@@ -9,7 +9,9 @@ import com.styp.cenate.model.bolsas.SolicitudBolsa;
 import com.styp.cenate.repository.AtencionClinicaRepository;
 import com.styp.cenate.repository.AseguradoRepository;
 import com.styp.cenate.repository.TeleECGImagenRepository;
+import com.styp.cenate.repository.TeleECGResumenDiarioDao.AporteResumen;
 import com.styp.cenate.repository.bolsas.SolicitudBolsaRepository;
+import com.styp.cenate.service.teleekgs.TeleECGResumenDiarioService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -48,6 +50,7 @@ public class TrazabilidadClinicaService {
     private final AseguradoRepository aseguradoRepository;
     private final SolicitudBolsaRepository solicitudBolsaRepository;
     private final TeleECGImagenRepository teleECGImagenRepository;
+    private final TeleECGResumenDiarioService teleECGResumenDiarioService;
 
     // =====================================================================
     // MÉTODO PRINCIPAL: REGISTRAR ATENCIÓN EN HISTORIAL
@@ -202,11 +205,13 @@ public class TrazabilidadClinicaService {
             for (TeleECGImagen ecg : ecgs) {
                 if ("ENVIADA".equalsIgnoreCase(ecg.getEstado())) {
                     // 3. Actualizar estado a ATENDIDA
+                    AporteResumen aporteAnterior = AporteResumen.de(ecg);
                     ecg.setEstado("ATENDIDA");
                     // Nota: El usuarioEvaluador se asigna como relación, no por ID
                     // Para este caso, solo actualizamos el estado (compatible con versión anterior)
                     ecg.setFechaEvaluacion(java.time.LocalDateTime.now());
                     teleECGImagenRepository.save(ecg);
+                    teleECGResumenDiarioService.registrarCambio(aporteAnterior, ecg);
                     actualizados++;
 
                     log.info("✅ [v1.81.0] ECG {} actualizado: ENVIADA → ATENDIDA", ecg.getIdImagen());
@@ -0,0 +1,24 @@
+package com.styp.cenate.service.usuario;
+
+import com.styp.cenate.config.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Invalida el caché personal-ids-por-rol al terminar el método (v2.6.0).
+ *
+ * Se usa en toda escritura que cambia roles, estado o existencia de usuarios:
+ * {@code UsuarioServiceImpl}, {@code AuthenticationServiceImpl.createUser},
+ * {@code AccountRequestService} (borrado de roles) y
+ * {@code PersonalTotalController.eliminarPersonal} (desactivación por SQL).
+ * Con el CacheManager transaccional de {@link CacheConfig} el evict se aplica tras el commit.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@CacheEvict(cacheNames = CacheConfig.PERSONAL_IDS_POR_ROL, allEntries = true)
+public @interface InvalidarPersonalPorRol {
+}
@@ -35,6 +35,8 @@ import com.styp.cenate.model.Usuario;
 import com.styp.cenate.repository.DimOrigenPersonalRepository;
 import com.styp.cenate.repository.UsuarioRepository;
 import com.styp.cenate.repository.segu.RolRepository;
+import com.styp.cenate.security.service.PrincipalCacheService;
+import com.styp.cenate.service.mbac.MatrizPermisosService;
 import com.styp.cenate.service.mbac.PermisosService;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -74,6 +76,8 @@ public class UsuarioServiceImpl implements UsuarioService {
 	private final com.styp.cenate.repository.RedRepository redRepository;
 	private final com.styp.cenate.service.firmadigital.FirmaDigitalService firmaDigitalService; // 🆕 v1.14.0
 	private final com.styp.cenate.repository.PersonalExternoRepository personalExternoRepository; // 🆕 v1.16.2 - Fix relación JPA
+	private final PrincipalCacheService principalCacheService;
+	private final MatrizPermisosService matrizPermisosService;
 
 	// =============================================================
 	// 🔒 MÉTODO HELPER PARA AUDITORÍA
@@ -98,6 +102,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 	// =============================================================
 	@Override
 	@Transactional
+	@InvalidarPersonalPorRol
 	public UsuarioResponse createUser(UsuarioCreateRequest request) {
 		if (request == null)
 			throw new IllegalArgumentException("Datos de usuario no proporcionados");
@@ -969,11 +974,13 @@ public class UsuarioServiceImpl implements UsuarioService {
 	// =============================================================
 	@Override
 	@Transactional
+	@InvalidarPersonalPorRol
 	public UsuarioResponse updateUser(Long id, UsuarioUpdateRequest request) {
 		log.info("✏️ Actualizando usuario básico ID: {}", id);
 
 		Usuario usuario = usuarioRepository.findById(id)
 				.orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado con ID: " + id));
+		principalCacheService.invalidar(usuario.getNameUser());
 
 // 🔄 ACTUALIZAR USERNAME si se envía
 		if (request.getUsername() != null && !request.getUsername().isBlank()) {
@@ -1060,6 +1067,8 @@ public class UsuarioServiceImpl implements UsuarioService {
 
 		usuario.setUpdateAt(LocalDateTime.now());
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(usuario.getNameUser());
+		matrizPermisosService.invalidarUsuario(id);
 
 		log.info("✅ Usuario básico actualizado: {}", usuario.getNameUser());
 		return convertToResponse(usuario);
@@ -1311,6 +1320,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 		// Guardar
 		usuario.setUpdateAt(LocalDateTime.now());
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(usuario.getNameUser());
 
 		log.info("✅ Datos actualizados correctamente para usuario: {}", usuario.getNameUser());
 		return convertToResponse(usuario);
@@ -1321,6 +1331,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 	// =============================================================
 	@Override
 	@Transactional
+	@InvalidarPersonalPorRol
 	public void deleteUser(Long id) {
 		log.info("🗑️ Iniciando eliminación completa de usuario ID: {}", id);
 
@@ -1421,6 +1432,8 @@ public class UsuarioServiceImpl implements UsuarioService {
 
 		// 7. Eliminar usuario (usando jdbcTemplate para evitar conflictos de JPA)
 		int usuarioEliminado = jdbcTemplate.update("DELETE FROM dim_usuarios WHERE id_user = ?", id);
+		principalCacheService.invalidar(numDocumento);
+		matrizPermisosService.invalidarUsuario(id);
 		log.info("  - Usuario eliminado: {} (registros: {})", numDocumento, usuarioEliminado);
 
 		// 🔒 AUDITORÍA
@@ -1450,6 +1463,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 	// =============================================================
 	@Override
 	@Transactional
+	@InvalidarPersonalPorRol
 	public UsuarioResponse activateUser(Long id) {
 		log.info("🟢 Activando usuario ID: {}", id);
 		Usuario usuario = usuarioRepository.findById(id)
@@ -1466,6 +1480,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 		}
 
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(usuario.getNameUser());
 		log.info("✅ Usuario {} activado correctamente", usuario.getNameUser());
 
 		// 🔒 AUDITORÍA
@@ -1476,6 +1491,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 
 	@Override
 	@Transactional
+	@InvalidarPersonalPorRol
 	public UsuarioResponse deactivateUser(Long id) {
 		log.info("🔴 Desactivando usuario ID: {}", id);
 		Usuario usuario = usuarioRepository.findById(id)
@@ -1492,6 +1508,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 		}
 
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(usuario.getNameUser());
 		log.info("✅ Usuario {} desactivado correctamente", usuario.getNameUser());
 
 		// 🔒 AUDITORÍA
@@ -1508,6 +1525,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 		usuario.setLockedUntil(null);
 		usuario.setFailedAttempts(0);
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(usuario.getNameUser());
 
 		// 🔒 AUDITORÍA
 		auditar("UNLOCK_USER", "Usuario desbloqueado: " + usuario.getNameUser() + " (ID: " + id + ")", "INFO", "SUCCESS");
@@ -1535,6 +1553,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 		log.info("✅ Flag de cambio de contraseña desactivado para: {}", username);
 
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(username);
 	}
 
 	/**
@@ -1572,6 +1591,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 		log.info("🔑 Usuario deberá cambiar su contraseña en el próximo inicio de sesión");
 
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(usuario.getNameUser());
 
 		log.info("✅ Contraseña reseteada exitosamente para usuario: {}", usuario.getNameUser());
 
@@ -1713,6 +1733,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 		// El teléfono secundario se puede guardar en otro campo si existe en tu modelo
 
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(username);
 
 		log.info("✅ Primer acceso completado exitosamente para usuario: {}", username);
 	}
@@ -2190,6 +2211,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 	 * @throws IllegalStateException si el usuario ya tiene el rol
 	 */
 	@Transactional
+	@InvalidarPersonalPorRol
 	public void asignarRol(Long idUsuario, Long idRol) {
 		// Buscar usuario
 		Usuario usuario = usuarioRepository.findById(idUsuario)
@@ -2207,6 +2229,8 @@ public class UsuarioServiceImpl implements UsuarioService {
 		// Asignar rol
 		usuario.getRoles().add(rol);
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(usuario.getNameUser());
+		matrizPermisosService.invalidarUsuario(idUsuario);
 
 		// Obtener nombre completo del usuario para auditoría
 		String nombreCompleto = obtenerNombreCompleto(usuario);
@@ -2236,6 +2260,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 	 * @throws IllegalStateException si el usuario no tiene el rol
 	 */
 	@Transactional
+	@InvalidarPersonalPorRol
 	public void removerRol(Long idUsuario, Long idRol) {
 		// Buscar usuario
 		Usuario usuario = usuarioRepository.findById(idUsuario)
@@ -2258,6 +2283,8 @@ public class UsuarioServiceImpl implements UsuarioService {
 		// Remover rol
 		usuario.getRoles().remove(rol);
 		usuarioRepository.save(usuario);
+		principalCacheService.invalidar(usuario.getNameUser());
+		matrizPermisosService.invalidarUsuario(idUsuario);
 
 		// Obtener nombre completo del usuario para auditoría
 		String nombreCompleto = obtenerNombreCompleto(usuario);
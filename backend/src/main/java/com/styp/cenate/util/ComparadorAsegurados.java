@@ -0,0 +1,196 @@
+package com.styp.cenate.util;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 🧮 Claves de bloque y puntaje de similitud entre asegurados (v2.6.0)
+ *
+ * Claves (un asegurado solo se compara con los de sus mismos bloques):
+ * - DNI normalizado: DniUtils.normalizar (7 → 8 dígitos) sin espacios ni guiones
+ * - clave fonética: código fonético (español) de los dos primeros términos del nombre
+ *   (sin partículas como DE, LA), ordenados, para que "PEREZ GOMEZ" y "GOMEZ PERES"
+ *   caigan en el mismo bloque
+ * - nacimiento: fecha de nacimiento + inicial fonética (un bloque por fecha sería muy grande)
+ *
+ * Puntaje (0..1) = 0.6 nombre (Jaro-Winkler sobre términos ordenados)
+ *                + 0.2 DNI igual
+ *                + 0.2 fecha de nacimiento igual (0.1 si falta en alguno)
+ *
+ * Con el umbral por defecto ({@link #UMBRAL_SUGERIDO}) un nombre casi igual (≥ 0.87) con la
+ * misma fecha de nacimiento basta aunque el DNI difiera (duplicados de los bloques fonético y
+ * de nacimiento); un homónimo exacto sin DNI ni fecha en común no llega (0.6).
+ */
+public final class ComparadorAsegurados {
+
+    private static final double PESO_NOMBRE = 0.6;
+    private static final double PESO_DNI = 0.2;
+    private static final double PESO_NACIMIENTO = 0.2;
+
+    /** Umbral por defecto de cenate.asegurados.dedupe.umbral */
+    public static final double UMBRAL_SUGERIDO = 0.72;
+
+    /** Términos del nombre que forman la clave fonética (apellidos) */
+    private static final int TERMINOS_CLAVE_FONETICA = 2;
+
+    /** Partículas de apellidos compuestos que no distinguen a nadie ("DE LA CRUZ") */
+    private static final Set<String> PARTICULAS = Set.of("DE", "DEL", "LA", "LAS", "LOS", "Y");
+
+    private ComparadorAsegurados() {}
+
+    /**
+     * Datos de un asegurado listos para comparar
+     */
+    public record Registro(String pkAsegurado, String dni, String nombre, String claveFonetica,
+                           LocalDate fecNacimiento) {
+
+        public String claveNacimiento() {
+            if (fecNacimiento == null || claveFonetica == null) {
+                return null;
+            }
+            return fecNacimiento + "|" + claveFonetica.charAt(0);
+        }
+    }
+
+    public static Registro registro(String pkAsegurado, String docPaciente, String paciente, LocalDate fecNacimiento) {
+        String nombre = normalizarNombre(paciente);
+        return new Registro(pkAsegurado, normalizarDni(docPaciente), nombre, claveFonetica(nombre), fecNacimiento);
+    }
+
+    public static String normalizarDni(String doc) {
+        String dni = DniUtils.normalizar(doc);
+        if (dni == null) {
+            return null;
+        }
+        dni = dni.replaceAll("[^0-9A-Za-z]", "").toUpperCase();
+        return dni.isEmpty() ? null : dni;
+    }
+
+    /** Mayúsculas, sin tildes ni signos, un espacio entre términos (null si queda vacío) */
+    public static String normalizarNombre(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        String texto = Normalizer.normalize(nombre, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toUpperCase()
+                .replaceAll("[^A-Z ]", " ")
+                .trim()
+                .replaceAll("\\s+", " ");
+        return texto.isEmpty() ? null : texto;
+    }
+
+    /** Clave fonética de un nombre ya normalizado (null si no tiene términos útiles) */
+    public static String claveFonetica(String nombreNormalizado) {
+        if (nombreNormalizado == null) {
+            return null;
+        }
+        String clave = Arrays.stream(nombreNormalizado.split(" "))
+                .filter(t -> t.length() > 1 && !PARTICULAS.contains(t))
+                .limit(TERMINOS_CLAVE_FONETICA)
+                .map(ComparadorAsegurados::codigoFonetico)
+                .filter(c -> !c.isEmpty())
+                .sorted()
+                .collect(Collectors.joining("-"));
+        return clave.isEmpty() ? null : clave;
+    }
+
+    /**
+     * Código fonético simplificado para apellidos en español: unifica letras que suenan igual
+     * (B/V, C/K/Q, C/S/Z, G/J, LL/Y), quita la H muda, las vocales (salvo la inicial) y las
+     * letras repetidas
+     */
+    static String codigoFonetico(String termino) {
+        String s = termino
+                .replace("CH", "X")
+                .replace("LL", "Y")
+                .replace("QU", "K")
+                .replaceAll("C(?=[EI])", "S")
+                .replaceAll("G(?=[EI])", "J")
+                .replace('C', 'K')
+                .replace('Q', 'K')
+                .replace('Z', 'S')
+                .replace('V', 'B')
+                .replace('W', 'B')
+                .replace("H", "");
+        if (s.isEmpty()) {
+            return s;
+        }
+        StringBuilder codigo = new StringBuilder().append(s.charAt(0));
+        for (int i = 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ("AEIOU".indexOf(c) < 0 && c != codigo.charAt(codigo.length() - 1)) {
+                codigo.append(c);
+            }
+        }
+        return codigo.toString();
+    }
+
+    public static double puntaje(Registro a, Registro b) {
+        double nombre = similitudNombres(a.nombre(), b.nombre());
+        double dni = a.dni() != null && a.dni().equals(b.dni()) ? 1 : 0;
+        double nacimiento = a.fecNacimiento() == null || b.fecNacimiento() == null
+                ? 0.5
+                : a.fecNacimiento().equals(b.fecNacimiento()) ? 1 : 0;
+        return PESO_NOMBRE * nombre + PESO_DNI * dni + PESO_NACIMIENTO * nacimiento;
+    }
+
+    /** Jaro-Winkler sobre los términos ordenados (el orden de nombres y apellidos no importa) */
+    static double similitudNombres(String a, String b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        return jaroWinkler(ordenarTerminos(a), ordenarTerminos(b));
+    }
+
+    private static String ordenarTerminos(String nombre) {
+        return Arrays.stream(nombre.split(" ")).sorted().collect(Collectors.joining(" "));
+    }
+
+    static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1;
+        }
+        int ventana = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] usadosA = new boolean[a.length()];
+        boolean[] usadosB = new boolean[b.length()];
+        int coincidencias = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int desde = Math.max(0, i - ventana);
+            int hasta = Math.min(b.length() - 1, i + ventana);
+            for (int j = desde; j <= hasta; j++) {
+                if (!usadosB[j] && a.charAt(i) == b.charAt(j)) {
+                    usadosA[i] = true;
+                    usadosB[j] = true;
+                    coincidencias++;
+                    break;
+                }
+            }
+        }
+        if (coincidencias == 0) {
+            return 0;
+        }
+        int transposiciones = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (usadosA[i]) {
+                while (!usadosB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transposiciones++;
+                }
+                j++;
+            }
+        }
+        double m = coincidencias;
+        double jaro = (m / a.length() + m / b.length() + (m - transposiciones / 2.0) / m) / 3;
+        int prefijo = 0;
+        while (prefijo < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefijo) == b.charAt(prefijo)) {
+            prefijo++;
+        }
+        return jaro + prefijo * 0.1 * (1 - jaro);
+    }
+}
@@ -0,0 +1,51 @@
+package com.styp.cenate.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación por clave (keyset / "seek").
+ *
+ * El cursor guarda la clave de orden y el id de la última fila entregada; la página
+ * siguiente se pide con WHERE (clave, id) "después de" esos valores en vez de OFFSET,
+ * así la página N cuesta lo mismo que la primera. Para el cliente es un texto sin
+ * significado: solo debe devolverlo en el parámetro {@code after}.
+ *
+ * Formato interno: Base64 URL-safe de los valores separados por '|'.
+ */
+public final class CursorPaginacion {
+
+    private static final String SEPARADOR = "|";
+
+    private CursorPaginacion() {}
+
+    public static String codificar(Object... partes) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < partes.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARADOR);
+            }
+            sb.append(partes[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param partes cantidad de valores que debe tener el cursor
+     * @throws IllegalArgumentException si el cursor no es válido (→ 400)
+     */
+    public static String[] decodificar(String cursor, int partes) {
+        String texto;
+        try {
+            texto = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido", e);
+        }
+        String[] valores = texto.split("\\" + SEPARADOR, -1);
+        if (valores.length != partes) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+        return valores;
+    }
+}
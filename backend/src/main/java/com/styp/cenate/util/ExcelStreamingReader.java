@@ -0,0 +1,151 @@
+package com.styp.cenate.util;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.File;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * 📖 Lector de Excel (.xlsx) en streaming basado en el modelo SAX de POI.
+ * -----------------------------------------------
+ * Recorre la primera hoja fila por fila sin construir el XSSFWorkbook completo:
+ * la memoria usada no depende del número de filas del archivo.
+ *
+ * Formato de los valores entregados (igual que la lectura con XSSFWorkbook de las importaciones):
+ * - Texto: recortado (trim)
+ * - Número: entero sin ".0" (12345678); con decimales, sin notación científica (12.5)
+ * - Fecha: ISO yyyy-MM-dd
+ * - Celdas ausentes: ""
+ *
+ * @version 1.0.0
+ */
+public final class ExcelStreamingReader {
+
+    /**
+     * Recibe cada fila leída. {@code indiceFila} es 0-based (0 = cabecera).
+     */
+    @FunctionalInterface
+    public interface ManejadorFila {
+        void procesar(int indiceFila, String[] valores) throws Exception;
+    }
+
+    private ExcelStreamingReader() {
+    }
+
+    /**
+     * Lee la primera hoja del archivo entregando hasta {@code maxColumnas} valores por fila.
+     * Las filas completamente vacías no se entregan.
+     */
+    public static void leerPrimeraHoja(File archivo, int maxColumnas, ManejadorFila manejador) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(archivo, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable textos = new ReadOnlySharedStringsTable(pkg);
+            StylesTable estilos = reader.getStylesTable();
+
+            Iterator<InputStream> hojas = reader.getSheetsData();
+            if (!hojas.hasNext()) {
+                return;
+            }
+            try (InputStream hoja = hojas.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        estilos, null, textos, new ContenidoHoja(maxColumnas, manejador),
+                        new FormateadorImportacion(), false));
+                parser.parse(new InputSource(hoja));
+            } catch (FilaRechazadaException e) {
+                throw (Exception) e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Acumula las celdas de la fila actual y la entrega al terminarla.
+     */
+    private static final class ContenidoHoja implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final int maxColumnas;
+        private final ManejadorFila manejador;
+        private final String[] valores;
+        private boolean filaConDatos;
+
+        private ContenidoHoja(int maxColumnas, ManejadorFila manejador) {
+            this.maxColumnas = maxColumnas;
+            this.manejador = manejador;
+            this.valores = new String[maxColumnas];
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(valores, "");
+            filaConDatos = false;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!filaConDatos) {
+                return;
+            }
+            try {
+                manejador.procesar(rowNum, valores.clone());
+            } catch (Exception e) {
+                throw new FilaRechazadaException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null || formattedValue == null) {
+                return;
+            }
+            int columna = new CellReference(cellReference).getCol();
+            if (columna < maxColumnas) {
+                String valor = formattedValue.trim();
+                valores[columna] = valor;
+                if (!valor.isEmpty()) {
+                    filaConDatos = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Números enteros sin ".0" y fechas en ISO, como {@code obtenerValorCelda} de las importaciones.
+     * Los valores con decimales se conservan (no se truncan).
+     */
+    private static final class FormateadorImportacion extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value).toLocalDate().toString();
+            }
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                return String.valueOf((long) value);
+            }
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    /**
+     * Propaga a través del parser SAX la excepción del manejador de filas.
+     */
+    private static final class FilaRechazadaException extends RuntimeException {
+        private FilaRechazadaException(Exception causa) {
+            super(causa);
+        }
+    }
+}
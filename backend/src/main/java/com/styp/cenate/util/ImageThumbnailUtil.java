@@ -1,11 +1,23 @@
 package com.styp.cenate.util;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -84,6 +96,67 @@ public class ImageThumbnailUtil {
         }
     }
 
+    /**
+     * Generar miniaturas JPEG de varios anchos (v2.3.0)
+     *
+     * Decodifica la imagen original una sola vez y genera cada ancho a partir del anterior
+     * (de mayor a menor). Mantiene la proporción y no amplía imágenes más pequeñas.
+     *
+     * @param original Stream de la imagen original (JPEG/PNG)
+     * @param anchos Anchos en píxeles
+     * @return ancho → bytes JPEG; vacío si la imagen no se puede leer
+     */
+    public static Map<Integer, byte[]> generarMiniaturas(InputStream original, int... anchos) throws IOException {
+        Map<Integer, byte[]> miniaturas = new LinkedHashMap<>();
+
+        BufferedImage origen = ImageIO.read(original);
+        if (origen == null) {
+            log.warn("⚠️ No se pudo leer imagen para miniaturas");
+            return miniaturas;
+        }
+
+        int[] ordenados = Arrays.stream(anchos).distinct().sorted().toArray();
+        BufferedImage actual = origen;
+        for (int i = ordenados.length - 1; i >= 0; i--) {
+            int ancho = Math.min(ordenados[i], origen.getWidth());
+            int alto = Math.max(1, (int) Math.round((double) origen.getHeight() * ancho / origen.getWidth()));
+            actual = redimensionar(actual, ancho, alto);
+            miniaturas.put(ordenados[i], comprimirJpeg(actual));
+        }
+        return miniaturas;
+    }
+
+    private static BufferedImage redimensionar(BufferedImage imagen, int ancho, int alto) {
+        BufferedImage destino = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // Fondo blanco para PNG con transparencia
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, ancho, alto);
+            g.drawImage(imagen, 0, 0, ancho, alto, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private static byte[] comprimirJpeg(BufferedImage imagen) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(imagen, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
     /**
      * Calcular ratio de compresión
      */
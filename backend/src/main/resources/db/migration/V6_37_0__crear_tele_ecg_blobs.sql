@@ -0,0 +1,23 @@
+-- ============================================================================
+-- V6_37_0: Tabla tele_ecg_blobs (almacén ECG direccionado por contenido)
+-- Un archivo por SHA256 en {basePath}/cas/; referencias = imágenes activas que lo usan
+-- Solo se usa con app.teleekgs.storage.content-addressed=true
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS tele_ecg_blobs (
+    sha256                  VARCHAR(64)  PRIMARY KEY,
+    storage_ruta            VARCHAR(500) NOT NULL,
+    size_bytes              BIGINT       NOT NULL,
+    referencias             INTEGER      NOT NULL DEFAULT 0 CHECK (referencias >= 0),
+    fecha_creacion          TIMESTAMP    NOT NULL DEFAULT NOW(),
+    fecha_ultima_referencia TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+-- Búsqueda de duplicados activos por hash en tele_ecg_imagenes
+CREATE INDEX IF NOT EXISTS idx_tele_ecg_sha256_stat ON tele_ecg_imagenes(sha256, stat_imagen);
+
+DO $$
+BEGIN
+    RAISE NOTICE 'V6_37_0: Tabla tele_ecg_blobs creada';
+END $$;
@@ -0,0 +1,8 @@
+-- ============================================================================
+-- V6_38_0: Índice por fecha_envio en tele_ecg_imagenes
+-- Las agregaciones de analytics (TeleECGAnalyticsDao) filtran por rango de
+-- fecha_envio y agrupan por día: el índice evita recorrer la tabla completa
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+CREATE INDEX IF NOT EXISTS idx_tele_ecg_fecha_envio ON tele_ecg_imagenes(fecha_envio);
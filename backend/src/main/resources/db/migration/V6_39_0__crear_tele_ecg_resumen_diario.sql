@@ -0,0 +1,51 @@
+-- ============================================================================
+-- V6_39_0: Tabla tele_ecg_resumen_diario (KPIs TeleECG precalculados por día)
+-- Una fila por día de envío × IPRESS × estado × evaluación × urgencia × activa.
+-- La mantiene TeleECGResumenDiarioService (deltas en cada carga/evaluación/cambio
+-- de estado) y TeleECGResumenDiarioJob la reconcilia cada noche desde tele_ecg_imagenes.
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS tele_ecg_resumen_diario (
+    fecha               DATE         NOT NULL,
+    codigo_ipress       VARCHAR(20)  NOT NULL DEFAULT '',
+    nombre_ipress       VARCHAR(255) NOT NULL DEFAULT '',
+    estado              VARCHAR(20)  NOT NULL,
+    evaluacion          VARCHAR(20)  NOT NULL DEFAULT '',
+    es_urgente          BOOLEAN      NOT NULL,
+    activa              BOOLEAN      NOT NULL,
+    total               BIGINT       NOT NULL DEFAULT 0,
+    con_tat             BIGINT       NOT NULL DEFAULT 0,   -- imágenes con fecha_evaluacion
+    suma_tat_minutos    BIGINT       NOT NULL DEFAULT 0,   -- suma de minutos envío → evaluación
+    tat_hasta_15        BIGINT       NOT NULL DEFAULT 0,   -- evaluadas en ≤ 15 min (SLA dashboard médico)
+    tat_hasta_90        BIGINT       NOT NULL DEFAULT 0,   -- evaluadas en ≤ 90 min (SLA analytics)
+    fecha_actualizacion TIMESTAMP    NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (fecha, codigo_ipress, nombre_ipress, estado, evaluacion, es_urgente, activa)
+);
+
+COMMENT ON TABLE tele_ecg_resumen_diario IS 'KPIs diarios de tele_ecg_imagenes; se reconstruye por rango de días desde la tabla origen';
+
+-- Carga inicial con el histórico completo
+INSERT INTO tele_ecg_resumen_diario (fecha, codigo_ipress, nombre_ipress, estado, evaluacion,
+                                     es_urgente, activa, total, con_tat, suma_tat_minutos,
+                                     tat_hasta_15, tat_hasta_90, fecha_actualizacion)
+SELECT fecha, codigo_ipress, nombre_ipress, estado, evaluacion, es_urgente, activa,
+       COUNT(*),
+       COUNT(tat),
+       COALESCE(SUM(tat), 0),
+       COUNT(*) FILTER (WHERE tat <= 15),
+       COUNT(*) FILTER (WHERE tat <= 90),
+       NOW()
+FROM (
+    SELECT CAST(fecha_envio AS date)       AS fecha,
+           COALESCE(codigo_ipress, '')     AS codigo_ipress,
+           COALESCE(nombre_ipress, '')     AS nombre_ipress,
+           estado,
+           COALESCE(evaluacion, '')        AS evaluacion,
+           COALESCE(es_urgente, false)     AS es_urgente,
+           COALESCE(stat_imagen = 'A', false) AS activa,
+           TRUNC(EXTRACT(EPOCH FROM (fecha_evaluacion - fecha_envio)) / 60) AS tat
+    FROM tele_ecg_imagenes
+) t
+GROUP BY fecha, codigo_ipress, nombre_ipress, estado, evaluacion, es_urgente, activa
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,35 @@
+-- ============================================================================
+-- V6_40_0: Búsqueda por nombre sin acentos con índices trigram (pg_trgm)
+-- Usado por las herramientas del chatbot (TrazabilidadTools): los LIKE '%texto%'
+-- sobre nombres de pacientes, profesionales y usuarios usan índice GIN en vez
+-- de recorrer la tabla completa.
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- unaccent() es STABLE y no puede usarse en índices; este envoltorio fija el
+-- diccionario y es IMMUTABLE. Normaliza: minúsculas y sin tildes.
+CREATE OR REPLACE FUNCTION public.f_normalizar_busqueda(texto TEXT)
+RETURNS TEXT
+LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT lower(public.unaccent('public.unaccent'::regdictionary, texto)) $$;
+
+-- Pacientes en bolsa (buscarPacientePorNombre)
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_paciente_nombre_trgm
+    ON public.dim_solicitud_bolsa USING gin (public.f_normalizar_busqueda(paciente_nombre) gin_trgm_ops);
+
+-- Resumen por estado filtrado por especialidad (resumenSolicitudesPorEstado)
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_especialidad_estado
+    ON public.dim_solicitud_bolsa (upper(especialidad), estado);
+
+-- Profesionales CENATE por nombre completo (buscarProfesional)
+CREATE INDEX IF NOT EXISTS idx_personal_cnt_nombre_completo_trgm
+    ON public.dim_personal_cnt USING gin (public.f_normalizar_busqueda(
+        coalesce(nom_pers, '') || ' ' || coalesce(ape_pater_pers, '') || ' ' || coalesce(ape_mater_pers, '')
+    ) gin_trgm_ops);
+
+-- Usuarios del sistema por login (buscarUsuarioCENATE)
+CREATE INDEX IF NOT EXISTS idx_usuarios_name_user_trgm
+    ON public.dim_usuarios USING gin (lower(name_user) gin_trgm_ops);
@@ -0,0 +1,24 @@
+-- ============================================================================
+-- V6_41_0: Tabla audit_log_checkpoints (verificación incremental de audit_logs)
+-- Un checkpoint por bloque de ids consecutivos de audit_logs con el digest
+-- SHA-256 encadenado al bloque anterior. Lo genera AuditLogIntegrityService al
+-- sellar bloques nuevos; las verificaciones posteriores recalculan solo los
+-- bloques nuevos y una muestra de los ya sellados.
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS audit_log_checkpoints (
+    id_checkpoint      BIGSERIAL    PRIMARY KEY,
+    id_desde           BIGINT       NOT NULL,
+    id_hasta           BIGINT       NOT NULL,
+    total_registros    INTEGER      NOT NULL,
+    digest_anterior    VARCHAR(64)  NOT NULL,   -- digest del bloque previo (64 ceros en el primero)
+    digest             VARCHAR(64)  NOT NULL,   -- SHA-256(digest_anterior + registros del bloque)
+    fecha_creacion     TIMESTAMP    NOT NULL DEFAULT NOW(),
+    fecha_verificacion TIMESTAMP,
+    CONSTRAINT uq_audit_log_checkpoints_desde UNIQUE (id_desde),
+    CONSTRAINT uq_audit_log_checkpoints_hasta UNIQUE (id_hasta),
+    CONSTRAINT ck_audit_log_checkpoints_rango CHECK (id_hasta >= id_desde)
+);
+
+COMMENT ON TABLE audit_log_checkpoints IS 'Digest encadenado por bloque de ids de audit_logs para verificar integridad de forma incremental';
@@ -0,0 +1,21 @@
+-- ============================================================================
+-- V6_42_0: Índices para los indicadores de enfermería sobre atencion_clinica
+-- EnfermeriaPacientesService ya no carga la tabla completa: agrega por
+-- profesional creador (id_personal_creador = ANY(ids de enfermeras)) y pagina
+-- "mis pacientes" en SQL. El índice cubre esas consultas (index-only scan).
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+-- Mis pacientes (DISTINCT ON paciente, última atención) y estadísticas generales
+-- (totales, por IPRESS, por mes, telemonitoreo) filtradas por creador
+CREATE INDEX IF NOT EXISTS idx_atencion_clinica_creador_paciente_fecha
+    ON public.atencion_clinica (id_personal_creador, pk_asegurado, fecha_atencion DESC)
+    INCLUDE (id_atencion, id_tipo_atencion, id_ipress, requiere_telemonitoreo);
+
+-- Detalle del paciente (historial de atenciones por fecha)
+CREATE INDEX IF NOT EXISTS idx_atencion_clinica_asegurado_fecha
+    ON public.atencion_clinica (pk_asegurado, fecha_atencion DESC);
+
+-- Ids de personal por rol (cacheado en personal-ids-por-rol)
+CREATE INDEX IF NOT EXISTS idx_rel_user_roles_rol_usuario
+    ON public.rel_user_roles (id_rol, id_user);
@@ -0,0 +1,49 @@
+-- ============================================================================
+-- V6_43_0: Índices para la bandeja de solicitudes de bolsa con filtros
+-- SolicitudBolsaBandejaDao arma el WHERE solo con los filtros activos y con
+-- predicados indexables: FKs (bolsa, IPRESS, estado de cita, gestora), rango
+-- semiabierto sobre fecha_cambio_estado y LIKE '%texto%' con trigram.
+-- Todos son parciales (activo = true): la bandeja nunca lista inactivas.
+-- Requiere pg_trgm (creada en V6_40_0).
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+-- Bolsa (bolsaNombre → ids, categoriaEspecialidad) + orden por fecha_solicitud
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_activo_bolsa_fecha
+    ON public.dim_solicitud_bolsa (id_bolsa, fecha_solicitud DESC)
+    WHERE activo = true;
+
+-- Estado de cita (estadoCodigo → ids)
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_activo_estado_cita
+    ON public.dim_solicitud_bolsa (estado_gestion_citas_id, fecha_solicitud DESC)
+    WHERE activo = true;
+
+-- Gestora (gestoraId, asignados / sin asignar)
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_activo_gestora
+    ON public.dim_solicitud_bolsa (responsable_gestora_id, fecha_solicitud DESC)
+    WHERE activo = true;
+
+-- IPRESS de adscripción (ipress, red y macrorregión → ids de IPRESS)
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_activo_ipress
+    ON public.dim_solicitud_bolsa (id_ipress)
+    WHERE activo = true;
+
+-- IPRESS de atención
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_activo_ipress_atencion
+    ON public.dim_solicitud_bolsa (id_ipress_atencion)
+    WHERE activo = true;
+
+-- Rango [fechaInicio, fechaFin + 1 día) sobre fecha_cambio_estado
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_activo_cambio_estado
+    ON public.dim_solicitud_bolsa (fecha_cambio_estado)
+    WHERE activo = true;
+
+-- Búsqueda parcial por DNI (paciente_dni LIKE '%texto%')
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_activo_dni_trgm
+    ON public.dim_solicitud_bolsa USING gin (paciente_dni gin_trgm_ops)
+    WHERE activo = true;
+
+-- Especialidad (LOWER(especialidad) LIKE '%texto%')
+CREATE INDEX IF NOT EXISTS idx_solicitud_bolsa_activo_especialidad_trgm
+    ON public.dim_solicitud_bolsa USING gin (lower(especialidad) gin_trgm_ops)
+    WHERE activo = true;
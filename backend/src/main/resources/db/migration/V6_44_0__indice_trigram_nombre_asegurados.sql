@@ -0,0 +1,17 @@
+-- ============================================================================
+-- V6_44_0: Búsqueda de pacientes por nombre en asegurados (trigram, sin tildes)
+-- BusquedaPacienteDao separa el texto en términos y exige cada uno con
+-- f_normalizar_busqueda(paciente) LIKE '%término%': el orden de nombres y
+-- apellidos no importa y cada término usa este índice GIN en vez de recorrer
+-- la tabla nacional. Los resultados se ordenan por word_similarity.
+-- dim_solicitud_bolsa ya tiene su índice (V6_40_0).
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Asegurados por nombre completo (buscarAsegurados, /api/asegurados/buscar-nombre)
+CREATE INDEX IF NOT EXISTS idx_asegurados_paciente_trgm
+    ON public.asegurados USING gin (public.f_normalizar_busqueda(paciente) gin_trgm_ops);
+
@@ -0,0 +1,92 @@
+-- ============================================================================
+-- V6_45_0: Detección de duplicados de asegurados por bloques (incremental)
+-- DeduplicacionAseguradosService agrupa asegurados en bloques (DNI normalizado,
+-- clave fonética del nombre, fecha de nacimiento), compara solo los pares de
+-- cada bloque y guarda los candidatos con su puntaje. Cada ejecución revisa
+-- solo los asegurados cuyo DNI, nombre, nacimiento o vigencia cambiaron desde
+-- la anterior (fecha_cambio_identidad, mantenida por trigger).
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+-- Marca de cambio de los datos que usa la deduplicación. El DEFAULT no volátil
+-- no reescribe la tabla; la primera ejecución revisa todos los asegurados.
+ALTER TABLE public.asegurados
+    ADD COLUMN IF NOT EXISTS fecha_cambio_identidad TIMESTAMP NOT NULL DEFAULT NOW();
+
+CREATE OR REPLACE FUNCTION public.fn_asegurados_fecha_cambio_identidad()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.fecha_cambio_identidad := NOW();
+    RETURN NEW;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_asegurados_fecha_cambio_identidad ON public.asegurados;
+CREATE TRIGGER trg_asegurados_fecha_cambio_identidad
+    BEFORE INSERT OR UPDATE OF doc_paciente, paciente, fecnacimpaciente, vigencia
+    ON public.asegurados
+    FOR EACH ROW
+    EXECUTE FUNCTION public.fn_asegurados_fecha_cambio_identidad();
+
+-- Lectura incremental en lotes: (fecha_cambio_identidad, pk_asegurado) > (?, ?)
+CREATE INDEX IF NOT EXISTS idx_asegurados_fecha_cambio_identidad
+    ON public.asegurados (fecha_cambio_identidad, pk_asegurado);
+
+-- Claves de bloque por asegurado vigente (se recalculan al cambiar el asegurado)
+CREATE TABLE IF NOT EXISTS asegurados_dedupe_claves (
+    pk_asegurado        VARCHAR(50)  PRIMARY KEY,
+    dni_normalizado     VARCHAR(50),              -- DniUtils.normalizar, sin separadores
+    nombre_normalizado  TEXT,                     -- mayúsculas, sin tildes ni signos
+    clave_fonetica      VARCHAR(100),             -- código fonético de los dos primeros términos (apellidos)
+    fec_nacimiento      DATE,
+    clave_nacimiento    VARCHAR(20),              -- fecha de nacimiento + inicial fonética
+    fecha_calculo       TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_dedupe_claves_dni
+    ON asegurados_dedupe_claves (dni_normalizado) WHERE dni_normalizado IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_dedupe_claves_fonetica
+    ON asegurados_dedupe_claves (clave_fonetica) WHERE clave_fonetica IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_dedupe_claves_nacimiento
+    ON asegurados_dedupe_claves (clave_nacimiento) WHERE clave_nacimiento IS NOT NULL;
+
+-- Pares candidatos (pk_asegurado_a < pk_asegurado_b por código de carácter, como String.compareTo)
+CREATE TABLE IF NOT EXISTS asegurados_duplicados_candidatos (
+    id_candidato         BIGSERIAL     PRIMARY KEY,
+    pk_asegurado_a       VARCHAR(50)   NOT NULL,
+    pk_asegurado_b       VARCHAR(50)   NOT NULL,
+    puntaje              NUMERIC(5,4)  NOT NULL,   -- 0..1
+    bloques              VARCHAR(50)   NOT NULL,   -- bloques donde coincidieron: DNI,FONETICA,NACIMIENTO
+    estado               VARCHAR(20)   NOT NULL DEFAULT 'PENDIENTE',   -- PENDIENTE | RESUELTO | DESCARTADO
+    fecha_deteccion      TIMESTAMP     NOT NULL DEFAULT NOW(),
+    fecha_actualizacion  TIMESTAMP     NOT NULL DEFAULT NOW(),
+    CONSTRAINT uq_duplicados_candidatos_par UNIQUE (pk_asegurado_a, pk_asegurado_b),
+    CONSTRAINT ck_duplicados_candidatos_orden CHECK (pk_asegurado_a COLLATE "C" < pk_asegurado_b COLLATE "C")
+);
+
+CREATE INDEX IF NOT EXISTS idx_duplicados_candidatos_estado_puntaje
+    ON asegurados_duplicados_candidatos (estado, puntaje DESC);
+CREATE INDEX IF NOT EXISTS idx_duplicados_candidatos_b
+    ON asegurados_duplicados_candidatos (pk_asegurado_b);
+
+-- Historial de ejecuciones; la última COMPLETADA fija desde dónde revisar la siguiente
+CREATE TABLE IF NOT EXISTS asegurados_dedupe_ejecuciones (
+    id_ejecucion         BIGSERIAL    PRIMARY KEY,
+    fecha_inicio         TIMESTAMP    NOT NULL DEFAULT NOW(),
+    fecha_fin            TIMESTAMP,
+    revisar_desde        TIMESTAMP,               -- NULL = revisión completa
+    registros_revisados  INTEGER      NOT NULL DEFAULT 0,
+    bloques_revisados    INTEGER      NOT NULL DEFAULT 0,
+    pares_escritos       INTEGER      NOT NULL DEFAULT 0,
+    estado               VARCHAR(20)  NOT NULL DEFAULT 'EN_CURSO',   -- EN_CURSO | COMPLETADA | FALLIDA
+    detalle_error        TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_dedupe_ejecuciones_estado_inicio
+    ON asegurados_dedupe_ejecuciones (estado, fecha_inicio DESC);
+
+COMMENT ON TABLE asegurados_dedupe_claves IS 'Claves de bloque (DNI, fonética, nacimiento) de asegurados vigentes para la detección de duplicados';
+COMMENT ON TABLE asegurados_duplicados_candidatos IS 'Pares de asegurados posiblemente duplicados con su puntaje de similitud';
+COMMENT ON TABLE asegurados_dedupe_ejecuciones IS 'Ejecuciones de la detección de duplicados de asegurados (marca de agua incremental)';
@@ -0,0 +1,11 @@
+-- ============================================================================
+-- V6_46_0: Índice parcial de imágenes TeleECG vigentes no atendidas
+-- TeleECGAnalyticsDao.conteoVigentesPorEstado cuenta las imágenes activas no
+-- ATENDIDAS con fecha_expiracion >= CURRENT_TIMESTAMP; el índice cubre solo
+-- esas filas (las ATENDIDAS se cuentan desde tele_ecg_resumen_diario)
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+CREATE INDEX IF NOT EXISTS idx_tele_ecg_vigentes
+    ON tele_ecg_imagenes(fecha_expiracion, estado)
+    WHERE stat_imagen = 'A' AND estado <> 'ATENDIDA';
@@ -0,0 +1,25 @@
+-- ============================================================================
+-- V6_47_0: Sub-bloques y bloques truncados en la deduplicación de asegurados
+-- Un bloque con más de tope-bloque miembros se divide por una segunda clave
+-- (año de nacimiento en el fonético, clave fonética en DNI y nacimiento): los
+-- índices compuestos reemplazan a los de una columna de V6_45_0. Los
+-- sub-bloques que aun así superan el tope se registran en la ejecución.
+-- Fecha: 2026-10-18
+-- ============================================================================
+
+CREATE INDEX IF NOT EXISTS idx_dedupe_claves_fonetica_nacimiento
+    ON asegurados_dedupe_claves (clave_fonetica, fec_nacimiento) WHERE clave_fonetica IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_dedupe_claves_dni_fonetica
+    ON asegurados_dedupe_claves (dni_normalizado, clave_fonetica) WHERE dni_normalizado IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_dedupe_claves_nacimiento_fonetica
+    ON asegurados_dedupe_claves (clave_nacimiento, clave_fonetica) WHERE clave_nacimiento IS NOT NULL;
+
+DROP INDEX IF EXISTS idx_dedupe_claves_fonetica;
+DROP INDEX IF EXISTS idx_dedupe_claves_dni;
+DROP INDEX IF EXISTS idx_dedupe_claves_nacimiento;
+
+ALTER TABLE asegurados_dedupe_ejecuciones
+    ADD COLUMN IF NOT EXISTS bloques_truncados INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS detalle_bloques_truncados TEXT;   -- primeras claves TIPO:clave/segunda_clave
+
+COMMENT ON COLUMN asegurados_dedupe_ejecuciones.bloques_truncados IS 'Sub-bloques que superaron tope-bloque y se compararon solo con sus primeros miembros';
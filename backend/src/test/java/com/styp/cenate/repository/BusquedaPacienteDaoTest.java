@@ -0,0 +1,42 @@
+package com.styp.cenate.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la preparación de términos de BusquedaPacienteDao (sin BD)
+ */
+class BusquedaPacienteDaoTest {
+
+    @Test
+    @DisplayName("escaparLike escapa los comodines y el carácter de escape")
+    void testEscaparLike() {
+        assertEquals("100\\%", BusquedaPacienteDao.escaparLike("100%"));
+        assertEquals("juan\\_perez", BusquedaPacienteDao.escaparLike("juan_perez"));
+        assertEquals("a\\\\b", BusquedaPacienteDao.escaparLike("a\\b"));
+        assertEquals("QUISPE", BusquedaPacienteDao.escaparLike("QUISPE"));
+    }
+
+    @Test
+    @DisplayName("terminos separa por espacios y escapa cada término")
+    void testTerminos() {
+        assertEquals(List.of("PEREZ", "\\%"), BusquedaPacienteDao.terminos("  PEREZ   % "));
+        assertTrue(BusquedaPacienteDao.terminos("   ").isEmpty());
+        assertTrue(BusquedaPacienteDao.terminos(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("predicadoNombre arma un LIKE por término y sin términos no coincide nada")
+    void testPredicadoNombre() {
+        List<Object> parametros = new ArrayList<>();
+        String predicado = BusquedaPacienteDao.predicadoNombre("sb.paciente_nombre", List.of("a", "b"), parametros);
+        assertEquals(2, predicado.split(" AND ").length);
+        assertEquals(List.of("a", "b"), parametros);
+        assertEquals("FALSE", BusquedaPacienteDao.predicadoNombre("x", List.of(), new ArrayList<>()));
+    }
+}
@@ -0,0 +1,122 @@
+package com.styp.cenate.repository;
+
+import com.styp.cenate.enumd.ModoConteo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit Tests para ConteoPaginadoDao (v2.6.0)
+ * Cubre: conteo exacto, limitado al tope y estimado con respaldo al conteo limitado
+ */
+@DisplayName("ConteoPaginadoDao Unit Tests")
+class ConteoPaginadoDaoTest {
+
+    private static final String SQL_FILAS = "SELECT 1 FROM asegurados a WHERE a.vigencia = true";
+
+    private JdbcTemplate jdbcTemplate;
+    private ConteoPaginadoDao dao;
+
+    /** SQL ejecutado en cada consulta, en orden */
+    private final List<String> ejecutadas = new ArrayList<>();
+    private final ConteoPaginadoDao.Sentencia sentencia = (con, sql) -> {
+        ejecutadas.add(sql);
+        return mock(PreparedStatement.class);
+    };
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        dao = new ConteoPaginadoDao(jdbcTemplate);
+        ReflectionTestUtils.setField(dao, "tope", 1000L);
+    }
+
+    /** Responde con {@code plan} a EXPLAIN y con {@code conteo} a COUNT(*) */
+    private void responder(String plan, long conteo) {
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+                .thenAnswer(inv -> {
+                    PreparedStatementCreator psc = inv.getArgument(0);
+                    psc.createPreparedStatement(null);
+                    return ejecutadas.get(ejecutadas.size() - 1).startsWith("EXPLAIN") ? plan : conteo;
+                });
+    }
+
+    private static String plan(long filas) {
+        return "[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Plan Rows\": " + filas + "}}]";
+    }
+
+    @Test
+    @DisplayName("EXACTO cuenta todas las filas")
+    void testExacto() {
+        responder(null, 52_340L);
+
+        ConteoPaginadoDao.Total total = dao.contar(ModoConteo.EXACTO, SQL_FILAS, sentencia);
+
+        assertEquals(new ConteoPaginadoDao.Total(52_340L, ModoConteo.EXACTO, false), total);
+        assertEquals(List.of("SELECT COUNT(*) FROM (" + SQL_FILAS + ") filas"), ejecutadas);
+    }
+
+    @Test
+    @DisplayName("LIMITADO se detiene en tope + 1 y marca el total como mínimo")
+    void testLimitadoAlcanzaTope() {
+        responder(null, 1001L);
+
+        ConteoPaginadoDao.Total total = dao.contar(ModoConteo.LIMITADO, SQL_FILAS, sentencia);
+
+        assertEquals(new ConteoPaginadoDao.Total(1000L, ModoConteo.LIMITADO, true), total);
+        assertEquals(List.of("SELECT COUNT(*) FROM (" + SQL_FILAS + " LIMIT 1001) filas"), ejecutadas);
+    }
+
+    @Test
+    @DisplayName("LIMITADO bajo el tope es exacto")
+    void testLimitadoBajoTope() {
+        responder(null, 37L);
+
+        assertEquals(new ConteoPaginadoDao.Total(37L, ModoConteo.LIMITADO, false),
+                dao.contar(ModoConteo.LIMITADO, SQL_FILAS, sentencia));
+    }
+
+    @Test
+    @DisplayName("ESTIMADO sobre el tope usa las filas del plan sin contar")
+    void testEstimadoSobreTope() {
+        responder(plan(250_000L), -1L);
+
+        ConteoPaginadoDao.Total total = dao.contar(ModoConteo.ESTIMADO, SQL_FILAS, sentencia);
+
+        assertEquals(new ConteoPaginadoDao.Total(250_000L, ModoConteo.ESTIMADO, false), total);
+        assertEquals(List.of("EXPLAIN (FORMAT JSON) " + SQL_FILAS), ejecutadas);
+    }
+
+    @Test
+    @DisplayName("ESTIMADO bajo el tope recurre al conteo LIMITADO")
+    void testEstimadoBajoTopeRecurreALimitado() {
+        responder(plan(3L), 12L);
+
+        ConteoPaginadoDao.Total total = dao.contar(ModoConteo.ESTIMADO, SQL_FILAS, sentencia);
+
+        assertEquals(new ConteoPaginadoDao.Total(12L, ModoConteo.LIMITADO, false), total);
+        assertEquals(List.of("EXPLAIN (FORMAT JSON) " + SQL_FILAS,
+                "SELECT COUNT(*) FROM (" + SQL_FILAS + " LIMIT 1001) filas"), ejecutadas);
+    }
+
+    @Test
+    @DisplayName("ESTIMADO sin plan recurre al conteo LIMITADO")
+    void testEstimadoSinPlanRecurreALimitado() {
+        responder(null, 1001L);
+
+        assertEquals(new ConteoPaginadoDao.Total(1000L, ModoConteo.LIMITADO, true),
+                dao.contar(ModoConteo.ESTIMADO, SQL_FILAS, sentencia));
+    }
+}
@@ -0,0 +1,87 @@
+package com.styp.cenate.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit Tests para TeleECGContenidoDao (v2.6.0)
+ * Cubre: lectura completa por bloques, salto sin consultar y contenido ausente
+ */
+@DisplayName("TeleECGContenidoDao Unit Tests")
+class TeleECGContenidoDaoTest {
+
+    /** Más de dos bloques de 256 KB */
+    private static final int TAMANO = 600_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private TeleECGContenidoDao dao;
+    private byte[] contenido;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        dao = new TeleECGContenidoDao(jdbcTemplate);
+        contenido = new byte[TAMANO];
+        for (int i = 0; i < TAMANO; i++) {
+            contenido[i] = (byte) (i * 31);
+        }
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any())).thenReturn(List.of((long) TAMANO));
+        // substring(contenido FROM desde FOR cantidad), desde 1-based
+        when(jdbcTemplate.queryForObject(anyString(), eq(byte[].class), any(), any(), any())).thenAnswer(inv -> {
+            int desde = inv.getArgument(2);
+            int cantidad = inv.getArgument(3);
+            return Arrays.copyOfRange(contenido, desde - 1, Math.min(desde - 1 + cantidad, TAMANO));
+        });
+    }
+
+    @Test
+    @DisplayName("Lee el contenido completo en bloques")
+    void testLeerContenidoCompleto() throws Exception {
+        Resource recurso = dao.abrir(7L).orElseThrow();
+
+        assertEquals(TAMANO, recurso.contentLength());
+        try (InputStream in = recurso.getInputStream()) {
+            assertArrayEquals(contenido, in.readAllBytes());
+        }
+        verify(jdbcTemplate, times(3)).queryForObject(anyString(), eq(byte[].class), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Un Range salta los bloques anteriores sin consultarlos")
+    void testSaltarSinConsultar() throws Exception {
+        Resource recurso = dao.abrir(7L).orElseThrow();
+
+        try (InputStream in = recurso.getInputStream()) {
+            assertEquals(550_000, in.skip(550_000));
+            byte[] resto = in.readAllBytes();
+            assertArrayEquals(Arrays.copyOfRange(contenido, 550_000, TAMANO), resto);
+        }
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(byte[].class), eq(550_001), any(), any());
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(byte[].class), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Sin contenido en BD devuelve vacío")
+    void testSinContenido() {
+        List<Long> sinContenido = Arrays.asList((Long) null);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any())).thenReturn(sinContenido);
+
+        Optional<Resource> recurso = dao.abrir(7L);
+
+        assertTrue(recurso.isEmpty());
+    }
+}
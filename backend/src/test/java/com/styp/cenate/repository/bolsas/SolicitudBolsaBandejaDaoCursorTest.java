@@ -0,0 +1,58 @@
+package com.styp.cenate.repository.bolsas;
+
+import com.styp.cenate.repository.bolsas.SolicitudBolsaBandejaDao.Cursor;
+import com.styp.cenate.util.CursorPaginacion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit Tests para el cursor de la bandeja de bolsas (v2.6.0)
+ * Cubre: Cursor.de (prioridad por estado), codificar/decodificar y cursores inválidos
+ */
+@DisplayName("SolicitudBolsaBandejaDao.Cursor Unit Tests")
+class SolicitudBolsaBandejaDaoCursorTest {
+
+    private static final Instant FECHA = Instant.parse("2026-10-18T14:30:15.123Z");
+
+    private static Object[] fila(long id, String codEstado) {
+        Object[] fila = new Object[24];
+        fila[0] = id;
+        fila[21] = codEstado;
+        fila[23] = Timestamp.from(FECHA);
+        return fila;
+    }
+
+    @Test
+    @DisplayName("Cursor.de toma id, fecha y prioridad del estado de la fila")
+    void testCursorDeFila() {
+        assertEquals(new Cursor(0, FECHA, 10L), Cursor.de(fila(10L, "PENDIENTE_CITA")));
+        assertEquals(new Cursor(1, FECHA, 11L), Cursor.de(fila(11L, "CITADO")));
+        assertEquals(new Cursor(2, FECHA, 12L), Cursor.de(fila(12L, "ATENDIDO_IPRESS")));
+        assertEquals(new Cursor(2, FECHA, 13L), Cursor.de(fila(13L, null)));
+    }
+
+    @Test
+    @DisplayName("Codificar y decodificar devuelve el mismo cursor")
+    void testCodificarDecodificar() {
+        Cursor cursor = Cursor.de(fila(987654321L, "CITADO"));
+
+        assertEquals(cursor, Cursor.decodificar(cursor.codificar()));
+    }
+
+    @Test
+    @DisplayName("Rechaza cursores inválidos")
+    void testRechazaCursoresInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decodificar("%%%"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Cursor.decodificar(CursorPaginacion.codificar(1, FECHA)));
+        assertThrows(IllegalArgumentException.class,
+                () -> Cursor.decodificar(CursorPaginacion.codificar("x", FECHA, 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> Cursor.decodificar(CursorPaginacion.codificar(1, "ayer", 1)));
+    }
+}
@@ -0,0 +1,175 @@
+package com.styp.cenate.service.auditlog;
+
+import com.styp.cenate.repository.AuditLogCheckpointDao;
+import com.styp.cenate.repository.AuditLogCheckpointDao.Checkpoint;
+import com.styp.cenate.service.auditlog.AuditLogIntegrityService.ResultadoVerificacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests del sellado por bloques y la verificación por muestra de AuditLogIntegrityService
+ */
+class AuditLogIntegrityServiceTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2026, 10, 18, 9, 30);
+
+    private AuditLogCheckpointDao checkpointDao;
+    private AuditLogIntegrityService service;
+    private List<Map<String, Object>> registros;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        checkpointDao = mock(AuditLogCheckpointDao.class);
+        service = new AuditLogIntegrityService(checkpointDao, 2, 10, 5, 10);
+
+        registros = new ArrayList<>();
+        registros.add(registro(1L, "admin", "LOGIN"));
+        registros.add(registro(2L, "admin", "UPDATE_USER"));
+
+        doAnswer(inv -> {
+            long desde = inv.getArgument(0);
+            long hasta = inv.getArgument(1);
+            RowCallbackHandler handler = inv.getArgument(2);
+            for (Map<String, Object> registro : registros) {
+                long id = (Long) registro.get("id");
+                if (id >= desde && id <= hasta) {
+                    handler.processRow(resultSet(registro));
+                }
+            }
+            return null;
+        }).when(checkpointDao).recorrerRegistros(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Sella el bloque y luego detecta un registro alterado dentro de él")
+    void testSellarYDetectarRegistroAlterado() {
+        // Primera ejecución: sin checkpoints, sella [1, 2]
+        when(checkpointDao.ultimo()).thenReturn(Optional.empty());
+        when(checkpointDao.primerId()).thenReturn(1L);
+        when(checkpointDao.idSellable(any())).thenReturn(2L);
+        when(checkpointDao.muestra(anyInt())).thenReturn(List.of());
+
+        ResultadoVerificacion sellado = service.verificar();
+
+        assertEquals(1, sellado.bloquesSellados());
+        assertEquals(2, sellado.registrosSellados());
+        assertTrue(sellado.registrosAlterados().isEmpty());
+
+        ArgumentCaptor<String> digest = ArgumentCaptor.forClass(String.class);
+        verify(checkpointDao).insertar(eq(1L), eq(2L), eq(2), eq(AuditLogIntegrityService.DIGEST_INICIAL),
+                digest.capture());
+        Checkpoint checkpoint = new Checkpoint(7L, 1, 2, 2, AuditLogIntegrityService.DIGEST_INICIAL,
+                digest.getValue(), FECHA);
+
+        // Sin cambios, el bloque sellado se verifica
+        when(checkpointDao.ultimo()).thenReturn(Optional.of(checkpoint));
+        when(checkpointDao.muestra(anyInt())).thenReturn(List.of(checkpoint));
+        when(checkpointDao.anterior(1L)).thenReturn(Optional.empty());
+
+        ResultadoVerificacion intacto = service.verificar();
+
+        assertEquals(0, intacto.bloquesSellados());
+        assertTrue(intacto.bloquesAlterados().isEmpty());
+        verify(checkpointDao).marcarVerificado(7L);
+
+        // Se altera un registro ya sellado (hash_integridad recalculado por el atacante)
+        Map<String, Object> alterado = registro(2L, "otro", "UPDATE_USER");
+        registros.set(1, alterado);
+
+        ResultadoVerificacion manipulado = service.verificar();
+
+        assertEquals(1, manipulado.bloquesAlterados().size());
+        AuditLogIntegrityService.BloqueAlterado bloque = manipulado.bloquesAlterados().get(0);
+        assertEquals("CONTENIDO", bloque.motivo());
+        assertEquals(1L, bloque.idDesde());
+        assertEquals(2L, bloque.idHasta());
+        assertNotEquals(bloque.digestSellado(), bloque.digestCalculado());
+        verify(checkpointDao, times(1)).marcarVerificado(7L);
+    }
+
+    @Test
+    @DisplayName("Detecta un checkpoint reescrito que rompe el encadenamiento")
+    void testDetectarEncadenamientoRoto() {
+        when(checkpointDao.ultimo()).thenReturn(Optional.empty());
+        when(checkpointDao.primerId()).thenReturn(1L);
+        when(checkpointDao.idSellable(any())).thenReturn(2L);
+        when(checkpointDao.muestra(anyInt())).thenReturn(List.of());
+        service.verificar();
+
+        ArgumentCaptor<String> digest = ArgumentCaptor.forClass(String.class);
+        verify(checkpointDao).insertar(eq(1L), eq(2L), eq(2), any(), digest.capture());
+        Checkpoint checkpoint = new Checkpoint(7L, 1, 2, 2, AuditLogIntegrityService.DIGEST_INICIAL,
+                digest.getValue(), FECHA);
+        Checkpoint previo = new Checkpoint(6L, -1, 0, 1, AuditLogIntegrityService.DIGEST_INICIAL,
+                "f".repeat(64), FECHA);
+
+        when(checkpointDao.ultimo()).thenReturn(Optional.of(checkpoint));
+        when(checkpointDao.muestra(anyInt())).thenReturn(List.of(checkpoint));
+        when(checkpointDao.anterior(1L)).thenReturn(Optional.of(previo));
+
+        ResultadoVerificacion resultado = service.verificar();
+
+        assertEquals(1, resultado.bloquesAlterados().size());
+        assertEquals("ENCADENAMIENTO", resultado.bloquesAlterados().get(0).motivo());
+        verify(checkpointDao, never()).marcarVerificado(anyLong());
+    }
+
+    @Test
+    @DisplayName("No sella un bloque que pasa del id sellable")
+    void testNoSellarMasAllaDelIdSellable() {
+        when(checkpointDao.ultimo()).thenReturn(Optional.empty());
+        when(checkpointDao.primerId()).thenReturn(1L);
+        when(checkpointDao.idSellable(any())).thenReturn(1L);
+        when(checkpointDao.muestra(anyInt())).thenReturn(List.of());
+
+        ResultadoVerificacion resultado = service.verificar();
+
+        assertEquals(0, resultado.bloquesSellados());
+        verify(checkpointDao, never()).insertar(anyLong(), anyLong(), anyInt(), any(), any());
+    }
+
+    private static Map<String, Object> registro(long id, String usuario, String action) {
+        Map<String, Object> registro = new HashMap<>();
+        registro.put("id", id);
+        registro.put("usuario", usuario);
+        registro.put("action", action);
+        registro.put("modulo", "USUARIOS");
+        registro.put("detalle", "detalle " + id);
+        registro.put("ip_address", "10.0.0.1");
+        registro.put("nivel", "INFO");
+        registro.put("estado", "SUCCESS");
+        registro.put("fecha_hora", FECHA.plusSeconds(id));
+        registro.put("hash_integridad", AuditLogIntegrityService.calcularHashRegistro(id, usuario, action,
+                "USUARIOS", "detalle " + id, "10.0.0.1", FECHA.plusSeconds(id), "INFO", "SUCCESS"));
+        return registro;
+    }
+
+    private static ResultSet resultSet(Map<String, Object> registro) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn((Long) registro.get("id"));
+        when(rs.getTimestamp("fecha_hora")).thenReturn(Timestamp.valueOf((LocalDateTime) registro.get("fecha_hora")));
+        when(rs.getString(anyString())).thenAnswer(inv -> {
+            Object valor = registro.get(inv.<String>getArgument(0));
+            return valor != null ? valor.toString() : null;
+        });
+        when(rs.getObject(anyString())).thenAnswer(inv -> registro.get(inv.<String>getArgument(0)));
+        return rs;
+    }
+}
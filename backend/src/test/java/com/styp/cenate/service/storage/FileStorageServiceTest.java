@@ -379,6 +379,69 @@ class FileStorageServiceTest {
         assertFalse(Files.exists(Paths.get(ruta))); // Original debe estar eliminado
     }
 
+    // ============================================================
+    // TEST: Almacén por contenido (v2.1.0)
+    // ============================================================
+
+    @Test
+    @DisplayName("Guardar por contenido: mismo ECG se almacena una sola vez")
+    void testGuardarPorContenido_Deduplica() throws IOException {
+        // Arrange
+        byte[] contenido = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x45, 0x10};
+        MockMultipartFile primero = new MockMultipartFile("file", "a.jpg", "image/jpeg", contenido);
+        MockMultipartFile reenvio = new MockMultipartFile("file", "b.jpg", "image/jpeg", contenido);
+
+        // Act
+        FileStorageService.ArchivoAlmacenado blob1 = fileStorageService.guardarPorContenido(primero);
+        FileStorageService.ArchivoAlmacenado blob2 = fileStorageService.guardarPorContenido(reenvio);
+
+        // Assert
+        assertFalse(blob1.reutilizado());
+        assertTrue(blob2.reutilizado());
+        assertEquals(blob1.ruta(), blob2.ruta());
+        assertEquals(fileStorageService.calcularSHA256(primero), blob1.sha256());
+        assertEquals(contenido.length, blob1.sizeBytes());
+        assertTrue(blob1.ruta().endsWith("/cas/" + blob1.sha256().substring(0, 2) + "/"
+            + blob1.sha256().substring(2, 4) + "/" + blob1.sha256()));
+        assertTrue(fileStorageService.verificarIntegridad(blob1.ruta(), blob1.sha256()));
+    }
+
+    @Test
+    @DisplayName("Eliminar por contenido borra el blob")
+    void testEliminarPorContenido_Success() throws IOException {
+        // Arrange
+        byte[] contenido = {(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D};
+        MockMultipartFile file = new MockMultipartFile("file", "ecg.png", "image/png", contenido);
+        FileStorageService.ArchivoAlmacenado blob = fileStorageService.guardarPorContenido(file);
+
+        // Act
+        boolean eliminado = fileStorageService.eliminarPorContenido(blob.sha256());
+
+        // Assert
+        assertTrue(eliminado);
+        assertFalse(Files.exists(Paths.get(blob.ruta())));
+    }
+
+    @Test
+    @DisplayName("Recibir y confirmar por contenido: reescribe el blob si se eliminó entre ambos pasos")
+    void testRecibirConfirmarPorContenido_BlobEliminadoEntrePasos() throws IOException {
+        // Arrange
+        byte[] contenido = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x21, 0x33};
+        MockMultipartFile file = new MockMultipartFile("file", "ecg.jpg", "image/jpeg", contenido);
+        FileStorageService.ArchivoAlmacenado existente = fileStorageService.guardarPorContenido(file);
+
+        // Act
+        FileStorageService.ContenidoRecibido recibido = fileStorageService.recibirPorContenido(file);
+        fileStorageService.eliminarPorContenido(recibido.sha256());
+        FileStorageService.ArchivoAlmacenado blob = fileStorageService.confirmarPorContenido(recibido);
+
+        // Assert
+        assertEquals(existente.ruta(), recibido.ruta());
+        assertFalse(blob.reutilizado());
+        assertTrue(fileStorageService.verificarIntegridad(blob.ruta(), blob.sha256()));
+        assertFalse(Files.exists(recibido.temporal()));
+    }
+
     // ============================================================
     // TEST: Integración Completa
     // ============================================================
@@ -0,0 +1,144 @@
+package com.styp.cenate.util;
+
+import com.styp.cenate.util.ComparadorAsegurados.Registro;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit Tests para ComparadorAsegurados (v2.6.0)
+ * Cubre: código y clave fonética, Jaro-Winkler y puntaje contra el umbral sugerido
+ */
+@DisplayName("ComparadorAsegurados Unit Tests")
+class ComparadorAseguradosTest {
+
+    private static final LocalDate NACIMIENTO = LocalDate.of(1985, 3, 14);
+    private static final double UMBRAL = ComparadorAsegurados.UMBRAL_SUGERIDO;
+
+    // ============================================================
+    // TEST: Código fonético
+    // ============================================================
+
+    @Test
+    @DisplayName("Código fonético unifica letras que suenan igual en español")
+    void testCodigoFonetico_Equivalencias() {
+        assertEquals("PRS", ComparadorAsegurados.codigoFonetico("PEREZ"));
+        assertEquals("PRS", ComparadorAsegurados.codigoFonetico("PERES"));
+        assertEquals(ComparadorAsegurados.codigoFonetico("VASQUEZ"), ComparadorAsegurados.codigoFonetico("BAZQUEZ"));
+        assertEquals(ComparadorAsegurados.codigoFonetico("GIMENEZ"), ComparadorAsegurados.codigoFonetico("JIMENEZ"));
+        assertEquals(ComparadorAsegurados.codigoFonetico("QUISPE"), ComparadorAsegurados.codigoFonetico("KISPE"));
+        assertEquals(ComparadorAsegurados.codigoFonetico("YUPANQUI"), ComparadorAsegurados.codigoFonetico("LLUPANQUI"));
+        assertEquals(ComparadorAsegurados.codigoFonetico("HUAMAN"), ComparadorAsegurados.codigoFonetico("UAMAN"));
+    }
+
+    @Test
+    @DisplayName("Código fonético: CH, letras repetidas y H muda")
+    void testCodigoFonetico_CasosEspeciales() {
+        assertEquals("XBS", ComparadorAsegurados.codigoFonetico("CHAVEZ"));
+        assertEquals("KP", ComparadorAsegurados.codigoFonetico("CCOPA"));
+        assertEquals("", ComparadorAsegurados.codigoFonetico("H"));
+        assertNotEquals(ComparadorAsegurados.codigoFonetico("PEREZ"), ComparadorAsegurados.codigoFonetico("TORRES"));
+    }
+
+    // ============================================================
+    // TEST: Clave fonética
+    // ============================================================
+
+    @Test
+    @DisplayName("Clave fonética no depende del orden de los apellidos")
+    void testClaveFonetica_OrdenApellidos() {
+        assertEquals("GMS-PRS", ComparadorAsegurados.claveFonetica("PEREZ GOMEZ JUAN"));
+        assertEquals("GMS-PRS", ComparadorAsegurados.claveFonetica("GOMES PERES MARIA"));
+    }
+
+    @Test
+    @DisplayName("Clave fonética ignora partículas y términos de una letra")
+    void testClaveFonetica_Particulas() {
+        assertEquals("AN-KRS", ComparadorAsegurados.claveFonetica("DE LA CRUZ ANA"));
+        assertEquals(ComparadorAsegurados.claveFonetica("PEREZ GOMEZ"),
+                ComparadorAsegurados.claveFonetica("PEREZ Y GOMEZ"));
+        assertNull(ComparadorAsegurados.claveFonetica("A"));
+        assertNull(ComparadorAsegurados.claveFonetica(null));
+    }
+
+    // ============================================================
+    // TEST: Jaro-Winkler
+    // ============================================================
+
+    @Test
+    @DisplayName("Jaro-Winkler con los valores de referencia")
+    void testJaroWinkler_Referencia() {
+        assertEquals(0.9611, ComparadorAsegurados.jaroWinkler("MARTHA", "MARHTA"), 1e-4);
+        assertEquals(0.8400, ComparadorAsegurados.jaroWinkler("DWAYNE", "DUANE"), 1e-4);
+    }
+
+    @Test
+    @DisplayName("Jaro-Winkler: iguales = 1, sin letras en común = 0, simétrico")
+    void testJaroWinkler_Extremos() {
+        assertEquals(1.0, ComparadorAsegurados.jaroWinkler("QUISPE", "QUISPE"));
+        assertEquals(1.0, ComparadorAsegurados.jaroWinkler("", ""));
+        assertEquals(0.0, ComparadorAsegurados.jaroWinkler("ABC", "XYZ"));
+        assertEquals(0.0, ComparadorAsegurados.jaroWinkler("ABC", ""));
+        assertEquals(ComparadorAsegurados.jaroWinkler("DWAYNE", "DUANE"),
+                ComparadorAsegurados.jaroWinkler("DUANE", "DWAYNE"), 1e-12);
+    }
+
+    // ============================================================
+    // TEST: Puntaje
+    // ============================================================
+
+    @Test
+    @DisplayName("Registro normaliza DNI (7 → 8 dígitos) y nombre (sin tildes)")
+    void testRegistro_Normaliza() {
+        Registro r = ComparadorAsegurados.registro("1", " 4455667 ", "Quispe Mamaní, Rosa", NACIMIENTO);
+
+        assertEquals("04455667", r.dni());
+        assertEquals("QUISPE MAMANI ROSA", r.nombre());
+        assertEquals("KSP-MN", r.claveFonetica());
+        assertEquals("1985-03-14|K", r.claveNacimiento());
+    }
+
+    @Test
+    @DisplayName("Nombre casi igual y misma fecha de nacimiento pasa el umbral aunque el DNI difiera")
+    void testPuntaje_NombreCasiIgualMismaFecha() {
+        Registro a = ComparadorAsegurados.registro("1", "44556677", "QUISPE MAMANI ROSA ELENA", NACIMIENTO);
+        Registro b = ComparadorAsegurados.registro("2", "44556678", "QUISPE MAMANI ROSA ELINA", NACIMIENTO);
+
+        assertTrue(ComparadorAsegurados.puntaje(a, b) >= UMBRAL);
+        assertEquals(ComparadorAsegurados.puntaje(a, b), ComparadorAsegurados.puntaje(b, a), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Mismo DNI y fecha con una letra distinta en el nombre puntúa casi 1")
+    void testPuntaje_MismoDni() {
+        Registro a = ComparadorAsegurados.registro("1", "44556677", "QUISPE MAMANI ROSA ELENA", NACIMIENTO);
+        Registro b = ComparadorAsegurados.registro("2", "44556677", "QUISPE MAMANY ROSA ELENA", NACIMIENTO);
+
+        assertEquals(1.0, ComparadorAsegurados.puntaje(a, a));
+        assertTrue(ComparadorAsegurados.puntaje(a, b) > 0.95);
+    }
+
+    @Test
+    @DisplayName("Homónimo sin DNI ni fecha en común no pasa el umbral")
+    void testPuntaje_Homonimo() {
+        Registro a = ComparadorAsegurados.registro("1", "44556677", "QUISPE MAMANI ROSA ELENA", NACIMIENTO);
+        Registro otraFecha = ComparadorAsegurados.registro("2", "12345678", "QUISPE MAMANI ROSA ELENA",
+                LocalDate.of(1990, 1, 1));
+        Registro sinFecha = ComparadorAsegurados.registro("3", "12345678", "QUISPE MAMANI ROSA ELENA", null);
+
+        assertTrue(ComparadorAsegurados.puntaje(a, otraFecha) < UMBRAL);
+        assertTrue(ComparadorAsegurados.puntaje(a, sinFecha) < UMBRAL);
+    }
+
+    @Test
+    @DisplayName("Mismo DNI con nombre y fecha distintos no pasa el umbral")
+    void testPuntaje_SoloDni() {
+        Registro a = ComparadorAsegurados.registro("1", "44556677", "QUISPE MAMANI ROSA ELENA", NACIMIENTO);
+        Registro b = ComparadorAsegurados.registro("2", "44556677", "TORRES VEGA LUIS", LocalDate.of(1990, 1, 1));
+
+        assertTrue(ComparadorAsegurados.puntaje(a, b) < UMBRAL);
+    }
+}
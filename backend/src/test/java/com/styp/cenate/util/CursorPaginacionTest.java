@@ -0,0 +1,54 @@
+package com.styp.cenate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit Tests para CursorPaginacion (v2.6.0)
+ * Cubre: ida y vuelta, valores vacíos y cursores inválidos
+ */
+@DisplayName("CursorPaginacion Unit Tests")
+class CursorPaginacionTest {
+
+    @Test
+    @DisplayName("Codificar y decodificar devuelve los mismos valores")
+    void testCodificarDecodificar() {
+        String cursor = CursorPaginacion.codificar("06760870", "PK-123");
+
+        assertArrayEquals(new String[] {"06760870", "PK-123"}, CursorPaginacion.decodificar(cursor, 2));
+    }
+
+    @Test
+    @DisplayName("El cursor es opaco y seguro para URL")
+    void testCursorOpaco() {
+        String cursor = CursorPaginacion.codificar("PÉREZ / ÑAHUI?", 42);
+
+        assertFalse(cursor.contains("PÉREZ"));
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+        assertArrayEquals(new String[] {"PÉREZ / ÑAHUI?", "42"}, CursorPaginacion.decodificar(cursor, 2));
+    }
+
+    @Test
+    @DisplayName("Conserva los valores vacíos")
+    void testValoresVacios() {
+        String cursor = CursorPaginacion.codificar("", "PK-1");
+
+        assertArrayEquals(new String[] {"", "PK-1"}, CursorPaginacion.decodificar(cursor, 2));
+    }
+
+    @Test
+    @DisplayName("Rechaza un cursor que no es Base64")
+    void testRechazaBase64Invalido() {
+        assertThrows(IllegalArgumentException.class, () -> CursorPaginacion.decodificar("no es base64!", 2));
+    }
+
+    @Test
+    @DisplayName("Rechaza un cursor con otra cantidad de valores")
+    void testRechazaCantidadDistinta() {
+        String cursor = CursorPaginacion.codificar("a", "b", "c");
+
+        assertThrows(IllegalArgumentException.class, () -> CursorPaginacion.decodificar(cursor, 2));
+    }
+}